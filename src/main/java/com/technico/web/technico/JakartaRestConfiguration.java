@@ -2,8 +2,29 @@ package com.technico.web.technico;
 
 import jakarta.ws.rs.ApplicationPath;
 import jakarta.ws.rs.core.Application;
+import java.util.HashMap;
+import java.util.Map;
 
 @ApplicationPath("appPath")
 public class JakartaRestConfiguration extends Application {
-   
+
+    public static final String COMPRESSION_THRESHOLD = "technico.compression.threshold";
+    public static final String COMPRESSION_LEVEL = "technico.compression.level";
+    public static final String COMPRESSION_CACHE_BYTES = "technico.compression.cacheBytes";
+
+    /**
+     * Application wide settings, readable by providers through the injected
+     * Configuration. Each one can be overridden with a system property of the
+     * same name.
+     *
+     * @return the application properties.
+     */
+    @Override
+    public Map<String, Object> getProperties() {
+        Map<String, Object> properties = new HashMap<>();
+        properties.put(COMPRESSION_THRESHOLD, Integer.getInteger(COMPRESSION_THRESHOLD, 1024));
+        properties.put(COMPRESSION_LEVEL, Integer.getInteger(COMPRESSION_LEVEL, 6));
+        properties.put(COMPRESSION_CACHE_BYTES, Integer.getInteger(COMPRESSION_CACHE_BYTES, 16 * 1024 * 1024));
+        return properties;
+    }
 }
@@ -0,0 +1,140 @@
+package com.technico.web.technico.analytics;
+
+import com.technico.web.technico.dtos.OwnerCompletionDto;
+import com.technico.web.technico.dtos.RepairOverrunDto;
+import com.technico.web.technico.dtos.RepairTypeCostDto;
+import com.technico.web.technico.events.ReloadableState;
+import com.technico.web.technico.events.RepairChangedEvent;
+import com.technico.web.technico.models.RepairStatus;
+import com.technico.web.technico.repositories.RepairRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import jakarta.enterprise.concurrent.ManagedExecutorService;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.context.Initialized;
+import jakarta.enterprise.event.Observes;
+import jakarta.enterprise.event.TransactionPhase;
+import jakarta.inject.Inject;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Holds a columnar copy of the non-deleted repairs for analytics. The copy is
+ * loaded from the database in the background when the application starts and
+ * then kept current from the repair change events of committed transactions,
+ * as a {@link ReloadableState}, so scans never touch the database or load
+ * entities.
+ *
+ * Scans run on a dedicated fork-join pool and hold the read lock, so a change
+ * waits for the scans in progress and the scans always see whole changes.
+ */
+@Slf4j
+@ApplicationScoped
+public class RepairColumnStore {
+
+    public static final String PARALLELISM = "technico.analytics.parallelism";
+
+    @Inject
+    private RepairRepository repairRepository;
+
+    @Resource
+    private ManagedExecutorService executor;
+
+    private final ReloadableState<RepairColumns, RepairChangedEvent> state = new ReloadableState<>(
+            new RepairColumns(), RepairColumns::apply);
+    private ForkJoinPool pool;
+
+    @PostConstruct
+    void init() {
+        pool = new ForkJoinPool(Integer.getInteger(PARALLELISM, Runtime.getRuntime().availableProcessors()));
+    }
+
+    @PreDestroy
+    void shutdown() {
+        pool.shutdownNow();
+    }
+
+    void onStartup(@Observes @Initialized(ApplicationScoped.class) Object event) {
+        executor.submit(() -> {
+            try {
+                reload();
+            } catch (RuntimeException e) {
+                log.warn("Could not load the repair analytics columns", e);
+            }
+        });
+    }
+
+    void onRepairChanged(@Observes(during = TransactionPhase.AFTER_SUCCESS) RepairChangedEvent event) {
+        state.apply(event);
+    }
+
+    /**
+     * Reads every non-deleted repair from the database into new columns and
+     * swaps them in. Does nothing if a reload is already running.
+     *
+     * @return the number of repairs loaded, or -1 if a reload was already
+     * running.
+     */
+    public int reload() {
+        long started = System.nanoTime();
+        RepairColumns fresh = state.reload(() -> {
+            RepairColumns columns = new RepairColumns();
+            repairRepository.scrollRepairColumns(columns::put);
+            return columns;
+        });
+        if (fresh == null) {
+            return -1;
+        }
+        log.info("Loaded {} repairs into the analytics columns in {} ms", fresh.size(),
+                (System.nanoTime() - started) / 1_000_000);
+        return fresh.size();
+    }
+
+    public boolean isLoaded() {
+        return state.isLoaded();
+    }
+
+    /**
+     * Sums the repairs and their proposed costs by repair type.
+     *
+     * @param repairStatus only repairs with this status, if not null.
+     * @return one entry per repair type.
+     */
+    public List<RepairTypeCostDto> costsByType(RepairStatus repairStatus) {
+        return scan(current -> RepairKernels.costsByType(current, pool, repairStatus));
+    }
+
+    /**
+     * Compares the actual start and end dates of the repairs with their
+     * scheduled ones, by repair type.
+     *
+     * @return one entry per repair type.
+     */
+    public List<RepairOverrunDto> overrunsByType() {
+        return scan(current -> RepairKernels.overrunsByType(current, pool));
+    }
+
+    /**
+     * Counts the completed and declined repairs of each owner.
+     *
+     * @param minRepairs only owners with at least this many repairs.
+     * @param limit the maximum number of owners, those with the most repairs
+     * first.
+     * @return one entry per owner.
+     */
+    public List<OwnerCompletionDto> completionByOwner(int minRepairs, int limit) {
+        return scan(current -> RepairKernels.completionByOwner(current, pool, minRepairs, limit));
+    }
+
+    private <T> T scan(Function<RepairColumns, T> kernel) {
+        state.readLock().lock();
+        try {
+            return kernel.apply(state.get());
+        } finally {
+            state.readLock().unlock();
+        }
+    }
+}
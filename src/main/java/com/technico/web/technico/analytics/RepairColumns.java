@@ -0,0 +1,164 @@
+package com.technico.web.technico.analytics;
+
+import com.technico.web.technico.events.RepairChangedEvent;
+import com.technico.web.technico.events.RepairSnapshot;
+import com.technico.web.technico.models.PropertyType;
+import com.technico.web.technico.models.RepairStatus;
+import com.technico.web.technico.models.RepairType;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The non-deleted repairs laid out column by column in primitive arrays, so
+ * that a scan touches only the columns it needs and allocates nothing per
+ * row. Enums are stored as their ordinal, costs as cents and dates as epoch
+ * seconds; a missing value is {@link #NO_VALUE}, or {@link #NO_ORDINAL} for an
+ * enum. Row order is arbitrary: removing a repair moves the last row into its
+ * place.
+ *
+ * Not thread safe; {@link RepairColumnStore} guards it.
+ */
+public final class RepairColumns {
+
+    public static final long NO_VALUE = Long.MIN_VALUE;
+    public static final byte NO_ORDINAL = -1;
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    int size;
+    long[] ids;
+    long[] ownerIds;
+    byte[] repairTypes;
+    byte[] repairStatuses;
+    byte[] propertyTypes;
+    long[] costCents;
+    long[] scheduledStarts;
+    long[] scheduledEnds;
+    long[] actualStarts;
+    long[] actualEnds;
+
+    private final Map<Long, Integer> rowsById = new HashMap<>();
+
+    RepairColumns() {
+        ids = new long[INITIAL_CAPACITY];
+        ownerIds = new long[INITIAL_CAPACITY];
+        repairTypes = new byte[INITIAL_CAPACITY];
+        repairStatuses = new byte[INITIAL_CAPACITY];
+        propertyTypes = new byte[INITIAL_CAPACITY];
+        costCents = new long[INITIAL_CAPACITY];
+        scheduledStarts = new long[INITIAL_CAPACITY];
+        scheduledEnds = new long[INITIAL_CAPACITY];
+        actualStarts = new long[INITIAL_CAPACITY];
+        actualEnds = new long[INITIAL_CAPACITY];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Adds a repair read by {@code RepairRepository.scrollRepairColumns}.
+     *
+     * @param row the columns of the repair, in the order of the query.
+     */
+    void put(Object[] row) {
+        put((Long) row[0], (Long) row[1], (RepairType) row[2], (RepairStatus) row[3], (PropertyType) row[4],
+                (BigDecimal) row[5], (LocalDateTime) row[6], (LocalDateTime) row[7], (LocalDateTime) row[8],
+                (LocalDateTime) row[9]);
+    }
+
+    /**
+     * Applies a change to a repair: the repair is replaced by its new state,
+     * or removed if it was deleted.
+     *
+     * @param event the change.
+     */
+    void apply(RepairChangedEvent event) {
+        RepairSnapshot after = event.getAfter();
+        if (after == null || after.isDeleted()) {
+            remove(event.getRepairId());
+            return;
+        }
+        put(after.getId(), after.getOwnerId(), after.getRepairType(), after.getRepairStatus(),
+                after.getPropertyType(), after.getProposedCost(), after.getScheduledStartDate(),
+                after.getScheduledEndDate(), after.getActualStartDate(), after.getActualEndDate());
+    }
+
+    private void put(Long id, Long ownerId, RepairType repairType, RepairStatus repairStatus,
+            PropertyType propertyType, BigDecimal proposedCost, LocalDateTime scheduledStart,
+            LocalDateTime scheduledEnd, LocalDateTime actualStart, LocalDateTime actualEnd) {
+        Integer existing = rowsById.get(id);
+        int row;
+        if (existing != null) {
+            row = existing;
+        } else {
+            if (size == ids.length) {
+                grow();
+            }
+            row = size++;
+            rowsById.put(id, row);
+        }
+        ids[row] = id;
+        ownerIds[row] = ownerId == null ? NO_VALUE : ownerId;
+        repairTypes[row] = ordinal(repairType);
+        repairStatuses[row] = ordinal(repairStatus);
+        propertyTypes[row] = ordinal(propertyType);
+        costCents[row] = proposedCost == null
+                ? NO_VALUE
+                : proposedCost.movePointRight(2).setScale(0, RoundingMode.HALF_UP).longValue();
+        scheduledStarts[row] = epochSecond(scheduledStart);
+        scheduledEnds[row] = epochSecond(scheduledEnd);
+        actualStarts[row] = epochSecond(actualStart);
+        actualEnds[row] = epochSecond(actualEnd);
+    }
+
+    private void remove(Long id) {
+        Integer removed = rowsById.remove(id);
+        if (removed == null) {
+            return;
+        }
+        int row = removed;
+        int last = --size;
+        if (row == last) {
+            return;
+        }
+        ids[row] = ids[last];
+        ownerIds[row] = ownerIds[last];
+        repairTypes[row] = repairTypes[last];
+        repairStatuses[row] = repairStatuses[last];
+        propertyTypes[row] = propertyTypes[last];
+        costCents[row] = costCents[last];
+        scheduledStarts[row] = scheduledStarts[last];
+        scheduledEnds[row] = scheduledEnds[last];
+        actualStarts[row] = actualStarts[last];
+        actualEnds[row] = actualEnds[last];
+        rowsById.put(ids[row], row);
+    }
+
+    private void grow() {
+        int capacity = ids.length * 2;
+        ids = Arrays.copyOf(ids, capacity);
+        ownerIds = Arrays.copyOf(ownerIds, capacity);
+        repairTypes = Arrays.copyOf(repairTypes, capacity);
+        repairStatuses = Arrays.copyOf(repairStatuses, capacity);
+        propertyTypes = Arrays.copyOf(propertyTypes, capacity);
+        costCents = Arrays.copyOf(costCents, capacity);
+        scheduledStarts = Arrays.copyOf(scheduledStarts, capacity);
+        scheduledEnds = Arrays.copyOf(scheduledEnds, capacity);
+        actualStarts = Arrays.copyOf(actualStarts, capacity);
+        actualEnds = Arrays.copyOf(actualEnds, capacity);
+    }
+
+    private static byte ordinal(Enum<?> value) {
+        return value == null ? NO_ORDINAL : (byte) value.ordinal();
+    }
+
+    private static long epochSecond(LocalDateTime dateTime) {
+        return dateTime == null ? NO_VALUE : dateTime.toEpochSecond(ZoneOffset.UTC);
+    }
+}
@@ -0,0 +1,164 @@
+package com.technico.web.technico.analytics;
+
+import com.technico.web.technico.dtos.OwnerCompletionDto;
+import com.technico.web.technico.dtos.RepairOverrunDto;
+import com.technico.web.technico.dtos.RepairTypeCostDto;
+import com.technico.web.technico.models.RepairStatus;
+import com.technico.web.technico.models.RepairType;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * The aggregations over {@link RepairColumns}. Each one scans the rows in
+ * parallel into small primitive accumulators and merges them.
+ */
+final class RepairKernels {
+
+    private static final RepairType[] REPAIR_TYPES = RepairType.values();
+    private static final double SECONDS_PER_HOUR = 3600.0;
+
+    // Per repair type: repairs, repairs with a cost, total cents.
+    private static final int COST_SLOTS = 3;
+
+    // Per repair type: started, total start delay, finished, late, total
+    // overrun, largest overrun.
+    private static final int OVERRUN_SLOTS = 6;
+
+    // Per owner: repairs, completed, declined.
+    private static final int COMPLETION_SLOTS = 3;
+
+    private RepairKernels() {
+    }
+
+    static List<RepairTypeCostDto> costsByType(RepairColumns columns, ForkJoinPool pool, RepairStatus repairStatus) {
+        byte status = repairStatus == null ? RepairColumns.NO_ORDINAL : (byte) repairStatus.ordinal();
+        long[] totals = pool.invoke(new RowScan<long[]>(0, columns.size, (from, to) -> {
+            long[] partial = new long[REPAIR_TYPES.length * COST_SLOTS];
+            for (int row = from; row < to; row++) {
+                byte type = columns.repairTypes[row];
+                if (type == RepairColumns.NO_ORDINAL
+                        || (status != RepairColumns.NO_ORDINAL && columns.repairStatuses[row] != status)) {
+                    continue;
+                }
+                int slot = type * COST_SLOTS;
+                partial[slot]++;
+                long cents = columns.costCents[row];
+                if (cents != RepairColumns.NO_VALUE) {
+                    partial[slot + 1]++;
+                    partial[slot + 2] += cents;
+                }
+            }
+            return partial;
+        }, RepairKernels::sum));
+
+        List<RepairTypeCostDto> costs = new ArrayList<>();
+        for (RepairType type : REPAIR_TYPES) {
+            int slot = type.ordinal() * COST_SLOTS;
+            long costed = totals[slot + 1];
+            BigDecimal total = BigDecimal.valueOf(totals[slot + 2], 2);
+            costs.add(new RepairTypeCostDto(type, totals[slot], costed, total,
+                    costed == 0 ? null : total.divide(BigDecimal.valueOf(costed), 2, RoundingMode.HALF_UP)));
+        }
+        return costs;
+    }
+
+    static List<RepairOverrunDto> overrunsByType(RepairColumns columns, ForkJoinPool pool) {
+        long[] totals = pool.invoke(new RowScan<long[]>(0, columns.size, (from, to) -> {
+            long[] partial = new long[REPAIR_TYPES.length * OVERRUN_SLOTS];
+            for (int slot = 5; slot < partial.length; slot += OVERRUN_SLOTS) {
+                partial[slot] = Long.MIN_VALUE;
+            }
+            for (int row = from; row < to; row++) {
+                byte type = columns.repairTypes[row];
+                if (type == RepairColumns.NO_ORDINAL) {
+                    continue;
+                }
+                int slot = type * OVERRUN_SLOTS;
+                if (columns.actualStarts[row] != RepairColumns.NO_VALUE
+                        && columns.scheduledStarts[row] != RepairColumns.NO_VALUE) {
+                    partial[slot]++;
+                    partial[slot + 1] += columns.actualStarts[row] - columns.scheduledStarts[row];
+                }
+                if (columns.actualEnds[row] != RepairColumns.NO_VALUE
+                        && columns.scheduledEnds[row] != RepairColumns.NO_VALUE) {
+                    long overrun = columns.actualEnds[row] - columns.scheduledEnds[row];
+                    partial[slot + 2]++;
+                    if (overrun > 0) {
+                        partial[slot + 3]++;
+                    }
+                    partial[slot + 4] += overrun;
+                    partial[slot + 5] = Math.max(partial[slot + 5], overrun);
+                }
+            }
+            return partial;
+        }, (left, right) -> {
+            for (int i = 0; i < left.length; i++) {
+                left[i] = i % OVERRUN_SLOTS == 5 ? Math.max(left[i], right[i]) : left[i] + right[i];
+            }
+            return left;
+        }));
+
+        List<RepairOverrunDto> overruns = new ArrayList<>();
+        for (RepairType type : REPAIR_TYPES) {
+            int slot = type.ordinal() * OVERRUN_SLOTS;
+            long started = totals[slot];
+            long finished = totals[slot + 2];
+            overruns.add(new RepairOverrunDto(type,
+                    started,
+                    started == 0 ? null : totals[slot + 1] / SECONDS_PER_HOUR / started,
+                    finished,
+                    totals[slot + 3],
+                    finished == 0 ? null : totals[slot + 4] / SECONDS_PER_HOUR / finished,
+                    finished == 0 ? null : totals[slot + 5] / SECONDS_PER_HOUR));
+        }
+        return overruns;
+    }
+
+    static List<OwnerCompletionDto> completionByOwner(RepairColumns columns, ForkJoinPool pool, int minRepairs,
+            int limit) {
+        byte complete = (byte) RepairStatus.COMPLETE.ordinal();
+        byte declined = (byte) RepairStatus.DECLINED.ordinal();
+        Map<Long, long[]> owners = pool.invoke(new RowScan<Map<Long, long[]>>(0, columns.size, (from, to) -> {
+            Map<Long, long[]> partial = new HashMap<>();
+            for (int row = from; row < to; row++) {
+                long[] counts = partial.computeIfAbsent(columns.ownerIds[row], owner -> new long[COMPLETION_SLOTS]);
+                counts[0]++;
+                if (columns.repairStatuses[row] == complete) {
+                    counts[1]++;
+                } else if (columns.repairStatuses[row] == declined) {
+                    counts[2]++;
+                }
+            }
+            return partial;
+        }, (left, right) -> {
+            Map<Long, long[]> larger = left.size() >= right.size() ? left : right;
+            Map<Long, long[]> smaller = larger == left ? right : left;
+            smaller.forEach((owner, counts) -> larger.merge(owner, counts, RepairKernels::sum));
+            return larger;
+        }));
+
+        List<OwnerCompletionDto> completion = new ArrayList<>();
+        owners.forEach((owner, counts) -> {
+            if (owner != RepairColumns.NO_VALUE && counts[0] >= minRepairs) {
+                completion.add(new OwnerCompletionDto(owner, counts[0], counts[1], counts[2],
+                        (double) counts[1] / counts[0]));
+            }
+        });
+        completion.sort(Comparator.comparingLong(OwnerCompletionDto::getRepairCount).reversed()
+                .thenComparingLong(OwnerCompletionDto::getOwnerId));
+        return completion.size() > limit ? new ArrayList<>(completion.subList(0, limit)) : completion;
+    }
+
+    private static long[] sum(long[] left, long[] right) {
+        for (int i = 0; i < left.length; i++) {
+            left[i] += right[i];
+        }
+        return left;
+    }
+}
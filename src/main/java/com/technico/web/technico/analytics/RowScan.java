@@ -0,0 +1,53 @@
+package com.technico.web.technico.analytics;
+
+import java.util.concurrent.RecursiveTask;
+import java.util.function.BinaryOperator;
+
+/**
+ * A fork-join scan over a range of rows: the range is halved until it is
+ * small enough to scan in one task, and the partial results are merged on
+ * the way back up.
+ *
+ * @param <A> the partial result of a range of rows.
+ */
+final class RowScan<A> extends RecursiveTask<A> {
+
+    private static final int LEAF_ROWS = 16_384;
+
+    interface Leaf<A> {
+
+        /**
+         * Scans the rows from {@code from}, inclusive, to {@code to},
+         * exclusive.
+         *
+         * @param from the first row.
+         * @param to the row after the last row.
+         * @return the partial result of the rows.
+         */
+        A scan(int from, int to);
+    }
+
+    private final int from;
+    private final int to;
+    private final Leaf<A> leaf;
+    private final BinaryOperator<A> merge;
+
+    RowScan(int from, int to, Leaf<A> leaf, BinaryOperator<A> merge) {
+        this.from = from;
+        this.to = to;
+        this.leaf = leaf;
+        this.merge = merge;
+    }
+
+    @Override
+    protected A compute() {
+        if (to - from <= LEAF_ROWS) {
+            return leaf.scan(from, to);
+        }
+        int middle = (from + to) >>> 1;
+        RowScan<A> left = new RowScan<>(from, middle, leaf, merge);
+        left.fork();
+        A right = new RowScan<>(middle, to, leaf, merge).compute();
+        return merge.apply(left.join(), right);
+    }
+}
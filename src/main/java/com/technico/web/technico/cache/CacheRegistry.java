@@ -0,0 +1,69 @@
+package com.technico.web.technico.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.CacheLoader;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import jakarta.enterprise.context.ApplicationScoped;
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Builds the application's in-memory caches and keeps track of them for
+ * statistics. Caches are backed by Caffeine, which gives W-TinyLFU admission
+ * and eviction, size or weight bounds, expiry and refresh, and lock-free reads
+ * through striped read buffers. Any bean can inject the registry and build its
+ * own named cache instead of holding an unbounded map.
+ */
+@Slf4j
+@ApplicationScoped
+public class CacheRegistry {
+
+    private final Map<String, Cache<?, ?>> caches = new ConcurrentHashMap<>();
+
+    /**
+     * Builds and registers a cache.
+     *
+     * @param name the unique name of the cache, used in statistics.
+     * @param spec the bounds and expiry of the cache.
+     * @return the new cache.
+     */
+    public <K, V> Cache<K, V> build(String name, CacheSpec<K, V> spec) {
+        Cache<K, V> cache = spec.toBuilder(name).build();
+        register(name, cache);
+        return cache;
+    }
+
+    /**
+     * Builds and registers a cache that loads missing entries, and refreshes
+     * them if the spec asks for it.
+     *
+     * @param name the unique name of the cache, used in statistics.
+     * @param spec the bounds, expiry and refresh of the cache.
+     * @param loader loads the value of a missing key.
+     * @return the new loading cache.
+     */
+    public <K, V> LoadingCache<K, V> build(String name, CacheSpec<K, V> spec, CacheLoader<K, V> loader) {
+        LoadingCache<K, V> cache = spec.toBuilder(name).build(loader);
+        register(name, cache);
+        return cache;
+    }
+
+    /**
+     * Returns every registered cache by name.
+     *
+     * @return a read-only, name ordered view of the caches.
+     */
+    public Map<String, Cache<?, ?>> getCaches() {
+        return Collections.unmodifiableMap(new TreeMap<>(caches));
+    }
+
+    private void register(String name, Cache<?, ?> cache) {
+        if (caches.putIfAbsent(name, cache) != null) {
+            throw new IllegalStateException("A cache named " + name + " is already registered");
+        }
+        log.debug("Registered cache " + name);
+    }
+}
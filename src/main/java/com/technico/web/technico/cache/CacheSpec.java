@@ -0,0 +1,128 @@
+package com.technico.web.technico.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalListener;
+import com.github.benmanes.caffeine.cache.Weigher;
+import java.time.Duration;
+import lombok.Getter;
+
+/**
+ * Describes the bounds and expiry of a cache built by the CacheRegistry. A
+ * cache is bounded either by entry count or by total weight; unbounded caches
+ * cannot be built.
+ */
+@Getter
+public class CacheSpec<K, V> {
+
+    private long maximumSize = -1;
+    private long maximumWeight = -1;
+    private Weigher<? super K, ? super V> weigher;
+    private Duration expireAfterWrite;
+    private Duration expireAfterAccess;
+    private Duration refreshAfterWrite;
+    private RemovalListener<? super K, ? super V> evictionListener;
+
+    private CacheSpec() {
+    }
+
+    /**
+     * Starts a spec for a cache holding at most the given number of entries.
+     *
+     * @param maximumSize the maximum number of entries.
+     * @return the spec.
+     */
+    public static <K, V> CacheSpec<K, V> maximumSize(long maximumSize) {
+        CacheSpec<K, V> spec = new CacheSpec<>();
+        spec.maximumSize = maximumSize;
+        return spec;
+    }
+
+    /**
+     * Starts a spec for a cache whose entries may weigh at most the given
+     * total, e.g. bytes of cached bodies.
+     *
+     * @param maximumWeight the maximum total weight.
+     * @param weigher computes the weight of an entry.
+     * @return the spec.
+     */
+    public static <K, V> CacheSpec<K, V> maximumWeight(long maximumWeight, Weigher<? super K, ? super V> weigher) {
+        CacheSpec<K, V> spec = new CacheSpec<>();
+        spec.maximumWeight = maximumWeight;
+        spec.weigher = weigher;
+        return spec;
+    }
+
+    public CacheSpec<K, V> expireAfterWrite(Duration duration) {
+        this.expireAfterWrite = duration;
+        return this;
+    }
+
+    public CacheSpec<K, V> expireAfterAccess(Duration duration) {
+        this.expireAfterAccess = duration;
+        return this;
+    }
+
+    /**
+     * Reloads entries in the background once they are older than the given
+     * duration, while the stale value keeps being served. Only valid for
+     * loading caches.
+     *
+     * @param duration the age after which an entry is refreshed.
+     * @return the spec.
+     */
+    public CacheSpec<K, V> refreshAfterWrite(Duration duration) {
+        this.refreshAfterWrite = duration;
+        return this;
+    }
+
+    /**
+     * Registers a listener called synchronously, while the entry is being
+     * evicted because of size or expiry. Explicit invalidations do not call
+     * it.
+     *
+     * @param listener the eviction listener.
+     * @return the spec.
+     */
+    public CacheSpec<K, V> evictionListener(RemovalListener<? super K, ? super V> listener) {
+        this.evictionListener = listener;
+        return this;
+    }
+
+    /**
+     * Creates the Caffeine builder for this spec, with statistics enabled.
+     * The size or weight bound can be overridden per cache with the system
+     * properties technico.cache.NAME.maximumSize and
+     * technico.cache.NAME.maximumWeight.
+     *
+     * @param name the name of the cache.
+     * @return the configured builder.
+     */
+    @SuppressWarnings("unchecked")
+    Caffeine<K, V> toBuilder(String name) {
+        Caffeine<Object, Object> builder = Caffeine.newBuilder().recordStats();
+        if (expireAfterWrite != null) {
+            builder.expireAfterWrite(expireAfterWrite);
+        }
+        if (expireAfterAccess != null) {
+            builder.expireAfterAccess(expireAfterAccess);
+        }
+        if (refreshAfterWrite != null) {
+            builder.refreshAfterWrite(refreshAfterWrite);
+        }
+
+        Caffeine<K, V> typed;
+        if (maximumWeight >= 0) {
+            builder.maximumWeight(Long.getLong("technico.cache." + name + ".maximumWeight", maximumWeight));
+            typed = builder.weigher(weigher);
+        } else if (maximumSize >= 0) {
+            builder.maximumSize(Long.getLong("technico.cache." + name + ".maximumSize", maximumSize));
+            typed = (Caffeine<K, V>) (Object) builder;
+        } else {
+            throw new IllegalStateException("Cache " + name + " must be bounded by size or weight");
+        }
+        if (evictionListener != null) {
+            typed = typed.evictionListener(evictionListener);
+        }
+        return typed;
+    }
+}
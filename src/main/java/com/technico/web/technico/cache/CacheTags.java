@@ -0,0 +1,158 @@
+package com.technico.web.technico.cache;
+
+import com.technico.web.technico.models.Owner;
+import com.technico.web.technico.models.Property;
+import com.technico.web.technico.models.Repair;
+import jakarta.ws.rs.core.MultivaluedMap;
+import java.util.ArrayList;
+import java.util.List;
+
+public final class CacheTags {
+
+    public static final String OWNER_BY_ID = "owner:{id}";
+    public static final String OWNER_BY_VAT = "owner-vat:{vat}";
+    public static final String PROPERTY_BY_ID = "property:{id}";
+    public static final String PROPERTY_BY_E9 = "property-e9:{e9}";
+    public static final String PROPERTIES_BY_VAT = "owner-properties:{vat}";
+    public static final String REPAIR_BY_ID = "repair:{id}";
+    public static final String REPAIRS_BY_OWNER_ID = "owner-repairs:{id}";
+
+    private CacheTags() {
+    }
+
+    /**
+     * Returns the tags of every cached response that a write to the owner can
+     * change.
+     *
+     * @param owner the written owner.
+     * @return the tags to invalidate.
+     */
+    public static List<String> of(Owner owner) {
+        List<String> tags = new ArrayList<>();
+        tags.add("owner:" + owner.getId());
+        tags.add("owner-vat:" + owner.getVat());
+        return tags;
+    }
+
+    /**
+     * Returns the tags of every cached response that a write to the property
+     * can change, including its owner's property and repair lists.
+     *
+     * @param property the written property.
+     * @return the tags to invalidate.
+     */
+    public static List<String> of(Property property) {
+        List<String> tags = new ArrayList<>();
+        tags.add("property:" + property.getId());
+        tags.add("property-e9:" + property.getE9());
+        if (property.getOwner() != null) {
+            tags.add("owner-properties:" + property.getOwner().getVat());
+            tags.add("owner-repairs:" + property.getOwner().getId());
+        }
+        return tags;
+    }
+
+    /**
+     * Returns the tags of every cached response that a write to the repair
+     * can change, including its owner's repair list.
+     *
+     * @param repair the written repair.
+     * @return the tags to invalidate.
+     */
+    public static List<String> of(Repair repair) {
+        List<String> tags = new ArrayList<>();
+        tags.add("repair:" + repair.getId());
+        if (repair.getProperty() != null && repair.getProperty().getOwner() != null) {
+            tags.add("owner-repairs:" + repair.getProperty().getOwner().getId());
+        }
+        return tags;
+    }
+
+    /**
+     * Returns the tags of the cached lists that a newly inserted property
+     * joins, for properties inserted without reading back their ids.
+     *
+     * @param property the inserted property, with its owner's VAT.
+     * @return the tags to invalidate.
+     */
+    public static List<String> ofInserted(Property property) {
+        List<String> tags = new ArrayList<>();
+        tags.add("property-e9:" + property.getE9());
+        tags.add("owner-properties:" + property.getOwner().getVat());
+        return tags;
+    }
+
+    /**
+     * Returns the tags of a repair and of its owner's repair list, for repairs
+     * updated without loading them.
+     *
+     * @param repairId the ID of the written repair.
+     * @param ownerId the ID of the owner of its property.
+     * @return the tags to invalidate.
+     */
+    public static List<String> ofRepair(Long repairId, Long ownerId) {
+        List<String> tags = new ArrayList<>();
+        tags.add("repair:" + repairId);
+        tags.add("owner-repairs:" + ownerId);
+        return tags;
+    }
+
+    /**
+     * Returns the tags of the owner, of all their properties and of all the
+     * repairs of those properties, for writes that cascade through the graph.
+     *
+     * @param owner the written owner.
+     * @return the tags to invalidate.
+     */
+    public static List<String> ofGraph(Owner owner) {
+        List<String> tags = of(owner);
+        tags.add("owner-properties:" + owner.getVat());
+        tags.add("owner-repairs:" + owner.getId());
+        if (owner.getPropertyList() != null) {
+            for (Property property : owner.getPropertyList()) {
+                tags.addAll(ofGraph(property));
+            }
+        }
+        return tags;
+    }
+
+    /**
+     * Returns the tags of the property and of all its repairs.
+     *
+     * @param property the written property.
+     * @return the tags to invalidate.
+     */
+    public static List<String> ofGraph(Property property) {
+        List<String> tags = of(property);
+        if (property.getRepairs() != null) {
+            for (Repair repair : property.getRepairs()) {
+                tags.add("repair:" + repair.getId());
+            }
+        }
+        return tags;
+    }
+
+    /**
+     * Fills the {param} placeholders of tag templates with path parameters.
+     *
+     * @param templates the tag templates of a resource method.
+     * @param pathParameters the path parameters of the request.
+     * @return the concrete tags.
+     */
+    static List<String> resolve(String[] templates, MultivaluedMap<String, String> pathParameters) {
+        List<String> tags = new ArrayList<>(templates.length);
+        for (String template : templates) {
+            String tag = template;
+            int open = tag.indexOf('{');
+            while (open >= 0) {
+                int close = tag.indexOf('}', open);
+                String name = tag.substring(open + 1, close);
+                String value = pathParameters.getFirst(name);
+                tag = tag.substring(0, open) + (value != null ? value : "") + tag.substring(close + 1);
+                open = tag.indexOf('{');
+            }
+            tags.add(tag);
+        }
+        return tags;
+    }
+}
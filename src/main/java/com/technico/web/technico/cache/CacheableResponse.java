@@ -0,0 +1,19 @@
+package com.technico.web.technico.cache;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a GET resource method whose serialized response is cached. The tags
+ * name the entities the response is built from, with {param} placeholders
+ * filled in from the path parameters, e.g. "property-e9:{e9}". A write that
+ * invalidates any of the tags evicts the response.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface CacheableResponse {
+
+    String[] tags();
+}
@@ -0,0 +1,161 @@
+package com.technico.web.technico.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.Resource;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.transaction.Synchronization;
+import jakarta.transaction.TransactionSynchronizationRegistry;
+import jakarta.ws.rs.core.MediaType;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Keeps the serialized bytes of cacheable GET responses. Every invalidation
+ * stamps its tags with a new value of a global clock; a response is stored
+ * with the clock value read before it was built, and is only served while
+ * none of its tags has been stamped later. A response built from data that a
+ * concurrent write is changing is therefore never served.
+ */
+@ApplicationScoped
+public class ResponseCache {
+
+    private static final long MAX_BODY_BYTES = 64L * 1024 * 1024;
+    private static final long MAX_TAGS = 200_000;
+    private static final Duration TIME_TO_LIVE = Duration.ofMinutes(30);
+
+    private final AtomicLong clock = new AtomicLong();
+    // Raised to the version of every tag evicted from invalidatedAt, so that a
+    // forgotten tag still invalidates the entries older than its last stamp.
+    private final AtomicLong evictedTagsVersion = new AtomicLong();
+    private Cache<String, Long> invalidatedAt;
+    private Cache<String, CachedResponse> entries;
+
+    @Inject
+    private CacheRegistry cacheRegistry;
+
+    @Resource
+    private TransactionSynchronizationRegistry transactionRegistry;
+
+    @PostConstruct
+    void init() {
+        entries = cacheRegistry.build("responses",
+                CacheSpec.<String, CachedResponse>maximumWeight(MAX_BODY_BYTES,
+                        (key, response) -> key.length() + response.getBody().length)
+                        .expireAfterWrite(TIME_TO_LIVE));
+        invalidatedAt = cacheRegistry.build("response-tags",
+                CacheSpec.<String, Long>maximumSize(MAX_TAGS)
+                        .evictionListener((tag, version, cause) -> evictedTagsVersion.accumulateAndGet(version, Math::max)));
+    }
+
+    /**
+     * Finds a cached response that is still valid.
+     *
+     * @param key the cache key of the request.
+     * @return the cached response, or null if there is none or it is stale.
+     */
+    public CachedResponse get(String key) {
+        CachedResponse cached = entries.getIfPresent(key);
+        if (cached == null) {
+            return null;
+        }
+        if (isStale(cached.getTags(), cached.getVersion())) {
+            entries.asMap().remove(key, cached);
+            return null;
+        }
+        return cached;
+    }
+
+    /**
+     * Starts building a response for a cache miss, recording the clock value
+     * the response will be checked against when it is stored.
+     *
+     * @param key the cache key of the request.
+     * @param tags the tags of the response.
+     * @return the pending entry to complete once the response is serialized.
+     */
+    public PendingResponse begin(String key, List<String> tags) {
+        return new PendingResponse(key, tags, clock.get());
+    }
+
+    /**
+     * Stores a serialized response, unless one of its tags was invalidated
+     * while it was being built.
+     *
+     * @param pending the pending entry returned by begin.
+     * @param body the serialized body.
+     * @param mediaType the media type of the body.
+     * @param etag the entity tag of the body.
+     */
+    public void put(PendingResponse pending, byte[] body, MediaType mediaType, String etag) {
+        if (isStale(pending.getTags(), pending.getVersion())) {
+            return;
+        }
+        entries.put(pending.getKey(), new CachedResponse(pending.getTags(), pending.getVersion(), body, mediaType, etag));
+    }
+
+    /**
+     * Invalidates every cached response carrying any of the tags. Inside a
+     * transaction the tags are invalidated again after it completes, so a
+     * response built from data read before the commit is not kept either.
+     *
+     * @param tags the tags of the written entities.
+     */
+    public void invalidate(Collection<String> tags) {
+        stamp(tags);
+        if (transactionRegistry != null && transactionRegistry.getTransactionKey() != null) {
+            transactionRegistry.registerInterposedSynchronization(new Synchronization() {
+                @Override
+                public void beforeCompletion() {
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    stamp(tags);
+                }
+            });
+        }
+    }
+
+    private void stamp(Collection<String> tags) {
+        long version = clock.incrementAndGet();
+        for (String tag : tags) {
+            invalidatedAt.asMap().merge(tag, version, Math::max);
+        }
+    }
+
+    private boolean isStale(List<String> tags, long version) {
+        for (String tag : tags) {
+            Long invalidated = invalidatedAt.getIfPresent(tag);
+            if ((invalidated != null ? invalidated : evictedTagsVersion.get()) > version) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class PendingResponse {
+
+        private final String key;
+        private final List<String> tags;
+        private final long version;
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class CachedResponse {
+
+        private final List<String> tags;
+        private final long version;
+        private final byte[] body;
+        private final MediaType mediaType;
+        private final String etag;
+    }
+}
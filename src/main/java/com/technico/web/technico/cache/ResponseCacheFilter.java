@@ -0,0 +1,87 @@
+package com.technico.web.technico.cache;
+
+import jakarta.inject.Inject;
+import jakarta.ws.rs.HttpMethod;
+import jakarta.ws.rs.container.ContainerRequestContext;
+import jakarta.ws.rs.container.ContainerRequestFilter;
+import jakarta.ws.rs.container.ContainerResponseContext;
+import jakarta.ws.rs.container.ContainerResponseFilter;
+import jakarta.ws.rs.container.ResourceInfo;
+import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.core.UriInfo;
+import jakarta.ws.rs.ext.Provider;
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.util.List;
+
+@Provider
+public class ResponseCacheFilter implements ContainerRequestFilter, ContainerResponseFilter {
+
+    static final String PENDING_PROPERTY = ResponseCacheFilter.class.getName() + ".pending";
+
+    @Context
+    private ResourceInfo resourceInfo;
+
+    @Inject
+    private ResponseCache responseCache;
+
+    /**
+     * Answers GET requests to cacheable resource methods from the cache,
+     * before the resource method, Hibernate or Jackson are involved. On a miss
+     * the request is marked so that the serialized response gets stored.
+     *
+     * @param requestContext the request context.
+     * @throws IOException never thrown.
+     */
+    @Override
+    public void filter(ContainerRequestContext requestContext) throws IOException {
+        if (!HttpMethod.GET.equals(requestContext.getMethod())) {
+            return;
+        }
+        Method method = resourceInfo.getResourceMethod();
+        CacheableResponse cacheable = method != null ? method.getAnnotation(CacheableResponse.class) : null;
+        if (cacheable == null) {
+            return;
+        }
+
+        UriInfo uriInfo = requestContext.getUriInfo();
+        String query = uriInfo.getRequestUri().getRawQuery();
+        String key = uriInfo.getPath()
+                + (query != null ? "?" + query : "")
+                + " " + requestContext.getHeaderString(HttpHeaders.ACCEPT);
+
+        ResponseCache.CachedResponse cached = responseCache.get(key);
+        if (cached == null) {
+            List<String> tags = CacheTags.resolve(cacheable.tags(), uriInfo.getPathParameters());
+            requestContext.setProperty(PENDING_PROPERTY, responseCache.begin(key, tags));
+            return;
+        }
+
+        if (cached.getEtag().equals(requestContext.getHeaderString(HttpHeaders.IF_NONE_MATCH))) {
+            requestContext.abortWith(Response.notModified()
+                    .header(HttpHeaders.ETAG, cached.getEtag())
+                    .build());
+            return;
+        }
+        requestContext.abortWith(Response.ok(cached.getBody(), cached.getMediaType())
+                .header(HttpHeaders.ETAG, cached.getEtag())
+                .build());
+    }
+
+    /**
+     * Only successful responses are stored in the cache.
+     *
+     * @param requestContext the request context.
+     * @param responseContext the response context.
+     * @throws IOException never thrown.
+     */
+    @Override
+    public void filter(ContainerRequestContext requestContext, ContainerResponseContext responseContext) throws IOException {
+        if (requestContext.getProperty(PENDING_PROPERTY) != null
+                && (responseContext.getStatus() != Response.Status.OK.getStatusCode() || !responseContext.hasEntity())) {
+            requestContext.removeProperty(PENDING_PROPERTY);
+        }
+    }
+}
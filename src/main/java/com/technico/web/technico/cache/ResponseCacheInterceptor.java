@@ -0,0 +1,115 @@
+package com.technico.web.technico.cache;
+
+import jakarta.annotation.Priority;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.Priorities;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.ext.Provider;
+import jakarta.ws.rs.ext.WriterInterceptor;
+import jakarta.ws.rs.ext.WriterInterceptorContext;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Base64;
+
+/**
+ * Captures the serialized body of a cacheable response on a cache miss. It
+ * runs inside the compression interceptor, so it sees the uncompressed bytes,
+ * and it tags the response with an ETag derived from those bytes before any of
+ * them is written.
+ */
+@Provider
+@Priority(Priorities.USER)
+public class ResponseCacheInterceptor implements WriterInterceptor {
+
+    private static final int MAX_CACHED_BODY_BYTES = 256 * 1024;
+
+    @Inject
+    private ResponseCache responseCache;
+
+    @Override
+    public void aroundWriteTo(WriterInterceptorContext context) throws IOException {
+        ResponseCache.PendingResponse pending = (ResponseCache.PendingResponse) context.getProperty(ResponseCacheFilter.PENDING_PROPERTY);
+        if (pending == null) {
+            context.proceed();
+            return;
+        }
+
+        OutputStream original = context.getOutputStream();
+        BoundedBuffer buffer = new BoundedBuffer(original);
+        context.setOutputStream(buffer);
+        try {
+            context.proceed();
+        } finally {
+            context.setOutputStream(original);
+        }
+        if (buffer.isOverflowed()) {
+            return;
+        }
+
+        byte[] body = buffer.toByteArray();
+        String etag = etag(body);
+        context.getHeaders().putSingle(HttpHeaders.ETAG, etag);
+        original.write(body);
+        responseCache.put(pending, body, context.getMediaType(), etag);
+    }
+
+    private static String etag(byte[] body) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(body);
+            return '"' + Base64.getUrlEncoder().withoutPadding().encodeToString(Arrays.copyOf(digest, 16)) + '"';
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Holds the body in memory until it exceeds the size limit, after which it
+     * passes everything straight through and the response is not cached.
+     */
+    private static class BoundedBuffer extends OutputStream {
+
+        private final OutputStream target;
+        private ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+
+        BoundedBuffer(OutputStream target) {
+            this.target = target;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (buffer != null && buffer.size() + len > MAX_CACHED_BODY_BYTES) {
+                buffer.writeTo(target);
+                buffer = null;
+            }
+            if (buffer != null) {
+                buffer.write(b, off, len);
+            } else {
+                target.write(b, off, len);
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            if (buffer == null) {
+                target.flush();
+            }
+        }
+
+        boolean isOverflowed() {
+            return buffer == null;
+        }
+
+        byte[] toByteArray() {
+            return buffer.toByteArray();
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.technico.web.technico.cache;
+
+import jakarta.annotation.Resource;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.transaction.Status;
+import jakarta.transaction.TransactionSynchronizationRegistry;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Coalesces concurrent identical lookups. The first caller for a key runs the
+ * lookup, and every caller that arrives while it is in flight waits for and
+ * shares its result instead of issuing the same query again. Nothing is kept
+ * once the lookup finishes, so errors are shared with the waiters but never
+ * cached, and the next caller queries again.
+ *
+ * Waiters give up after a timeout and run the lookup themselves. Callers inside
+ * a transaction are never coalesced, because they must see their own
+ * persistence context, and neither are lookups of a null key. Every caller of
+ * a flight gets the same result object, so lookups must return values that
+ * callers do not change, such as DTOs, and never managed or detached entities.
+ */
+@Slf4j
+@ApplicationScoped
+public class SingleFlight {
+
+    private static final long WAIT_TIMEOUT_MILLIS = Long.getLong("technico.singleFlight.timeoutMillis", 2_000);
+
+    private final Map<List<Object>, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+
+    @Resource
+    private TransactionSynchronizationRegistry transactionRegistry;
+
+    /**
+     * Runs the lookup, or joins the identical lookup already in flight.
+     *
+     * @param group the kind of lookup, so that equal keys of different lookups
+     * do not collide.
+     * @param key the key of the lookup, or null to run it alone.
+     * @param lookup the lookup to run.
+     * @return the result of the lookup.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T execute(String group, Object key, Supplier<T> lookup) {
+        if (key == null || transactionRegistry.getTransactionStatus() != Status.STATUS_NO_TRANSACTION) {
+            return lookup.get();
+        }
+        List<Object> flightKey = List.of(group, key);
+        CompletableFuture<Object> flight = new CompletableFuture<>();
+        CompletableFuture<Object> existing = inFlight.putIfAbsent(flightKey, flight);
+        if (existing != null) {
+            return (T) await(existing, flightKey, lookup);
+        }
+        try {
+            T result = lookup.get();
+            flight.complete(result);
+            return result;
+        } catch (RuntimeException | Error e) {
+            flight.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(flightKey, flight);
+        }
+    }
+
+    private Object await(CompletableFuture<Object> flight, List<Object> flightKey, Supplier<?> lookup) {
+        try {
+            return flight.get(WAIT_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (TimeoutException e) {
+            log.debug("Timed out waiting for in-flight lookup {}, querying directly", flightKey);
+            return lookup.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for lookup " + flightKey, e);
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.technico.web.technico.dtos;
+
+import com.technico.web.technico.models.PropertyType;
+import com.technico.web.technico.models.RepairStatus;
+import com.technico.web.technico.models.RepairType;
+import java.math.BigDecimal;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CostRollupDto {
+
+    private RepairType repairType;
+    private RepairStatus repairStatus;
+    private PropertyType propertyType;
+    private String month;
+    private long repairCount;
+    private BigDecimal totalCost;
+}
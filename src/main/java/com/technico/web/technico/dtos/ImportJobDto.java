@@ -0,0 +1,27 @@
+package com.technico.web.technico.dtos;
+
+import com.technico.web.technico.imports.ImportEntity;
+import com.technico.web.technico.imports.ImportFormat;
+import com.technico.web.technico.imports.ImportJob;
+import java.time.LocalDateTime;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ImportJobDto {
+
+    private String id;
+    private ImportEntity entity;
+    private ImportFormat format;
+    private ImportJob.Status status;
+    private long rowsRead;
+    private long rowsValidated;
+    private long rowsInserted;
+    private long rowsFailed;
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+    private String message;
+}
@@ -0,0 +1,15 @@
+package com.technico.web.technico.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LookupResultDto<T> {
+
+    private String key;
+    private boolean found;
+    private T item;
+}
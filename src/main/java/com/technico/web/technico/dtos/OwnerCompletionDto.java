@@ -0,0 +1,17 @@
+package com.technico.web.technico.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OwnerCompletionDto {
+
+    private long ownerId;
+    private long repairCount;
+    private long completedCount;
+    private long declinedCount;
+    private double completionRate;
+}
@@ -0,0 +1,19 @@
+package com.technico.web.technico.dtos;
+
+import com.technico.web.technico.models.RepairStatus;
+import java.util.List;
+import java.util.Map;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class OwnerPortfolioDto {
+
+    private OwnerDto owner;
+    private List<PropertyDto> properties;
+    private Map<RepairStatus, Long> repairCounts;
+    private List<RepairDto> recentRepairs;
+}
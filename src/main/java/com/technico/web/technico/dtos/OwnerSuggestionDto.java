@@ -0,0 +1,18 @@
+package com.technico.web.technico.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OwnerSuggestionDto {
+
+    private Long id;
+    private String vat;
+    private String name;
+    private String surname;
+    private String email;
+    private double score;
+}
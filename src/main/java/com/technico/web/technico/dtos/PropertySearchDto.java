@@ -0,0 +1,19 @@
+package com.technico.web.technico.dtos;
+
+import java.util.List;
+import java.util.Map;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PropertySearchDto {
+
+    private long total;
+    private int page;
+    private int size;
+    private List<PropertyDto> items;
+    private Map<String, Map<String, Long>> facets;
+}
@@ -0,0 +1,20 @@
+package com.technico.web.technico.dtos;
+
+import com.technico.web.technico.models.RepairType;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RepairCapacityDto {
+
+    private LocalDate from;
+    private LocalDate to;
+    private Map<RepairType, Integer> peak;
+    private List<RepairDayCapacityDto> days;
+}
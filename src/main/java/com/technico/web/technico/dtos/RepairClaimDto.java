@@ -0,0 +1,16 @@
+package com.technico.web.technico.dtos;
+
+import java.time.LocalDateTime;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RepairClaimDto {
+
+    private RepairDto repair;
+    private String claimedBy;
+    private LocalDateTime leaseExpiresAt;
+}
@@ -0,0 +1,18 @@
+package com.technico.web.technico.dtos;
+
+import com.technico.web.technico.models.RepairType;
+import java.time.LocalDate;
+import java.util.Map;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RepairDayCapacityDto {
+
+    private LocalDate day;
+    private Map<RepairType, Integer> peak;
+    private Map<RepairType, int[]> hours;
+}
@@ -1,10 +1,9 @@
 package com.technico.web.technico.dtos;
 
-import com.fasterxml.jackson.annotation.JsonFormat;
 import com.technico.web.technico.models.RepairStatus;
 import com.technico.web.technico.models.RepairType;
 import java.math.BigDecimal;
-import java.util.Date;
+import java.time.LocalDateTime;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -19,20 +18,28 @@ public class RepairDto {
     private String e9;
     private RepairType repairType;
     private String shortDescription;
-    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm:ss")
-    private Date submissionDate;
+    private LocalDateTime submissionDate;
     private String description;
-    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm:ss")
-    private Date scheduledStartDate;
-    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm:ss")
-    private Date scheduledEndDate;
+    private LocalDateTime scheduledStartDate;
+    private LocalDateTime scheduledEndDate;
     private BigDecimal proposedCost;
     private Boolean acceptanceStatus;
     private RepairStatus repairStatus;
     private String repairAddress;
-    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm:ss")
-    private Date actualStartDate;
-    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm:ss")
-    private Date actualEndDate;
+    private LocalDateTime actualStartDate;
+    private LocalDateTime actualEndDate;
     private Boolean isDeleted;
+    // Set on a created repair that likely duplicates this open repair, when
+    // duplicates are flagged rather than rejected.
+    private Long duplicateOfId;
+
+    public RepairDto(Long id, String vat, String e9, RepairType repairType, String shortDescription,
+            LocalDateTime submissionDate, String description, LocalDateTime scheduledStartDate,
+            LocalDateTime scheduledEndDate, BigDecimal proposedCost, Boolean acceptanceStatus,
+            RepairStatus repairStatus, String repairAddress, LocalDateTime actualStartDate,
+            LocalDateTime actualEndDate, Boolean isDeleted) {
+        this(id, vat, e9, repairType, shortDescription, submissionDate, description, scheduledStartDate,
+                scheduledEndDate, proposedCost, acceptanceStatus, repairStatus, repairAddress, actualStartDate,
+                actualEndDate, isDeleted, null);
+    }
 }
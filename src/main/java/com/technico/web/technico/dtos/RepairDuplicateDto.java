@@ -0,0 +1,21 @@
+package com.technico.web.technico.dtos;
+
+import com.technico.web.technico.models.RepairType;
+import java.time.LocalDateTime;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RepairDuplicateDto {
+
+    private Long repairId;
+    private Long duplicateOfId;
+    private String e9;
+    private RepairType repairType;
+    private LocalDateTime scheduledStartDate;
+    private LocalDateTime scheduledEndDate;
+    private double similarity;
+}
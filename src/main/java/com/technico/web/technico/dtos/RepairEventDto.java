@@ -0,0 +1,29 @@
+package com.technico.web.technico.dtos;
+
+import com.technico.web.technico.events.RepairChangedEvent;
+import com.technico.web.technico.models.RepairStatus;
+import com.technico.web.technico.models.RepairType;
+import java.time.LocalDateTime;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RepairEventDto {
+
+    private RepairChangedEvent.ChangeType changeType;
+    private Long repairId;
+    private Long ownerId;
+    private String ownerVat;
+    private String e9;
+    private RepairType repairType;
+    private RepairStatus repairStatus;
+    private RepairStatus previousStatus;
+    private LocalDateTime scheduledStartDate;
+    private LocalDateTime scheduledEndDate;
+    private LocalDateTime actualStartDate;
+    private LocalDateTime actualEndDate;
+    private boolean deleted;
+}
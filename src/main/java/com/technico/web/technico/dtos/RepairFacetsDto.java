@@ -0,0 +1,22 @@
+package com.technico.web.technico.dtos;
+
+import com.technico.web.technico.models.RepairStatus;
+import com.technico.web.technico.models.RepairType;
+import java.time.LocalDate;
+import java.util.Map;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RepairFacetsDto {
+
+    private LocalDate from;
+    private LocalDate to;
+    private Long ownerId;
+    private long total;
+    private Map<RepairStatus, Map<RepairType, Long>> counts;
+    private Map<String, Map<RepairStatus, Map<RepairType, Long>>> months;
+}
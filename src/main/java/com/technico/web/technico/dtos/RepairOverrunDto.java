@@ -0,0 +1,20 @@
+package com.technico.web.technico.dtos;
+
+import com.technico.web.technico.models.RepairType;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RepairOverrunDto {
+
+    private RepairType repairType;
+    private long startedCount;
+    private Double averageStartDelayHours;
+    private long finishedCount;
+    private long lateCount;
+    private Double averageOverrunHours;
+    private Double maxOverrunHours;
+}
@@ -0,0 +1,15 @@
+package com.technico.web.technico.dtos;
+
+import java.time.LocalDateTime;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RepairSlotDto {
+
+    private LocalDateTime start;
+    private LocalDateTime end;
+}
@@ -0,0 +1,17 @@
+package com.technico.web.technico.dtos;
+
+import com.technico.web.technico.models.RepairStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RepairStateDto {
+
+    private Long id;
+    private RepairStatus repairStatus;
+    private boolean isDeleted;
+    private Long ownerId;
+}
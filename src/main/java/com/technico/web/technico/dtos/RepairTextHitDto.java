@@ -0,0 +1,14 @@
+package com.technico.web.technico.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RepairTextHitDto {
+
+    private float score;
+    private RepairDto repair;
+}
@@ -0,0 +1,18 @@
+package com.technico.web.technico.dtos;
+
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RepairTextSearchDto {
+
+    private String query;
+    private long total;
+    private int page;
+    private int size;
+    private List<RepairTextHitDto> items;
+}
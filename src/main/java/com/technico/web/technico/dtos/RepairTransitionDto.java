@@ -0,0 +1,16 @@
+package com.technico.web.technico.dtos;
+
+import com.technico.web.technico.models.RepairStatus;
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RepairTransitionDto {
+
+    private List<Long> ids;
+    private RepairStatus repairStatus;
+}
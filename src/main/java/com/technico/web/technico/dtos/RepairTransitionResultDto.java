@@ -0,0 +1,25 @@
+package com.technico.web.technico.dtos;
+
+import com.technico.web.technico.models.RepairStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RepairTransitionResultDto {
+
+    public enum Outcome {
+        TRANSITIONED,
+        UNCHANGED,
+        ILLEGAL_TRANSITION,
+        DELETED,
+        NOT_FOUND
+    }
+
+    private Long id;
+    private Outcome outcome;
+    private RepairStatus previousStatus;
+    private RepairStatus repairStatus;
+}
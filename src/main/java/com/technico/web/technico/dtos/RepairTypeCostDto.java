@@ -0,0 +1,19 @@
+package com.technico.web.technico.dtos;
+
+import com.technico.web.technico.models.RepairType;
+import java.math.BigDecimal;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RepairTypeCostDto {
+
+    private RepairType repairType;
+    private long repairCount;
+    private long costedCount;
+    private BigDecimal totalCost;
+    private BigDecimal averageCost;
+}
@@ -0,0 +1,20 @@
+package com.technico.web.technico.dtos;
+
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SyncDto {
+
+    private String token;
+    private boolean full;
+    private OwnerDto owner;
+    private List<PropertyDto> properties;
+    private List<RepairDto> repairs;
+    private List<Long> deletedPropertyIds;
+    private List<Long> deletedRepairIds;
+}
@@ -0,0 +1,15 @@
+package com.technico.web.technico.dtos;
+
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class WebhookBatchDto {
+
+    private Long subscriptionId;
+    private List<WebhookEventDto> events;
+}
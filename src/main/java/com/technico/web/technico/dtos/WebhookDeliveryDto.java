@@ -0,0 +1,23 @@
+package com.technico.web.technico.dtos;
+
+import com.technico.web.technico.models.WebhookDeliveryStatus;
+import java.time.LocalDateTime;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class WebhookDeliveryDto {
+
+    private Long id;
+    private Long subscriptionId;
+    private Long eventId;
+    private String eventType;
+    private LocalDateTime occurredAt;
+    private WebhookDeliveryStatus status;
+    private int attempts;
+    private LocalDateTime nextAttemptAt;
+    private String lastError;
+}
@@ -0,0 +1,20 @@
+package com.technico.web.technico.dtos;
+
+import com.fasterxml.jackson.annotation.JsonRawValue;
+import java.time.LocalDateTime;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class WebhookEventDto {
+
+    private Long id;
+    private String type;
+    private LocalDateTime occurredAt;
+    // Already serialized when the change was written to the outbox.
+    @JsonRawValue
+    private String data;
+}
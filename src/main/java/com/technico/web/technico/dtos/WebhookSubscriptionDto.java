@@ -0,0 +1,21 @@
+package com.technico.web.technico.dtos;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import java.time.LocalDateTime;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class WebhookSubscriptionDto {
+
+    private Long id;
+    private String url;
+    @JsonProperty(access = JsonProperty.Access.WRITE_ONLY)
+    private String secret;
+    private String eventTypes;
+    private boolean active;
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,58 @@
+package com.technico.web.technico.events;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Records the committed changes an in-memory view receives while it is being
+ * rebuilt from the database, so that they can be replayed onto the rebuilt
+ * view: the rebuild reads rows that may predate a change, and a change that
+ * commits during it would otherwise be lost. At most one rebuild runs at a
+ * time. Not thread safe; the view guards it with the lock it applies changes
+ * under.
+ *
+ * @param <C> the change event type.
+ */
+public final class ChangeReplay<C> {
+
+    private List<C> pendingChanges;
+
+    /**
+     * Starts recording for a rebuild.
+     *
+     * @return false if a rebuild is already running.
+     */
+    public boolean start() {
+        if (pendingChanges != null) {
+            return false;
+        }
+        pendingChanges = new ArrayList<>();
+        return true;
+    }
+
+    public boolean isRunning() {
+        return pendingChanges != null;
+    }
+
+    /**
+     * Records a change if a rebuild is running.
+     *
+     * @param change the change, already applied to the current view.
+     */
+    public void record(C change) {
+        if (pendingChanges != null) {
+            pendingChanges.add(change);
+        }
+    }
+
+    /**
+     * Stops recording; the next rebuild may start.
+     *
+     * @return the changes recorded since {@link #start()}, in commit order.
+     */
+    public List<C> finish() {
+        List<C> changes = pendingChanges == null ? List.of() : pendingChanges;
+        pendingChanges = null;
+        return changes;
+    }
+}
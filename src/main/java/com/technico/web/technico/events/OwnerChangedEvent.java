@@ -0,0 +1,28 @@
+package com.technico.web.technico.events;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Fired by the services, inside their transaction, whenever an owner is
+ * created, updated or deleted, including owners created by an import. A soft
+ * delete is an update whose after snapshot is marked deleted.
+ */
+@Getter
+@AllArgsConstructor
+public class OwnerChangedEvent {
+
+    /**
+     * The owner before the write, or null if they were created.
+     */
+    private final OwnerSnapshot before;
+
+    /**
+     * The owner after the write, or null if they were permanently deleted.
+     */
+    private final OwnerSnapshot after;
+
+    public Long getOwnerId() {
+        return after != null ? after.getId() : before.getId();
+    }
+}
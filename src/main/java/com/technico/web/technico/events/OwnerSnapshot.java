@@ -0,0 +1,37 @@
+package com.technico.web.technico.events;
+
+import com.technico.web.technico.models.Owner;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * An immutable copy of the searchable fields of an owner.
+ */
+@Getter
+@AllArgsConstructor
+public class OwnerSnapshot {
+
+    private final Long id;
+    private final String vat;
+    private final String name;
+    private final String surname;
+    private final String email;
+    private final boolean deleted;
+
+    /**
+     * Takes a snapshot of an owner.
+     *
+     * @param owner the owner.
+     * @return the snapshot.
+     */
+    public static OwnerSnapshot of(Owner owner) {
+        return new OwnerSnapshot(
+                owner.getId(),
+                owner.getVat(),
+                owner.getName(),
+                owner.getSurname(),
+                owner.getEmail(),
+                owner.isDeleted()
+        );
+    }
+}
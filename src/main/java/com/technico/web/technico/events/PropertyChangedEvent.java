@@ -0,0 +1,29 @@
+package com.technico.web.technico.events;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Fired by the services, inside their transaction, whenever a property is
+ * created, updated or deleted, including properties deleted by a cascade from
+ * their owner and properties created by an import. A soft delete is an update
+ * whose after snapshot is marked deleted.
+ */
+@Getter
+@AllArgsConstructor
+public class PropertyChangedEvent {
+
+    /**
+     * The property before the write, or null if it was created.
+     */
+    private final PropertySnapshot before;
+
+    /**
+     * The property after the write, or null if it was permanently deleted.
+     */
+    private final PropertySnapshot after;
+
+    public Long getPropertyId() {
+        return after != null ? after.getId() : before.getId();
+    }
+}
@@ -0,0 +1,62 @@
+package com.technico.web.technico.events;
+
+import com.technico.web.technico.models.Owner;
+import com.technico.web.technico.models.Property;
+import com.technico.web.technico.models.PropertyType;
+import java.util.ArrayList;
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * An immutable copy of the fields of a property, and of its owner, that
+ * derived data such as search indexes are built from.
+ */
+@Getter
+@AllArgsConstructor
+public class PropertySnapshot {
+
+    private final Long id;
+    private final Long ownerId;
+    private final String ownerVat;
+    private final String e9;
+    private final String propertyAddress;
+    private final int constructionYear;
+    private final PropertyType propertyType;
+    private final boolean deleted;
+
+    /**
+     * Takes a snapshot of a property.
+     *
+     * @param property the property, with its owner.
+     * @return the snapshot.
+     */
+    public static PropertySnapshot of(Property property) {
+        return new PropertySnapshot(
+                property.getId(),
+                property.getOwner().getId(),
+                property.getOwner().getVat(),
+                property.getE9(),
+                property.getPropertyAddress(),
+                property.getConstructionYear(),
+                property.getPropertyType(),
+                property.isDeleted()
+        );
+    }
+
+    /**
+     * Takes snapshots of every property of an owner.
+     *
+     * @param owner the owner, with their properties.
+     * @return the snapshots.
+     */
+    public static List<PropertySnapshot> ofProperties(Owner owner) {
+        List<PropertySnapshot> snapshots = new ArrayList<>();
+        if (owner.getPropertyList() != null) {
+            for (Property property : owner.getPropertyList()) {
+                snapshots.add(of(property));
+            }
+        }
+        return snapshots;
+    }
+}
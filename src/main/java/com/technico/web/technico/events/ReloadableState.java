@@ -0,0 +1,137 @@
+package com.technico.web.technico.events;
+
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * The state of an in-memory view of the database that is loaded in the
+ * background when the application starts and then kept current from the
+ * change events of committed transactions, such as the analytics columns.
+ *
+ * A reload builds a new state from the database while the old one keeps
+ * answering, then swaps it in. Changes that commit while it is being built
+ * are applied to the old state as usual and recorded by a
+ * {@link ChangeReplay}; they are replayed onto the new state before it
+ * replaces the old one, so none is lost whether the build read the row
+ * before or after it. Replaying a change the build already read must
+ * therefore leave the state as it is. A build that fails leaves the old state
+ * in place.
+ *
+ * Readers hold the read lock and writers the write lock while they use the
+ * state returned by {@link #get()}.
+ *
+ * @param <S> the state type; not thread safe itself.
+ * @param <C> the change event type.
+ */
+public final class ReloadableState<S, C> {
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final ChangeReplay<C> replay = new ChangeReplay<>();
+    private final BiConsumer<S, C> applier;
+    private S current;
+    private volatile boolean loaded;
+
+    /**
+     * @param initial the empty state used until the first load.
+     * @param applier applies one change to a state.
+     */
+    public ReloadableState(S initial, BiConsumer<S, C> applier) {
+        this.current = initial;
+        this.applier = applier;
+    }
+
+    public Lock readLock() {
+        return lock.readLock();
+    }
+
+    public Lock writeLock() {
+        return lock.writeLock();
+    }
+
+    /**
+     * @return the current state, to be used under the read or write lock.
+     */
+    public S get() {
+        return current;
+    }
+
+    /**
+     * @return whether a load has completed since the application started.
+     */
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    /**
+     * Applies a committed change to the current state, and records it for a
+     * reload in progress.
+     *
+     * @param change the change.
+     */
+    public void apply(C change) {
+        lock.writeLock().lock();
+        try {
+            applier.accept(current, change);
+            replay.record(change);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Builds a new state and swaps it in. Does nothing if a reload is already
+     * running.
+     *
+     * @param build reads the database into a new state.
+     * @return the new state, or null if a reload was already running.
+     */
+    public S reload(Supplier<S> build) {
+        return reload(build, fresh -> {
+        });
+    }
+
+    /**
+     * Builds a new state and swaps it in. Does nothing if a reload is already
+     * running.
+     *
+     * @param build reads the database into a new state.
+     * @param beforeSwap carries over to the new state, under the write lock and
+     * after the replay, what the view keeps beside the database.
+     * @return the new state, or null if a reload was already running.
+     */
+    public S reload(Supplier<S> build, Consumer<S> beforeSwap) {
+        lock.writeLock().lock();
+        try {
+            if (!replay.start()) {
+                return null;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        S fresh = null;
+        try {
+            fresh = build.get();
+        } finally {
+            lock.writeLock().lock();
+            try {
+                if (fresh != null) {
+                    for (C change : replay.finish()) {
+                        applier.accept(fresh, change);
+                    }
+                    beforeSwap.accept(fresh);
+                    current = fresh;
+                    loaded = true;
+                } else {
+                    replay.finish();
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+        return fresh;
+    }
+}
@@ -0,0 +1,42 @@
+package com.technico.web.technico.events;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Fired by the services, inside their transaction, whenever a repair is
+ * created, updated or deleted, including repairs deleted or changed by a
+ * cascade from their property or owner. A soft delete is an update whose
+ * after snapshot is marked deleted.
+ */
+@Getter
+@AllArgsConstructor
+public class RepairChangedEvent {
+
+    public enum ChangeType {
+        CREATED,
+        UPDATED,
+        DELETED
+    }
+
+    /**
+     * The repair before the write, or null if it was created.
+     */
+    private final RepairSnapshot before;
+
+    /**
+     * The repair after the write, or null if it was permanently deleted.
+     */
+    private final RepairSnapshot after;
+
+    public ChangeType getChangeType() {
+        if (before == null) {
+            return ChangeType.CREATED;
+        }
+        return after == null ? ChangeType.DELETED : ChangeType.UPDATED;
+    }
+
+    public Long getRepairId() {
+        return after != null ? after.getId() : before.getId();
+    }
+}
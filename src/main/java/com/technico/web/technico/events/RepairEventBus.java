@@ -0,0 +1,367 @@
+package com.technico.web.technico.events;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.technico.web.technico.dtos.RepairEventDto;
+import com.technico.web.technico.providers.ObjectMapperProvider;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import jakarta.enterprise.concurrent.ManagedExecutorService;
+import jakarta.enterprise.concurrent.ManagedScheduledExecutorService;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.context.Initialized;
+import jakarta.enterprise.event.Observes;
+import jakarta.enterprise.event.TransactionPhase;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.sse.OutboundSseEvent;
+import jakarta.ws.rs.sse.Sse;
+import jakarta.ws.rs.sse.SseEventSink;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Streams the committed repair changes to server-sent event subscribers, so
+ * that clients learn of a status change without polling. Each change is
+ * serialized once and offered to the subscribers of its owner and to those
+ * of every owner; each subscriber has a bounded buffer whose next event is
+ * sent when the previous one has been written, so a slow client holds up
+ * neither the others nor a thread, and does not grow without bound. A
+ * subscriber whose buffer overflows, or that takes an event for longer than
+ * the send timeout, is disconnected and resumes where it left off when it
+ * reconnects.
+ *
+ * The latest {@code technico.events.replayCapacity} changes, 4096 by default,
+ * are kept for clients that reconnect with a {@code Last-Event-ID}. A client
+ * whose last event is no longer kept, or is from before a restart, is sent a
+ * {@code reset} event instead, after which it should reload its repairs once.
+ */
+@Slf4j
+@ApplicationScoped
+public class RepairEventBus {
+
+    public static final String REPAIR_EVENT = "repair";
+    public static final String RESET_EVENT = "reset";
+
+    private static final int REPLAY_CAPACITY = Integer.getInteger("technico.events.replayCapacity", 4_096);
+    private static final int SUBSCRIBER_BUFFER = Integer.getInteger("technico.events.subscriberBuffer", 256);
+    private static final long HEARTBEAT_SECONDS = Long.getLong("technico.events.heartbeatSeconds", 20);
+    private static final long SEND_TIMEOUT_SECONDS = 10;
+    private static final Long ALL_OWNERS = 0L;
+
+    @Resource
+    private ManagedExecutorService executor;
+
+    @Resource
+    private ManagedScheduledExecutorService scheduler;
+
+    // Tells event IDs of this run from those of earlier runs, whose sequence
+    // numbers mean nothing now.
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+
+    // The latest changes by sequence number modulo the capacity, and the
+    // subscribers by owner; guarded by this.
+    private final Message[] recent = new Message[REPLAY_CAPACITY];
+    private long lastSequence;
+    private final Map<Long, Set<Subscriber>> subscribers = new HashMap<>();
+
+    private ScheduledFuture<?> heartbeats;
+
+    void onStartup(@Observes @Initialized(ApplicationScoped.class) Object event) {
+        heartbeats = scheduler.scheduleWithFixedDelay(this::heartbeat, HEARTBEAT_SECONDS, HEARTBEAT_SECONDS,
+                TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    void close() {
+        if (heartbeats != null) {
+            heartbeats.cancel(false);
+        }
+        allSubscribers().forEach(Subscriber::close);
+    }
+
+    void onRepairChanged(@Observes(during = TransactionPhase.AFTER_SUCCESS) RepairChangedEvent event) {
+        RepairSnapshot repair = event.getAfter() != null ? event.getAfter() : event.getBefore();
+        String data;
+        try {
+            data = ObjectMapperProvider.sharedMapper().writeValueAsString(toDto(event));
+        } catch (JsonProcessingException e) {
+            log.warn("Could not serialize the change of repair {}", repair.getId(), e);
+            return;
+        }
+
+        List<Subscriber> overflowed = new ArrayList<>();
+        synchronized (this) {
+            long sequence = ++lastSequence;
+            Message message = new Message(REPAIR_EVENT, eventId(sequence), repair.getOwnerId(), data);
+            recent[(int) (sequence % REPLAY_CAPACITY)] = message;
+            offer(subscribers.get(repair.getOwnerId()), message, overflowed);
+            offer(subscribers.get(ALL_OWNERS), message, overflowed);
+        }
+        for (Subscriber subscriber : overflowed) {
+            log.debug("Disconnecting a slow repair event subscriber of owner {}", subscriber.ownerId);
+            subscriber.close();
+        }
+    }
+
+    /**
+     * Describes a repair change the way it is sent to clients.
+     *
+     * @param event the change.
+     * @return the Repair event dto.
+     */
+    public static RepairEventDto toDto(RepairChangedEvent event) {
+        RepairSnapshot repair = event.getAfter() != null ? event.getAfter() : event.getBefore();
+        return new RepairEventDto(
+                event.getChangeType(),
+                repair.getId(),
+                repair.getOwnerId(),
+                repair.getOwnerVat(),
+                repair.getE9(),
+                repair.getRepairType(),
+                repair.getRepairStatus(),
+                event.getBefore() != null ? event.getBefore().getRepairStatus() : null,
+                repair.getScheduledStartDate(),
+                repair.getScheduledEndDate(),
+                repair.getActualStartDate(),
+                repair.getActualEndDate(),
+                event.getAfter() == null || repair.isDeleted()
+        );
+    }
+
+    /**
+     * Subscribes a client to the changes of the repairs of one owner, or of
+     * every owner. Changes after the client's last event are sent first, if
+     * they are still kept.
+     *
+     * @param ownerId the ID of the owner, or null for every owner.
+     * @param lastEventId the ID of the last event the client received, or
+     * null for only new changes.
+     * @param sink the event stream of the client.
+     * @param sse builds the events.
+     */
+    public void subscribe(Long ownerId, String lastEventId, SseEventSink sink, Sse sse) {
+        Subscriber subscriber = new Subscriber(ownerId == null ? ALL_OWNERS : ownerId, sink, sse);
+        synchronized (this) {
+            List<Message> missed = lastEventId == null ? List.of() : missedSince(lastEventId, subscriber.ownerId);
+            if (missed == null || missed.size() >= SUBSCRIBER_BUFFER) {
+                subscriber.queue.offer(new Message(RESET_EVENT, eventId(lastSequence), null, "{}"));
+            } else {
+                subscriber.queue.addAll(missed);
+            }
+            subscribers.computeIfAbsent(subscriber.ownerId, key -> new HashSet<>()).add(subscriber);
+        }
+        subscriber.drainLater();
+    }
+
+    private String eventId(long sequence) {
+        return epoch + "-" + sequence;
+    }
+
+    // The kept changes of the owner after the given event, or null if some
+    // of them are no longer kept or the event is not one of this run.
+    private List<Message> missedSince(String lastEventId, Long ownerId) {
+        int separator = lastEventId.lastIndexOf('-');
+        if (separator < 0 || !lastEventId.substring(0, separator).equals(epoch)) {
+            return null;
+        }
+        long after;
+        try {
+            after = Long.parseLong(lastEventId.substring(separator + 1));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+        long oldest = Math.max(1, lastSequence - REPLAY_CAPACITY + 1);
+        if (after > lastSequence || after + 1 < oldest) {
+            return null;
+        }
+        List<Message> missed = new ArrayList<>();
+        for (long sequence = after + 1; sequence <= lastSequence; sequence++) {
+            Message message = recent[(int) (sequence % REPLAY_CAPACITY)];
+            if (ownerId.equals(ALL_OWNERS) || ownerId.equals(message.ownerId)) {
+                missed.add(message);
+            }
+        }
+        return missed;
+    }
+
+    private static void offer(Set<Subscriber> owners, Message message, List<Subscriber> overflowed) {
+        if (owners == null) {
+            return;
+        }
+        for (Subscriber subscriber : owners) {
+            if (!subscriber.queue.offer(message)) {
+                overflowed.add(subscriber);
+            } else {
+                subscriber.drainLater();
+            }
+        }
+    }
+
+    private void heartbeat() {
+        for (Subscriber subscriber : allSubscribers()) {
+            if (subscriber.sink.isClosed()) {
+                subscriber.close();
+            } else if (subscriber.queue.offer(Message.HEARTBEAT)) {
+                subscriber.drainLater();
+            }
+        }
+    }
+
+    private synchronized List<Subscriber> allSubscribers() {
+        List<Subscriber> all = new ArrayList<>();
+        subscribers.values().forEach(all::addAll);
+        return all;
+    }
+
+    private synchronized void unsubscribe(Subscriber subscriber) {
+        Set<Subscriber> owners = subscribers.get(subscriber.ownerId);
+        if (owners != null) {
+            owners.remove(subscriber);
+            if (owners.isEmpty()) {
+                subscribers.remove(subscriber.ownerId);
+            }
+        }
+    }
+
+    /**
+     * One event of the stream, shared by every subscriber it is sent to.
+     */
+    private static final class Message {
+
+        private static final Message HEARTBEAT = new Message(null, null, null, null);
+
+        private final String name;
+        private final String id;
+        private final Long ownerId;
+        private final String data;
+
+        private Message(String name, String id, Long ownerId, String data) {
+            this.name = name;
+            this.id = id;
+            this.ownerId = ownerId;
+            this.data = data;
+        }
+
+        private OutboundSseEvent toEvent(Sse sse) {
+            if (this == HEARTBEAT) {
+                return sse.newEventBuilder().comment("heartbeat").build();
+            }
+            return sse.newEventBuilder()
+                    .id(id)
+                    .name(name)
+                    .mediaType(MediaType.TEXT_PLAIN_TYPE)
+                    .data(String.class, data)
+                    .build();
+        }
+    }
+
+    /**
+     * A connected client with its buffer of events still to send.
+     */
+    private final class Subscriber {
+
+        private final Long ownerId;
+        private final SseEventSink sink;
+        private final Sse sse;
+        private final ArrayBlockingQueue<Message> queue = new ArrayBlockingQueue<>(SUBSCRIBER_BUFFER);
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private volatile boolean closed;
+
+        private Subscriber(Long ownerId, SseEventSink sink, Sse sse) {
+            this.ownerId = ownerId;
+            this.sink = sink;
+            this.sse = sse;
+        }
+
+        private void drainLater() {
+            if (closed || !draining.compareAndSet(false, true)) {
+                return;
+            }
+            sendLater();
+        }
+
+        private void sendLater() {
+            try {
+                executor.submit(this::sendNext);
+            } catch (RejectedExecutionException e) {
+                draining.set(false);
+                close();
+            }
+        }
+
+        // Sends the queued events until one is still being written, and goes
+        // on from its completion, so no thread waits for a slow client.
+        private void sendNext() {
+            Message message;
+            while (!closed && (message = queue.poll()) != null) {
+                CompletableFuture<?> sent;
+                try {
+                    sent = sink.send(message.toEvent(sse)).toCompletableFuture();
+                } catch (IllegalStateException e) {
+                    gone();
+                    return;
+                }
+                if (!sent.isDone()) {
+                    whenSent(sent);
+                    return;
+                }
+                if (sent.isCompletedExceptionally()) {
+                    gone();
+                    return;
+                }
+            }
+            draining.set(false);
+            // An event offered after the last poll but before the flag was
+            // cleared would otherwise wait for the next one.
+            if (!closed && !queue.isEmpty()) {
+                drainLater();
+            }
+        }
+
+        private void whenSent(CompletableFuture<?> sent) {
+            ScheduledFuture<?> timeout;
+            try {
+                timeout = scheduler.schedule(() -> sent.cancel(false), SEND_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            } catch (RejectedExecutionException e) {
+                gone();
+                return;
+            }
+            sent.whenComplete((ignored, failure) -> {
+                timeout.cancel(false);
+                if (failure != null) {
+                    gone();
+                } else {
+                    sendLater();
+                }
+            });
+        }
+
+        private void gone() {
+            log.debug("Repair event subscriber of owner {} went away", ownerId);
+            close();
+        }
+
+        private void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            unsubscribe(this);
+            try {
+                sink.close();
+            } catch (RuntimeException e) {
+                log.debug("Could not close a repair event stream", e);
+            }
+        }
+    }
+}
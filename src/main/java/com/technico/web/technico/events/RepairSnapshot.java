@@ -0,0 +1,110 @@
+package com.technico.web.technico.events;
+
+import com.technico.web.technico.models.Owner;
+import com.technico.web.technico.models.Property;
+import com.technico.web.technico.models.PropertyType;
+import com.technico.web.technico.models.Repair;
+import com.technico.web.technico.models.RepairStatus;
+import com.technico.web.technico.models.RepairType;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * An immutable copy of the fields of a repair, and of its property and owner,
+ * that derived data such as reports and indexes are built from. Snapshots are
+ * taken before and after a write so observers can tell what changed.
+ */
+@Getter
+@AllArgsConstructor
+public class RepairSnapshot {
+
+    private final Long id;
+    private final Long ownerId;
+    private final String ownerVat;
+    private final String e9;
+    private final PropertyType propertyType;
+    private final RepairType repairType;
+    private final RepairStatus repairStatus;
+    private final String shortDescription;
+    private final String description;
+    private final BigDecimal proposedCost;
+    private final LocalDateTime scheduledStartDate;
+    private final LocalDateTime scheduledEndDate;
+    private final LocalDateTime actualStartDate;
+    private final LocalDateTime actualEndDate;
+    private final boolean deleted;
+
+    /**
+     * Takes a snapshot of a repair.
+     *
+     * @param repair the repair, with its property and owner.
+     * @return the snapshot.
+     */
+    public static RepairSnapshot of(Repair repair) {
+        return new RepairSnapshot(
+                repair.getId(),
+                repair.getProperty().getOwner().getId(),
+                repair.getProperty().getOwner().getVat(),
+                repair.getProperty().getE9(),
+                repair.getProperty().getPropertyType(),
+                repair.getRepairType(),
+                repair.getRepairStatus(),
+                repair.getShortDescription(),
+                repair.getDescription(),
+                repair.getProposedCost(),
+                repair.getScheduledStartDate(),
+                repair.getScheduledEndDate(),
+                repair.getActualStartDate(),
+                repair.getActualEndDate(),
+                repair.isDeleted()
+        );
+    }
+
+    /**
+     * Takes snapshots of every repair of a property.
+     *
+     * @param property the property, with its repairs.
+     * @return the snapshots.
+     */
+    public static List<RepairSnapshot> ofRepairs(Property property) {
+        List<RepairSnapshot> snapshots = new ArrayList<>();
+        if (property.getRepairs() != null) {
+            for (Repair repair : property.getRepairs()) {
+                snapshots.add(of(repair));
+            }
+        }
+        return snapshots;
+    }
+
+    /**
+     * Takes snapshots of every repair of every property of an owner.
+     *
+     * @param owner the owner, with their properties and repairs.
+     * @return the snapshots.
+     */
+    public static List<RepairSnapshot> ofRepairs(Owner owner) {
+        List<RepairSnapshot> snapshots = new ArrayList<>();
+        if (owner.getPropertyList() != null) {
+            for (Property property : owner.getPropertyList()) {
+                snapshots.addAll(ofRepairs(property));
+            }
+        }
+        return snapshots;
+    }
+
+    /**
+     * Returns a copy of this snapshot with another property type.
+     *
+     * @param propertyType the new property type.
+     * @return the copy.
+     */
+    public RepairSnapshot withPropertyType(PropertyType propertyType) {
+        return new RepairSnapshot(id, ownerId, ownerVat, e9, propertyType, repairType, repairStatus,
+                shortDescription, description, proposedCost, scheduledStartDate, scheduledEndDate, actualStartDate,
+                actualEndDate, deleted);
+    }
+}
@@ -0,0 +1,74 @@
+package com.technico.web.technico.imports;
+
+import com.technico.web.technico.events.OwnerChangedEvent;
+import com.technico.web.technico.events.OwnerSnapshot;
+import com.technico.web.technico.events.PropertyChangedEvent;
+import com.technico.web.technico.events.PropertySnapshot;
+import com.technico.web.technico.models.Owner;
+import com.technico.web.technico.models.Property;
+import com.technico.web.technico.repositories.OwnerRepository;
+import com.technico.web.technico.repositories.PropertyRepository;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Event;
+import jakarta.inject.Inject;
+import jakarta.transaction.Transactional;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * The write stage of an import. Each batch is inserted, read back and
+ * announced in one transaction, so the rows, their change sequence, their
+ * sync tombstones and their outbox events commit or roll back together, and
+ * a failed batch leaves nothing behind to retry row by row.
+ */
+@ApplicationScoped
+public class ImportBatchWriter {
+
+    @Inject
+    private OwnerRepository ownerRepository;
+
+    @Inject
+    private PropertyRepository propertyRepository;
+
+    @Inject
+    private Event<OwnerChangedEvent> ownerEvents;
+
+    @Inject
+    private Event<PropertyChangedEvent> propertyEvents;
+
+    /**
+     * Inserts owners with one statement and announces them.
+     *
+     * @param owners the owners to insert.
+     * @return the number of inserted owners.
+     */
+    @Transactional
+    public int insertOwners(List<Owner> owners) {
+        int inserted = ownerRepository.insertAll(owners);
+        // The ids are generated by the multi-row insert, so the new owners
+        // are read back to announce them.
+        for (OwnerSnapshot owner : ownerRepository.findOwnerSnapshotsByVats(owners.stream()
+                .map(Owner::getVat)
+                .collect(Collectors.toList()))) {
+            ownerEvents.fire(new OwnerChangedEvent(null, owner));
+        }
+        return inserted;
+    }
+
+    /**
+     * Inserts properties with one statement and announces them.
+     *
+     * @param properties the properties to insert.
+     * @return the number of inserted properties.
+     */
+    @Transactional
+    public int insertProperties(List<Property> properties) {
+        int inserted = propertyRepository.insertAll(properties);
+        for (PropertySnapshot property : propertyRepository.findPropertySnapshotsByE9s(properties.stream()
+                .map(Property::getE9)
+                .collect(Collectors.toList()))) {
+            propertyEvents.fire(new PropertyChangedEvent(null, property));
+        }
+        return inserted;
+    }
+}
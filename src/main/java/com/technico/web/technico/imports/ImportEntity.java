@@ -0,0 +1,27 @@
+package com.technico.web.technico.imports;
+
+import com.technico.web.technico.exceptions.CustomException;
+
+/**
+ * The kinds of rows an import can create.
+ */
+public enum ImportEntity {
+    OWNERS,
+    PROPERTIES;
+
+    /**
+     * Parses the entity name used in import paths.
+     *
+     * @param name owners or properties.
+     * @return the import entity.
+     * @throws CustomException if the name is not an importable entity.
+     */
+    public static ImportEntity fromPath(String name) throws CustomException {
+        for (ImportEntity entity : values()) {
+            if (entity.name().equalsIgnoreCase(name)) {
+                return entity;
+            }
+        }
+        throw new CustomException("Cannot import " + name + ", only owners and properties");
+    }
+}
@@ -0,0 +1,38 @@
+package com.technico.web.technico.imports;
+
+import com.technico.web.technico.exceptions.CustomException;
+import jakarta.ws.rs.core.MediaType;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * The upload formats of an import: CSV with a header row, or one JSON object
+ * per line.
+ */
+@AllArgsConstructor
+@Getter
+public enum ImportFormat {
+    CSV("text/csv"),
+    NDJSON("application/x-ndjson");
+
+    private final String mediaType;
+
+    /**
+     * Finds the format of an upload from its content type.
+     *
+     * @param contentType the Content-Type of the upload.
+     * @return the import format.
+     * @throws CustomException if the content type is not CSV or NDJSON.
+     */
+    public static ImportFormat fromContentType(MediaType contentType) throws CustomException {
+        if (contentType != null) {
+            String type = contentType.getType() + "/" + contentType.getSubtype();
+            for (ImportFormat format : values()) {
+                if (format.mediaType.equalsIgnoreCase(type)) {
+                    return format;
+                }
+            }
+        }
+        throw new CustomException("Uploads must be text/csv or application/x-ndjson");
+    }
+}
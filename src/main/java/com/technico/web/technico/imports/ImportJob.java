@@ -0,0 +1,120 @@
+package com.technico.web.technico.imports;
+
+import com.technico.web.technico.dtos.ImportJobDto;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * The progress of one import. The pipeline stages update the counters
+ * concurrently, and the job can be polled at any time.
+ */
+@Getter
+public class ImportJob {
+
+    /**
+     * Only the first failures are kept for the error report; the rest are
+     * counted.
+     */
+    public static final int MAX_REPORTED_ERRORS = 100_000;
+
+    public enum Status {
+        RUNNING,
+        COMPLETED,
+        FAILED
+    }
+
+    /**
+     * A row that was not imported and why.
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class RowError {
+
+        private final long line;
+        private final String key;
+        private final String message;
+    }
+
+    private final String id;
+    private final ImportEntity entity;
+    private final ImportFormat format;
+    private final LocalDateTime startedAt = LocalDateTime.now();
+    private final AtomicLong rowsRead = new AtomicLong();
+    private final AtomicLong rowsValidated = new AtomicLong();
+    private final AtomicLong rowsInserted = new AtomicLong();
+    private final AtomicLong rowsFailed = new AtomicLong();
+    private final Queue<RowError> errors = new ConcurrentLinkedQueue<>();
+    private volatile Status status = Status.RUNNING;
+    private volatile LocalDateTime finishedAt;
+    private volatile String message;
+
+    public ImportJob(String id, ImportEntity entity, ImportFormat format) {
+        this.id = id;
+        this.entity = entity;
+        this.format = format;
+    }
+
+    /**
+     * Records a row that was not imported.
+     *
+     * @param line the line of the row in the upload.
+     * @param key the VAT or E9 of the row, if known.
+     * @param message why the row was rejected.
+     */
+    public void rejectRow(long line, String key, String message) {
+        if (rowsFailed.incrementAndGet() <= MAX_REPORTED_ERRORS) {
+            errors.add(new RowError(line, key, message));
+        }
+    }
+
+    public void complete() {
+        finish(Status.COMPLETED, null);
+    }
+
+    public void fail(String message) {
+        finish(Status.FAILED, message);
+    }
+
+    public boolean isFinished() {
+        return status != Status.RUNNING;
+    }
+
+    /**
+     * Returns the recorded row errors ordered by line.
+     *
+     * @return the row errors.
+     */
+    public List<RowError> sortedErrors() {
+        List<RowError> sorted = new ArrayList<>(errors);
+        sorted.sort((a, b) -> Long.compare(a.getLine(), b.getLine()));
+        return sorted;
+    }
+
+    public ImportJobDto toDto() {
+        return new ImportJobDto(
+                id,
+                entity,
+                format,
+                status,
+                rowsRead.get(),
+                rowsValidated.get(),
+                rowsInserted.get(),
+                rowsFailed.get(),
+                startedAt,
+                finishedAt,
+                message
+        );
+    }
+
+    private void finish(Status status, String message) {
+        this.message = message;
+        this.finishedAt = LocalDateTime.now();
+        this.status = status;
+    }
+}
@@ -0,0 +1,57 @@
+package com.technico.web.technico.imports;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.technico.web.technico.cache.CacheRegistry;
+import com.technico.web.technico.cache.CacheSpec;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Keeps the imports so their progress and error reports can be polled. Jobs
+ * are forgotten a day after they were last looked at.
+ */
+@ApplicationScoped
+public class ImportJobRegistry {
+
+    private static final long MAX_JOBS = 1_000;
+    private static final Duration RETENTION = Duration.ofDays(1);
+
+    @Inject
+    private CacheRegistry cacheRegistry;
+
+    private Cache<String, ImportJob> jobs;
+
+    @PostConstruct
+    void init() {
+        jobs = cacheRegistry.build("import-jobs",
+                CacheSpec.<String, ImportJob>maximumSize(MAX_JOBS).expireAfterAccess(RETENTION));
+    }
+
+    /**
+     * Registers a new running import.
+     *
+     * @param entity the entity being imported.
+     * @param format the format of the upload.
+     * @return the new job.
+     */
+    public ImportJob create(ImportEntity entity, ImportFormat format) {
+        ImportJob job = new ImportJob(UUID.randomUUID().toString(), entity, format);
+        jobs.put(job.getId(), job);
+        return job;
+    }
+
+    /**
+     * Finds an import by its ID.
+     *
+     * @param id the ID of the import.
+     * @return an Optional containing the job, or an empty Optional if it is
+     * unknown or expired.
+     */
+    public Optional<ImportJob> find(String id) {
+        return Optional.ofNullable(jobs.getIfPresent(id));
+    }
+}
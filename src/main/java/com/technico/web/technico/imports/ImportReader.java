@@ -0,0 +1,181 @@
+package com.technico.web.technico.imports;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.technico.web.technico.providers.ObjectMapperProvider;
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads the rows of an uploaded file one at a time, so that memory use does
+ * not grow with the size of the upload.
+ */
+public abstract class ImportReader implements Closeable {
+
+    protected final BufferedReader reader;
+
+    protected ImportReader(Path file) throws IOException {
+        this.reader = Files.newBufferedReader(file, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Opens a reader for an uploaded file.
+     *
+     * @param format the format of the file.
+     * @param file the uploaded file.
+     * @return the row reader.
+     * @throws IOException if the file cannot be opened.
+     */
+    public static ImportReader open(ImportFormat format, Path file) throws IOException {
+        return format == ImportFormat.CSV ? new CsvReader(file) : new NdjsonReader(file);
+    }
+
+    /**
+     * Reads the next row.
+     *
+     * @return the next row, or null at the end of the file.
+     * @throws IOException if the file cannot be read.
+     */
+    public abstract ImportRow next() throws IOException;
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    /**
+     * Reads RFC 4180 CSV: a header row naming the columns, comma separated
+     * fields, and double quoted fields that may contain commas, quotes written
+     * twice and line breaks.
+     */
+    private static class CsvReader extends ImportReader {
+
+        private long line;
+        private List<String> header;
+
+        CsvReader(Path file) throws IOException {
+            super(file);
+        }
+
+        @Override
+        public ImportRow next() throws IOException {
+            if (header == null) {
+                header = readRecord();
+                if (header == null) {
+                    return null;
+                }
+                header.replaceAll(String::trim);
+            }
+            List<String> record;
+            long recordLine;
+            do {
+                recordLine = line + 1;
+                record = readRecord();
+                if (record == null) {
+                    return null;
+                }
+            } while (record.size() == 1 && record.get(0).isBlank());
+
+            Map<String, String> fields = new HashMap<>();
+            for (int i = 0; i < header.size() && i < record.size(); i++) {
+                fields.put(header.get(i), record.get(i));
+            }
+            return new ImportRow(recordLine, fields, null);
+        }
+
+        private List<String> readRecord() throws IOException {
+            int c = reader.read();
+            if (c == -1) {
+                return null;
+            }
+            List<String> fields = new ArrayList<>();
+            StringBuilder field = new StringBuilder();
+            boolean quoted = false;
+            while (true) {
+                if (quoted) {
+                    if (c == -1) {
+                        throw new IOException("Unterminated quoted field before line " + (line + 1));
+                    }
+                    if (c == '"') {
+                        c = reader.read();
+                        if (c != '"') {
+                            quoted = false;
+                            continue;
+                        }
+                    } else if (c == '\n') {
+                        line++;
+                    }
+                    field.append((char) c);
+                } else if (c == '"' && field.length() == 0) {
+                    quoted = true;
+                } else if (c == ',') {
+                    fields.add(field.toString());
+                    field.setLength(0);
+                } else if (c == '\n' || c == -1) {
+                    line++;
+                    fields.add(field.toString());
+                    return fields;
+                } else if (c != '\r') {
+                    field.append((char) c);
+                }
+                c = reader.read();
+            }
+        }
+    }
+
+    /**
+     * Reads one JSON object per line. A line that is not a JSON object is
+     * returned as a failed row rather than ending the import.
+     */
+    private static class NdjsonReader extends ImportReader {
+
+        private static final ObjectMapper MAPPER = ObjectMapperProvider.sharedMapper();
+
+        private long line;
+
+        NdjsonReader(Path file) throws IOException {
+            super(file);
+        }
+
+        @Override
+        public ImportRow next() throws IOException {
+            String text;
+            do {
+                text = reader.readLine();
+                line++;
+                if (text == null) {
+                    return null;
+                }
+            } while (text.isBlank());
+
+            JsonNode node;
+            try {
+                node = MAPPER.readTree(text);
+            } catch (JsonProcessingException e) {
+                return new ImportRow(line, Map.of(), "Malformed JSON: " + e.getOriginalMessage());
+            }
+            if (!node.isObject()) {
+                return new ImportRow(line, Map.of(), "Each line must be a JSON object");
+            }
+            Map<String, String> fields = new HashMap<>();
+            Iterator<Map.Entry<String, JsonNode>> entries = node.fields();
+            while (entries.hasNext()) {
+                Map.Entry<String, JsonNode> entry = entries.next();
+                if (!entry.getValue().isNull()) {
+                    fields.put(entry.getKey(), entry.getValue().asText());
+                }
+            }
+            return new ImportRow(line, fields, null);
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.technico.web.technico.imports;
+
+import java.util.Map;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * One parsed row of an upload: its line number and its fields by column name.
+ * A row that could not be parsed carries the parse error instead of fields.
+ */
+@Getter
+@AllArgsConstructor
+public class ImportRow {
+
+    /**
+     * Marks the end of the rows on a stage queue.
+     */
+    public static final ImportRow END = new ImportRow(-1, Map.of(), null);
+
+    private final long line;
+    private final Map<String, String> fields;
+    private final String error;
+
+    /**
+     * Returns the trimmed value of a field, or null if it is missing or
+     * blank.
+     *
+     * @param name the column name.
+     * @return the value, or null.
+     */
+    public String field(String name) {
+        String value = fields.get(name);
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        return value.trim();
+    }
+}
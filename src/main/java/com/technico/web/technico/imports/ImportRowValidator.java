@@ -0,0 +1,129 @@
+package com.technico.web.technico.imports;
+
+import com.technico.web.technico.exceptions.CustomException;
+import com.technico.web.technico.models.Owner;
+import com.technico.web.technico.models.Property;
+import com.technico.web.technico.models.PropertyType;
+import com.technico.web.technico.services.OwnerService;
+import com.technico.web.technico.services.PropertyService;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.context.control.ActivateRequestContext;
+import jakarta.inject.Inject;
+import java.util.Locale;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * The validation stage of an import. Several workers run it in parallel, each
+ * taking parsed rows from the same queue, running the services' existing
+ * validate methods and passing the valid rows on as entities.
+ */
+@ApplicationScoped
+public class ImportRowValidator {
+
+    @Inject
+    private OwnerService ownerService;
+
+    @Inject
+    private PropertyService propertyService;
+
+    /**
+     * Validates rows until the end marker arrives. The services are request
+     * scoped, so each worker runs in a request context of its own.
+     *
+     * @param job the import.
+     * @param parsed the parsed rows.
+     * @param validated receives the valid rows.
+     * @throws InterruptedException if the import is cancelled.
+     */
+    @ActivateRequestContext
+    public void validate(ImportJob job, BlockingQueue<ImportRow> parsed, BlockingQueue<ValidatedRow<?>> validated)
+            throws InterruptedException {
+        while (true) {
+            ImportRow row = parsed.take();
+            if (row == ImportRow.END) {
+                parsed.put(ImportRow.END);
+                return;
+            }
+            if (row.getError() != null) {
+                job.rejectRow(row.getLine(), null, row.getError());
+                continue;
+            }
+            ValidatedRow<?> valid;
+            try {
+                valid = job.getEntity() == ImportEntity.OWNERS ? toOwner(row) : toProperty(row);
+            } catch (CustomException e) {
+                job.rejectRow(row.getLine(), key(job, row), e.getMessage());
+                continue;
+            } catch (RuntimeException e) {
+                job.rejectRow(row.getLine(), key(job, row), "Invalid row: " + e);
+                continue;
+            }
+            job.getRowsValidated().incrementAndGet();
+            validated.put(valid);
+        }
+    }
+
+    private ValidatedRow<Owner> toOwner(ImportRow row) throws CustomException {
+        String vat = row.field("vat");
+        String name = row.field("name");
+        String surname = row.field("surname");
+        String phoneNumber = row.field("phoneNumber");
+        String email = row.field("email");
+        String password = row.field("password");
+        if (phoneNumber == null || password == null) {
+            throw new CustomException("Phone number and password are required.");
+        }
+        ownerService.validateVat(vat);
+        ownerService.validateName(name);
+        ownerService.validateSurname(surname);
+        ownerService.validatePhone(phoneNumber);
+        ownerService.validateEmail(email);
+        ownerService.validatePassword(password);
+
+        Owner owner = new Owner();
+        owner.setVat(vat);
+        owner.setName(name);
+        owner.setSurname(surname);
+        owner.setAddress(row.field("address"));
+        owner.setPhoneNumber(phoneNumber);
+        owner.setEmail(email);
+        owner.setPassword(password);
+        return new ValidatedRow<>(row.getLine(), vat, owner);
+    }
+
+    private ValidatedRow<Property> toProperty(ImportRow row) throws CustomException {
+        String e9 = row.field("e9");
+        String constructionYear = row.field("constructionYear");
+        String vat = row.field("vat");
+        propertyService.validateE9(e9);
+        propertyService.validateConstructionYear(constructionYear);
+        PropertyType propertyType = parsePropertyType(row.field("propertyType"));
+        propertyService.validatePropertyType(propertyType);
+        ownerService.validateVat(vat);
+
+        Owner owner = new Owner();
+        owner.setVat(vat);
+        Property property = new Property();
+        property.setE9(e9);
+        property.setPropertyAddress(row.field("propertyAddress"));
+        property.setConstructionYear(Integer.parseInt(constructionYear));
+        property.setPropertyType(propertyType);
+        property.setOwner(owner);
+        return new ValidatedRow<>(row.getLine(), e9, property);
+    }
+
+    private PropertyType parsePropertyType(String value) throws CustomException {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return PropertyType.valueOf(value.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new CustomException("Invalid property type provided.");
+        }
+    }
+
+    private String key(ImportJob job, ImportRow row) {
+        return row.field(job.getEntity() == ImportEntity.OWNERS ? "vat" : "e9");
+    }
+}
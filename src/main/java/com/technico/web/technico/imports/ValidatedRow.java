@@ -0,0 +1,22 @@
+package com.technico.web.technico.imports;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * A row that passed validation, ready to be checked against the database and
+ * inserted.
+ */
+@Getter
+@AllArgsConstructor
+public class ValidatedRow<T> {
+
+    /**
+     * Marks the end of the rows on a stage queue.
+     */
+    public static final ValidatedRow<Object> END = new ValidatedRow<>(-1, null, null);
+
+    private final long line;
+    private final String key;
+    private final T entity;
+}
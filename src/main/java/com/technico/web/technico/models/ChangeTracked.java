@@ -0,0 +1,11 @@
+package com.technico.web.technico.models;
+
+/**
+ * An entity stamped with the change sequence of the transaction that last
+ * wrote it, so that clients can fetch only what changed since they last
+ * synchronized.
+ */
+public interface ChangeTracked {
+
+    void setChangeSeq(Long changeSeq);
+}
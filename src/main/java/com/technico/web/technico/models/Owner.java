@@ -1,6 +1,7 @@
 package com.technico.web.technico.models;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.technico.web.technico.sync.ChangeSequenceListener;
 import java.util.List;
 import java.io.Serializable;
 import jakarta.persistence.*;
@@ -11,11 +12,13 @@ import lombok.NoArgsConstructor;
 import lombok.ToString;
 
 @Entity
+@Table(indexes = @Index(name = "idx_owner_change_seq", columnList = "change_seq"))
+@EntityListeners(ChangeSequenceListener.class)
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 @ToString
-public class Owner implements Serializable {
+public class Owner implements Serializable, ChangeTracked {
 
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -51,6 +54,9 @@ public class Owner implements Serializable {
     @NotNull
     private boolean isDeleted = false;
 
+    @Column(name = "change_seq")
+    private Long changeSeq;
+
     @OneToMany(mappedBy = "owner", cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.EAGER)
     @JsonIgnore
     private List<Property> propertyList;
@@ -1,6 +1,7 @@
 package com.technico.web.technico.models;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.technico.web.technico.sync.ChangeSequenceListener;
 import java.io.Serializable;
 import java.util.List;
 import jakarta.persistence.*;
@@ -11,11 +12,13 @@ import lombok.NoArgsConstructor;
 import lombok.ToString;
 
 @Entity
+@Table(indexes = @Index(name = "idx_property_owner_change_seq", columnList = "owner_vat, change_seq"))
+@EntityListeners(ChangeSequenceListener.class)
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 @ToString
-public class Property implements Serializable {
+public class Property implements Serializable, ChangeTracked {
 
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -40,6 +43,9 @@ public class Property implements Serializable {
     @NotNull
     private boolean isDeleted = false;
 
+    @Column(name = "change_seq")
+    private Long changeSeq;
+
     @ManyToOne
     @JoinColumn(name = "owner_vat", referencedColumnName = "vat", nullable = false)
     private Owner owner;
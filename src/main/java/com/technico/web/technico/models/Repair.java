@@ -1,20 +1,25 @@
 package com.technico.web.technico.models;
 
-import com.fasterxml.jackson.annotation.JsonFormat;
+import com.technico.web.technico.sync.ChangeSequenceListener;
 import java.io.Serializable;
 import java.math.BigDecimal;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.*;
-import java.util.Date;
+import java.time.LocalDateTime;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
 @Entity
+@Table(indexes = {
+    @Index(name = "idx_repair_claim", columnList = "repair_status, repair_type, lease_expires_at"),
+    @Index(name = "idx_repair_property_change_seq", columnList = "property_e9, change_seq")
+})
+@EntityListeners(ChangeSequenceListener.class)
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
-public class Repair implements Serializable {
+public class Repair implements Serializable, ChangeTracked {
 
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -29,21 +34,18 @@ public class Repair implements Serializable {
 
 
     @Column(name = "submission_date")
-    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm:ss")
-    private Date submissionDate;
+    private LocalDateTime submissionDate;
 
     @Size(max = 400)
     private String description;
 
     
     @Column(name = "scheduled_start_date")
-    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm:ss")
-    private Date scheduledStartDate;
+    private LocalDateTime scheduledStartDate;
 
     
     @Column(name = "scheduled_end_date")
-    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm:ss")
-    private Date scheduledEndDate;
+    private LocalDateTime scheduledEndDate;
 
     @DecimalMin(value = "0.0")
     @Column(name = "proposed_cost")
@@ -62,17 +64,24 @@ public class Repair implements Serializable {
 
 
     @Column(name = "actual_start_date")
-    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm:ss")
-    private Date actualStartDate;
+    private LocalDateTime actualStartDate;
 
 
     @Column(name = "actual_end_date")
-    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm:ss")
-    private Date actualEndDate;
+    private LocalDateTime actualEndDate;
     
     @NotNull
     private boolean isDeleted = false;
 
+    @Column(name = "change_seq")
+    private Long changeSeq;
+
+    @Column(name = "claimed_by", length = 50)
+    private String claimedBy;
+
+    @Column(name = "lease_expires_at")
+    private LocalDateTime leaseExpiresAt;
+
     @ManyToOne
     @JoinColumn(name = "property_e9", referencedColumnName = "e9", nullable = false)
     private Property property;
@@ -0,0 +1,33 @@
+package com.technico.web.technico.models;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.EmbeddedId;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Table;
+import java.io.Serializable;
+import java.math.BigDecimal;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * The number and total proposed cost of the non-deleted repairs of one repair
+ * type, status, property type and month. The rows are kept up to date as
+ * repairs change, so reports never scan the repairs themselves.
+ */
+@Entity
+@Table(name = "repair_cost_rollup")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RepairCostRollup implements Serializable {
+
+    @EmbeddedId
+    private RepairCostRollupKey id;
+
+    @Column(name = "repair_count", nullable = false)
+    private long repairCount;
+
+    @Column(name = "total_cost", nullable = false, precision = 38, scale = 2)
+    private BigDecimal totalCost;
+}
@@ -0,0 +1,33 @@
+package com.technico.web.technico.models;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import java.io.Serializable;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Embeddable
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RepairCostRollupKey implements Serializable {
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "repair_type", length = 32)
+    private RepairType repairType;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "repair_status", length = 32)
+    private RepairStatus repairStatus;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "property_type", length = 32)
+    private PropertyType propertyType;
+
+    // yyyy-MM of the scheduled start, or empty for unscheduled repairs.
+    @Column(name = "bucket_month", length = 7)
+    private String month;
+}
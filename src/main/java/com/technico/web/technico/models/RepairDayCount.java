@@ -0,0 +1,34 @@
+package com.technico.web.technico.models;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.EmbeddedId;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import java.io.Serializable;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * The number of non-deleted repairs of one owner, status and type scheduled to
+ * start on one day. Every repair is counted twice, under its owner and under
+ * owner 0 for all owners, so a window of days is summed from a number of rows
+ * that depends on its length and not on the number of repairs.
+ */
+@Entity
+@Table(name = "repair_day_count",
+        indexes = @Index(name = "idx_repair_day_count_owner_day", columnList = "owner_id, bucket_day"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RepairDayCount implements Serializable {
+
+    public static final long ALL_OWNERS = 0;
+
+    @EmbeddedId
+    private RepairDayCountKey id;
+
+    @Column(name = "repair_count", nullable = false)
+    private long repairCount;
+}
@@ -0,0 +1,33 @@
+package com.technico.web.technico.models;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import java.io.Serializable;
+import java.time.LocalDate;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Embeddable
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RepairDayCountKey implements Serializable {
+
+    // The owner of the repairs, or 0 for the repairs of all owners.
+    @Column(name = "owner_id")
+    private long ownerId;
+
+    @Column(name = "bucket_day")
+    private LocalDate day;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "repair_status", length = 32)
+    private RepairStatus repairStatus;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "repair_type", length = 32)
+    private RepairType repairType;
+}
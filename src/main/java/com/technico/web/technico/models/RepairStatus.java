@@ -12,4 +12,23 @@ public enum RepairStatus {
     COMPLETE("Complete");
 
     private final String code;
+
+    /**
+     * Tells whether a repair in this status may be moved to the target
+     * status. Pending repairs are started, completed or declined, repairs in
+     * progress are completed, and declined and complete repairs are final.
+     *
+     * @param target the status to move to.
+     * @return true if the transition is legal.
+     */
+    public boolean canTransitionTo(RepairStatus target) {
+        switch (this) {
+            case PENDING:
+                return target == INPROGRESS || target == COMPLETE || target == DECLINED;
+            case INPROGRESS:
+                return target == COMPLETE;
+            default:
+                return false;
+        }
+    }
 }
@@ -0,0 +1,6 @@
+package com.technico.web.technico.models;
+
+public enum SyncEntityType {
+    PROPERTY,
+    REPAIR
+}
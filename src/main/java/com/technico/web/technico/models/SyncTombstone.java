@@ -0,0 +1,47 @@
+package com.technico.web.technico.models;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import java.io.Serializable;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Records that a property or repair was permanently deleted, so that clients
+ * synchronizing the owner's data learn to drop it. Soft deletes need no
+ * tombstone, because the row itself carries the deleted flag and a new change
+ * sequence.
+ */
+@Entity
+@Table(name = "sync_tombstone",
+        indexes = @Index(name = "idx_sync_tombstone_owner_change_seq", columnList = "owner_vat, change_seq"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SyncTombstone implements Serializable {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "entity_type", nullable = false, length = 20)
+    private SyncEntityType entityType;
+
+    @Column(name = "entity_id", nullable = false)
+    private Long entityId;
+
+    @Column(name = "owner_vat", nullable = false, length = 9)
+    private String ownerVat;
+
+    @Column(name = "change_seq", nullable = false)
+    private long changeSeq;
+}
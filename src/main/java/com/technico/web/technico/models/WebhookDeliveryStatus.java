@@ -0,0 +1,7 @@
+package com.technico.web.technico.models;
+
+public enum WebhookDeliveryStatus {
+    PENDING,
+    DELIVERED,
+    DEAD
+}
@@ -0,0 +1,47 @@
+package com.technico.web.technico.models;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import java.io.Serializable;
+import java.time.LocalDateTime;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A partner endpoint that is sent the repair and property changes it
+ * subscribed to.
+ */
+@Entity
+@Table(name = "webhook_subscription")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class WebhookSubscription implements Serializable {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, length = 2000)
+    private String url;
+
+    // Signs every batch with HMAC-SHA256 when set.
+    @Column(length = 200)
+    private String secret;
+
+    // The comma separated kinds of changes sent, repair and property, or
+    // null for every kind.
+    @Column(name = "event_types", length = 100)
+    private String eventTypes;
+
+    @Column(nullable = false)
+    private boolean active;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,66 @@
+package com.technico.web.technico.providers;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.MultivaluedMap;
+import jakarta.ws.rs.ext.MessageBodyWriter;
+import jakarta.ws.rs.ext.Provider;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+
+@Provider
+@Produces({BinaryMediaType.APPLICATION_CBOR, BinaryMediaType.APPLICATION_SMILE})
+public class BinaryJacksonProvider implements MessageBodyWriter<Object> {
+
+    private static final CBORMapper CBOR_MAPPER = ObjectMapperProvider.warmUp(ObjectMapperProvider.configure(CBORMapper.builder()));
+    private static final SmileMapper SMILE_MAPPER = ObjectMapperProvider.warmUp(ObjectMapperProvider.configure(SmileMapper.builder()));
+
+    @Override
+    public boolean isWriteable(Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType) {
+        return mapperFor(mediaType) != null;
+    }
+
+    /**
+     * Writes the entity with the binary mapper matching the negotiated media
+     * type. The mappers share the JSON mapper's settings, so the same DTOs
+     * produce the same fields in every representation.
+     *
+     * @param value the entity to write.
+     * @param type the class of the entity.
+     * @param genericType the generic type of the entity, e.g. List of RepairDto.
+     * @param annotations the annotations of the resource method.
+     * @param mediaType the negotiated media type.
+     * @param httpHeaders the response headers.
+     * @param entityStream the response body stream.
+     * @throws IOException if the entity cannot be written.
+     */
+    @Override
+    public void writeTo(Object value, Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType,
+            MultivaluedMap<String, Object> httpHeaders, OutputStream entityStream) throws IOException {
+        ObjectMapper mapper = mapperFor(mediaType);
+        JavaType javaType = mapper.getTypeFactory().constructType(genericType != null ? genericType : type);
+        mapper.writerFor(javaType)
+                .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                .writeValue(entityStream, value);
+    }
+
+    private ObjectMapper mapperFor(MediaType mediaType) {
+        if (mediaType == null) {
+            return null;
+        }
+        if (BinaryMediaType.APPLICATION_CBOR_TYPE.isCompatible(mediaType) && !mediaType.isWildcardSubtype()) {
+            return CBOR_MAPPER;
+        }
+        if (BinaryMediaType.APPLICATION_SMILE_TYPE.isCompatible(mediaType) && !mediaType.isWildcardSubtype()) {
+            return SMILE_MAPPER;
+        }
+        return null;
+    }
+}
@@ -0,0 +1,26 @@
+package com.technico.web.technico.providers;
+
+import jakarta.ws.rs.core.MediaType;
+
+public final class BinaryMediaType {
+
+    public static final String APPLICATION_CBOR = "application/cbor";
+    public static final String APPLICATION_SMILE = "application/x-jackson-smile";
+
+    // Offered with a lower server quality, so that clients accepting anything
+    // (browsers, */*) keep getting JSON and only an explicit Accept selects binary.
+    public static final String APPLICATION_CBOR_QS = APPLICATION_CBOR + ";qs=0.9";
+    public static final String APPLICATION_SMILE_QS = APPLICATION_SMILE + ";qs=0.9";
+
+    // What every JSON endpoint produces; a comma separated list is allowed
+    // where an annotation takes a single media type, which an array
+    // constant is not.
+    public static final String JSON_OR_BINARY = "application/json," + APPLICATION_CBOR_QS + ","
+            + APPLICATION_SMILE_QS;
+
+    public static final MediaType APPLICATION_CBOR_TYPE = new MediaType("application", "cbor");
+    public static final MediaType APPLICATION_SMILE_TYPE = new MediaType("application", "x-jackson-smile");
+
+    private BinaryMediaType() {
+    }
+}
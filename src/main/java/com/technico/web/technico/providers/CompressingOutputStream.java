@@ -0,0 +1,220 @@
+package com.technico.web.technico.providers;
+
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.MultivaluedMap;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * Buffers the response body until it passes the size threshold and only then
+ * switches to gzip or deflate. Bodies that stay under the threshold are
+ * written uncompressed when the stream is finished.
+ */
+class CompressingOutputStream extends OutputStream {
+
+    static final String GZIP = "gzip";
+    static final String DEFLATE = "deflate";
+
+    private static final byte[] GZIP_HEADER = {0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte) 0xff};
+    private static final int BUFFER_SIZE = 8192;
+
+    private final OutputStream target;
+    private final String encoding;
+    private final int threshold;
+    private final MultivaluedMap<String, Object> headers;
+    private final DeflaterPool pool;
+    private final int maxCapturedBytes;
+
+    private ByteArrayOutputStream pending;
+    private ByteArrayOutputStream captured;
+    private OutputStream sink;
+    private Deflater deflater;
+    private DeflaterOutputStream compressor;
+    private CRC32 crc;
+    private long uncompressedSize;
+    private boolean finished;
+
+    /**
+     * @param target the stream the (possibly compressed) body is written to.
+     * @param encoding the negotiated content coding, gzip or deflate.
+     * @param threshold the body size in bytes above which it is compressed.
+     * @param headers the response headers, updated once compression starts.
+     * @param pool the pool to borrow the Deflater from.
+     * @param maxCapturedBytes the largest compressed body kept for caching, or
+     * zero to keep none.
+     */
+    CompressingOutputStream(OutputStream target, String encoding, int threshold,
+            MultivaluedMap<String, Object> headers, DeflaterPool pool, int maxCapturedBytes) {
+        this.target = target;
+        this.encoding = encoding;
+        this.threshold = threshold;
+        this.headers = headers;
+        this.pool = pool;
+        this.maxCapturedBytes = maxCapturedBytes;
+        this.pending = new ByteArrayOutputStream(Math.min(threshold, BUFFER_SIZE));
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        write(new byte[]{(byte) b}, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        if (compressor == null) {
+            if (pending.size() + len <= threshold) {
+                pending.write(b, off, len);
+                return;
+            }
+            startCompression();
+        }
+        compress(b, off, len);
+    }
+
+    /**
+     * Flushes the compressed output with a sync flush, so streamed bodies
+     * still reach the client as they are produced. Below the threshold there
+     * is nothing to flush yet.
+     *
+     * @throws IOException if the target stream cannot be flushed.
+     */
+    @Override
+    public void flush() throws IOException {
+        if (compressor != null) {
+            compressor.flush();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        finish();
+    }
+
+    /**
+     * Completes the body: writes the buffered bytes as they are when the
+     * threshold was never reached, otherwise finishes the compressed stream.
+     *
+     * @throws IOException if the target stream cannot be written.
+     */
+    void finish() throws IOException {
+        if (finished) {
+            return;
+        }
+        finished = true;
+        try {
+            if (compressor == null) {
+                pending.writeTo(target);
+            } else {
+                compressor.finish();
+                if (GZIP.equals(encoding)) {
+                    writeGzipTrailer();
+                }
+            }
+            target.flush();
+        } finally {
+            release();
+        }
+    }
+
+    /**
+     * Returns the Deflater to the pool. Safe to call more than once.
+     */
+    void release() {
+        if (deflater != null) {
+            pool.release(deflater, GZIP.equals(encoding));
+            deflater = null;
+        }
+    }
+
+    /**
+     * @return true if the body was compressed.
+     */
+    boolean isCompressed() {
+        return compressor != null;
+    }
+
+    /**
+     * @return the complete compressed body, or null if it was not compressed,
+     * was too large to keep or is not finished.
+     */
+    byte[] compressedBody() {
+        return finished && captured != null ? captured.toByteArray() : null;
+    }
+
+    private void startCompression() throws IOException {
+        headers.putSingle(HttpHeaders.CONTENT_ENCODING, encoding);
+        headers.remove(HttpHeaders.CONTENT_LENGTH);
+
+        if (maxCapturedBytes > 0) {
+            captured = new ByteArrayOutputStream();
+            sink = new CapturingStream();
+        } else {
+            sink = target;
+        }
+        boolean gzip = GZIP.equals(encoding);
+        deflater = pool.borrow(gzip);
+        compressor = new DeflaterOutputStream(sink, deflater, BUFFER_SIZE, true);
+        if (gzip) {
+            crc = new CRC32();
+            sink.write(GZIP_HEADER);
+        }
+        byte[] buffered = pending.toByteArray();
+        pending = null;
+        compress(buffered, 0, buffered.length);
+    }
+
+    private void compress(byte[] b, int off, int len) throws IOException {
+        if (crc != null) {
+            crc.update(b, off, len);
+        }
+        uncompressedSize += len;
+        compressor.write(b, off, len);
+    }
+
+    private void writeGzipTrailer() throws IOException {
+        byte[] trailer = new byte[8];
+        writeIntLE(trailer, 0, (int) crc.getValue());
+        writeIntLE(trailer, 4, (int) uncompressedSize);
+        sink.write(trailer);
+    }
+
+    private static void writeIntLE(byte[] buffer, int offset, int value) {
+        buffer[offset] = (byte) value;
+        buffer[offset + 1] = (byte) (value >> 8);
+        buffer[offset + 2] = (byte) (value >> 16);
+        buffer[offset + 3] = (byte) (value >> 24);
+    }
+
+    /**
+     * Writes compressed bytes to the target and keeps a copy for the cache,
+     * until the copy would exceed the capture limit.
+     */
+    private class CapturingStream extends OutputStream {
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            target.write(b, off, len);
+            if (captured != null) {
+                if (captured.size() + len > maxCapturedBytes) {
+                    captured = null;
+                } else {
+                    captured.write(b, off, len);
+                }
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            target.flush();
+        }
+    }
+}
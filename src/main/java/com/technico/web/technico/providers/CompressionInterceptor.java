@@ -0,0 +1,199 @@
+package com.technico.web.technico.providers;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.technico.web.technico.JakartaRestConfiguration;
+import com.technico.web.technico.cache.CacheRegistry;
+import com.technico.web.technico.cache.CacheSpec;
+import jakarta.annotation.Priority;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.Priorities;
+import jakarta.ws.rs.core.Configuration;
+import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.MultivaluedMap;
+import jakarta.ws.rs.ext.Provider;
+import jakarta.ws.rs.ext.WriterInterceptor;
+import jakarta.ws.rs.ext.WriterInterceptorContext;
+import jakarta.ws.rs.sse.OutboundSseEvent;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.Duration;
+import java.util.Locale;
+
+@Provider
+@Priority(Priorities.ENTITY_CODER)
+public class CompressionInterceptor implements WriterInterceptor {
+
+    private static final int MAX_CACHED_BODY_BYTES = 1024 * 1024;
+
+    @Context
+    private HttpHeaders requestHeaders;
+
+    @Context
+    private Configuration configuration;
+
+    @Inject
+    private CacheRegistry cacheRegistry;
+
+    private volatile DeflaterPool deflaterPool;
+    private volatile Cache<String, byte[]> compressedBodies;
+
+    /**
+     * Compresses response bodies with gzip or deflate when the client accepts
+     * it and the body is larger than the configured threshold. Responses that
+     * carry a strong ETag are byte for byte identical for the same tag, so
+     * their compressed bodies are cached and later responses with that tag
+     * are written from the cache without serializing or compressing again.
+     * Server-sent event streams are never compressed, so that every event
+     * reaches the client as soon as it is sent.
+     *
+     * @param context the writer interceptor context.
+     * @throws IOException if the body cannot be written.
+     */
+    @Override
+    public void aroundWriteTo(WriterInterceptorContext context) throws IOException {
+        MultivaluedMap<String, Object> headers = context.getHeaders();
+        String encoding = negotiateEncoding(requestHeaders.getHeaderString(HttpHeaders.ACCEPT_ENCODING));
+        if (encoding == null || headers.containsKey(HttpHeaders.CONTENT_ENCODING)
+                || context.getEntity() instanceof OutboundSseEvent
+                || MediaType.SERVER_SENT_EVENTS_TYPE.isCompatible(context.getMediaType())) {
+            context.proceed();
+            return;
+        }
+        headers.add(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+
+        String cacheKey = cacheKey(headers, encoding);
+        if (cacheKey != null) {
+            byte[] cached = compressedBodies().getIfPresent(cacheKey);
+            if (cached != null) {
+                headers.putSingle(HttpHeaders.CONTENT_ENCODING, encoding);
+                headers.remove(HttpHeaders.CONTENT_LENGTH);
+                context.getOutputStream().write(cached);
+                return;
+            }
+        }
+
+        OutputStream original = context.getOutputStream();
+        CompressingOutputStream compressing = new CompressingOutputStream(original, encoding,
+                intProperty(JakartaRestConfiguration.COMPRESSION_THRESHOLD, 1024), headers, deflaterPool(),
+                cacheKey != null ? MAX_CACHED_BODY_BYTES : 0);
+        context.setOutputStream(compressing);
+        try {
+            context.proceed();
+            compressing.finish();
+        } finally {
+            compressing.release();
+            context.setOutputStream(original);
+        }
+
+        byte[] compressed = compressing.compressedBody();
+        if (cacheKey != null && compressed != null) {
+            compressedBodies().put(cacheKey, compressed);
+        }
+    }
+
+    /**
+     * Picks gzip, or else deflate, if the Accept-Encoding header allows it.
+     *
+     * @param acceptEncoding the Accept-Encoding request header.
+     * @return the content coding to use, or null to send the body as is.
+     */
+    static String negotiateEncoding(String acceptEncoding) {
+        if (acceptEncoding == null || acceptEncoding.isBlank()) {
+            return null;
+        }
+        double gzip = -1;
+        double deflate = -1;
+        double wildcard = -1;
+        for (String part : acceptEncoding.split(",")) {
+            String[] tokens = part.trim().split(";");
+            String coding = tokens[0].trim().toLowerCase(Locale.ROOT);
+            double quality = 1;
+            for (int i = 1; i < tokens.length; i++) {
+                String parameter = tokens[i].trim();
+                if (parameter.startsWith("q=")) {
+                    try {
+                        quality = Double.parseDouble(parameter.substring(2));
+                    } catch (NumberFormatException e) {
+                        quality = 0;
+                    }
+                }
+            }
+            switch (coding) {
+                case CompressingOutputStream.GZIP:
+                case "x-gzip":
+                    gzip = quality;
+                    break;
+                case CompressingOutputStream.DEFLATE:
+                    deflate = quality;
+                    break;
+                case "*":
+                    wildcard = quality;
+                    break;
+                default:
+                    break;
+            }
+        }
+        if (gzip < 0) {
+            gzip = wildcard;
+        }
+        if (deflate < 0) {
+            deflate = wildcard;
+        }
+        if (gzip > 0 && gzip >= deflate) {
+            return CompressingOutputStream.GZIP;
+        }
+        return deflate > 0 ? CompressingOutputStream.DEFLATE : null;
+    }
+
+    private String cacheKey(MultivaluedMap<String, Object> headers, String encoding) {
+        Object etag = headers.getFirst(HttpHeaders.ETAG);
+        if (etag == null) {
+            return null;
+        }
+        String tag = etag.toString();
+        if (tag.startsWith("W/")) {
+            return null;
+        }
+        return encoding + ' ' + tag;
+    }
+
+    private int intProperty(String name, int defaultValue) {
+        Object value = configuration != null ? configuration.getProperty(name) : null;
+        if (value instanceof Number) {
+            return ((Number) value).intValue();
+        }
+        return value != null ? Integer.parseInt(value.toString()) : defaultValue;
+    }
+
+    private DeflaterPool deflaterPool() {
+        DeflaterPool pool = deflaterPool;
+        if (pool == null) {
+            synchronized (this) {
+                if (deflaterPool == null) {
+                    deflaterPool = new DeflaterPool(intProperty(JakartaRestConfiguration.COMPRESSION_LEVEL, 6),
+                            Runtime.getRuntime().availableProcessors() * 4);
+                }
+                pool = deflaterPool;
+            }
+        }
+        return pool;
+    }
+
+    private Cache<String, byte[]> compressedBodies() {
+        Cache<String, byte[]> cache = compressedBodies;
+        if (cache == null) {
+            synchronized (this) {
+                if (compressedBodies == null) {
+                    long maxBytes = intProperty(JakartaRestConfiguration.COMPRESSION_CACHE_BYTES, 16 * 1024 * 1024);
+                    compressedBodies = cacheRegistry.build("compressed-responses",
+                            CacheSpec.<String, byte[]>maximumWeight(maxBytes, (key, body) -> key.length() + body.length)
+                                    .expireAfterAccess(Duration.ofMinutes(30)));
+                }
+                cache = compressedBodies;
+            }
+        }
+        return cache;
+    }
+}
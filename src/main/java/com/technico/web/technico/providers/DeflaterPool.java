@@ -0,0 +1,52 @@
+package com.technico.web.technico.providers;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.zip.Deflater;
+
+/**
+ * Keeps released Deflaters for reuse. A Deflater holds a sizeable native
+ * buffer, so creating and ending one per response is a measurable cost.
+ */
+class DeflaterPool {
+
+    private final int level;
+    private final BlockingQueue<Deflater> rawDeflaters;
+    private final BlockingQueue<Deflater> zlibDeflaters;
+
+    DeflaterPool(int level, int capacity) {
+        this.level = level;
+        this.rawDeflaters = new ArrayBlockingQueue<>(capacity);
+        this.zlibDeflaters = new ArrayBlockingQueue<>(capacity);
+    }
+
+    /**
+     * Takes a Deflater from the pool, or creates one if the pool is empty.
+     *
+     * @param nowrap true for raw deflate output (used inside gzip framing),
+     * false for zlib output.
+     * @return a ready to use Deflater.
+     */
+    Deflater borrow(boolean nowrap) {
+        Deflater deflater = queue(nowrap).poll();
+        return deflater != null ? deflater : new Deflater(level, nowrap);
+    }
+
+    /**
+     * Resets a Deflater and returns it to the pool. If the pool is full, the
+     * Deflater's native memory is released instead.
+     *
+     * @param deflater the Deflater to return.
+     * @param nowrap the mode the Deflater was borrowed with.
+     */
+    void release(Deflater deflater, boolean nowrap) {
+        deflater.reset();
+        if (!queue(nowrap).offer(deflater)) {
+            deflater.end();
+        }
+    }
+
+    private BlockingQueue<Deflater> queue(boolean nowrap) {
+        return nowrap ? rawDeflaters : zlibDeflaters;
+    }
+}
@@ -0,0 +1,168 @@
+package com.technico.web.technico.providers;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.MapperFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.cfg.MapperBuilder;
+import com.fasterxml.jackson.databind.deser.std.StdScalarDeserializer;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.databind.ser.std.StdScalarSerializer;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import com.technico.web.technico.dtos.OwnerDto;
+import com.technico.web.technico.dtos.OwnerPortfolioDto;
+import com.technico.web.technico.dtos.PropertyDto;
+import com.technico.web.technico.dtos.RepairDto;
+import jakarta.ws.rs.ext.ContextResolver;
+import jakarta.ws.rs.ext.Provider;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
+@Provider
+public class ObjectMapperProvider implements ContextResolver<ObjectMapper> {
+
+    public static final String DATE_TIME_PATTERN = "yyyy-MM-dd'T'HH:mm:ss";
+    public static final DateTimeFormatter DATE_TIME_FORMATTER = DateTimeFormatter.ofPattern(DATE_TIME_PATTERN);
+
+    private static final ObjectMapper MAPPER = warmUp(configure(JsonMapper.builder()));
+
+    /**
+     * Returns the shared mapper used by the JSON provider for every type.
+     *
+     * @param type the class of the object being (de)serialized.
+     * @return the shared, pre-warmed ObjectMapper.
+     */
+    @Override
+    public ObjectMapper getContext(Class<?> type) {
+        return MAPPER;
+    }
+
+    /**
+     * Returns the shared JSON mapper for code that writes JSON outside the
+     * JAX-RS provider chain.
+     *
+     * @return the shared, pre-warmed ObjectMapper.
+     */
+    public static ObjectMapper sharedMapper() {
+        return MAPPER;
+    }
+
+    /**
+     * Parses a date-time written in UTC, as the mapper writes them, into the
+     * server's time zone.
+     *
+     * @param text the date-time, as {@link #DATE_TIME_PATTERN}.
+     * @return the same instant in the server's time zone.
+     * @throws DateTimeParseException if the text does not match the pattern.
+     */
+    public static LocalDateTime parseUtc(String text) {
+        return LocalDateTime.parse(text, DATE_TIME_FORMATTER).atOffset(ZoneOffset.UTC)
+                .atZoneSameInstant(ZoneId.systemDefault()).toLocalDateTime();
+    }
+
+    /**
+     * Applies the application's mapper settings to a builder: bytecode
+     * generated property access, java.time support with a single cached
+     * formatter and the features we don't need switched off. Date-times are
+     * written and read in UTC, as the {@code Date} fields they replaced were,
+     * and converted from and to the server's time zone, which the database
+     * columns hold.
+     *
+     * @param builder the builder of the mapper to configure.
+     * @return the configured mapper.
+     */
+    public static <M extends ObjectMapper, B extends MapperBuilder<M, B>> M configure(B builder) {
+        JavaTimeModule javaTimeModule = new JavaTimeModule();
+        javaTimeModule.addSerializer(LocalDateTime.class, new UtcDateTimeSerializer());
+        javaTimeModule.addDeserializer(LocalDateTime.class, new UtcDateTimeDeserializer());
+
+        return builder
+                .addModule(javaTimeModule)
+                .addModule(new BlackbirdModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .disable(SerializationFeature.FAIL_ON_EMPTY_BEANS)
+                .disable(DeserializationFeature.ADJUST_DATES_TO_CONTEXT_TIME_ZONE)
+                .disable(MapperFeature.USE_GETTERS_AS_SETTERS)
+                .disable(MapperFeature.DEFAULT_VIEW_INCLUSION)
+                .build();
+    }
+
+    /**
+     * Builds the serializers and deserializers of the DTOs up front, so the
+     * first requests don't pay for introspection and code generation.
+     *
+     * @param mapper the mapper to warm up.
+     * @return the same mapper.
+     */
+    public static <M extends ObjectMapper> M warmUp(M mapper) {
+        List<Object> samples = List.of(new OwnerDto(), new PropertyDto(), new RepairDto(), new OwnerPortfolioDto());
+        for (Object sample : samples) {
+            try {
+                mapper.writeValueAsBytes(sample);
+                mapper.writeValueAsBytes(List.of(sample));
+                mapper.readerFor(sample.getClass());
+            } catch (JsonProcessingException e) {
+                log.debug("Could not warm up mapper for " + sample.getClass().getSimpleName() + ": " + e.getMessage());
+            }
+        }
+        return mapper;
+    }
+
+    /**
+     * Writes a server-local date-time as the same instant in UTC.
+     */
+    private static final class UtcDateTimeSerializer extends StdScalarSerializer<LocalDateTime> {
+
+        private UtcDateTimeSerializer() {
+            super(LocalDateTime.class);
+        }
+
+        @Override
+        public void serialize(LocalDateTime value, JsonGenerator generator, SerializerProvider provider)
+                throws IOException {
+            generator.writeString(DATE_TIME_FORMATTER.format(
+                    value.atZone(ZoneId.systemDefault()).withZoneSameInstant(ZoneOffset.UTC)));
+        }
+    }
+
+    /**
+     * Reads a UTC date-time as the same instant in the server's time zone.
+     */
+    private static final class UtcDateTimeDeserializer extends StdScalarDeserializer<LocalDateTime> {
+
+        private UtcDateTimeDeserializer() {
+            super(LocalDateTime.class);
+        }
+
+        @Override
+        public LocalDateTime deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+            if (!parser.hasToken(JsonToken.VALUE_STRING)) {
+                return (LocalDateTime) context.handleUnexpectedToken(LocalDateTime.class, parser);
+            }
+            String text = parser.getText().trim();
+            if (text.isEmpty()) {
+                return null;
+            }
+            try {
+                return parseUtc(text);
+            } catch (DateTimeParseException e) {
+                return (LocalDateTime) context.handleWeirdStringValue(LocalDateTime.class, text,
+                        "Expected a date-time like " + DATE_TIME_PATTERN);
+            }
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.technico.web.technico.repositories;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+
+/**
+ * Runs a query with an {@code IN} list over many keys. Keys are de-duplicated
+ * and sent in chunks, so that a large request neither exceeds the bind
+ * parameter limits of the driver nor defeats the statement cache with a new
+ * statement shape for every list length.
+ */
+final class InQueries {
+
+    static final int CHUNK_SIZE = 500;
+
+    private InQueries() {
+    }
+
+    /**
+     * Runs the query once per chunk of distinct keys and collects the rows.
+     *
+     * @param keys the keys to look up, in any order and with duplicates.
+     * @param query runs the {@code IN} query for one chunk of keys.
+     * @return the rows of every chunk, in no particular order.
+     */
+    static <K, T> List<T> inChunks(Collection<K> keys, Function<List<K>, List<T>> query) {
+        List<K> distinct = new ArrayList<>(new LinkedHashSet<>(keys));
+        List<T> rows = new ArrayList<>(distinct.size());
+        for (int from = 0; from < distinct.size(); from += CHUNK_SIZE) {
+            rows.addAll(query.apply(distinct.subList(from, Math.min(from + CHUNK_SIZE, distinct.size()))));
+        }
+        return rows;
+    }
+
+    /**
+     * Runs an update once per chunk of distinct keys.
+     *
+     * @param keys the keys of the rows to update.
+     * @param update runs the {@code IN} update for one chunk of keys and
+     * returns its update count.
+     * @return the total number of updated rows.
+     */
+    static <K> int updateInChunks(Collection<K> keys, ToIntFunction<List<K>> update) {
+        List<K> distinct = new ArrayList<>(new LinkedHashSet<>(keys));
+        int updated = 0;
+        for (int from = 0; from < distinct.size(); from += CHUNK_SIZE) {
+            updated += update.applyAsInt(distinct.subList(from, Math.min(from + CHUNK_SIZE, distinct.size())));
+        }
+        return updated;
+    }
+}
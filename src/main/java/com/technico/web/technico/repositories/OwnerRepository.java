@@ -1,13 +1,24 @@
 package com.technico.web.technico.repositories;
 
+import com.technico.web.technico.dtos.OwnerDto;
+import com.technico.web.technico.events.OwnerSnapshot;
 import com.technico.web.technico.models.Owner;
+import com.technico.web.technico.sync.ChangeSequence;
 import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
 import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
 import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.PersistenceUnit;
+import jakarta.persistence.Query;
 import jakarta.persistence.TypedQuery;
 import jakarta.transaction.Transactional;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
 import lombok.NoArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
@@ -19,6 +30,12 @@ public class OwnerRepository implements Repository<Owner, Long> {
     @PersistenceContext(unitName = "Persistence")
     private EntityManager entityManager;
 
+    @PersistenceUnit(unitName = "Persistence")
+    private EntityManagerFactory entityManagerFactory;
+
+    @Inject
+    private ChangeSequence changeSequence;
+
     /**
      * Saves a new owner entity to the database.
      *
@@ -157,4 +174,140 @@ public class OwnerRepository implements Repository<Owner, Long> {
     private String getEntityClassName() {
         return Owner.class.getName();
     }
+
+    /**
+     * Streams every owner as a dto to the given consumer, in ID order. The
+     * rows are read through a forward-only cursor on a dedicated entity
+     * manager outside of any transaction, and the persistence context is
+     * cleared periodically, so memory use stays constant however many rows
+     * there are.
+     *
+     * @param consumer receives each owner as soon as its row is read.
+     */
+    public void scrollAllOwners(Consumer<OwnerDto> consumer) {
+        ScrollQueries.scroll(entityManagerFactory, session -> session.createSelectionQuery(
+                "SELECT new com.technico.web.technico.dtos.OwnerDto("
+                + "o.id, o.vat, o.name, o.surname, o.address, o.phoneNumber, o.email, o.password, o.isDeleted) "
+                + "FROM Owner o ORDER BY o.id", OwnerDto.class), consumer);
+    }
+
+    /**
+     * Finds the owners with the given IDs, using chunked IN queries.
+     *
+     * @param ids the IDs of the owners to find.
+     * @return the owner dtos of the IDs that exist, in no particular order.
+     */
+    public List<OwnerDto> findByIds(Collection<Long> ids) {
+        return InQueries.inChunks(ids, chunk -> entityManager.createQuery(
+                "SELECT new com.technico.web.technico.dtos.OwnerDto("
+                + "o.id, o.vat, o.name, o.surname, o.address, o.phoneNumber, o.email, o.password, o.isDeleted) "
+                + "FROM Owner o WHERE o.id IN :ids", OwnerDto.class)
+                .setParameter("ids", chunk)
+                .getResultList());
+    }
+
+    /**
+     * Finds the owners with the given VAT numbers, using chunked IN queries.
+     *
+     * @param vats the VAT numbers of the owners to find.
+     * @return the owner dtos of the VAT numbers that exist, in no particular
+     * order.
+     */
+    public List<OwnerDto> findByVats(Collection<String> vats) {
+        return InQueries.inChunks(vats, chunk -> entityManager.createQuery(
+                "SELECT new com.technico.web.technico.dtos.OwnerDto("
+                + "o.id, o.vat, o.name, o.surname, o.address, o.phoneNumber, o.email, o.password, o.isDeleted) "
+                + "FROM Owner o WHERE o.vat IN :vats", OwnerDto.class)
+                .setParameter("vats", chunk)
+                .getResultList());
+    }
+
+    /**
+     * Takes snapshots of the owners with the given VAT numbers, using chunked
+     * IN queries.
+     *
+     * @param vats the VAT numbers of the owners.
+     * @return the snapshots of the VAT numbers that exist, in no particular
+     * order.
+     */
+    public List<OwnerSnapshot> findOwnerSnapshotsByVats(Collection<String> vats) {
+        return InQueries.inChunks(vats, chunk -> entityManager.createQuery(
+                "SELECT new com.technico.web.technico.events.OwnerSnapshot("
+                + "o.id, o.vat, o.name, o.surname, o.email, o.isDeleted) "
+                + "FROM Owner o WHERE o.vat IN :vats", OwnerSnapshot.class)
+                .setParameter("vats", chunk)
+                .getResultList());
+    }
+
+    /**
+     * Streams a snapshot of every non-deleted owner without loading entities.
+     *
+     * @param consumer receives each snapshot as soon as its row is read.
+     */
+    public void scrollOwnerSnapshots(Consumer<OwnerSnapshot> consumer) {
+        ScrollQueries.scroll(entityManagerFactory, session -> session.createSelectionQuery(
+                "SELECT new com.technico.web.technico.events.OwnerSnapshot("
+                + "o.id, o.vat, o.name, o.surname, o.email, o.isDeleted) "
+                + "FROM Owner o WHERE o.isDeleted = false", OwnerSnapshot.class), consumer);
+    }
+
+    /**
+     * Finds which of the given VAT numbers already belong to an owner, using
+     * chunked IN queries.
+     *
+     * @param vats the VAT numbers to check.
+     * @return the VAT numbers that are taken.
+     */
+    public Set<String> findExistingVats(Collection<String> vats) {
+        return new HashSet<>(InQueries.inChunks(vats, chunk -> entityManager.createQuery(
+                "SELECT o.vat FROM Owner o WHERE o.vat IN :vats", String.class)
+                .setParameter("vats", chunk)
+                .getResultList()));
+    }
+
+    /**
+     * Finds which of the given emails already belong to an owner, using
+     * chunked IN queries.
+     *
+     * @param emails the emails to check.
+     * @return the emails that are taken.
+     */
+    public Set<String> findExistingEmails(Collection<String> emails) {
+        return new HashSet<>(InQueries.inChunks(emails, chunk -> entityManager.createQuery(
+                "SELECT o.email FROM Owner o WHERE o.email IN :emails", String.class)
+                .setParameter("emails", chunk)
+                .getResultList()));
+    }
+
+    /**
+     * Inserts new owners with a single multi-row INSERT. Owner ids are
+     * generated by the database, which keeps Hibernate from batching
+     * persist calls, so the statement is written out directly.
+     *
+     * @param owners the owners to insert, at most a few hundred at a time.
+     * @return the number of inserted rows.
+     */
+    @Transactional
+    public int insertAll(List<Owner> owners) {
+        StringBuilder sql = new StringBuilder(
+                "INSERT INTO Owner (vat, name, surname, address, phone_number, email, password, isDeleted, change_seq) VALUES ");
+        for (int i = 0; i < owners.size(); i++) {
+            sql.append(i == 0 ? "" : ", ").append("(?, ?, ?, ?, ?, ?, ?, ?, ?)");
+        }
+        Query query = entityManager.createNativeQuery(sql.toString());
+        long sequence = changeSequence.current();
+        int position = 1;
+        for (Owner owner : owners) {
+            query.setParameter(position++, owner.getVat());
+            query.setParameter(position++, owner.getName());
+            query.setParameter(position++, owner.getSurname());
+            query.setParameter(position++, owner.getAddress());
+            query.setParameter(position++, owner.getPhoneNumber());
+            query.setParameter(position++, owner.getEmail());
+            query.setParameter(position++, owner.getPassword());
+            query.setParameter(position++, owner.isDeleted());
+            query.setParameter(position++, sequence);
+        }
+        return query.executeUpdate();
+    }
 }
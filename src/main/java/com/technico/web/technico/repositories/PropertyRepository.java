@@ -1,14 +1,25 @@
 package com.technico.web.technico.repositories;
 
+import com.technico.web.technico.dtos.PropertyDto;
+import com.technico.web.technico.events.PropertySnapshot;
 import com.technico.web.technico.models.Owner;
 import com.technico.web.technico.models.Property;
+import com.technico.web.technico.sync.ChangeSequence;
 import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
 import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
 import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.PersistenceUnit;
+import jakarta.persistence.Query;
 import jakarta.persistence.TypedQuery;
 import jakarta.transaction.Transactional;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
 import lombok.NoArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
@@ -20,6 +31,12 @@ public class PropertyRepository implements Repository<Property, Long> {
     @PersistenceContext(unitName = "Persistence")
     private EntityManager entityManager;
 
+    @PersistenceUnit(unitName = "Persistence")
+    private EntityManagerFactory entityManagerFactory;
+
+    @Inject
+    private ChangeSequence changeSequence;
+
     private Class<Property> getEntityClass() {
         return Property.class;
     }
@@ -143,4 +160,141 @@ public class PropertyRepository implements Repository<Property, Long> {
                 .setParameter("ownerId", ownerId)
                 .getResultList();
     }
+
+    /**
+     * Finds the non-deleted Property entities of the owner with the given ID.
+     *
+     * @param ownerId the ID of the owner whose properties are to be found
+     * @return a List of the non-deleted Property entities of the owner
+     */
+    public List<Property> findLivePropertiesByOwnerID(Long ownerId) {
+        return entityManager.createQuery(
+                "SELECT p FROM Property p "
+                + "WHERE p.owner.id = :ownerId AND p.isDeleted = false", Property.class)
+                .setParameter("ownerId", ownerId)
+                .getResultList();
+    }
+
+    /**
+     * Streams every property as a dto to the given consumer, in ID order. The
+     * rows are read through a forward-only cursor on a dedicated entity
+     * manager outside of any transaction, and the persistence context is
+     * cleared periodically, so memory use stays constant however many rows
+     * there are.
+     *
+     * @param consumer receives each property as soon as its row is read.
+     */
+    public void scrollAllProperties(Consumer<PropertyDto> consumer) {
+        ScrollQueries.scroll(entityManagerFactory, session -> session.createSelectionQuery(
+                "SELECT new com.technico.web.technico.dtos.PropertyDto("
+                + "p.id, p.e9, p.propertyAddress, p.constructionYear, p.propertyType, o.vat, p.isDeleted) "
+                + "FROM Property p JOIN p.owner o ORDER BY p.id", PropertyDto.class), consumer);
+    }
+
+    /**
+     * Finds the properties with the given IDs, using chunked IN queries.
+     *
+     * @param ids the IDs of the properties to find.
+     * @return the property dtos of the IDs that exist, in no particular order.
+     */
+    public List<PropertyDto> findPropertiesByIDs(Collection<Long> ids) {
+        return InQueries.inChunks(ids, chunk -> entityManager.createQuery(
+                "SELECT new com.technico.web.technico.dtos.PropertyDto("
+                + "p.id, p.e9, p.propertyAddress, p.constructionYear, p.propertyType, o.vat, p.isDeleted) "
+                + "FROM Property p JOIN p.owner o WHERE p.id IN :ids", PropertyDto.class)
+                .setParameter("ids", chunk)
+                .getResultList());
+    }
+
+    /**
+     * Finds the properties with the given E9 identifiers, using chunked IN
+     * queries.
+     *
+     * @param e9s the E9 identifiers of the properties to find.
+     * @return the property dtos of the E9 identifiers that exist, in no
+     * particular order.
+     */
+    public List<PropertyDto> findPropertiesByE9s(Collection<String> e9s) {
+        return InQueries.inChunks(e9s, chunk -> entityManager.createQuery(
+                "SELECT new com.technico.web.technico.dtos.PropertyDto("
+                + "p.id, p.e9, p.propertyAddress, p.constructionYear, p.propertyType, o.vat, p.isDeleted) "
+                + "FROM Property p JOIN p.owner o WHERE p.e9 IN :e9s", PropertyDto.class)
+                .setParameter("e9s", chunk)
+                .getResultList());
+    }
+
+    /**
+     * Streams a snapshot of every property, deleted or not, without loading
+     * entities.
+     *
+     * @param consumer receives each snapshot as soon as its row is read.
+     */
+    public void scrollPropertySnapshots(Consumer<PropertySnapshot> consumer) {
+        ScrollQueries.scroll(entityManagerFactory, session -> session.createSelectionQuery(
+                "SELECT new com.technico.web.technico.events.PropertySnapshot("
+                + "p.id, o.id, o.vat, p.e9, p.propertyAddress, p.constructionYear, p.propertyType, p.isDeleted) "
+                + "FROM Property p JOIN p.owner o", PropertySnapshot.class), consumer);
+    }
+
+    /**
+     * Takes snapshots of the properties with the given E9 identifiers, using
+     * chunked IN queries.
+     *
+     * @param e9s the E9 identifiers of the properties.
+     * @return the snapshots of the E9 identifiers that exist, in no
+     * particular order.
+     */
+    public List<PropertySnapshot> findPropertySnapshotsByE9s(Collection<String> e9s) {
+        return InQueries.inChunks(e9s, chunk -> entityManager.createQuery(
+                "SELECT new com.technico.web.technico.events.PropertySnapshot("
+                + "p.id, o.id, o.vat, p.e9, p.propertyAddress, p.constructionYear, p.propertyType, p.isDeleted) "
+                + "FROM Property p JOIN p.owner o WHERE p.e9 IN :e9s", PropertySnapshot.class)
+                .setParameter("e9s", chunk)
+                .getResultList());
+    }
+
+    /**
+     * Finds which of the given E9 identifiers already belong to a property,
+     * using chunked IN queries.
+     *
+     * @param e9s the E9 identifiers to check.
+     * @return the E9 identifiers that are taken.
+     */
+    public Set<String> findExistingE9s(Collection<String> e9s) {
+        return new HashSet<>(InQueries.inChunks(e9s, chunk -> entityManager.createQuery(
+                "SELECT p.e9 FROM Property p WHERE p.e9 IN :e9s", String.class)
+                .setParameter("e9s", chunk)
+                .getResultList()));
+    }
+
+    /**
+     * Inserts new properties with a single multi-row INSERT. Property ids are
+     * generated by the database, which keeps Hibernate from batching
+     * persist calls, so the statement is written out directly.
+     *
+     * @param properties the properties to insert, each with an owner that has
+     * its VAT set, at most a few hundred at a time.
+     * @return the number of inserted rows.
+     */
+    @Transactional
+    public int insertAll(List<Property> properties) {
+        StringBuilder sql = new StringBuilder(
+                "INSERT INTO Property (e9, property_address, construction_year, property_type, isDeleted, owner_vat, change_seq) VALUES ");
+        for (int i = 0; i < properties.size(); i++) {
+            sql.append(i == 0 ? "" : ", ").append("(?, ?, ?, ?, ?, ?, ?)");
+        }
+        Query query = entityManager.createNativeQuery(sql.toString());
+        long sequence = changeSequence.current();
+        int position = 1;
+        for (Property property : properties) {
+            query.setParameter(position++, property.getE9());
+            query.setParameter(position++, property.getPropertyAddress());
+            query.setParameter(position++, property.getConstructionYear());
+            query.setParameter(position++, property.getPropertyType().name());
+            query.setParameter(position++, property.isDeleted());
+            query.setParameter(position++, property.getOwner().getVat());
+            query.setParameter(position++, sequence);
+        }
+        return query.executeUpdate();
+    }
 }
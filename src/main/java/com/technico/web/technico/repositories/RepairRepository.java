@@ -1,17 +1,32 @@
 package com.technico.web.technico.repositories;
 
+import com.technico.web.technico.dtos.RepairDto;
+import com.technico.web.technico.dtos.RepairStateDto;
+import com.technico.web.technico.events.RepairSnapshot;
 import com.technico.web.technico.models.Owner;
 import com.technico.web.technico.models.Property;
 import com.technico.web.technico.models.Repair;
+import com.technico.web.technico.models.RepairStatus;
+import com.technico.web.technico.models.RepairType;
+import com.technico.web.technico.sync.ChangeSequence;
 import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
 import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
 import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.PersistenceUnit;
+import jakarta.persistence.Query;
 import jakarta.persistence.TypedQuery;
 import jakarta.transaction.Transactional;
 import java.time.LocalDateTime;
-import java.util.Date;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.TreeSet;
+import java.util.function.Consumer;
 import lombok.NoArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
@@ -23,6 +38,12 @@ public class RepairRepository implements Repository<Repair, Long> {
     @PersistenceContext(unitName = "Persistence")
     private EntityManager entityManager;
 
+    @PersistenceUnit(unitName = "Persistence")
+    private EntityManagerFactory entityManagerFactory;
+
+    @Inject
+    private ChangeSequence changeSequence;
+
     /**
      * Saves a new repair entity to the database.
      *
@@ -205,7 +226,7 @@ public class RepairRepository implements Repository<Repair, Long> {
      * @param repairDate the specific date.
      * @return a List if repair objects that exists that specific date.
      */
-    public List<Repair> findRepairsByDate(Date repairDate) {
+    public List<Repair> findRepairsByDate(LocalDateTime repairDate) {
         TypedQuery<Repair> query
                 = entityManager.createQuery("from " + getEntityClassName()
                         + " where scheduledStartDate <= :repairDate AND scheduledEndDate >= :repairDate",
@@ -249,6 +270,49 @@ public class RepairRepository implements Repository<Repair, Long> {
 //
 //    }
 
+    /**
+     * Counts the non-deleted repairs of an owner's properties, grouped by
+     * status.
+     *
+     * @param ownerId the ID of the owner.
+     * @return a map from each repair status to its number of repairs. Statuses
+     * without repairs are mapped to zero.
+     */
+    public Map<RepairStatus, Long> countRepairsByStatusForOwner(Long ownerId) {
+        List<Object[]> rows = entityManager.createQuery(
+                "SELECT r.repairStatus, COUNT(r) FROM Repair r "
+                + "WHERE r.property.owner.id = :ownerId AND r.isDeleted = false "
+                + "GROUP BY r.repairStatus", Object[].class)
+                .setParameter("ownerId", ownerId)
+                .getResultList();
+        Map<RepairStatus, Long> counts = new EnumMap<>(RepairStatus.class);
+        for (RepairStatus status : RepairStatus.values()) {
+            counts.put(status, 0L);
+        }
+        for (Object[] row : rows) {
+            counts.put((RepairStatus) row[0], (Long) row[1]);
+        }
+        return counts;
+    }
+
+    /**
+     * Finds the most recently submitted non-deleted repairs of an owner's
+     * properties.
+     *
+     * @param ownerId the ID of the owner.
+     * @param limit the maximum number of repairs to return.
+     * @return a List of at most limit repairs, newest first.
+     */
+    public List<Repair> findRecentRepairsByOwnerID(Long ownerId, int limit) {
+        return entityManager.createQuery(
+                "SELECT r FROM Repair r "
+                + "WHERE r.property.owner.id = :ownerId AND r.isDeleted = false "
+                + "ORDER BY r.id DESC", Repair.class)
+                .setParameter("ownerId", ownerId)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
     /**
      * Returns the Class object representing the Repair entity.
      *
@@ -265,4 +329,235 @@ public class RepairRepository implements Repository<Repair, Long> {
     private String getEntityClassName() {
         return Repair.class.getName();
     }
+
+    /**
+     * Streams every repair as a dto to the given consumer, in ID order. The
+     * rows are read through a forward-only cursor on a dedicated entity
+     * manager outside of any transaction, and the persistence context is
+     * cleared periodically, so memory use stays constant however many rows
+     * there are.
+     *
+     * @param consumer receives each repair as soon as its row is read.
+     */
+    public void scrollAllRepairs(Consumer<RepairDto> consumer) {
+        ScrollQueries.scroll(entityManagerFactory, session -> session.createSelectionQuery(
+                "SELECT new com.technico.web.technico.dtos.RepairDto("
+                + "r.id, o.vat, p.e9, r.repairType, r.shortDescription, r.submissionDate, r.description, "
+                + "r.scheduledStartDate, r.scheduledEndDate, r.proposedCost, r.acceptanceStatus, "
+                + "r.repairStatus, r.repairAddress, r.actualStartDate, r.actualEndDate, r.isDeleted) "
+                + "FROM Repair r JOIN r.property p JOIN p.owner o ORDER BY r.id", RepairDto.class), consumer);
+    }
+
+    /**
+     * Streams the analytic columns of every non-deleted repair without loading
+     * entities: ID, owner ID, repair type, repair status, property type,
+     * proposed cost, scheduled start and end dates and actual start and end
+     * dates, in that order.
+     *
+     * @param consumer receives the columns of each repair as soon as its row
+     * is read.
+     */
+    public void scrollRepairColumns(Consumer<Object[]> consumer) {
+        ScrollQueries.scroll(entityManagerFactory, session -> session.createSelectionQuery(
+                "SELECT r.id, o.id, r.repairType, r.repairStatus, p.propertyType, r.proposedCost, "
+                + "r.scheduledStartDate, r.scheduledEndDate, r.actualStartDate, r.actualEndDate "
+                + "FROM Repair r JOIN r.property p JOIN p.owner o WHERE r.isDeleted = false", Object[].class),
+                consumer);
+    }
+
+    /**
+     * Streams the ID, short description and description of every non-deleted
+     * repair without loading entities.
+     *
+     * @param consumer receives the columns of each repair as soon as its row
+     * is read.
+     */
+    public void scrollRepairTexts(Consumer<Object[]> consumer) {
+        ScrollQueries.scroll(entityManagerFactory, session -> session.createSelectionQuery(
+                "SELECT r.id, r.shortDescription, r.description FROM Repair r WHERE r.isDeleted = false",
+                Object[].class), consumer);
+    }
+
+    /**
+     * Streams the ID, property E9, repair type, scheduled start and end dates
+     * and description of every non-deleted pending or in-progress repair
+     * without loading entities.
+     *
+     * @param consumer receives the columns of each repair as soon as its row
+     * is read.
+     */
+    public void scrollOpenRepairWindows(Consumer<Object[]> consumer) {
+        ScrollQueries.scroll(entityManagerFactory, session -> session.createSelectionQuery(
+                "SELECT r.id, p.e9, r.repairType, r.scheduledStartDate, r.scheduledEndDate, r.description "
+                + "FROM Repair r JOIN r.property p "
+                + "WHERE r.isDeleted = false AND r.repairStatus IN :statuses", Object[].class)
+                .setParameter("statuses", List.of(RepairStatus.PENDING, RepairStatus.INPROGRESS)), consumer);
+    }
+
+    /**
+     * Finds the repairs with the given IDs, using chunked IN queries.
+     *
+     * @param ids the IDs of the repairs to find.
+     * @return the repair dtos of the IDs that exist, in no particular order.
+     */
+    public List<RepairDto> findRepairsByIDs(Collection<Long> ids) {
+        return InQueries.inChunks(ids, chunk -> entityManager.createQuery(
+                "SELECT new com.technico.web.technico.dtos.RepairDto("
+                + "r.id, o.vat, p.e9, r.repairType, r.shortDescription, r.submissionDate, r.description, "
+                + "r.scheduledStartDate, r.scheduledEndDate, r.proposedCost, r.acceptanceStatus, "
+                + "r.repairStatus, r.repairAddress, r.actualStartDate, r.actualEndDate, r.isDeleted) "
+                + "FROM Repair r JOIN r.property p JOIN p.owner o WHERE r.id IN :ids", RepairDto.class)
+                .setParameter("ids", chunk)
+                .getResultList());
+    }
+
+    /**
+     * Reads the status, deleted flag and owner of the given repairs and locks
+     * their rows until the end of the transaction, using chunked IN queries.
+     * Rows are locked in id order so that concurrent callers cannot deadlock.
+     *
+     * @param ids the IDs of the repairs.
+     * @return the states of the repairs that exist, in no particular order.
+     */
+    @Transactional
+    public List<RepairStateDto> lockRepairStates(Collection<Long> ids) {
+        List<Long> sorted = new ArrayList<>(new TreeSet<>(ids));
+        List<Object[]> rows = InQueries.inChunks(sorted, chunk -> {
+            @SuppressWarnings("unchecked")
+            List<Object[]> result = entityManager.createNativeQuery(
+                    "SELECT r.id, r.repair_status, r.isDeleted, o.id FROM Repair r "
+                    + "JOIN Property p ON p.e9 = r.property_e9 "
+                    + "JOIN Owner o ON o.vat = p.owner_vat "
+                    + "WHERE r.id IN (:ids) ORDER BY r.id FOR UPDATE OF r")
+                    .setParameter("ids", chunk)
+                    .getResultList();
+            return result;
+        });
+        List<RepairStateDto> states = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            states.add(new RepairStateDto(
+                    ((Number) row[0]).longValue(),
+                    RepairStatus.valueOf((String) row[1]),
+                    row[2] instanceof Boolean deleted ? deleted : ((Number) row[2]).intValue() != 0,
+                    ((Number) row[3]).longValue()
+            ));
+        }
+        return states;
+    }
+
+    /**
+     * Moves the given repairs to a new status with set-based UPDATEs, and
+     * stamps the actual start date when work starts and the actual end date
+     * when it completes. Deleted repairs are left alone.
+     *
+     * @param ids the IDs of the repairs, already checked to allow the
+     * transition.
+     * @param repairStatus the new status.
+     * @param now the time of the transition.
+     * @return the number of updated repairs.
+     */
+    @Transactional
+    public int updateRepairStatuses(Collection<Long> ids, RepairStatus repairStatus, LocalDateTime now) {
+        String dates;
+        switch (repairStatus) {
+            case INPROGRESS:
+                dates = ", r.actualStartDate = :now";
+                break;
+            case COMPLETE:
+                dates = ", r.actualStartDate = COALESCE(r.actualStartDate, :now), r.actualEndDate = :now";
+                break;
+            default:
+                dates = "";
+        }
+        String hql = "UPDATE Repair r SET r.repairStatus = :repairStatus, r.changeSeq = :changeSeq" + dates
+                + " WHERE r.id IN :ids AND r.isDeleted = false";
+        long sequence = changeSequence.current();
+        return InQueries.updateInChunks(ids, chunk -> {
+            Query query = entityManager.createQuery(hql)
+                    .setParameter("repairStatus", repairStatus)
+                    .setParameter("changeSeq", sequence)
+                    .setParameter("ids", chunk);
+            if (!dates.isEmpty()) {
+                query.setParameter("now", now);
+            }
+            return query.executeUpdate();
+        });
+    }
+
+    /**
+     * Claims up to count pending repairs for a worker. Candidate rows are
+     * picked with SELECT ... FOR UPDATE SKIP LOCKED, so concurrent claims
+     * never wait on each other and never pick the same repair, and are then
+     * leased to the worker. A repair whose lease has expired can be claimed
+     * again.
+     *
+     * @param repairType the type of repairs to claim, or null for any type.
+     * @param count the maximum number of repairs to claim.
+     * @param worker the worker claiming the repairs.
+     * @param now the time of the claim.
+     * @param leaseExpiresAt when the claim lapses.
+     * @return the IDs of the claimed repairs, oldest first.
+     */
+    @Transactional
+    public List<Long> claimPendingRepairs(RepairType repairType, int count, String worker,
+            LocalDateTime now, LocalDateTime leaseExpiresAt) {
+        Query select = entityManager.createNativeQuery(
+                "SELECT r.id FROM Repair r "
+                + "WHERE r.repair_status = 'PENDING' AND r.isDeleted = false "
+                + (repairType != null ? "AND r.repair_type = :repairType " : "")
+                + "AND (r.lease_expires_at IS NULL OR r.lease_expires_at < :now) "
+                + "ORDER BY r.id LIMIT :count FOR UPDATE SKIP LOCKED")
+                .setParameter("now", now)
+                .setParameter("count", count);
+        if (repairType != null) {
+            select.setParameter("repairType", repairType.name());
+        }
+        List<Long> ids = new ArrayList<>();
+        for (Object id : select.getResultList()) {
+            ids.add(((Number) id).longValue());
+        }
+        if (!ids.isEmpty()) {
+            entityManager.createQuery("UPDATE Repair r SET r.claimedBy = :worker, r.leaseExpiresAt = :leaseExpiresAt "
+                    + "WHERE r.id IN :ids")
+                    .setParameter("worker", worker)
+                    .setParameter("leaseExpiresAt", leaseExpiresAt)
+                    .setParameter("ids", ids)
+                    .executeUpdate();
+        }
+        return ids;
+    }
+
+    /**
+     * Ends a worker's claim on a repair before its lease expires.
+     *
+     * @param id the ID of the repair.
+     * @param worker the worker holding the claim.
+     * @return true if the worker held the claim and it was released.
+     */
+    @Transactional
+    public boolean releaseClaim(Long id, String worker) {
+        return entityManager.createQuery("UPDATE Repair r SET r.claimedBy = null, r.leaseExpiresAt = null "
+                + "WHERE r.id = :id AND r.claimedBy = :worker")
+                .setParameter("id", id)
+                .setParameter("worker", worker)
+                .executeUpdate() > 0;
+    }
+
+    /**
+     * Takes snapshots of the given repairs for change events, without loading
+     * the entities, using chunked IN queries.
+     *
+     * @param ids the IDs of the repairs.
+     * @return the snapshots of the repairs that exist, in no particular order.
+     */
+    public List<RepairSnapshot> findRepairSnapshots(Collection<Long> ids) {
+        return InQueries.inChunks(ids, chunk -> entityManager.createQuery(
+                "SELECT new com.technico.web.technico.events.RepairSnapshot("
+                + "r.id, o.id, o.vat, p.e9, p.propertyType, r.repairType, r.repairStatus, r.shortDescription, "
+                + "r.description, r.proposedCost, r.scheduledStartDate, r.scheduledEndDate, r.actualStartDate, "
+                + "r.actualEndDate, r.isDeleted) "
+                + "FROM Repair r JOIN r.property p JOIN p.owner o WHERE r.id IN :ids", RepairSnapshot.class)
+                .setParameter("ids", chunk)
+                .getResultList());
+    }
 }
@@ -0,0 +1,234 @@
+package com.technico.web.technico.repositories;
+
+import com.technico.web.technico.models.PropertyType;
+import com.technico.web.technico.models.RepairDayCount;
+import com.technico.web.technico.models.RepairStatus;
+import com.technico.web.technico.models.RepairType;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+import jakarta.transaction.Transactional;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import lombok.NoArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
+@ApplicationScoped
+@NoArgsConstructor
+public class RepairRollupRepository {
+
+    /**
+     * The dimensions a cost report can be grouped by, named after the fields
+     * of the rollup key.
+     */
+    public static final List<String> DIMENSIONS = List.of("repairType", "repairStatus", "propertyType", "month");
+
+    private static final String MONTH_OF_REPAIR = "COALESCE(DATE_FORMAT(r.scheduled_start_date, '%Y-%m'), '')";
+
+    @PersistenceContext(unitName = "Persistence")
+    private EntityManager entityManager;
+
+    /**
+     * Adds to the count and total cost of one rollup row, creating the row if
+     * it does not exist yet. Negative amounts remove a repair from the row.
+     *
+     * @param repairType the repair type of the row.
+     * @param repairStatus the repair status of the row.
+     * @param propertyType the property type of the row.
+     * @param month the yyyy-MM month of the row, or empty for unscheduled
+     * repairs.
+     * @param count the number of repairs to add.
+     * @param cost the proposed cost to add.
+     */
+    @Transactional
+    public void addToRollup(RepairType repairType, RepairStatus repairStatus, PropertyType propertyType,
+            String month, long count, BigDecimal cost) {
+        entityManager.createNativeQuery("INSERT INTO repair_cost_rollup "
+                + "(repair_type, repair_status, property_type, bucket_month, repair_count, total_cost) "
+                + "VALUES (:repairType, :repairStatus, :propertyType, :month, :count, :cost) "
+                + "ON DUPLICATE KEY UPDATE repair_count = repair_count + VALUES(repair_count), "
+                + "total_cost = total_cost + VALUES(total_cost)")
+                .setParameter("repairType", repairType.name())
+                .setParameter("repairStatus", repairStatus.name())
+                .setParameter("propertyType", propertyType.name())
+                .setParameter("month", month)
+                .setParameter("count", count)
+                .setParameter("cost", cost)
+                .executeUpdate();
+    }
+
+    /**
+     * Recomputes every rollup row from the repairs in one set-based
+     * statement, replacing the current rows.
+     *
+     * @return the number of rollup rows written.
+     */
+    @Transactional
+    public int rebuildRollups() {
+        entityManager.createNativeQuery("DELETE FROM repair_cost_rollup").executeUpdate();
+        return entityManager.createNativeQuery("INSERT INTO repair_cost_rollup "
+                + "(repair_type, repair_status, property_type, bucket_month, repair_count, total_cost) "
+                + "SELECT r.repair_type, r.repair_status, p.property_type, " + MONTH_OF_REPAIR + ", "
+                + "COUNT(*), COALESCE(SUM(r.proposed_cost), 0) "
+                + "FROM Repair r JOIN Property p ON p.e9 = r.property_e9 "
+                + "WHERE r.isDeleted = false "
+                + "GROUP BY r.repair_type, r.repair_status, p.property_type, " + MONTH_OF_REPAIR)
+                .executeUpdate();
+    }
+
+    /**
+     * Tells whether the rollups have never been built.
+     *
+     * @return true if there are no rollup rows.
+     */
+    public boolean isEmpty() {
+        return entityManager.createQuery("SELECT c.id.month FROM RepairCostRollup c", String.class)
+                .setMaxResults(1)
+                .getResultList()
+                .isEmpty();
+    }
+
+    /**
+     * Sums the rollup rows by the given dimensions.
+     *
+     * @param groupBy the dimensions to group by, from {@link #DIMENSIONS}.
+     * @param repairType only this repair type, if not null.
+     * @param repairStatus only this repair status, if not null.
+     * @param propertyType only this property type, if not null.
+     * @param fromMonth only months from this yyyy-MM month on, if not null.
+     * @param toMonth only months up to this yyyy-MM month, if not null.
+     * @return one row per group: the values of the grouped dimensions in
+     * order, then the repair count and the total cost.
+     */
+    public List<Object[]> sumRollups(List<String> groupBy, RepairType repairType, RepairStatus repairStatus,
+            PropertyType propertyType, String fromMonth, String toMonth) {
+        String dimensions = groupBy.stream().map(dimension -> "c.id." + dimension).collect(Collectors.joining(", "));
+        List<String> conditions = new ArrayList<>();
+        conditions.add("c.repairCount > 0");
+        if (repairType != null) {
+            conditions.add("c.id.repairType = :repairType");
+        }
+        if (repairStatus != null) {
+            conditions.add("c.id.repairStatus = :repairStatus");
+        }
+        if (propertyType != null) {
+            conditions.add("c.id.propertyType = :propertyType");
+        }
+        if (fromMonth != null || toMonth != null) {
+            conditions.add("c.id.month <> ''");
+        }
+        if (fromMonth != null) {
+            conditions.add("c.id.month >= :fromMonth");
+        }
+        if (toMonth != null) {
+            conditions.add("c.id.month <= :toMonth");
+        }
+
+        String hql = "SELECT " + (dimensions.isEmpty() ? "" : dimensions + ", ")
+                + "SUM(c.repairCount), SUM(c.totalCost) FROM RepairCostRollup c WHERE "
+                + String.join(" AND ", conditions)
+                + (dimensions.isEmpty() ? "" : " GROUP BY " + dimensions + " ORDER BY " + dimensions);
+        TypedQuery<Object[]> query = entityManager.createQuery(hql, Object[].class);
+        if (repairType != null) {
+            query.setParameter("repairType", repairType);
+        }
+        if (repairStatus != null) {
+            query.setParameter("repairStatus", repairStatus);
+        }
+        if (propertyType != null) {
+            query.setParameter("propertyType", propertyType);
+        }
+        if (fromMonth != null) {
+            query.setParameter("fromMonth", fromMonth);
+        }
+        if (toMonth != null) {
+            query.setParameter("toMonth", toMonth);
+        }
+        return query.getResultList();
+    }
+
+    /**
+     * Adds to the count of one day count row, creating the row if it does not
+     * exist yet.
+     *
+     * @param ownerId the owner of the row, or 0 for all owners.
+     * @param day the day of the row.
+     * @param repairStatus the repair status of the row.
+     * @param repairType the repair type of the row.
+     * @param count the number of repairs to add, negative to remove.
+     */
+    @Transactional
+    public void addToDayCount(long ownerId, LocalDate day, RepairStatus repairStatus, RepairType repairType,
+            long count) {
+        entityManager.createNativeQuery("INSERT INTO repair_day_count "
+                + "(owner_id, bucket_day, repair_status, repair_type, repair_count) "
+                + "VALUES (:ownerId, :day, :repairStatus, :repairType, :count) "
+                + "ON DUPLICATE KEY UPDATE repair_count = repair_count + VALUES(repair_count)")
+                .setParameter("ownerId", ownerId)
+                .setParameter("day", day)
+                .setParameter("repairStatus", repairStatus.name())
+                .setParameter("repairType", repairType.name())
+                .setParameter("count", count)
+                .executeUpdate();
+    }
+
+    /**
+     * Recomputes every day count row from the repairs, replacing the current
+     * rows.
+     *
+     * @return the number of day count rows written.
+     */
+    @Transactional
+    public int rebuildDayCounts() {
+        entityManager.createNativeQuery("DELETE FROM repair_day_count").executeUpdate();
+        String select = "SELECT %s, DATE(r.scheduled_start_date), r.repair_status, r.repair_type, COUNT(*) "
+                + "FROM Repair r JOIN Property p ON p.e9 = r.property_e9 JOIN Owner o ON o.vat = p.owner_vat "
+                + "WHERE r.isDeleted = false AND r.scheduled_start_date IS NOT NULL "
+                + "GROUP BY %s, DATE(r.scheduled_start_date), r.repair_status, r.repair_type";
+        int rows = 0;
+        for (String owner : List.of("o.id", String.valueOf(RepairDayCount.ALL_OWNERS))) {
+            rows += entityManager.createNativeQuery("INSERT INTO repair_day_count "
+                    + "(owner_id, bucket_day, repair_status, repair_type, repair_count) "
+                    + String.format(select, owner, owner))
+                    .executeUpdate();
+        }
+        return rows;
+    }
+
+    /**
+     * Tells whether the day counts have never been built.
+     *
+     * @return true if there are no day count rows.
+     */
+    public boolean isDayCountEmpty() {
+        return entityManager.createQuery("SELECT c.id.ownerId FROM RepairDayCount c", Long.class)
+                .setMaxResults(1)
+                .getResultList()
+                .isEmpty();
+    }
+
+    /**
+     * Sums the day counts of a window of days by month, status and type.
+     *
+     * @param ownerId the owner, or 0 for all owners.
+     * @param from the first day of the window.
+     * @param to the last day of the window.
+     * @return one row per month, status and type with repairs: the year, the
+     * month, the status, the type and the count.
+     */
+    public List<Object[]> sumDayCounts(long ownerId, LocalDate from, LocalDate to) {
+        return entityManager.createQuery("SELECT year(c.id.day), month(c.id.day), c.id.repairStatus, "
+                + "c.id.repairType, SUM(c.repairCount) FROM RepairDayCount c "
+                + "WHERE c.id.ownerId = :ownerId AND c.id.day BETWEEN :from AND :to AND c.repairCount > 0 "
+                + "GROUP BY year(c.id.day), month(c.id.day), c.id.repairStatus, c.id.repairType", Object[].class)
+                .setParameter("ownerId", ownerId)
+                .setParameter("from", from)
+                .setParameter("to", to)
+                .getResultList();
+    }
+}
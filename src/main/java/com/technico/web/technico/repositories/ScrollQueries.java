@@ -0,0 +1,56 @@
+package com.technico.web.technico.repositories;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import org.hibernate.CacheMode;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.Session;
+import org.hibernate.query.SelectionQuery;
+
+/**
+ * Streams the rows of a query through a forward-only cursor on a dedicated
+ * entity manager, outside of any transaction. The query is read-only and
+ * bypasses the second-level cache, and the persistence context is cleared
+ * periodically, so memory use stays constant however many rows there are.
+ */
+final class ScrollQueries {
+
+    // MySQL Connector/J only streams a result set row by row with this fetch
+    // size; any other value buffers the whole result in the driver.
+    static final int SCROLL_FETCH_SIZE = Integer.MIN_VALUE;
+    static final int SCROLL_CLEAR_INTERVAL = 1000;
+
+    private ScrollQueries() {
+    }
+
+    /**
+     * Runs the query and hands each row to the consumer as soon as it is
+     * read.
+     *
+     * @param entityManagerFactory creates the dedicated entity manager.
+     * @param query creates the query on the session of that entity manager.
+     * @param consumer receives each row.
+     */
+    static <T> void scroll(EntityManagerFactory entityManagerFactory, Function<Session, SelectionQuery<T>> query,
+            Consumer<T> consumer) {
+        try (EntityManager scanEntityManager = entityManagerFactory.createEntityManager()) {
+            Session session = scanEntityManager.unwrap(Session.class);
+            try (ScrollableResults<T> rows = query.apply(session)
+                    .setFetchSize(SCROLL_FETCH_SIZE)
+                    .setReadOnly(true)
+                    .setCacheMode(CacheMode.IGNORE)
+                    .scroll(ScrollMode.FORWARD_ONLY)) {
+                int count = 0;
+                while (rows.next()) {
+                    consumer.accept(rows.get());
+                    if (++count % SCROLL_CLEAR_INTERVAL == 0) {
+                        session.clear();
+                    }
+                }
+            }
+        }
+    }
+}
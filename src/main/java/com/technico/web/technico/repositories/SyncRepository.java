@@ -0,0 +1,129 @@
+package com.technico.web.technico.repositories;
+
+import com.technico.web.technico.dtos.PropertyDto;
+import com.technico.web.technico.dtos.RepairDto;
+import com.technico.web.technico.models.SyncTombstone;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+import jakarta.transaction.Transactional;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import lombok.NoArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
+@ApplicationScoped
+@NoArgsConstructor
+public class SyncRepository {
+
+    @PersistenceContext(unitName = "Persistence")
+    private EntityManager entityManager;
+
+    /**
+     * Finds the highest change sequence stamped on any owner, property,
+     * repair or tombstone.
+     *
+     * @return the highest change sequence, or 0 if nothing is stamped yet.
+     */
+    public long findMaxChangeSeq() {
+        Object max = entityManager.createNativeQuery("SELECT GREATEST("
+                + "COALESCE((SELECT MAX(change_seq) FROM Owner), 0), "
+                + "COALESCE((SELECT MAX(change_seq) FROM Property), 0), "
+                + "COALESCE((SELECT MAX(change_seq) FROM Repair), 0), "
+                + "COALESCE((SELECT MAX(change_seq) FROM sync_tombstone), 0))")
+                .getSingleResult();
+        return ((Number) max).longValue();
+    }
+
+    /**
+     * Saves a tombstone for a permanently deleted property or repair.
+     *
+     * @param tombstone the tombstone to save.
+     */
+    @Transactional
+    public void addTombstone(SyncTombstone tombstone) {
+        entityManager.persist(tombstone);
+    }
+
+    /**
+     * Finds the change sequence an owner was last written with.
+     *
+     * @param ownerId the ID of the owner.
+     * @return the change sequence, or empty if the owner was never stamped.
+     */
+    public Optional<Long> findOwnerChangeSeq(Long ownerId) {
+        return entityManager.createQuery("SELECT o.changeSeq FROM Owner o WHERE o.id = :id", Long.class)
+                .setParameter("id", ownerId)
+                .getResultStream()
+                .filter(Objects::nonNull)
+                .findFirst();
+    }
+
+    /**
+     * Finds the properties of an owner that changed after a change sequence,
+     * including the ones deleted since, or every property that is not deleted
+     * when there is no change sequence.
+     *
+     * @param ownerVat the VAT number of the owner.
+     * @param since the change sequence the client has seen, or null.
+     * @return a list of Property dtos, in ID order.
+     */
+    public List<PropertyDto> findPropertiesChangedSince(String ownerVat, Long since) {
+        TypedQuery<PropertyDto> query = entityManager.createQuery(
+                "SELECT new com.technico.web.technico.dtos.PropertyDto("
+                + "p.id, p.e9, p.propertyAddress, p.constructionYear, p.propertyType, o.vat, p.isDeleted) "
+                + "FROM Property p JOIN p.owner o WHERE o.vat = :vat "
+                + (since == null ? "AND p.isDeleted = false " : "AND p.changeSeq > :since ")
+                + "ORDER BY p.id", PropertyDto.class)
+                .setParameter("vat", ownerVat);
+        if (since != null) {
+            query.setParameter("since", since);
+        }
+        return query.getResultList();
+    }
+
+    /**
+     * Finds the repairs of an owner's properties that changed after a change
+     * sequence, including the ones deleted since, or every repair that is not
+     * deleted when there is no change sequence.
+     *
+     * @param ownerVat the VAT number of the owner.
+     * @param since the change sequence the client has seen, or null.
+     * @return a list of Repair dtos, in ID order.
+     */
+    public List<RepairDto> findRepairsChangedSince(String ownerVat, Long since) {
+        TypedQuery<RepairDto> query = entityManager.createQuery(
+                "SELECT new com.technico.web.technico.dtos.RepairDto("
+                + "r.id, o.vat, p.e9, r.repairType, r.shortDescription, r.submissionDate, r.description, "
+                + "r.scheduledStartDate, r.scheduledEndDate, r.proposedCost, r.acceptanceStatus, "
+                + "r.repairStatus, r.repairAddress, r.actualStartDate, r.actualEndDate, r.isDeleted) "
+                + "FROM Repair r JOIN r.property p JOIN p.owner o WHERE o.vat = :vat "
+                + (since == null ? "AND r.isDeleted = false " : "AND r.changeSeq > :since ")
+                + "ORDER BY r.id", RepairDto.class)
+                .setParameter("vat", ownerVat);
+        if (since != null) {
+            query.setParameter("since", since);
+        }
+        return query.getResultList();
+    }
+
+    /**
+     * Finds the tombstones of an owner's properties and repairs that were
+     * permanently deleted after a change sequence.
+     *
+     * @param ownerVat the VAT number of the owner.
+     * @param since the change sequence the client has seen.
+     * @return a list of tombstones, oldest first.
+     */
+    public List<SyncTombstone> findTombstonesSince(String ownerVat, long since) {
+        return entityManager.createQuery(
+                "FROM SyncTombstone t WHERE t.ownerVat = :vat AND t.changeSeq > :since ORDER BY t.changeSeq",
+                SyncTombstone.class)
+                .setParameter("vat", ownerVat)
+                .setParameter("since", since)
+                .getResultList();
+    }
+}
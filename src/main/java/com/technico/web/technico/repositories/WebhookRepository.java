@@ -0,0 +1,329 @@
+package com.technico.web.technico.repositories;
+
+import com.technico.web.technico.dtos.WebhookDeliveryDto;
+import com.technico.web.technico.dtos.WebhookEventDto;
+import com.technico.web.technico.models.OutboxEvent;
+import com.technico.web.technico.models.WebhookDelivery;
+import com.technico.web.technico.models.WebhookDeliveryStatus;
+import com.technico.web.technico.models.WebhookSubscription;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+import jakarta.persistence.TypedQuery;
+import jakarta.transaction.Transactional;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.IntFunction;
+import lombok.NoArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
+@ApplicationScoped
+@NoArgsConstructor
+public class WebhookRepository {
+
+    private static final int MAX_ERROR_LENGTH = 1000;
+
+    @PersistenceContext(unitName = "Persistence")
+    private EntityManager entityManager;
+
+    /**
+     * Saves a new webhook subscription.
+     *
+     * @param subscription the subscription to save.
+     * @return the saved subscription.
+     */
+    @Transactional
+    public WebhookSubscription saveSubscription(WebhookSubscription subscription) {
+        entityManager.persist(subscription);
+        return subscription;
+    }
+
+    /**
+     * Finds every webhook subscription, including the deactivated ones.
+     *
+     * @return a list of subscriptions, in ID order.
+     */
+    public List<WebhookSubscription> findSubscriptions() {
+        return entityManager.createQuery("FROM WebhookSubscription s ORDER BY s.id", WebhookSubscription.class)
+                .getResultList();
+    }
+
+    /**
+     * Finds a webhook subscription by its ID.
+     *
+     * @param id the ID of the subscription.
+     * @return an Optional containing the found subscription.
+     */
+    public Optional<WebhookSubscription> findSubscriptionById(Long id) {
+        return Optional.ofNullable(entityManager.find(WebhookSubscription.class, id));
+    }
+
+    /**
+     * Stops sending changes to a webhook subscription. Its pending deliveries
+     * are kept, and are sent if it is activated again.
+     *
+     * @param id the ID of the subscription.
+     * @return true if the subscription was active.
+     */
+    @Transactional
+    public boolean deactivateSubscription(Long id) {
+        return entityManager.createQuery("UPDATE WebhookSubscription s SET s.active = false "
+                + "WHERE s.id = :id AND s.active = true")
+                .setParameter("id", id)
+                .executeUpdate() > 0;
+    }
+
+    /**
+     * Saves a change to the outbox, in the transaction of the change.
+     *
+     * @param event the change to save.
+     */
+    @Transactional
+    public void addOutboxEvent(OutboxEvent event) {
+        entityManager.persist(event);
+    }
+
+    /**
+     * Turns the oldest outbox events that have not been fanned out yet into
+     * one pending delivery for every active subscription to their kind of
+     * change, with two set-based statements. The events are locked with
+     * SKIP LOCKED, so concurrent dispatchers fan out different events.
+     *
+     * @param count the maximum number of events to fan out.
+     * @param now the time the deliveries are first due.
+     * @return the number of events fanned out.
+     */
+    @Transactional
+    public int fanOut(int count, LocalDateTime now) {
+        List<Long> ids = new ArrayList<>();
+        for (Object id : entityManager.createNativeQuery(
+                "SELECT e.id FROM outbox_event e WHERE e.dispatched = false "
+                + "ORDER BY e.id LIMIT :count FOR UPDATE SKIP LOCKED")
+                .setParameter("count", count)
+                .getResultList()) {
+            ids.add(((Number) id).longValue());
+        }
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        entityManager.createNativeQuery("INSERT INTO webhook_delivery "
+                + "(event_id, subscription_id, status, attempts, next_attempt_at) "
+                + "SELECT e.id, s.id, 'PENDING', 0, :now "
+                + "FROM outbox_event e JOIN webhook_subscription s ON s.active = true "
+                + "AND (s.event_types IS NULL OR FIND_IN_SET(e.aggregate_type, s.event_types) > 0) "
+                + "WHERE e.id IN :ids")
+                .setParameter("now", now)
+                .setParameter("ids", ids)
+                .executeUpdate();
+        entityManager.createQuery("UPDATE OutboxEvent e SET e.dispatched = true WHERE e.id IN :ids")
+                .setParameter("ids", ids)
+                .executeUpdate();
+        return ids.size();
+    }
+
+    /**
+     * Finds the active subscriptions that have deliveries due and not held
+     * by a dispatcher.
+     *
+     * @param now the current time.
+     * @return the IDs of the subscriptions.
+     */
+    public List<Long> findDueSubscriptionIds(LocalDateTime now) {
+        return entityManager.createQuery("SELECT DISTINCT d.subscriptionId FROM WebhookDelivery d "
+                + "JOIN WebhookSubscription s ON s.id = d.subscriptionId "
+                + "WHERE s.active = true AND d.status = :status AND d.nextAttemptAt <= :now "
+                + "AND (d.leaseExpiresAt IS NULL OR d.leaseExpiresAt < :now)", Long.class)
+                .setParameter("status", WebhookDeliveryStatus.PENDING)
+                .setParameter("now", now)
+                .getResultList();
+    }
+
+    /**
+     * Claims up to count due deliveries of a subscription for a dispatcher,
+     * the same way repairs are claimed by workers: candidate rows are picked
+     * with SELECT ... FOR UPDATE SKIP LOCKED and then leased, so concurrent
+     * dispatchers never send the same delivery. A delivery whose lease has
+     * expired, because its dispatcher stopped, can be claimed again.
+     *
+     * @param subscriptionId the ID of the subscription.
+     * @param count the maximum number of deliveries to claim.
+     * @param now the time of the claim.
+     * @param leaseExpiresAt when the claim lapses.
+     * @return the IDs of the claimed deliveries, oldest first.
+     */
+    @Transactional
+    public List<Long> claimDeliveries(Long subscriptionId, int count, LocalDateTime now,
+            LocalDateTime leaseExpiresAt) {
+        List<Long> ids = new ArrayList<>();
+        for (Object id : entityManager.createNativeQuery(
+                "SELECT d.id FROM webhook_delivery d "
+                + "WHERE d.subscription_id = :subscriptionId AND d.status = 'PENDING' AND d.next_attempt_at <= :now "
+                + "AND (d.lease_expires_at IS NULL OR d.lease_expires_at < :now) "
+                + "ORDER BY d.id LIMIT :count FOR UPDATE SKIP LOCKED")
+                .setParameter("subscriptionId", subscriptionId)
+                .setParameter("now", now)
+                .setParameter("count", count)
+                .getResultList()) {
+            ids.add(((Number) id).longValue());
+        }
+        if (!ids.isEmpty()) {
+            entityManager.createQuery("UPDATE WebhookDelivery d SET d.leaseExpiresAt = :leaseExpiresAt "
+                    + "WHERE d.id IN :ids")
+                    .setParameter("leaseExpiresAt", leaseExpiresAt)
+                    .setParameter("ids", ids)
+                    .executeUpdate();
+        }
+        return ids;
+    }
+
+    /**
+     * Finds the outbox events of the given deliveries.
+     *
+     * @param deliveryIds the IDs of the deliveries.
+     * @return a list of Webhook event dtos, in delivery order.
+     */
+    public List<WebhookEventDto> findEventsOfDeliveries(Collection<Long> deliveryIds) {
+        return entityManager.createQuery(
+                "SELECT new com.technico.web.technico.dtos.WebhookEventDto("
+                + "e.id, e.eventType, e.createdAt, e.payload) "
+                + "FROM WebhookDelivery d JOIN OutboxEvent e ON e.id = d.eventId "
+                + "WHERE d.id IN :ids ORDER BY d.id", WebhookEventDto.class)
+                .setParameter("ids", deliveryIds)
+                .getResultList();
+    }
+
+    /**
+     * Marks deliveries as received by their subscription.
+     *
+     * @param ids the IDs of the deliveries.
+     * @param now the time of the delivery.
+     */
+    @Transactional
+    public void markDelivered(Collection<Long> ids, LocalDateTime now) {
+        entityManager.createQuery("UPDATE WebhookDelivery d SET d.status = :status, d.deliveredAt = :now, "
+                + "d.leaseExpiresAt = null, d.lastError = null WHERE d.id IN :ids")
+                .setParameter("status", WebhookDeliveryStatus.DELIVERED)
+                .setParameter("now", now)
+                .setParameter("ids", ids)
+                .executeUpdate();
+    }
+
+    /**
+     * Records a failed attempt of deliveries. Each is due again after the
+     * delay for its number of attempts, or is marked DEAD once it has had the
+     * maximum number of attempts.
+     *
+     * @param ids the IDs of the deliveries.
+     * @param error why the attempt failed.
+     * @param now the time of the attempt.
+     * @param maxAttempts the number of attempts after which a delivery is
+     * given up.
+     * @param backoff the delay before the next attempt, by the number of
+     * attempts made.
+     * @return the number of deliveries given up.
+     */
+    @Transactional
+    public int markFailed(Collection<Long> ids, String error, LocalDateTime now, int maxAttempts,
+            IntFunction<Duration> backoff) {
+        String lastError = error != null && error.length() > MAX_ERROR_LENGTH
+                ? error.substring(0, MAX_ERROR_LENGTH) : error;
+        int dead = 0;
+        for (WebhookDelivery delivery : entityManager.createQuery(
+                "FROM WebhookDelivery d WHERE d.id IN :ids", WebhookDelivery.class)
+                .setParameter("ids", ids)
+                .getResultList()) {
+            int attempts = delivery.getAttempts() + 1;
+            delivery.setAttempts(attempts);
+            delivery.setLastError(lastError);
+            delivery.setLeaseExpiresAt(null);
+            if (attempts >= maxAttempts) {
+                delivery.setStatus(WebhookDeliveryStatus.DEAD);
+                dead++;
+            } else {
+                delivery.setNextAttemptAt(now.plus(backoff.apply(attempts)));
+            }
+        }
+        return dead;
+    }
+
+    /**
+     * Finds the deliveries with a status, such as the dead letters, with
+     * their events.
+     *
+     * @param subscriptionId only deliveries of this subscription, if given.
+     * @param status the status of the deliveries.
+     * @param limit the maximum number of deliveries.
+     * @return a list of Webhook delivery dtos, oldest first.
+     */
+    public List<WebhookDeliveryDto> findDeliveries(Long subscriptionId, WebhookDeliveryStatus status, int limit) {
+        TypedQuery<WebhookDeliveryDto> query = entityManager.createQuery(
+                "SELECT new com.technico.web.technico.dtos.WebhookDeliveryDto("
+                + "d.id, d.subscriptionId, e.id, e.eventType, e.createdAt, d.status, d.attempts, "
+                + "d.nextAttemptAt, d.lastError) "
+                + "FROM WebhookDelivery d JOIN OutboxEvent e ON e.id = d.eventId "
+                + "WHERE d.status = :status "
+                + (subscriptionId != null ? "AND d.subscriptionId = :subscriptionId " : "")
+                + "ORDER BY d.id", WebhookDeliveryDto.class)
+                .setParameter("status", status)
+                .setMaxResults(limit);
+        if (subscriptionId != null) {
+            query.setParameter("subscriptionId", subscriptionId);
+        }
+        return query.getResultList();
+    }
+
+    /**
+     * Puts dead deliveries back in the queue with a fresh set of attempts.
+     *
+     * @param subscriptionId only deliveries of this subscription, if given.
+     * @param id only this delivery, if given.
+     * @param now the time the deliveries are due.
+     * @return the number of deliveries put back.
+     */
+    @Transactional
+    public int redeliver(Long subscriptionId, Long id, LocalDateTime now) {
+        Query query = entityManager.createQuery("UPDATE WebhookDelivery d SET d.status = :pending, "
+                + "d.attempts = 0, d.nextAttemptAt = :now, d.leaseExpiresAt = null "
+                + "WHERE d.status = :dead"
+                + (subscriptionId != null ? " AND d.subscriptionId = :subscriptionId" : "")
+                + (id != null ? " AND d.id = :id" : ""))
+                .setParameter("pending", WebhookDeliveryStatus.PENDING)
+                .setParameter("dead", WebhookDeliveryStatus.DEAD)
+                .setParameter("now", now);
+        if (subscriptionId != null) {
+            query.setParameter("subscriptionId", subscriptionId);
+        }
+        if (id != null) {
+            query.setParameter("id", id);
+        }
+        return query.executeUpdate();
+    }
+
+    /**
+     * Deletes the deliveries received before a time, and the fanned out
+     * outbox events from before it that have no deliveries left.
+     *
+     * @param before the time before which delivered rows are deleted.
+     * @return the number of rows deleted.
+     */
+    @Transactional
+    public int purge(LocalDateTime before) {
+        int rows = entityManager.createQuery("DELETE FROM WebhookDelivery d "
+                + "WHERE d.status = :status AND d.deliveredAt < :before")
+                .setParameter("status", WebhookDeliveryStatus.DELIVERED)
+                .setParameter("before", before)
+                .executeUpdate();
+        rows += entityManager.createQuery("DELETE FROM OutboxEvent e "
+                + "WHERE e.dispatched = true AND e.createdAt < :before "
+                + "AND NOT EXISTS (SELECT d.id FROM WebhookDelivery d WHERE d.eventId = e.id)")
+                .setParameter("before", before)
+                .executeUpdate();
+        return rows;
+    }
+}
@@ -0,0 +1,89 @@
+package com.technico.web.technico.resources;
+
+import com.technico.web.technico.dtos.OwnerCompletionDto;
+import com.technico.web.technico.dtos.RepairOverrunDto;
+import com.technico.web.technico.dtos.RepairTypeCostDto;
+import com.technico.web.technico.exceptions.CustomException;
+import com.technico.web.technico.providers.BinaryMediaType;
+import com.technico.web.technico.services.AnalyticsService;
+import jakarta.enterprise.context.RequestScoped;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.POST;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.QueryParam;
+import java.util.List;
+import java.util.Map;
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
+@RequestScoped
+@Path("analytics")
+public class AnalyticsResource {
+
+    @Inject
+    private AnalyticsService analyticsService;
+
+    /**
+     * Retrieves the number, total and average proposed cost of the repairs of
+     * each type.
+     *
+     * @param repairStatus only repairs with this status.
+     * @return a list of Repair type cost dtos.
+     * @throws CustomException if the status is not valid or the analytics are
+     * still loading.
+     */
+    @Path("costs")
+    @GET
+    @Produces(BinaryMediaType.JSON_OR_BINARY)
+    public List<RepairTypeCostDto> findCostsByType(@QueryParam("repairStatus") String repairStatus) throws CustomException {
+        return analyticsService.findCostsByType(repairStatus);
+    }
+
+    /**
+     * Retrieves how late the repairs of each type start and finish compared
+     * to their schedule, in hours.
+     *
+     * @return a list of Repair overrun dtos.
+     * @throws CustomException if the analytics are still loading.
+     */
+    @Path("overruns")
+    @GET
+    @Produces(BinaryMediaType.JSON_OR_BINARY)
+    public List<RepairOverrunDto> findOverrunsByType() throws CustomException {
+        return analyticsService.findOverrunsByType();
+    }
+
+    /**
+     * Retrieves the completion rate of the repairs of each owner, for example
+     * {@code completion?minRepairs=5&limit=50}.
+     *
+     * @param minRepairs only owners with at least this many repairs.
+     * @param limit the maximum number of owners, those with the most repairs
+     * first.
+     * @return a list of Owner completion dtos.
+     * @throws CustomException if the arguments are not valid or the analytics
+     * are still loading.
+     */
+    @Path("completion")
+    @GET
+    @Produces(BinaryMediaType.JSON_OR_BINARY)
+    public List<OwnerCompletionDto> findCompletionByOwner(@QueryParam("minRepairs") Integer minRepairs,
+            @QueryParam("limit") Integer limit) throws CustomException {
+        return analyticsService.findCompletionByOwner(minRepairs, limit);
+    }
+
+    /**
+     * Reloads the analytics from the database.
+     *
+     * @return the number of repairs loaded.
+     * @throws CustomException if a reload is already running.
+     */
+    @Path("reload")
+    @POST
+    @Produces(BinaryMediaType.JSON_OR_BINARY)
+    public Map<String, Integer> reloadAnalytics() throws CustomException {
+        return Map.of("repairs", analyticsService.reloadAnalytics());
+    }
+}
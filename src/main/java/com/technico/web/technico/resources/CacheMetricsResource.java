@@ -0,0 +1,94 @@
+package com.technico.web.technico.resources;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.technico.web.technico.cache.CacheRegistry;
+import com.technico.web.technico.dtos.CacheStatsDto;
+import com.technico.web.technico.providers.BinaryMediaType;
+import jakarta.enterprise.context.RequestScoped;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.core.MediaType;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+@RequestScoped
+@Path("metrics/caches")
+public class CacheMetricsResource {
+
+    @Inject
+    private CacheRegistry cacheRegistry;
+
+    /**
+     * Retrieves the statistics of every registered cache.
+     *
+     * @return a list of CacheStatsDto objects, one per cache.
+     */
+    @GET
+    @Produces(BinaryMediaType.JSON_OR_BINARY)
+    public List<CacheStatsDto> cacheStats() {
+        return cacheRegistry.getCaches().entrySet().stream()
+                .map(entry -> toDto(entry.getKey(), entry.getValue()))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Retrieves the statistics of every registered cache in the Prometheus
+     * text exposition format, for scraping by the metrics system.
+     *
+     * @return the statistics as Prometheus counters and gauges.
+     */
+    @GET
+    @Produces(MediaType.TEXT_PLAIN)
+    public String cacheStatsPrometheus() {
+        StringBuilder out = new StringBuilder();
+        metric(out, "technico_cache_size", "gauge");
+        for (Map.Entry<String, Cache<?, ?>> entry : cacheRegistry.getCaches().entrySet()) {
+            sample(out, "technico_cache_size", entry.getKey(), entry.getValue().estimatedSize());
+        }
+        metric(out, "technico_cache_hits_total", "counter");
+        for (Map.Entry<String, Cache<?, ?>> entry : cacheRegistry.getCaches().entrySet()) {
+            sample(out, "technico_cache_hits_total", entry.getKey(), entry.getValue().stats().hitCount());
+        }
+        metric(out, "technico_cache_misses_total", "counter");
+        for (Map.Entry<String, Cache<?, ?>> entry : cacheRegistry.getCaches().entrySet()) {
+            sample(out, "technico_cache_misses_total", entry.getKey(), entry.getValue().stats().missCount());
+        }
+        metric(out, "technico_cache_evictions_total", "counter");
+        for (Map.Entry<String, Cache<?, ?>> entry : cacheRegistry.getCaches().entrySet()) {
+            sample(out, "technico_cache_evictions_total", entry.getKey(), entry.getValue().stats().evictionCount());
+        }
+        metric(out, "technico_cache_eviction_weight_total", "counter");
+        for (Map.Entry<String, Cache<?, ?>> entry : cacheRegistry.getCaches().entrySet()) {
+            sample(out, "technico_cache_eviction_weight_total", entry.getKey(), entry.getValue().stats().evictionWeight());
+        }
+        return out.toString();
+    }
+
+    private CacheStatsDto toDto(String name, Cache<?, ?> cache) {
+        CacheStats stats = cache.stats();
+        return new CacheStatsDto(
+                name,
+                cache.estimatedSize(),
+                stats.hitCount(),
+                stats.missCount(),
+                stats.hitRate(),
+                stats.evictionCount(),
+                stats.evictionWeight(),
+                stats.loadSuccessCount(),
+                stats.loadFailureCount(),
+                stats.averageLoadPenalty()
+        );
+    }
+
+    private void metric(StringBuilder out, String name, String type) {
+        out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    }
+
+    private void sample(StringBuilder out, String name, String cache, long value) {
+        out.append(name).append("{cache=\"").append(cache).append("\"} ").append(value).append('\n');
+    }
+}
@@ -0,0 +1,110 @@
+package com.technico.web.technico.resources;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.technico.web.technico.dtos.OwnerDto;
+import com.technico.web.technico.dtos.PropertyDto;
+import com.technico.web.technico.dtos.RepairDto;
+import com.technico.web.technico.providers.ObjectMapperProvider;
+import com.technico.web.technico.repositories.OwnerRepository;
+import com.technico.web.technico.repositories.PropertyRepository;
+import com.technico.web.technico.repositories.RepairRepository;
+import jakarta.enterprise.context.RequestScoped;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.NotFoundException;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.PathParam;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.core.StreamingOutput;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.function.Consumer;
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
+@RequestScoped
+@Path("export")
+public class ExportResource {
+
+    public static final String APPLICATION_NDJSON = "application/x-ndjson";
+
+    private static final int FLUSH_INTERVAL = 500;
+
+    @Inject
+    private OwnerRepository ownerRepository;
+
+    @Inject
+    private PropertyRepository propertyRepository;
+
+    @Inject
+    private RepairRepository repairRepository;
+
+    /**
+     * Exports every owner, property or repair as newline-delimited JSON, one
+     * dto per line. Rows are written as they are read from the database, so
+     * the first line goes out immediately and memory use does not grow with
+     * the size of the table.
+     *
+     * @param entity the entity to export: owners, properties or repairs.
+     * @return a streaming response with one JSON document per line.
+     */
+    @Path("{entity}")
+    @GET
+    @Produces(APPLICATION_NDJSON)
+    public Response export(@PathParam("entity") String entity) {
+        StreamingOutput output;
+        switch (entity) {
+            case "owners":
+                output = ndjson(OwnerDto.class, ownerRepository::scrollAllOwners);
+                break;
+            case "properties":
+                output = ndjson(PropertyDto.class, propertyRepository::scrollAllProperties);
+                break;
+            case "repairs":
+                output = ndjson(RepairDto.class, repairRepository::scrollAllRepairs);
+                break;
+            default:
+                throw new NotFoundException("Unknown export " + entity);
+        }
+        return Response.ok(output, APPLICATION_NDJSON).build();
+    }
+
+    /**
+     * Builds a streaming body that writes each row handed over by the scroller
+     * as a single JSON line, flushing the first row immediately and then every
+     * few hundred rows.
+     *
+     * @param type the dto class of the rows.
+     * @param scroller the repository scroll that feeds the rows.
+     * @return the streaming body.
+     */
+    private <T> StreamingOutput ndjson(Class<T> type, Consumer<Consumer<T>> scroller) {
+        return outputStream -> {
+            ObjectMapper mapper = ObjectMapperProvider.sharedMapper();
+            ObjectWriter writer = mapper.writerFor(type).without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+            try (JsonGenerator generator = mapper.getFactory().createGenerator(outputStream)) {
+                generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+                generator.setRootValueSeparator(null);
+                int[] count = {0};
+                scroller.accept(row -> {
+                    try {
+                        writer.writeValue(generator, row);
+                        generator.writeRaw('\n');
+                        if (++count[0] % FLUSH_INTERVAL == 1) {
+                            generator.flush();
+                        }
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                log.debug("Exported " + count[0] + " rows of " + type.getSimpleName());
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        };
+    }
+}
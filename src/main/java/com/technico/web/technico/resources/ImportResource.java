@@ -0,0 +1,125 @@
+package com.technico.web.technico.resources;
+
+import com.technico.web.technico.dtos.ImportJobDto;
+import com.technico.web.technico.exceptions.CustomException;
+import com.technico.web.technico.imports.ImportJob;
+import com.technico.web.technico.providers.BinaryMediaType;
+import com.technico.web.technico.services.ImportService;
+import jakarta.enterprise.context.RequestScoped;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.BadRequestException;
+import jakarta.ws.rs.Consumes;
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.HeaderParam;
+import jakarta.ws.rs.NotFoundException;
+import jakarta.ws.rs.POST;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.PathParam;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.core.StreamingOutput;
+import jakarta.ws.rs.core.UriInfo;
+import java.io.BufferedWriter;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
+@RequestScoped
+@Path("import")
+public class ImportResource {
+
+    public static final String TEXT_CSV = "text/csv";
+
+    @Inject
+    private ImportService importService;
+
+    /**
+     * Starts importing owners or properties from a CSV upload with a header
+     * row, or from an NDJSON upload with one object per line. Column and field
+     * names are those of the owner and property dtos. The import runs in the
+     * background; poll the returned job for its progress.
+     *
+     * @param entity the entity to import: owners or properties.
+     * @param contentType the content type of the upload.
+     * @param upload the uploaded rows.
+     * @param uriInfo the request URI, to locate the new job.
+     * @return 202 Accepted with the Import job dto.
+     */
+    @Path("{entity}")
+    @POST
+    @Consumes({TEXT_CSV, ExportResource.APPLICATION_NDJSON})
+    @Produces(BinaryMediaType.JSON_OR_BINARY)
+    public Response startImport(@PathParam("entity") String entity,
+            @HeaderParam(HttpHeaders.CONTENT_TYPE) MediaType contentType, InputStream upload,
+            @Context UriInfo uriInfo) {
+        try {
+            ImportJobDto job = importService.startImport(entity, contentType, upload);
+            return Response.accepted(job)
+                    .location(uriInfo.getBaseUriBuilder().path(ImportResource.class).path("jobs").path(job.getId()).build())
+                    .build();
+        } catch (CustomException e) {
+            log.debug("Error while starting import " + e.getMessage());
+            throw new BadRequestException(e.getMessage());
+        }
+    }
+
+    /**
+     * Retrieves the progress of an import.
+     *
+     * @param id the ID of the import.
+     * @return the Import job dto.
+     */
+    @Path("jobs/{id}")
+    @GET
+    @Produces(BinaryMediaType.JSON_OR_BINARY)
+    public ImportJobDto findJob(@PathParam("id") String id) {
+        return findImport(id).toDto();
+    }
+
+    /**
+     * Downloads the rows of an import that were rejected, as CSV with the line
+     * of each row in the upload, its VAT or E9 and the reason. The report
+     * grows while the import runs.
+     *
+     * @param id the ID of the import.
+     * @return the error report.
+     */
+    @Path("jobs/{id}/errors")
+    @GET
+    @Produces(TEXT_CSV)
+    public Response downloadErrors(@PathParam("id") String id) {
+        ImportJob job = findImport(id);
+        StreamingOutput output = outputStream -> {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+            writer.write("line,key,message\r\n");
+            for (ImportJob.RowError error : job.sortedErrors()) {
+                writer.write(error.getLine() + "," + csvField(error.getKey()) + "," + csvField(error.getMessage()) + "\r\n");
+            }
+            writer.flush();
+        };
+        return Response.ok(output, TEXT_CSV)
+                .header("Content-Disposition", "attachment; filename=\"import-" + id + "-errors.csv\"")
+                .build();
+    }
+
+    private ImportJob findImport(String id) {
+        return importService.findJob(id)
+                .orElseThrow(() -> new NotFoundException("Unknown import " + id));
+    }
+
+    private static String csvField(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
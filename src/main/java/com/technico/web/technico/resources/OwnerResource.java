@@ -1,9 +1,16 @@
 package com.technico.web.technico.resources;
 
+import com.technico.web.technico.cache.CacheTags;
+import com.technico.web.technico.cache.CacheableResponse;
+import com.technico.web.technico.dtos.LookupResultDto;
 import com.technico.web.technico.dtos.OwnerDto;
+import com.technico.web.technico.dtos.OwnerPortfolioDto;
+import com.technico.web.technico.dtos.OwnerSuggestionDto;
 import com.technico.web.technico.exceptions.CustomException;
 import com.technico.web.technico.models.Owner;
+import com.technico.web.technico.providers.BinaryMediaType;
 import com.technico.web.technico.services.OwnerService;
+import com.technico.web.technico.services.PortfolioService;
 import jakarta.enterprise.context.RequestScoped;
 import jakarta.inject.Inject;
 import jakarta.ws.rs.Consumes;
@@ -14,6 +21,7 @@ import jakarta.ws.rs.PUT;
 import jakarta.ws.rs.Path;
 import jakarta.ws.rs.PathParam;
 import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.QueryParam;
 import java.util.List;
 import java.util.stream.Collectors;
 import lombok.extern.slf4j.Slf4j;
@@ -26,6 +34,9 @@ public class OwnerResource {
     @Inject
     private OwnerService ownerService;
 
+    @Inject
+    private PortfolioService portfolioService;
+
     /**
      * Saves a new owner.
      *
@@ -36,7 +47,7 @@ public class OwnerResource {
     @Path("create")
     @POST
     @Consumes("application/json")
-    @Produces("application/json")
+    @Produces(BinaryMediaType.JSON_OR_BINARY)
     public OwnerDto saveOwner(OwnerDto owner) {
         try {
             return ownerService.createOwner(
@@ -62,20 +73,10 @@ public class OwnerResource {
      */
     @Path("findByVat/{vat}")
     @GET
-    @Produces("application/json")
+    @CacheableResponse(tags = CacheTags.OWNER_BY_VAT)
+    @Produces(BinaryMediaType.JSON_OR_BINARY)
     public OwnerDto findOwnerByVat(@PathParam("vat") String vat) {
-        Owner owner = ownerService.searchOwnerByVat(vat).get();
-        return new OwnerDto(
-                owner.getId(),
-                owner.getVat(),
-                owner.getName(),
-                owner.getSurname(),
-                owner.getAddress(),
-                owner.getPhoneNumber(),
-                owner.getEmail(),
-                owner.getPassword(),
-                owner.isDeleted()
-        );
+        return ownerService.searchOwnerByVat(vat).get();
     }
 
     /**
@@ -86,7 +87,7 @@ public class OwnerResource {
      */
     @Path("findByEmail/{email}")
     @GET
-    @Produces("application/json")
+    @Produces(BinaryMediaType.JSON_OR_BINARY)
     public OwnerDto findOwnerByEmail(@PathParam("email") String email) {
         Owner owner = ownerService.searchOwnerByEmail(email).get();
         return new OwnerDto(
@@ -110,7 +111,8 @@ public class OwnerResource {
      */
     @Path("findByID/{id}")
     @GET
-    @Produces("application/json")
+    @CacheableResponse(tags = CacheTags.OWNER_BY_ID)
+    @Produces(BinaryMediaType.JSON_OR_BINARY)
     public OwnerDto findOwnerByID(@PathParam("id") Long id) {
         Owner owner = ownerService.searchOwnerByID(id).get();
         return new OwnerDto(
@@ -126,6 +128,74 @@ public class OwnerResource {
         );
     }
 
+    /**
+     * Finds many owners by ID in one call, for example
+     * {@code findByIDs?id=1&id=2}. Deleted owners are reported as not found.
+     *
+     * @param ids the IDs of the owners.
+     * @return one result per requested ID, in request order, marking the IDs
+     * that were not found.
+     * @throws CustomException if no IDs or too many IDs are given.
+     */
+    @Path("findByIDs")
+    @GET
+    @Produces(BinaryMediaType.JSON_OR_BINARY)
+    public List<LookupResultDto<OwnerDto>> findOwnersByIDs(@QueryParam("id") List<Long> ids) throws CustomException {
+        return ownerService.findOwnersByIDs(ids);
+    }
+
+    /**
+     * Finds many owners by VAT number in one call, for example
+     * {@code findByVats?vat=123456789&vat=987654321}. Deleted owners are
+     * reported as not found.
+     *
+     * @param vats the VAT numbers of the owners.
+     * @return one result per requested VAT number, in request order, marking
+     * the VAT numbers that were not found.
+     * @throws CustomException if no VAT numbers or too many are given.
+     */
+    @Path("findByVats")
+    @GET
+    @Produces(BinaryMediaType.JSON_OR_BINARY)
+    public List<LookupResultDto<OwnerDto>> findOwnersByVats(@QueryParam("vat") List<String> vats) throws CustomException {
+        return ownerService.findOwnersByVats(vats);
+    }
+
+    /**
+     * Suggests owners while their name, surname, email or VAT is being typed,
+     * for example {@code autocomplete?q=papad}.
+     *
+     * @param query the typed text.
+     * @param limit the maximum number of suggestions, 10 if not given.
+     * @return the best matching owners with their scores, best first.
+     * @throws CustomException if the limit is not valid or the index is still
+     * loading.
+     */
+    @Path("autocomplete")
+    @GET
+    @Produces(BinaryMediaType.JSON_OR_BINARY)
+    public List<OwnerSuggestionDto> autocompleteOwners(@QueryParam("q") String query,
+            @QueryParam("limit") Integer limit) throws CustomException {
+        return ownerService.autocompleteOwners(query, limit);
+    }
+
+    /**
+     * Retrieves the portfolio of an owner in a single call: the owner, their
+     * non-deleted properties, their repair counts by status and their most
+     * recent repairs.
+     *
+     * @param id the unique ID of the owner.
+     * @return the Owner portfolio dto.
+     * @throws CustomException if the owner is not found or the portfolio
+     * cannot be loaded.
+     */
+    @Path("{id}/portfolio")
+    @GET
+    @Produces(BinaryMediaType.JSON_OR_BINARY)
+    public OwnerPortfolioDto findOwnerPortfolio(@PathParam("id") Long id) throws CustomException {
+        return portfolioService.findOwnerPortfolio(id);
+    }
+
     /**
      * Retrieves all owners.
      *
@@ -133,7 +203,7 @@ public class OwnerResource {
      */
     @Path("findAll")
     @GET
-    @Produces("application/json")
+    @Produces(BinaryMediaType.JSON_OR_BINARY)
     public List<OwnerDto> getCustomers() {
         List<Owner> owners = ownerService.findAllOwners();
         List<OwnerDto> allOwners = owners.stream()
@@ -162,7 +232,7 @@ public class OwnerResource {
     @Path("update/{id}")
     @PUT
     @Consumes("application/json")
-    @Produces("application/json")
+    @Produces(BinaryMediaType.JSON_OR_BINARY)
     public OwnerDto updateOwner(@PathParam("id") Long id, OwnerDto owner) {
         try {
             return ownerService.updateOwner(
@@ -186,7 +256,7 @@ public class OwnerResource {
      */
     @Path("softDelete/{id}")
     @PUT
-    @Produces("application/json")
+    @Produces(BinaryMediaType.JSON_OR_BINARY)
     public boolean softDeleteOwner(@PathParam("id") Long id) {
         return ownerService.deleteOwnerSafely(id);
     }
@@ -199,7 +269,7 @@ public class OwnerResource {
      */
     @Path("hardDelete/{id}")
     @DELETE
-    @Produces("application/json")
+    @Produces(BinaryMediaType.JSON_OR_BINARY)
     public boolean deleteOwner(@PathParam("id") Long id) {
         try {
             return ownerService.deleteOwnerPermanently(id);
@@ -219,7 +289,7 @@ public class OwnerResource {
     @Path("login/{email}/{password}")
     @POST
     @Consumes("application/json")
-    @Produces("application/json")
+    @Produces(BinaryMediaType.JSON_OR_BINARY)
     public Owner login(@PathParam("email") String email,
             @PathParam("password") String password) {
         try {
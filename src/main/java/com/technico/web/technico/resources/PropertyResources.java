@@ -1,8 +1,13 @@
 package com.technico.web.technico.resources;
 
+import com.technico.web.technico.cache.CacheTags;
+import com.technico.web.technico.cache.CacheableResponse;
+import com.technico.web.technico.dtos.LookupResultDto;
 import com.technico.web.technico.dtos.PropertyDto;
+import com.technico.web.technico.dtos.PropertySearchDto;
 import com.technico.web.technico.exceptions.CustomException;
 import com.technico.web.technico.models.Property;
+import com.technico.web.technico.providers.BinaryMediaType;
 import com.technico.web.technico.services.PropertyService;
 import jakarta.enterprise.context.RequestScoped;
 import jakarta.inject.Inject;
@@ -14,6 +19,7 @@ import jakarta.ws.rs.PUT;
 import jakarta.ws.rs.Path;
 import jakarta.ws.rs.PathParam;
 import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.QueryParam;
 import java.util.List;
 import java.util.stream.Collectors;
 import lombok.extern.slf4j.Slf4j;
@@ -35,7 +41,7 @@ public class PropertyResources {
     @Path("create")
     @POST
     @Consumes("application/json")
-    @Produces("application/json")
+    @Produces(BinaryMediaType.JSON_OR_BINARY)
     public PropertyDto saveProperty(PropertyDto property) {
         try {
             return propertyService.createProperty(
@@ -61,18 +67,10 @@ public class PropertyResources {
      */
     @Path("findByE9/{e9}")
     @GET
-    @Produces("application/json")
+    @CacheableResponse(tags = CacheTags.PROPERTY_BY_E9)
+    @Produces(BinaryMediaType.JSON_OR_BINARY)
     public PropertyDto findPropertyByE9(@PathParam("e9") String e9) throws CustomException {
-        Property property = propertyService.findByE9(e9);
-        return new PropertyDto(
-                property.getId(),
-                property.getE9(),
-                property.getPropertyAddress(),
-                property.getConstructionYear(),
-                property.getPropertyType(),
-                property.getOwner().getVat(),
-                property.isDeleted()
-        );
+        return propertyService.findByE9(e9);
     }
 
     /**
@@ -85,7 +83,8 @@ public class PropertyResources {
      */
     @Path("findByVat/{vat}")
     @GET
-    @Produces("application/json")
+    @CacheableResponse(tags = CacheTags.PROPERTIES_BY_VAT)
+    @Produces(BinaryMediaType.JSON_OR_BINARY)
     public List<PropertyDto> findPropertyByVat(@PathParam("vat") String vat) throws CustomException {
         List<Property> properties = propertyService.findByVAT(vat);
         List<PropertyDto> propertiesByVat = properties.stream()
@@ -114,7 +113,8 @@ public class PropertyResources {
      */
     @Path("findNonDeletedByVat/{vat}")
     @GET
-    @Produces("application/json")
+    @CacheableResponse(tags = CacheTags.PROPERTIES_BY_VAT)
+    @Produces(BinaryMediaType.JSON_OR_BINARY)
     public List<PropertyDto> findNonDeletedPropertyByVat(@PathParam("vat") String vat) throws CustomException {
         List<Property> properties = propertyService.findByVATExcludeDeleted(vat);
         List<PropertyDto> nonDeletedProperties = properties.stream()
@@ -141,7 +141,8 @@ public class PropertyResources {
      */
     @Path("findByID/{id}")
     @GET
-    @Produces("application/json")
+    @CacheableResponse(tags = CacheTags.PROPERTY_BY_ID)
+    @Produces(BinaryMediaType.JSON_OR_BINARY)
     public PropertyDto findPropertyByID(@PathParam("id") Long id) throws CustomException {
         Property property = propertyService.findByID(id);
         return new PropertyDto(
@@ -155,6 +156,67 @@ public class PropertyResources {
         );
     }
 
+    /**
+     * Finds many properties by ID in one call, for example
+     * {@code findByIDs?id=1&id=2}. Deleted properties are reported as not
+     * found.
+     *
+     * @param ids the IDs of the properties.
+     * @return one result per requested ID, in request order, marking the IDs
+     * that were not found.
+     * @throws CustomException if no IDs or too many IDs are given.
+     */
+    @Path("findByIDs")
+    @GET
+    @Produces(BinaryMediaType.JSON_OR_BINARY)
+    public List<LookupResultDto<PropertyDto>> findPropertiesByIDs(@QueryParam("id") List<Long> ids) throws CustomException {
+        return propertyService.findPropertiesByIDs(ids);
+    }
+
+    /**
+     * Finds many properties by E9 in one call, for example
+     * {@code findByE9s?e9=E9-1&e9=E9-2}. Deleted properties are reported as
+     * not found.
+     *
+     * @param e9s the E9 identifiers of the properties.
+     * @return one result per requested E9, in request order, marking the E9
+     * identifiers that were not found.
+     * @throws CustomException if no E9 identifiers or too many are given.
+     */
+    @Path("findByE9s")
+    @GET
+    @Produces(BinaryMediaType.JSON_OR_BINARY)
+    public List<LookupResultDto<PropertyDto>> findPropertiesByE9s(@QueryParam("e9") List<String> e9s) throws CustomException {
+        return propertyService.findPropertiesByE9s(e9s);
+    }
+
+    /**
+     * Searches the properties by facets, for example
+     * {@code search?type=MAISONETTE&type=DETACHEDHOUSE&yearFrom=1980&yearTo=1999&page=0&size=20}.
+     * The response also counts the matches of each facet value.
+     *
+     * @param propertyTypes the property types to match.
+     * @param yearFrom the earliest construction year.
+     * @param yearTo the latest construction year.
+     * @param ownerIds the IDs of the owners to match.
+     * @param deleted false for non-deleted properties, the default, true for
+     * deleted ones or any for both.
+     * @param page the zero-based page.
+     * @param size the page size.
+     * @return the Property search dto.
+     * @throws CustomException if a filter is not valid or the index is still
+     * loading.
+     */
+    @Path("search")
+    @GET
+    @Produces(BinaryMediaType.JSON_OR_BINARY)
+    public PropertySearchDto searchProperties(@QueryParam("type") List<String> propertyTypes,
+            @QueryParam("yearFrom") Integer yearFrom, @QueryParam("yearTo") Integer yearTo,
+            @QueryParam("ownerId") List<Long> ownerIds, @QueryParam("deleted") String deleted,
+            @QueryParam("page") Integer page, @QueryParam("size") Integer size) throws CustomException {
+        return propertyService.searchProperties(propertyTypes, yearFrom, yearTo, ownerIds, deleted, page, size);
+    }
+
     /**
      * Retrieves all properties from the system.
      *
@@ -162,7 +224,7 @@ public class PropertyResources {
      */
     @Path("findAll")
     @GET
-    @Produces("application/json")
+    @Produces(BinaryMediaType.JSON_OR_BINARY)
     public List<PropertyDto> allProperties() {
         List<Property> properties = propertyService.findAllProperties();
         List<PropertyDto> allProperties = properties.stream()
@@ -189,7 +251,7 @@ public class PropertyResources {
     @Path("update/{id}")
     @PUT
     @Consumes("application/json")
-    @Produces("application/json")
+    @Produces(BinaryMediaType.JSON_OR_BINARY)
     public PropertyDto updateProperty(@PathParam("id") Long id, PropertyDto property) {
         try {
             return propertyService.updateProperty(
@@ -215,7 +277,7 @@ public class PropertyResources {
      */
     @Path("softDelete/{id}")
     @PUT
-    @Produces("application/json")
+    @Produces(BinaryMediaType.JSON_OR_BINARY)
     public boolean softDeleteProperty(@PathParam("id") Long id) throws CustomException {
         return propertyService.safelyDeleteByID(id);
     }
@@ -229,7 +291,7 @@ public class PropertyResources {
      */
     @Path("hardDelete/{id}")
     @DELETE
-    @Produces("application/json")
+    @Produces(BinaryMediaType.JSON_OR_BINARY)
     public boolean deleteProperty(@PathParam("id") Long id) {
         try {
             return propertyService.permenantlyDeleteByID(id);
@@ -1,26 +1,47 @@
 package com.technico.web.technico.resources;
 
+import com.technico.web.technico.cache.CacheTags;
+import com.technico.web.technico.cache.CacheableResponse;
+import com.technico.web.technico.dtos.LookupResultDto;
+import com.technico.web.technico.dtos.RepairClaimDto;
 import com.technico.web.technico.dtos.RepairDto;
+import com.technico.web.technico.dtos.RepairDuplicateDto;
+import com.technico.web.technico.dtos.RepairFacetsDto;
+import com.technico.web.technico.dtos.RepairSlotDto;
+import com.technico.web.technico.dtos.RepairTextSearchDto;
+import com.technico.web.technico.dtos.RepairTransitionDto;
+import com.technico.web.technico.dtos.RepairTransitionResultDto;
 import com.technico.web.technico.exceptions.CustomException;
 import com.technico.web.technico.models.Owner;
 import com.technico.web.technico.models.Property;
 import com.technico.web.technico.models.Repair;
+import com.technico.web.technico.models.RepairType;
+import com.technico.web.technico.providers.BinaryMediaType;
+import com.technico.web.technico.providers.ObjectMapperProvider;
 import com.technico.web.technico.services.RepairService;
+import com.technico.web.technico.services.ReportService;
 import jakarta.enterprise.context.RequestScoped;
 import jakarta.inject.Inject;
 import jakarta.ws.rs.Consumes;
 import jakarta.ws.rs.DELETE;
+import jakarta.ws.rs.DefaultValue;
 import jakarta.ws.rs.GET;
+import jakarta.ws.rs.HeaderParam;
 import jakarta.ws.rs.POST;
 import jakarta.ws.rs.PUT;
 import jakarta.ws.rs.Path;
 import jakarta.ws.rs.PathParam;
 import jakarta.ws.rs.Produces;
 import jakarta.ws.rs.QueryParam;
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
-import java.util.Date;
+import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.sse.Sse;
+import jakarta.ws.rs.sse.SseEventSink;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 import lombok.extern.slf4j.Slf4j;
 
@@ -32,6 +53,9 @@ public class RepairResource {
     @Inject
     private RepairService repairService;
 
+    @Inject
+    private ReportService reportService;
+
     /**
      * Creates a new repair using the provided property data.
      *
@@ -41,7 +65,7 @@ public class RepairResource {
     @Path("create")
     @POST
     @Consumes("application/json")
-    @Produces("application/json")
+    @Produces(BinaryMediaType.JSON_OR_BINARY)
     public RepairDto saveRepair(RepairDto repair) {
         try {
             return repairService.createRepair(
@@ -68,7 +92,7 @@ public class RepairResource {
     @Path("updateAdmin/{id}")
     @PUT
     @Consumes("application/json")
-    @Produces("application/json")
+    @Produces(BinaryMediaType.JSON_OR_BINARY)
     public RepairDto updateRepairAdmin(@PathParam("id") Long id, RepairDto repair) {
         try {
             return repairService.updateRepairAdmin(
@@ -87,6 +111,63 @@ public class RepairResource {
         return null;
     }
 
+    /**
+     * Moves many repairs to a new status in one call, for example all of the
+     * morning's pending repairs to in progress. Only legal transitions are
+     * applied; the actual start and end dates are set as work starts and
+     * completes.
+     *
+     * @param transition the IDs of the repairs and the status to move them to.
+     * @return one outcome per requested ID, in request order.
+     * @throws CustomException if no IDs, too many IDs or no status are given.
+     */
+    @Path("transition")
+    @POST
+    @Consumes("application/json")
+    @Produces(BinaryMediaType.JSON_OR_BINARY)
+    public List<RepairTransitionResultDto> transitionRepairs(RepairTransitionDto transition) throws CustomException {
+        return repairService.transitionRepairs(transition.getIds(), transition.getRepairStatus());
+    }
+
+    /**
+     * Claims the next pending repairs for a technician, for example
+     * {@code claim?type=PLUMBING&count=5&worker=tech-17}. Each repair is
+     * handed to one technician only, and is leased to them until it is
+     * started or the lease expires.
+     *
+     * @param repairType the type of repairs to claim; any type if omitted.
+     * @param count how many repairs to claim.
+     * @param worker the technician claiming the repairs.
+     * @param leaseSeconds how long the claim lasts.
+     * @return the claimed repairs, oldest first.
+     * @throws CustomException if the count, worker or lease is not valid.
+     */
+    @Path("claim")
+    @POST
+    @Produces(BinaryMediaType.JSON_OR_BINARY)
+    public List<RepairClaimDto> claimRepairs(@QueryParam("type") RepairType repairType,
+            @QueryParam("count") @DefaultValue("1") int count,
+            @QueryParam("worker") String worker,
+            @QueryParam("leaseSeconds") @DefaultValue("900") long leaseSeconds) throws CustomException {
+        return repairService.claimRepairs(repairType, count, worker, leaseSeconds);
+    }
+
+    /**
+     * Hands a claimed repair back before its lease expires.
+     *
+     * @param id the ID of the repair.
+     * @param worker the technician holding the claim.
+     * @return true if the claim was released, false if the technician did not
+     * hold it.
+     * @throws CustomException if the worker is not valid.
+     */
+    @Path("claim/{id}/release")
+    @POST
+    @Produces(BinaryMediaType.JSON_OR_BINARY)
+    public boolean releaseClaim(@PathParam("id") Long id, @QueryParam("worker") String worker) throws CustomException {
+        return repairService.releaseClaim(id, worker);
+    }
+
     /**
      * Owner updates the details of an existing repair.
      *
@@ -97,7 +178,7 @@ public class RepairResource {
     @Path("updateOwner/{id}")
     @PUT
     @Consumes("application/json")
-    @Produces("application/json")
+    @Produces(BinaryMediaType.JSON_OR_BINARY)
     public RepairDto updateRepairOwner(@PathParam("id") Long id, RepairDto repair) {
         try {
             return repairService.updateRepairOwner(
@@ -122,7 +203,8 @@ public class RepairResource {
      */
     @Path("findByOwnerID/{id}")
     @GET
-    @Produces("application/json")
+    @CacheableResponse(tags = CacheTags.REPAIRS_BY_OWNER_ID)
+    @Produces(BinaryMediaType.JSON_OR_BINARY)
     public List<RepairDto> findRepairByOwnerID(@PathParam("id") Long id) throws CustomException {
         List<Repair> repairs = repairService.findRepairsByOwner(id);
         List<RepairDto> allRepairs = repairs.stream()
@@ -157,7 +239,8 @@ public class RepairResource {
      */
     @Path("findByID/{id}")
     @GET
-    @Produces("application/json")
+    @CacheableResponse(tags = CacheTags.REPAIR_BY_ID)
+    @Produces(BinaryMediaType.JSON_OR_BINARY)
     public RepairDto findRepairByID(@PathParam("id") Long id) throws CustomException {
         Repair repair = repairService.findRepairById(id).get();
         return new RepairDto(
@@ -180,6 +263,148 @@ public class RepairResource {
         );
     }
 
+    /**
+     * Finds many repairs by ID in one call, for example
+     * {@code findByIDs?id=1&id=2}. Deleted repairs are reported as not found.
+     *
+     * @param ids the IDs of the repairs.
+     * @return one result per requested ID, in request order, marking the IDs
+     * that were not found.
+     * @throws CustomException if no IDs or too many IDs are given.
+     */
+    @Path("findByIDs")
+    @GET
+    @Produces(BinaryMediaType.JSON_OR_BINARY)
+    public List<LookupResultDto<RepairDto>> findRepairsByIDs(@QueryParam("id") List<Long> ids) throws CustomException {
+        return repairService.findRepairsByIDs(ids);
+    }
+
+    /**
+     * Searches the repairs by the words of their short description and
+     * description, best matches first, for example
+     * {@code search/text?q=leak+boiler&page=0&size=20}. Quoted words match
+     * as a phrase and {@code |} separates alternatives.
+     *
+     * @param query the words to search for.
+     * @param page the zero-based page.
+     * @param size the page size.
+     * @return the Repair text search dto.
+     * @throws CustomException if the query or paging is not valid, or the
+     * index is not available.
+     */
+    @Path("search/text")
+    @GET
+    @Produces(BinaryMediaType.JSON_OR_BINARY)
+    public RepairTextSearchDto searchRepairText(@QueryParam("q") String query, @QueryParam("page") Integer page,
+            @QueryParam("size") Integer size) throws CustomException {
+        return repairService.searchRepairText(query, page, size);
+    }
+
+    /**
+     * Rebuilds the repair text index from the database.
+     *
+     * @return the number of repairs indexed.
+     * @throws CustomException if a rebuild is already running or fails.
+     */
+    @Path("search/text/rebuild")
+    @POST
+    @Produces(BinaryMediaType.JSON_OR_BINARY)
+    public Map<String, Integer> rebuildTextIndex() throws CustomException {
+        return Map.of("repairs", repairService.rebuildTextIndex());
+    }
+
+    /**
+     * Lists the open repairs that likely duplicate an earlier open repair:
+     * same property and repair type, overlapping scheduled windows and a
+     * near-identical description.
+     *
+     * @return the likely duplicates with the repair each one duplicates.
+     * @throws CustomException if the duplicate index is still loading.
+     */
+    @Path("duplicates")
+    @GET
+    @Produces(BinaryMediaType.JSON_OR_BINARY)
+    public List<RepairDuplicateDto> findDuplicateRepairs() throws CustomException {
+        return repairService.findDuplicateRepairs();
+    }
+
+    /**
+     * Reloads the repair duplicate index from the database.
+     *
+     * @return the number of open repairs indexed.
+     * @throws CustomException if a reload is already running.
+     */
+    @Path("duplicates/reload")
+    @POST
+    @Produces(BinaryMediaType.JSON_OR_BINARY)
+    public Map<String, Integer> reloadDuplicateIndex() throws CustomException {
+        return Map.of("repairs", repairService.reloadDuplicateIndex());
+    }
+
+    /**
+     * Lists the free time of a property in a period, for example
+     * {@code availability?e9=E9-1&from=2024-05-01T08:00:00&to=2024-05-08T18:00:00&type=PLUMBING}.
+     * With a repair type, only the time when one of its crews is free too is
+     * listed.
+     *
+     * @param e9 the E9 of the property.
+     * @param repairType the repair type, optional.
+     * @param from the start of the period.
+     * @param to the end of the period.
+     * @return the free slots, in order.
+     * @throws CustomException if the property is not found, the period is not
+     * valid or the schedule is still loading.
+     */
+    @Path("availability")
+    @GET
+    @Produces(BinaryMediaType.JSON_OR_BINARY)
+    public List<RepairSlotDto> findAvailability(@QueryParam("e9") String e9, @QueryParam("type") RepairType repairType,
+            @QueryParam("from") String from, @QueryParam("to") String to) throws CustomException {
+        return repairService.findAvailability(e9, repairType, from, to);
+    }
+
+    /**
+     * Streams the changes of the repairs of an owner as server-sent events,
+     * for example {@code events?ownerId=7}, so that clients need not poll.
+     * Each {@code repair} event carries the change as JSON. A client that
+     * reconnects with {@code Last-Event-ID} first receives the changes it
+     * missed, or a {@code reset} event if they are no longer kept.
+     *
+     * @param ownerId the ID of the owner, or none for every owner.
+     * @param lastEventId the ID of the last event received, if reconnecting.
+     * @param sink the event stream.
+     * @param sse builds the events.
+     * @throws CustomException if the owner ID is not valid.
+     */
+    @Path("events")
+    @GET
+    @Produces(MediaType.SERVER_SENT_EVENTS)
+    public void streamRepairEvents(@QueryParam("ownerId") Long ownerId,
+            @HeaderParam(HttpHeaders.LAST_EVENT_ID_HEADER) String lastEventId,
+            @Context SseEventSink sink, @Context Sse sse) throws CustomException {
+        repairService.subscribeRepairEvents(ownerId, lastEventId, sink, sse);
+    }
+
+    /**
+     * Counts the repairs scheduled to start in a window of days by status and
+     * type, for the whole window and month by month, for example
+     * {@code facets?from=2024-01-01&to=2024-06-30&ownerId=7}.
+     *
+     * @param from the first day, as yyyy-MM-dd.
+     * @param to the last day, as yyyy-MM-dd.
+     * @param ownerId only the repairs of this owner.
+     * @return the Repair facets dto.
+     * @throws CustomException if a day is missing or not valid, or the window
+     * is too long.
+     */
+    @Path("facets")
+    @GET
+    @Produces(BinaryMediaType.JSON_OR_BINARY)
+    public RepairFacetsDto findRepairFacets(@QueryParam("from") String from, @QueryParam("to") String to,
+            @QueryParam("ownerId") Long ownerId) throws CustomException {
+        return reportService.findRepairFacets(from, to, ownerId);
+    }
+
     /**
      * Retrieves all repairs scheduled for a specific date.
      *
@@ -187,14 +412,13 @@ public class RepairResource {
      * "yyyy-MM-dd'T'HH:mm:ss".
      * @return A list of RepairDto representing all repairs scheduled for the
      * given date.
-     * @throws ParseException if the date format is invalid.
+     * @throws DateTimeParseException if the date format is invalid.
      */
     @Path("findByDate")
     @GET
-    @Produces("application/json")
-    public List<RepairDto> findRepairByDate(@QueryParam("repairDate") String repairDate) throws ParseException {
-        SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss");
-        Date date = sdf.parse(repairDate);
+    @Produces(BinaryMediaType.JSON_OR_BINARY)
+    public List<RepairDto> findRepairByDate(@QueryParam("repairDate") String repairDate) {
+        LocalDateTime date = LocalDateTime.parse(repairDate, ObjectMapperProvider.DATE_TIME_FORMATTER);
         List<Repair> repairs = repairService.findRepairsByDate(date);
         List<RepairDto> repairsByDate = repairs.stream()
                 .map(repair -> new RepairDto(
@@ -227,7 +451,7 @@ public class RepairResource {
      */
     @Path("findAll")
     @GET
-    @Produces("application/json")
+    @Produces(BinaryMediaType.JSON_OR_BINARY)
     public List<RepairDto> allRepairs() throws CustomException {
         List<Repair> repairs = repairService.getRepairs();
         List<RepairDto> allRepairs = repairs.stream()
@@ -264,7 +488,7 @@ public class RepairResource {
      */
     @Path("softDelete/{id}")
     @PUT
-    @Produces("application/json")
+    @Produces(BinaryMediaType.JSON_OR_BINARY)
     public boolean softDeleteRepair(@PathParam("id") Long id) throws CustomException {
         return repairService.deleteSafely(id);
     }
@@ -277,7 +501,7 @@ public class RepairResource {
      */
     @Path("hardDelete/{id}")
     @DELETE
-    @Produces("application/json")
+    @Produces(BinaryMediaType.JSON_OR_BINARY)
     public boolean deleteRepair(@PathParam("id") Long id) {
         return repairService.deletePermantlyById(id);
     }
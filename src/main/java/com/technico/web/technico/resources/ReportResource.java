@@ -0,0 +1,108 @@
+package com.technico.web.technico.resources;
+
+import com.technico.web.technico.dtos.CostRollupDto;
+import com.technico.web.technico.dtos.RepairCapacityDto;
+import com.technico.web.technico.exceptions.CustomException;
+import com.technico.web.technico.providers.BinaryMediaType;
+import com.technico.web.technico.services.ReportService;
+import jakarta.enterprise.context.RequestScoped;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.POST;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.QueryParam;
+import java.util.List;
+import java.util.Map;
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
+@RequestScoped
+@Path("reports")
+public class ReportResource {
+
+    @Inject
+    private ReportService reportService;
+
+    /**
+     * Retrieves repair counts and proposed costs grouped by any combination of
+     * repair type, repair status, property type and month, for example
+     * {@code costs?groupBy=repairType,month&from=2024-01&to=2024-12}.
+     *
+     * @param groupBy the comma separated dimensions to group by: repairType,
+     * repairStatus, propertyType and month. Empty for a single total.
+     * @param from the first yyyy-MM month of the scheduled start.
+     * @param to the last yyyy-MM month of the scheduled start.
+     * @param repairType only repairs of this type.
+     * @param repairStatus only repairs with this status.
+     * @param propertyType only repairs of properties of this type.
+     * @return a list of Cost rollup dtos, one per group.
+     * @throws CustomException if a dimension, month or filter is not valid.
+     */
+    @Path("costs")
+    @GET
+    @Produces(BinaryMediaType.JSON_OR_BINARY)
+    public List<CostRollupDto> findCostRollups(@QueryParam("groupBy") String groupBy,
+            @QueryParam("from") String from, @QueryParam("to") String to,
+            @QueryParam("repairType") String repairType, @QueryParam("repairStatus") String repairStatus,
+            @QueryParam("propertyType") String propertyType) throws CustomException {
+        return reportService.findCostRollups(groupBy, from, to, repairType, repairStatus, propertyType);
+    }
+
+    /**
+     * Recomputes the cost rollups from the repairs.
+     *
+     * @return the number of rollup rows written.
+     */
+    @Path("costs/rebuild")
+    @POST
+    @Produces(BinaryMediaType.JSON_OR_BINARY)
+    public Map<String, Integer> rebuildCostRollups() {
+        return Map.of("rows", reportService.rebuildCostRollups());
+    }
+
+    /**
+     * Recomputes the repair day counts behind the repair facets from the
+     * repairs.
+     *
+     * @return the number of day count rows written.
+     */
+    @Path("repairDayCounts/rebuild")
+    @POST
+    @Produces(BinaryMediaType.JSON_OR_BINARY)
+    public Map<String, Integer> rebuildRepairDayCounts() {
+        return Map.of("rows", reportService.rebuildRepairDayCounts());
+    }
+
+    /**
+     * Retrieves how many open repairs of each type are scheduled at the same
+     * time, for every hour and day of a window and for the whole window, for
+     * example {@code capacity?from=2024-07-01&to=2024-09-30}.
+     *
+     * @param from the first yyyy-MM-dd day, today if not given.
+     * @param to the last yyyy-MM-dd day, three months on if not given.
+     * @return the Repair capacity dto.
+     * @throws CustomException if a day is not valid, the window is too long or
+     * the histogram is still loading.
+     */
+    @Path("capacity")
+    @GET
+    @Produces(BinaryMediaType.JSON_OR_BINARY)
+    public RepairCapacityDto findRepairCapacity(@QueryParam("from") String from, @QueryParam("to") String to)
+            throws CustomException {
+        return reportService.findRepairCapacity(from, to);
+    }
+
+    /**
+     * Reloads the repair capacity histogram from the repairs.
+     *
+     * @return the number of scheduled repairs loaded.
+     * @throws CustomException if a reload is already running.
+     */
+    @Path("capacity/reload")
+    @POST
+    @Produces(BinaryMediaType.JSON_OR_BINARY)
+    public Map<String, Integer> reloadRepairCapacity() throws CustomException {
+        return Map.of("repairs", reportService.reloadRepairCapacity());
+    }
+}
@@ -0,0 +1,41 @@
+package com.technico.web.technico.resources;
+
+import com.technico.web.technico.dtos.SyncDto;
+import com.technico.web.technico.exceptions.CustomException;
+import com.technico.web.technico.providers.BinaryMediaType;
+import com.technico.web.technico.services.SyncService;
+import jakarta.enterprise.context.RequestScoped;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.QueryParam;
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
+@RequestScoped
+@Path("sync")
+public class SyncResource {
+
+    @Inject
+    private SyncService syncService;
+
+    /**
+     * Retrieves the changes to an owner's data since a previous
+     * synchronization, for example {@code sync?ownerId=1&since=1234}. Leave
+     * out since for the first synchronization, then pass the returned token
+     * each time.
+     *
+     * @param ownerId the ID of the owner.
+     * @param since the token returned by the previous synchronization.
+     * @return the Sync dto with the changes and the next token.
+     * @throws CustomException if the owner is not found or the token is not
+     * valid.
+     */
+    @GET
+    @Produces(BinaryMediaType.JSON_OR_BINARY)
+    public SyncDto sync(@QueryParam("ownerId") Long ownerId, @QueryParam("since") String since)
+            throws CustomException {
+        return syncService.sync(ownerId, since);
+    }
+}
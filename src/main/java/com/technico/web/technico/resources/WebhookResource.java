@@ -0,0 +1,106 @@
+package com.technico.web.technico.resources;
+
+import com.technico.web.technico.dtos.WebhookDeliveryDto;
+import com.technico.web.technico.dtos.WebhookSubscriptionDto;
+import com.technico.web.technico.exceptions.CustomException;
+import com.technico.web.technico.providers.BinaryMediaType;
+import com.technico.web.technico.services.WebhookService;
+import jakarta.enterprise.context.RequestScoped;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.Consumes;
+import jakarta.ws.rs.DELETE;
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.POST;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.PathParam;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.QueryParam;
+import java.util.List;
+import java.util.Map;
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
+@RequestScoped
+@Path("webhooks")
+public class WebhookResource {
+
+    @Inject
+    private WebhookService webhookService;
+
+    /**
+     * Subscribes a partner endpoint to repair and property changes, which
+     * are POSTed to it in JSON batches.
+     *
+     * @param subscription the Webhook subscription dto with the url, an
+     * optional secret and the comma separated event types, repair and
+     * property.
+     * @return the created Webhook subscription dto.
+     * @throws CustomException if the url or the event types are not valid.
+     */
+    @Path("subscriptions")
+    @POST
+    @Consumes("application/json")
+    @Produces(BinaryMediaType.JSON_OR_BINARY)
+    public WebhookSubscriptionDto createSubscription(WebhookSubscriptionDto subscription) throws CustomException {
+        return webhookService.createSubscription(subscription);
+    }
+
+    /**
+     * Retrieves every webhook subscription.
+     *
+     * @return a list of Webhook subscription dtos.
+     */
+    @Path("subscriptions")
+    @GET
+    @Produces(BinaryMediaType.JSON_OR_BINARY)
+    public List<WebhookSubscriptionDto> findSubscriptions() {
+        return webhookService.findSubscriptions();
+    }
+
+    /**
+     * Stops sending changes to a webhook subscription.
+     *
+     * @param id the ID of the subscription.
+     * @return true if the subscription was active.
+     * @throws CustomException if the subscription is not found.
+     */
+    @Path("subscriptions/{id}")
+    @DELETE
+    @Produces(BinaryMediaType.JSON_OR_BINARY)
+    public boolean deactivateSubscription(@PathParam("id") Long id) throws CustomException {
+        return webhookService.deactivateSubscription(id);
+    }
+
+    /**
+     * Retrieves the deliveries that were given up, for example
+     * {@code deadLetters?subscriptionId=3&limit=50}.
+     *
+     * @param subscriptionId only those of this subscription, if given.
+     * @param limit the maximum number of deliveries.
+     * @return a list of Webhook delivery dtos, oldest first.
+     * @throws CustomException if the limit is not valid.
+     */
+    @Path("deadLetters")
+    @GET
+    @Produces(BinaryMediaType.JSON_OR_BINARY)
+    public List<WebhookDeliveryDto> findDeadLetters(@QueryParam("subscriptionId") Long subscriptionId,
+            @QueryParam("limit") Integer limit) throws CustomException {
+        return webhookService.findDeadLetters(subscriptionId, limit);
+    }
+
+    /**
+     * Retries the deliveries that were given up, all of them or those of one
+     * subscription or one delivery.
+     *
+     * @param subscriptionId only those of this subscription, if given.
+     * @param deliveryId only this delivery, if given.
+     * @return the number of deliveries put back in the queue.
+     */
+    @Path("deadLetters/redeliver")
+    @POST
+    @Produces(BinaryMediaType.JSON_OR_BINARY)
+    public Map<String, Integer> redeliver(@QueryParam("subscriptionId") Long subscriptionId,
+            @QueryParam("deliveryId") Long deliveryId) {
+        return Map.of("deliveries", webhookService.redeliver(subscriptionId, deliveryId));
+    }
+}
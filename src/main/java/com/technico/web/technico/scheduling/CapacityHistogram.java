@@ -0,0 +1,271 @@
+package com.technico.web.technico.scheduling;
+
+import com.technico.web.technico.dtos.RepairCapacityDto;
+import com.technico.web.technico.dtos.RepairDayCapacityDto;
+import com.technico.web.technico.events.ReloadableState;
+import com.technico.web.technico.events.RepairChangedEvent;
+import com.technico.web.technico.events.RepairSnapshot;
+import com.technico.web.technico.models.RepairStatus;
+import com.technico.web.technico.models.RepairType;
+import com.technico.web.technico.repositories.RepairRepository;
+import jakarta.annotation.Resource;
+import jakarta.enterprise.concurrent.ManagedExecutorService;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.context.Initialized;
+import jakarta.enterprise.event.Observes;
+import jakarta.enterprise.event.TransactionPhase;
+import jakarta.inject.Inject;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Counts how many open repairs of each type are scheduled at the same time,
+ * per hour and per day. Each scheduled window is kept as a start event, +1,
+ * and an end event, -1, in a map ordered by time, so a histogram is one sweep
+ * over the events of the requested days. The number of repairs already under
+ * way when the sweep starts is the sum of every earlier event, which a Fenwick
+ * tree over the net change of each day answers in logarithmic time. Events at
+ * the same time are netted, so a repair starting when another ends does not
+ * count twice.
+ *
+ * The histogram holds the non-deleted pending and in-progress repairs with
+ * both scheduled dates. It is loaded in the background when the application
+ * starts and then kept current from the repair change events of committed
+ * transactions, as a {@link ReloadableState}.
+ */
+@Slf4j
+@ApplicationScoped
+public class CapacityHistogram {
+
+    public static final LocalDate EARLIEST_DAY = LocalDate.of(2000, 1, 1);
+
+    // One bucket per day; the first and last buckets also take every event
+    // before and after the days that can be queried.
+    private static final int DAYS = 40_000;
+    private static final LocalDate BASE_DAY = EARLIEST_DAY.minusDays(1);
+    public static final LocalDate LATEST_DAY = BASE_DAY.plusDays(DAYS - 2);
+
+    private static final int HOURS_PER_DAY = 24;
+
+    @Inject
+    private RepairRepository repairRepository;
+
+    @Resource
+    private ManagedExecutorService executor;
+
+    private final ReloadableState<Sweeps, RepairChangedEvent> state = new ReloadableState<>(new Sweeps(),
+            Sweeps::apply);
+
+    void onStartup(@Observes @Initialized(ApplicationScoped.class) Object event) {
+        executor.submit(() -> {
+            try {
+                reload();
+            } catch (RuntimeException e) {
+                log.warn("Could not load the repair capacity histogram", e);
+            }
+        });
+    }
+
+    void onRepairChanged(@Observes(during = TransactionPhase.AFTER_SUCCESS) RepairChangedEvent event) {
+        state.apply(event);
+    }
+
+    /**
+     * Reads every scheduled open repair from the database into a new
+     * histogram and swaps it in. Does nothing if a reload is already running.
+     *
+     * @return the number of repairs loaded, or -1 if a reload was already
+     * running.
+     */
+    public int reload() {
+        Sweeps fresh = state.reload(() -> {
+            Sweeps sweeps = new Sweeps();
+            repairRepository.scrollOpenRepairWindows(row -> sweeps.put((Long) row[0], (RepairType) row[2],
+                    (LocalDateTime) row[3], (LocalDateTime) row[4]));
+            return sweeps;
+        });
+        if (fresh == null) {
+            return -1;
+        }
+        log.info("Loaded {} scheduled repairs into the capacity histogram", fresh.windows.size());
+        return fresh.windows.size();
+    }
+
+    public boolean isLoaded() {
+        return state.isLoaded();
+    }
+
+    /**
+     * Counts the open repairs of each type scheduled at the same time, for
+     * every hour of a range of days.
+     *
+     * @param from the first day, not before {@link #EARLIEST_DAY}.
+     * @param to the last day, not after {@link #LATEST_DAY}.
+     * @return the most repairs of each type at once in every hour and day of
+     * the range, and in the whole range.
+     */
+    public RepairCapacityDto capacity(LocalDate from, LocalDate to) {
+        int days = (int) ChronoUnit.DAYS.between(from, to) + 1;
+        Map<RepairType, int[][]> hours = new EnumMap<>(RepairType.class);
+        state.readLock().lock();
+        try {
+            for (RepairType repairType : RepairType.values()) {
+                hours.put(repairType, state.get().sweep(repairType).hours(from, days));
+            }
+        } finally {
+            state.readLock().unlock();
+        }
+
+        Map<RepairType, Integer> peak = new EnumMap<>(RepairType.class);
+        List<RepairDayCapacityDto> perDay = new ArrayList<>(days);
+        for (int day = 0; day < days; day++) {
+            Map<RepairType, Integer> dayPeak = new EnumMap<>(RepairType.class);
+            Map<RepairType, int[]> dayHours = new EnumMap<>(RepairType.class);
+            for (Map.Entry<RepairType, int[][]> type : hours.entrySet()) {
+                int[] hourly = type.getValue()[day];
+                int max = 0;
+                for (int count : hourly) {
+                    max = Math.max(max, count);
+                }
+                dayPeak.put(type.getKey(), max);
+                dayHours.put(type.getKey(), hourly);
+                peak.merge(type.getKey(), max, Math::max);
+            }
+            perDay.add(new RepairDayCapacityDto(from.plusDays(day), dayPeak, dayHours));
+        }
+        return new RepairCapacityDto(from, to, peak, perDay);
+    }
+
+    private static int bucket(LocalDate day) {
+        long bucket = ChronoUnit.DAYS.between(BASE_DAY, day);
+        return (int) Math.max(0, Math.min(DAYS - 1, bucket));
+    }
+
+    /**
+     * The start and end events of the repairs of one type.
+     */
+    private static final class Sweep {
+
+        private final TreeMap<LocalDateTime, Integer> events = new TreeMap<>();
+
+        // Fenwick tree of the net change of each day bucket, one-based.
+        private final int[] tree = new int[DAYS + 1];
+
+        private void add(LocalDateTime start, LocalDateTime end, int sign) {
+            change(start, sign);
+            change(end, -sign);
+        }
+
+        private void change(LocalDateTime time, int delta) {
+            events.merge(time, delta, (current, added) -> current + added == 0 ? null : current + added);
+            for (int i = bucket(time.toLocalDate()) + 1; i <= DAYS; i += i & -i) {
+                tree[i] += delta;
+            }
+        }
+
+        // The number of repairs under way at the start of the day.
+        private int levelAt(LocalDate day) {
+            int level = 0;
+            for (int i = bucket(day); i > 0; i -= i & -i) {
+                level += tree[i];
+            }
+            return level;
+        }
+
+        private int[][] hours(LocalDate from, int days) {
+            int[][] hours = new int[days][HOURS_PER_DAY];
+            LocalDateTime hour = from.atStartOfDay();
+            Iterator<Map.Entry<LocalDateTime, Integer>> pending = events
+                    .subMap(hour, true, from.plusDays(days).atStartOfDay(), false).entrySet().iterator();
+            Map.Entry<LocalDateTime, Integer> next = pending.hasNext() ? pending.next() : null;
+            int level = levelAt(from);
+            for (int day = 0; day < days; day++) {
+                for (int h = 0; h < HOURS_PER_DAY; h++) {
+                    LocalDateTime hourEnd = hour.plusHours(1);
+                    while (next != null && !next.getKey().isAfter(hour)) {
+                        level += next.getValue();
+                        next = pending.hasNext() ? pending.next() : null;
+                    }
+                    int peak = level;
+                    while (next != null && next.getKey().isBefore(hourEnd)) {
+                        level += next.getValue();
+                        peak = Math.max(peak, level);
+                        next = pending.hasNext() ? pending.next() : null;
+                    }
+                    hours[day][h] = peak;
+                    hour = hourEnd;
+                }
+            }
+            return hours;
+        }
+    }
+
+    /**
+     * The scheduled window of one repair.
+     */
+    private static final class Window {
+
+        private final RepairType repairType;
+        private final LocalDateTime start;
+        private final LocalDateTime end;
+
+        private Window(RepairType repairType, LocalDateTime start, LocalDateTime end) {
+            this.repairType = repairType;
+            this.start = start;
+            this.end = end;
+        }
+    }
+
+    /**
+     * The sweeps of one generation of the histogram. Not thread safe.
+     */
+    private static final class Sweeps {
+
+        private final Map<RepairType, Sweep> byType = new EnumMap<>(RepairType.class);
+        private final Map<Long, Window> windows = new HashMap<>();
+
+        private Sweeps() {
+            for (RepairType repairType : RepairType.values()) {
+                byType.put(repairType, new Sweep());
+            }
+        }
+
+        private Sweep sweep(RepairType repairType) {
+            return byType.get(repairType);
+        }
+
+        private void apply(RepairChangedEvent event) {
+            remove(event.getRepairId());
+            RepairSnapshot after = event.getAfter();
+            if (after != null && !after.isDeleted()
+                    && (after.getRepairStatus() == RepairStatus.PENDING || after.getRepairStatus() == RepairStatus.INPROGRESS)) {
+                put(after.getId(), after.getRepairType(), after.getScheduledStartDate(), after.getScheduledEndDate());
+            }
+        }
+
+        private void put(Long id, RepairType repairType, LocalDateTime start, LocalDateTime end) {
+            remove(id);
+            if (repairType == null || start == null || end == null || !end.isAfter(start)) {
+                return;
+            }
+            windows.put(id, new Window(repairType, start, end));
+            byType.get(repairType).add(start, end, 1);
+        }
+
+        private void remove(Long id) {
+            Window window = windows.remove(id);
+            if (window != null) {
+                byType.get(window.repairType).add(window.start, window.end, -1);
+            }
+        }
+    }
+}
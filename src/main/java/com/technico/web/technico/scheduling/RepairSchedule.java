@@ -0,0 +1,405 @@
+package com.technico.web.technico.scheduling;
+
+import com.technico.web.technico.dtos.RepairSlotDto;
+import com.technico.web.technico.events.ReloadableState;
+import com.technico.web.technico.events.RepairChangedEvent;
+import com.technico.web.technico.events.RepairSnapshot;
+import com.technico.web.technico.exceptions.CustomException;
+import com.technico.web.technico.models.RepairStatus;
+import com.technico.web.technico.models.RepairType;
+import com.technico.web.technico.repositories.RepairRepository;
+import jakarta.annotation.Resource;
+import jakarta.enterprise.concurrent.ManagedExecutorService;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.context.Initialized;
+import jakarta.enterprise.event.Observes;
+import jakarta.enterprise.event.TransactionPhase;
+import jakarta.inject.Inject;
+import jakarta.transaction.Status;
+import jakarta.transaction.Synchronization;
+import jakarta.transaction.TransactionSynchronizationRegistry;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Keeps the scheduled windows of the open repairs, per property and per crew
+ * of each repair type, so that a new or moved window is checked for conflicts
+ * without a query. A property takes one repair at a time. The number of crews
+ * of a type is set with {@code technico.scheduling.crews.<TYPE>}, for example
+ * {@code technico.scheduling.crews.PLUMBING=3}; types without it are not
+ * limited. Repairs are assigned to the first free crew of their type, and
+ * repairs loaded beyond the crews of their type are not assigned to one.
+ *
+ * A window that passes the check is held for the rest of the transaction that
+ * checked it, so two transactions cannot both take the same window; the hold
+ * is dropped if the transaction rolls back. Repairs without both scheduled
+ * dates take no time. The schedule is loaded in the background when the
+ * application starts and then kept current from the repair change events of
+ * committed transactions; until it is loaded, windows are not checked.
+ */
+@Slf4j
+@ApplicationScoped
+public class RepairSchedule {
+
+    private static final String CREWS_PROPERTY = "technico.scheduling.crews.";
+    private static final int NO_CREW = -1;
+
+    @Inject
+    private RepairRepository repairRepository;
+
+    @Resource
+    private ManagedExecutorService executor;
+
+    @Resource
+    private TransactionSynchronizationRegistry transactionRegistry;
+
+    private final Map<RepairType, Integer> crews = crewsPerType();
+    private final AtomicLong reservationKeys = new AtomicLong();
+    private final ReloadableState<Timelines, RepairChangedEvent> state = new ReloadableState<>(
+            new Timelines(crews), Timelines::apply);
+
+    // Windows held by transactions that have not completed yet, by their
+    // negative reservation key; guarded by the lock of the state. They
+    // survive a reload.
+    private final Map<Long, Booking> reservations = new HashMap<>();
+
+    void onStartup(@Observes @Initialized(ApplicationScoped.class) Object event) {
+        executor.submit(() -> {
+            try {
+                reload();
+            } catch (RuntimeException e) {
+                log.warn("Could not load the repair schedule", e);
+            }
+        });
+    }
+
+    void onRepairChanged(@Observes(during = TransactionPhase.AFTER_SUCCESS) RepairChangedEvent event) {
+        state.writeLock().lock();
+        try {
+            // The committed window replaces any hold the transaction took.
+            reservations.values().removeIf(booking -> {
+                if (event.getRepairId().equals(booking.repairId)) {
+                    state.get().remove(booking.key);
+                    return true;
+                }
+                return false;
+            });
+            state.apply(event);
+        } finally {
+            state.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Reads every open repair from the database into a new schedule and swaps
+     * it in, with the windows still held. Repairs are assigned to crews in
+     * start order, which needs the fewest crews. Does nothing if a reload is
+     * already running.
+     *
+     * @return the number of scheduled repairs loaded, or -1 if a reload was
+     * already running.
+     */
+    public int reload() {
+        Timelines fresh = state.reload(() -> {
+            List<Booking> bookings = new ArrayList<>();
+            repairRepository.scrollOpenRepairWindows(row -> {
+                Booking booking = new Booking((Long) row[0], (Long) row[0], (String) row[1], (RepairType) row[2],
+                        (LocalDateTime) row[3], (LocalDateTime) row[4]);
+                if (booking.isScheduled()) {
+                    bookings.add(booking);
+                }
+            });
+            bookings.sort(Comparator.comparing((Booking booking) -> booking.start));
+            Timelines timelines = new Timelines(crews);
+            bookings.forEach(timelines::add);
+            return timelines;
+        }, timelines -> reservations.values().forEach(timelines::add));
+        if (fresh == null) {
+            return -1;
+        }
+        log.info("Loaded {} scheduled repairs", fresh.bookings.size());
+        return fresh.bookings.size();
+    }
+
+    public boolean isLoaded() {
+        return state.isLoaded();
+    }
+
+    /**
+     * Checks that a window is free at the property and, if the repair type
+     * has a number of crews, for one of its crews, and holds it until the
+     * current transaction completes.
+     *
+     * @param repairId the ID of the repair being rescheduled, whose current
+     * window is disregarded, or null for a new repair.
+     * @param e9 the E9 of the property.
+     * @param repairType the repair type.
+     * @param start the scheduled start, or null.
+     * @param end the scheduled end, or null.
+     * @return the hold, to bind to a new repair once it is saved, or null if
+     * nothing is held.
+     * @throws CustomException if the window ends before it starts or is not
+     * free.
+     */
+    public Reservation reserve(Long repairId, String e9, RepairType repairType, LocalDateTime start,
+            LocalDateTime end) throws CustomException {
+        if (start == null || end == null) {
+            return null;
+        }
+        if (!end.isAfter(start)) {
+            throw new CustomException("The scheduled end must be after the scheduled start.");
+        }
+        if (!state.isLoaded()) {
+            log.debug("The repair schedule is still loading, not checking the window of property {}", e9);
+            return null;
+        }
+        state.writeLock().lock();
+        try {
+            Timelines timelines = state.get();
+            if (!timelines.isPropertyFree(e9, start, end, repairId)) {
+                throw new CustomException("Property " + e9 + " already has a repair scheduled between "
+                        + start + " and " + end + ".");
+            }
+            if (!timelines.isCrewFree(repairType, start, end, repairId)) {
+                throw new CustomException("Every " + repairType + " crew is busy between " + start + " and "
+                        + end + ".");
+            }
+            if (transactionRegistry.getTransactionKey() == null) {
+                return null;
+            }
+            Booking booking = new Booking(-reservationKeys.incrementAndGet(), repairId, e9, repairType, start, end);
+            timelines.add(booking);
+            reservations.put(booking.key, booking);
+            transactionRegistry.registerInterposedSynchronization(new Synchronization() {
+                @Override
+                public void beforeCompletion() {
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    release(booking, status == Status.STATUS_COMMITTED);
+                }
+            });
+            return new Reservation(booking);
+        } finally {
+            state.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Binds a hold taken for a new repair to the ID it was saved with.
+     *
+     * @param reservation the hold, or null.
+     * @param repairId the ID of the new repair.
+     */
+    public void bind(Reservation reservation, Long repairId) {
+        if (reservation == null) {
+            return;
+        }
+        state.writeLock().lock();
+        try {
+            reservation.booking.repairId = repairId;
+        } finally {
+            state.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Lists the free time of a property in a period. With a repair type that
+     * has a number of crews, only the time when one of its crews is free too
+     * is listed.
+     *
+     * @param e9 the E9 of the property.
+     * @param repairType the repair type, or null.
+     * @param from the start of the period.
+     * @param to the end of the period, after its start.
+     * @return the free slots, in order.
+     */
+    public List<RepairSlotDto> findFreeSlots(String e9, RepairType repairType, LocalDateTime from, LocalDateTime to) {
+        List<Timeline.Slot> free;
+        state.readLock().lock();
+        try {
+            free = state.get().freeSlots(e9, repairType, from, to);
+        } finally {
+            state.readLock().unlock();
+        }
+        List<RepairSlotDto> slots = new ArrayList<>(free.size());
+        for (Timeline.Slot slot : free) {
+            slots.add(new RepairSlotDto(slot.start, slot.end));
+        }
+        return slots;
+    }
+
+    private void release(Booking booking, boolean committed) {
+        state.writeLock().lock();
+        try {
+            if (reservations.remove(booking.key) == null) {
+                // The committed change event already replaced the hold.
+                return;
+            }
+            Timelines timelines = state.get();
+            timelines.remove(booking.key);
+            if (committed && booking.repairId != null) {
+                timelines.add(new Booking(booking.repairId, booking.repairId, booking.e9, booking.repairType,
+                        booking.start, booking.end));
+            }
+        } finally {
+            state.writeLock().unlock();
+        }
+    }
+
+    private static Map<RepairType, Integer> crewsPerType() {
+        Map<RepairType, Integer> crews = new EnumMap<>(RepairType.class);
+        for (RepairType repairType : RepairType.values()) {
+            Integer count = Integer.getInteger(CREWS_PROPERTY + repairType.name());
+            if (count != null && count > 0) {
+                crews.put(repairType, count);
+            }
+        }
+        return crews;
+    }
+
+    /**
+     * A window held for a transaction that has not completed yet.
+     */
+    public static final class Reservation {
+
+        private final Booking booking;
+
+        private Reservation(Booking booking) {
+            this.booking = booking;
+        }
+    }
+
+    /**
+     * The scheduled window of one repair, or of a hold.
+     */
+    private static final class Booking {
+
+        private final Long key;
+        private Long repairId;
+        private final String e9;
+        private final RepairType repairType;
+        private final LocalDateTime start;
+        private final LocalDateTime end;
+        private int crew = NO_CREW;
+
+        private Booking(Long key, Long repairId, String e9, RepairType repairType, LocalDateTime start,
+                LocalDateTime end) {
+            this.key = key;
+            this.repairId = repairId;
+            this.e9 = e9;
+            this.repairType = repairType;
+            this.start = start;
+            this.end = end;
+        }
+
+        private boolean isScheduled() {
+            return e9 != null && start != null && end != null && end.isAfter(start);
+        }
+    }
+
+    /**
+     * The timelines of one generation of the schedule. Not thread safe.
+     */
+    private static final class Timelines {
+
+        private final Map<String, Timeline> properties = new HashMap<>();
+        private final Map<RepairType, Timeline[]> crewTimelines = new EnumMap<>(RepairType.class);
+        private final Map<Long, Booking> bookings = new HashMap<>();
+
+        private Timelines(Map<RepairType, Integer> crews) {
+            crews.forEach((repairType, count) -> {
+                Timeline[] timelines = new Timeline[count];
+                for (int i = 0; i < count; i++) {
+                    timelines[i] = new Timeline();
+                }
+                crewTimelines.put(repairType, timelines);
+            });
+        }
+
+        private void apply(RepairChangedEvent event) {
+            remove(event.getRepairId());
+            RepairSnapshot after = event.getAfter();
+            if (after == null || after.isDeleted()
+                    || after.getRepairStatus() != RepairStatus.PENDING && after.getRepairStatus() != RepairStatus.INPROGRESS) {
+                return;
+            }
+            Booking booking = new Booking(after.getId(), after.getId(), after.getE9(), after.getRepairType(),
+                    after.getScheduledStartDate(), after.getScheduledEndDate());
+            if (booking.isScheduled()) {
+                add(booking);
+            }
+        }
+
+        private boolean isPropertyFree(String e9, LocalDateTime start, LocalDateTime end, Long ignoredKey) {
+            Timeline property = properties.get(e9);
+            return property == null || property.isFree(start, end, ignoredKey);
+        }
+
+        private boolean isCrewFree(RepairType repairType, LocalDateTime start, LocalDateTime end, Long ignoredKey) {
+            Timeline[] timelines = repairType == null ? null : crewTimelines.get(repairType);
+            return timelines == null || freeCrew(timelines, start, end, ignoredKey) != NO_CREW;
+        }
+
+        private List<Timeline.Slot> freeSlots(String e9, RepairType repairType, LocalDateTime from, LocalDateTime to) {
+            Timeline property = properties.get(e9);
+            List<Timeline.Slot> free = property == null
+                    ? List.of(new Timeline.Slot(from, to))
+                    : property.gaps(from, to);
+            Timeline[] timelines = repairType == null ? null : crewTimelines.get(repairType);
+            if (timelines == null) {
+                return free;
+            }
+            List<Timeline.Slot> crewFree = new ArrayList<>();
+            for (Timeline timeline : timelines) {
+                crewFree.addAll(timeline.gaps(from, to));
+            }
+            return Timeline.intersect(free, Timeline.union(crewFree));
+        }
+
+        private void add(Booking booking) {
+            remove(booking.key);
+            bookings.put(booking.key, booking);
+            properties.computeIfAbsent(booking.e9, e9 -> new Timeline()).add(booking.key, booking.start, booking.end);
+            Timeline[] timelines = booking.repairType == null ? null : crewTimelines.get(booking.repairType);
+            booking.crew = timelines == null ? NO_CREW : freeCrew(timelines, booking.start, booking.end, booking.repairId);
+            if (booking.crew != NO_CREW) {
+                timelines[booking.crew].add(booking.key, booking.start, booking.end);
+            }
+        }
+
+        private void remove(Long key) {
+            Booking booking = bookings.remove(key);
+            if (booking == null) {
+                return;
+            }
+            Timeline property = properties.get(booking.e9);
+            if (property != null) {
+                property.remove(key, booking.start);
+                if (property.isEmpty()) {
+                    properties.remove(booking.e9);
+                }
+            }
+            if (booking.crew != NO_CREW) {
+                crewTimelines.get(booking.repairType)[booking.crew].remove(key, booking.start);
+            }
+        }
+
+        private static int freeCrew(Timeline[] timelines, LocalDateTime start, LocalDateTime end, Long ignoredKey) {
+            for (int i = 0; i < timelines.length; i++) {
+                if (timelines[i].isFree(start, end, ignoredKey)) {
+                    return i;
+                }
+            }
+            return NO_CREW;
+        }
+    }
+}
@@ -0,0 +1,192 @@
+package com.technico.web.technico.scheduling;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * The busy time of one property or crew: the scheduled windows of its repairs,
+ * merged into disjoint busy blocks ordered by start. Because the blocks do not
+ * overlap, a window is free unless the last block starting before it ends
+ * reaches past its start, so a check is one floor lookup. Windows are half
+ * open, so a repair may start when another ends. Not thread safe.
+ */
+final class Timeline {
+
+    private final TreeMap<LocalDateTime, Block> blocks = new TreeMap<>();
+
+    /**
+     * Tells whether no window but the ignored one overlaps [start, end).
+     *
+     * @param start the start of the window.
+     * @param end the end of the window, after its start.
+     * @param ignoredKey the key of a window to disregard, such as the current
+     * window of a repair being rescheduled, or null.
+     * @return true if the window is free.
+     */
+    boolean isFree(LocalDateTime start, LocalDateTime end, Long ignoredKey) {
+        for (Block block : blocks.headMap(end, false).descendingMap().values()) {
+            if (!block.end.isAfter(start)) {
+                return true;
+            }
+            for (Map.Entry<Long, Slot> member : block.members.entrySet()) {
+                if (!member.getKey().equals(ignoredKey) && member.getValue().overlaps(start, end)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    void add(Long key, LocalDateTime start, LocalDateTime end) {
+        LocalDateTime blockStart = start;
+        LocalDateTime blockEnd = end;
+        Map<Long, Slot> members = new HashMap<>();
+        members.put(key, new Slot(start, end));
+        Iterator<Block> overlapping = blocks.headMap(end, false).descendingMap().values().iterator();
+        while (overlapping.hasNext()) {
+            Block block = overlapping.next();
+            if (!block.end.isAfter(start)) {
+                break;
+            }
+            members.putAll(block.members);
+            blockStart = block.start.isBefore(blockStart) ? block.start : blockStart;
+            blockEnd = block.end.isAfter(blockEnd) ? block.end : blockEnd;
+            overlapping.remove();
+        }
+        blocks.put(blockStart, new Block(blockStart, blockEnd, members));
+    }
+
+    void remove(Long key, LocalDateTime start) {
+        Map.Entry<LocalDateTime, Block> containing = blocks.floorEntry(start);
+        if (containing == null || !containing.getValue().members.containsKey(key)) {
+            return;
+        }
+        Block block = blocks.remove(containing.getKey());
+        block.members.remove(key);
+        // The rest of the block may now fall apart into several blocks.
+        block.members.forEach((member, slot) -> add(member, slot.start, slot.end));
+    }
+
+    boolean isEmpty() {
+        return blocks.isEmpty();
+    }
+
+    /**
+     * Lists the free time of [from, to), in order.
+     *
+     * @param from the start of the period.
+     * @param to the end of the period, after its start.
+     * @return the free slots.
+     */
+    List<Slot> gaps(LocalDateTime from, LocalDateTime to) {
+        List<Slot> gaps = new ArrayList<>();
+        LocalDateTime cursor = from;
+        LocalDateTime first = blocks.lowerKey(from);
+        for (Block block : blocks.subMap(first != null ? first : from, true, to, false).values()) {
+            if (!block.end.isAfter(cursor)) {
+                continue;
+            }
+            if (block.start.isAfter(cursor)) {
+                gaps.add(new Slot(cursor, block.start));
+            }
+            cursor = block.end;
+            if (!cursor.isBefore(to)) {
+                return gaps;
+            }
+        }
+        gaps.add(new Slot(cursor, to));
+        return gaps;
+    }
+
+    /**
+     * Merges slots into the disjoint slots covering the same time.
+     *
+     * @param slots the slots, in any order and possibly overlapping.
+     * @return the merged slots, in order.
+     */
+    static List<Slot> union(Collection<Slot> slots) {
+        List<Slot> sorted = new ArrayList<>(slots);
+        sorted.sort(Comparator.comparing((Slot slot) -> slot.start));
+        List<Slot> union = new ArrayList<>();
+        for (Slot slot : sorted) {
+            Slot last = union.isEmpty() ? null : union.get(union.size() - 1);
+            if (last != null && !slot.start.isAfter(last.end)) {
+                if (slot.end.isAfter(last.end)) {
+                    union.set(union.size() - 1, new Slot(last.start, slot.end));
+                }
+            } else {
+                union.add(slot);
+            }
+        }
+        return union;
+    }
+
+    /**
+     * Intersects two lists of disjoint slots in order.
+     *
+     * @param a the first slots.
+     * @param b the second slots.
+     * @return the time covered by both, in order.
+     */
+    static List<Slot> intersect(List<Slot> a, List<Slot> b) {
+        List<Slot> both = new ArrayList<>();
+        int i = 0;
+        int j = 0;
+        while (i < a.size() && j < b.size()) {
+            Slot x = a.get(i);
+            Slot y = b.get(j);
+            LocalDateTime start = x.start.isAfter(y.start) ? x.start : y.start;
+            LocalDateTime end = x.end.isBefore(y.end) ? x.end : y.end;
+            if (start.isBefore(end)) {
+                both.add(new Slot(start, end));
+            }
+            if (x.end.isBefore(y.end)) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+        return both;
+    }
+
+    /**
+     * A half-open window of time.
+     */
+    static final class Slot {
+
+        final LocalDateTime start;
+        final LocalDateTime end;
+
+        Slot(LocalDateTime start, LocalDateTime end) {
+            this.start = start;
+            this.end = end;
+        }
+
+        boolean overlaps(LocalDateTime otherStart, LocalDateTime otherEnd) {
+            return start.isBefore(otherEnd) && otherStart.isBefore(end);
+        }
+    }
+
+    /**
+     * A maximal run of overlapping windows.
+     */
+    private static final class Block {
+
+        private final LocalDateTime start;
+        private final LocalDateTime end;
+        private final Map<Long, Slot> members;
+
+        private Block(LocalDateTime start, LocalDateTime end, Map<Long, Slot> members) {
+            this.start = start;
+            this.end = end;
+            this.members = members;
+        }
+    }
+}
@@ -0,0 +1,343 @@
+package com.technico.web.technico.search;
+
+import com.technico.web.technico.dtos.OwnerSuggestionDto;
+import com.technico.web.technico.events.OwnerChangedEvent;
+import com.technico.web.technico.events.OwnerSnapshot;
+import com.technico.web.technico.events.ReloadableState;
+import com.technico.web.technico.repositories.OwnerRepository;
+import jakarta.annotation.Resource;
+import jakarta.enterprise.concurrent.ManagedExecutorService;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.context.Initialized;
+import jakarta.enterprise.event.Observes;
+import jakarta.enterprise.event.TransactionPhase;
+import jakarta.inject.Inject;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Suggests owners while their name, surname, email or VAT is being typed. The
+ * words of those fields are kept in a sorted term dictionary, so every word
+ * starting with what was typed is one range of it, and in a trigram index of
+ * the same words, so that a word typed with a mistake or two still finds the
+ * words it shares most trigrams with. Every typed word must match a word of
+ * the owner; exact words rank above prefixes, prefixes above near misses, and
+ * surnames above names, emails and VATs.
+ *
+ * The index holds the non-deleted owners. It is loaded in the background when
+ * the application starts and then kept current from the owner change events
+ * of committed transactions, as a {@link ReloadableState}.
+ */
+@Slf4j
+@ApplicationScoped
+public class OwnerAutocompleteIndex {
+
+    // Bounds on the work of one typed word, so that one or two letters, which
+    // start a large share of all words, still answer at once.
+    private static final int MAX_PREFIX_TERMS = 2_000;
+    private static final int MAX_FUZZY_TERMS = 200;
+    private static final int MIN_FUZZY_LENGTH = 3;
+
+    private static final double EXACT_MATCH = 3.0;
+    private static final double FUZZY_MATCH = 0.8;
+
+    /**
+     * The fields an owner is found by, most significant first.
+     */
+    private enum Field {
+        SURNAME(4),
+        NAME(3),
+        EMAIL(2),
+        VAT(2);
+
+        private final double weight;
+
+        Field(double weight) {
+            this.weight = weight;
+        }
+    }
+
+    @Inject
+    private OwnerRepository ownerRepository;
+
+    @Resource
+    private ManagedExecutorService executor;
+
+    private final ReloadableState<Terms, OwnerChangedEvent> state = new ReloadableState<>(new Terms(), Terms::apply);
+
+    void onStartup(@Observes @Initialized(ApplicationScoped.class) Object event) {
+        executor.submit(() -> {
+            try {
+                reload();
+            } catch (RuntimeException e) {
+                log.warn("Could not load the owner autocomplete index", e);
+            }
+        });
+    }
+
+    void onOwnerChanged(@Observes(during = TransactionPhase.AFTER_SUCCESS) OwnerChangedEvent event) {
+        state.apply(event);
+    }
+
+    /**
+     * Reads every non-deleted owner from the database into a new index and
+     * swaps it in. Does nothing if a reload is already running.
+     *
+     * @return the number of owners indexed, or -1 if a reload was already
+     * running.
+     */
+    public int reload() {
+        Terms fresh = state.reload(() -> {
+            Terms terms = new Terms();
+            ownerRepository.scrollOwnerSnapshots(terms::put);
+            return terms;
+        });
+        if (fresh == null) {
+            return -1;
+        }
+        log.info("Indexed {} owners for autocomplete", fresh.owners.size());
+        return fresh.owners.size();
+    }
+
+    public boolean isLoaded() {
+        return state.isLoaded();
+    }
+
+    /**
+     * Suggests the owners that best match what has been typed so far.
+     *
+     * @param query the typed text; every word of it must match.
+     * @param limit the maximum number of suggestions.
+     * @return the best matching owners, best first.
+     */
+    public List<OwnerSuggestionDto> suggest(String query, int limit) {
+        List<String> words = Words.split(query);
+        if (words.isEmpty()) {
+            return List.of();
+        }
+        state.readLock().lock();
+        try {
+            Terms terms = state.get();
+            Map<Long, Double> scores = null;
+            for (String word : words) {
+                Map<Long, Double> wordScores = terms.match(word, limit);
+                if (scores == null) {
+                    scores = wordScores;
+                } else {
+                    Map<Long, Double> both = new HashMap<>();
+                    for (Map.Entry<Long, Double> score : scores.entrySet()) {
+                        Double wordScore = wordScores.get(score.getKey());
+                        if (wordScore != null) {
+                            both.put(score.getKey(), score.getValue() + wordScore);
+                        }
+                    }
+                    scores = both;
+                }
+                if (scores.isEmpty()) {
+                    return List.of();
+                }
+            }
+
+            Comparator<Map.Entry<Long, Double>> ranking = Map.Entry.<Long, Double>comparingByValue()
+                    .thenComparing(Map.Entry.<Long, Double>comparingByKey().reversed());
+            PriorityQueue<Map.Entry<Long, Double>> best = new PriorityQueue<>(ranking);
+            for (Map.Entry<Long, Double> score : scores.entrySet()) {
+                best.add(score);
+                if (best.size() > limit) {
+                    best.poll();
+                }
+            }
+            List<OwnerSuggestionDto> suggestions = new ArrayList<>(best.size());
+            while (!best.isEmpty()) {
+                Map.Entry<Long, Double> score = best.poll();
+                OwnerSnapshot owner = terms.owners.get(score.getKey());
+                suggestions.add(0, new OwnerSuggestionDto(owner.getId(), owner.getVat(), owner.getName(),
+                        owner.getSurname(), owner.getEmail(), score.getValue()));
+            }
+            return suggestions;
+        } finally {
+            state.readLock().unlock();
+        }
+    }
+
+    private static Set<String> trigrams(String term) {
+        String padded = "$" + term + "$";
+        Set<String> trigrams = new HashSet<>();
+        for (int i = 0; i + 3 <= padded.length(); i++) {
+            trigrams.add(padded.substring(i, i + 3));
+        }
+        return trigrams;
+    }
+
+    private static int editDistance(String a, String b) {
+        int[] previous = new int[b.length() + 1];
+        int[] current = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            for (int j = 1; j <= b.length(); j++) {
+                int substitution = previous[j - 1] + (a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1);
+                current[j] = Math.min(substitution, Math.min(previous[j], current[j - 1]) + 1);
+            }
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        return previous[b.length()];
+    }
+
+    /**
+     * The dictionaries of one generation of the index. Not thread safe.
+     */
+    private static final class Terms {
+
+        // Each word, with the owners that have it and the most significant
+        // field they have it in.
+        private final NavigableMap<String, Map<Long, Field>> postings = new TreeMap<>();
+        private final Map<String, Set<String>> termsByTrigram = new HashMap<>();
+        private final Map<Long, OwnerSnapshot> owners = new HashMap<>();
+
+        private void apply(OwnerChangedEvent event) {
+            if (event.getAfter() == null) {
+                remove(event.getOwnerId());
+            } else {
+                put(event.getAfter());
+            }
+        }
+
+        private void put(OwnerSnapshot owner) {
+            remove(owner.getId());
+            if (owner.isDeleted()) {
+                return;
+            }
+            owners.put(owner.getId(), owner);
+            termsOf(owner).forEach((term, field) -> {
+                Map<Long, Field> posting = postings.get(term);
+                if (posting == null) {
+                    posting = new HashMap<>();
+                    postings.put(term, posting);
+                    for (String trigram : trigrams(term)) {
+                        termsByTrigram.computeIfAbsent(trigram, key -> new HashSet<>()).add(term);
+                    }
+                }
+                posting.put(owner.getId(), field);
+            });
+        }
+
+        private void remove(Long ownerId) {
+            OwnerSnapshot owner = owners.remove(ownerId);
+            if (owner == null) {
+                return;
+            }
+            for (String term : termsOf(owner).keySet()) {
+                Map<Long, Field> posting = postings.get(term);
+                if (posting == null) {
+                    continue;
+                }
+                posting.remove(ownerId);
+                if (posting.isEmpty()) {
+                    postings.remove(term);
+                    for (String trigram : trigrams(term)) {
+                        Set<String> trigramTerms = termsByTrigram.get(trigram);
+                        if (trigramTerms != null) {
+                            trigramTerms.remove(term);
+                            if (trigramTerms.isEmpty()) {
+                                termsByTrigram.remove(trigram);
+                            }
+                        }
+                    }
+                }
+            }
+        }
+
+        /**
+         * Scores the owners that have a word equal to, starting with or close
+         * to the typed word. Near misses are only looked for while the exact
+         * and prefix matches do not fill the suggestions.
+         */
+        private Map<Long, Double> match(String word, int limit) {
+            Map<Long, Double> scores = new HashMap<>();
+            int scanned = 0;
+            for (Map.Entry<String, Map<Long, Field>> entry
+                    : postings.subMap(word, true, word + Character.MAX_VALUE, false).entrySet()) {
+                if (++scanned > MAX_PREFIX_TERMS) {
+                    break;
+                }
+                String term = entry.getKey();
+                double match = term.length() == word.length()
+                        ? EXACT_MATCH
+                        : 1.0 + (double) word.length() / term.length();
+                addScores(scores, entry.getValue(), match);
+            }
+            if (word.length() >= MIN_FUZZY_LENGTH && scores.size() < limit) {
+                int maxEdits = word.length() <= 4 ? 1 : 2;
+                for (String term : similarTerms(word)) {
+                    if (term.startsWith(word)) {
+                        continue;
+                    }
+                    int distance = Math.min(editDistance(word, term),
+                            editDistance(word, term.substring(0, Math.min(term.length(), word.length()))));
+                    if (distance <= maxEdits) {
+                        addScores(scores, postings.get(term), FUZZY_MATCH / distance);
+                    }
+                }
+            }
+            return scores;
+        }
+
+        private List<String> similarTerms(String word) {
+            Map<String, Integer> shared = new HashMap<>();
+            for (String trigram : trigrams(word)) {
+                Set<String> trigramTerms = termsByTrigram.get(trigram);
+                if (trigramTerms != null) {
+                    for (String term : trigramTerms) {
+                        shared.merge(term, 1, Integer::sum);
+                    }
+                }
+            }
+            List<String> similar = new ArrayList<>(shared.keySet());
+            similar.sort(Comparator.<String>comparingInt(shared::get).reversed().thenComparing(Comparator.naturalOrder()));
+            return similar.size() > MAX_FUZZY_TERMS ? similar.subList(0, MAX_FUZZY_TERMS) : similar;
+        }
+
+        private static void addScores(Map<Long, Double> scores, Map<Long, Field> posting, double match) {
+            for (Map.Entry<Long, Field> owner : posting.entrySet()) {
+                scores.merge(owner.getKey(), owner.getValue().weight * match, Math::max);
+            }
+        }
+
+        private static Map<String, Field> termsOf(OwnerSnapshot owner) {
+            Map<String, Field> terms = new LinkedHashMap<>();
+            addTerms(terms, Words.split(owner.getSurname()), Field.SURNAME);
+            addTerms(terms, Words.split(owner.getName()), Field.NAME);
+            if (owner.getEmail() != null) {
+                String email = Words.normalize(owner.getEmail());
+                addTerms(terms, List.of(email), Field.EMAIL);
+                int at = email.indexOf('@');
+                addTerms(terms, Words.split(at < 0 ? email : email.substring(0, at)), Field.EMAIL);
+            }
+            if (owner.getVat() != null) {
+                addTerms(terms, List.of(Words.normalize(owner.getVat())), Field.VAT);
+            }
+            return terms;
+        }
+
+        private static void addTerms(Map<String, Field> terms, List<String> words, Field field) {
+            for (String word : words) {
+                terms.merge(word, field, (current, added) -> current.ordinal() <= added.ordinal() ? current : added);
+            }
+        }
+    }
+}
@@ -0,0 +1,288 @@
+package com.technico.web.technico.search;
+
+import com.technico.web.technico.events.PropertyChangedEvent;
+import com.technico.web.technico.events.PropertySnapshot;
+import com.technico.web.technico.events.ReloadableState;
+import com.technico.web.technico.models.PropertyType;
+import com.technico.web.technico.repositories.PropertyRepository;
+import jakarta.annotation.Resource;
+import jakarta.enterprise.concurrent.ManagedExecutorService;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.context.Initialized;
+import jakarta.enterprise.event.Observes;
+import jakarta.enterprise.event.TransactionPhase;
+import jakarta.inject.Inject;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import lombok.extern.slf4j.Slf4j;
+import org.roaringbitmap.FastAggregation;
+import org.roaringbitmap.PeekableIntIterator;
+import org.roaringbitmap.RoaringBitmap;
+
+/**
+ * Indexes the properties in compressed bitmaps of their IDs: one per property
+ * type, per construction year, per owner and one of the deleted properties.
+ * A search ORs the bitmaps of the values asked for within each facet and ANDs
+ * the facets together, and facet counts are cardinalities of intersections,
+ * so neither touches the database; only the requested page is then loaded.
+ *
+ * The index is loaded in the background when the application starts and then
+ * kept current from the property change events of committed transactions,
+ * as a {@link ReloadableState}. Property IDs above {@link Integer#MAX_VALUE}
+ * do not fit a bitmap and are left out.
+ */
+@Slf4j
+@ApplicationScoped
+public class PropertyFacetIndex {
+
+    public static final String FACET_PROPERTY_TYPE = "propertyType";
+    public static final String FACET_CONSTRUCTION_DECADE = "constructionDecade";
+    public static final String FACET_DELETED = "deleted";
+
+    @Inject
+    private PropertyRepository propertyRepository;
+
+    @Resource
+    private ManagedExecutorService executor;
+
+    private final ReloadableState<Bitmaps, PropertyChangedEvent> state = new ReloadableState<>(new Bitmaps(),
+            Bitmaps::apply);
+
+    void onStartup(@Observes @Initialized(ApplicationScoped.class) Object event) {
+        executor.submit(() -> {
+            try {
+                reload();
+            } catch (RuntimeException e) {
+                log.warn("Could not load the property facet index", e);
+            }
+        });
+    }
+
+    void onPropertyChanged(@Observes(during = TransactionPhase.AFTER_SUCCESS) PropertyChangedEvent event) {
+        state.apply(event);
+    }
+
+    /**
+     * Reads every property from the database into a new index and swaps it
+     * in. Does nothing if a reload is already running.
+     *
+     * @return the number of properties indexed, or -1 if a reload was already
+     * running.
+     */
+    public int reload() {
+        Bitmaps fresh = state.reload(() -> {
+            Bitmaps bitmaps = new Bitmaps();
+            propertyRepository.scrollPropertySnapshots(bitmaps::put);
+            bitmaps.runOptimize();
+            return bitmaps;
+        });
+        if (fresh == null) {
+            return -1;
+        }
+        log.info("Indexed {} properties for facet search", fresh.properties.size());
+        return fresh.properties.size();
+    }
+
+    public boolean isLoaded() {
+        return state.isLoaded();
+    }
+
+    /**
+     * Finds the properties that match every given filter. Within a filter any
+     * of the given values matches.
+     *
+     * @param propertyTypes the property types, or empty for any type.
+     * @param yearFrom the earliest construction year, or null.
+     * @param yearTo the latest construction year, or null.
+     * @param ownerIds the IDs of the owners, or empty for any owner.
+     * @param deleted true for deleted properties only, false for non-deleted
+     * properties only, null for both.
+     * @param offset the number of matching properties to skip, in ID order.
+     * @param limit the maximum number of IDs to return.
+     * @return the number of matches, the IDs of the page and the facet counts.
+     */
+    public PropertyFacetResult search(Collection<PropertyType> propertyTypes, Integer yearFrom, Integer yearTo,
+            Collection<Long> ownerIds, Boolean deleted, int offset, int limit) {
+        state.readLock().lock();
+        try {
+            Bitmaps bitmaps = state.get();
+            RoaringBitmap typeFilter = propertyTypes.isEmpty() ? null
+                    : union(propertyTypes.stream().map(type -> bitmaps.byType.get(type)).iterator());
+            RoaringBitmap yearFilter = yearFrom == null && yearTo == null ? null
+                    : union(bitmaps.byYear.subMap(
+                            yearFrom == null ? Integer.MIN_VALUE : yearFrom, true,
+                            yearTo == null ? Integer.MAX_VALUE : yearTo, true).values().iterator());
+            RoaringBitmap ownerFilter = ownerIds.isEmpty() ? null
+                    : union(ownerIds.stream().map(owner -> bitmaps.byOwner.get(owner)).iterator());
+            RoaringBitmap deletedFilter = deleted == null ? null
+                    : deleted ? bitmaps.deleted : RoaringBitmap.andNot(bitmaps.all, bitmaps.deleted);
+
+            RoaringBitmap matches = intersect(typeFilter, yearFilter, ownerFilter, deletedFilter);
+            Map<String, Map<String, Long>> facets = new LinkedHashMap<>();
+            facets.put(FACET_PROPERTY_TYPE, countTypes(intersect(yearFilter, ownerFilter, deletedFilter)));
+            facets.put(FACET_CONSTRUCTION_DECADE, countDecades(intersect(typeFilter, ownerFilter, deletedFilter)));
+            facets.put(FACET_DELETED, countDeleted(intersect(typeFilter, yearFilter, ownerFilter)));
+            return new PropertyFacetResult(matches.getLongCardinality(), page(matches, offset, limit), facets);
+        } finally {
+            state.readLock().unlock();
+        }
+    }
+
+    private Map<String, Long> countTypes(RoaringBitmap base) {
+        Bitmaps bitmaps = state.get();
+        Map<String, Long> counts = new LinkedHashMap<>();
+        for (PropertyType type : PropertyType.values()) {
+            counts.put(type.name(), (long) RoaringBitmap.andCardinality(base, bitmaps.byType.get(type)));
+        }
+        return counts;
+    }
+
+    private Map<String, Long> countDecades(RoaringBitmap base) {
+        Bitmaps bitmaps = state.get();
+        Map<String, Long> counts = new LinkedHashMap<>();
+        for (Map.Entry<Integer, RoaringBitmap> year : bitmaps.byYear.entrySet()) {
+            long count = RoaringBitmap.andCardinality(base, year.getValue());
+            if (count > 0) {
+                int decade = Math.floorDiv(year.getKey(), 10) * 10;
+                counts.merge(decade + "-" + (decade + 9), count, Long::sum);
+            }
+        }
+        return counts;
+    }
+
+    private Map<String, Long> countDeleted(RoaringBitmap base) {
+        long deletedCount = RoaringBitmap.andCardinality(base, state.get().deleted);
+        Map<String, Long> counts = new LinkedHashMap<>();
+        counts.put("false", base.getLongCardinality() - deletedCount);
+        counts.put("true", deletedCount);
+        return counts;
+    }
+
+    private RoaringBitmap intersect(RoaringBitmap... filters) {
+        RoaringBitmap result = state.get().all;
+        for (RoaringBitmap filter : filters) {
+            if (filter != null) {
+                result = RoaringBitmap.and(result, filter);
+            }
+        }
+        return result;
+    }
+
+    private static RoaringBitmap union(Iterator<RoaringBitmap> bitmaps) {
+        List<RoaringBitmap> present = new ArrayList<>();
+        bitmaps.forEachRemaining(bitmap -> {
+            if (bitmap != null) {
+                present.add(bitmap);
+            }
+        });
+        return FastAggregation.or(present.iterator());
+    }
+
+    private static List<Long> page(RoaringBitmap matches, int offset, int limit) {
+        List<Long> ids = new ArrayList<>();
+        if (offset >= matches.getLongCardinality()) {
+            return ids;
+        }
+        PeekableIntIterator iterator = matches.getIntIterator();
+        iterator.advanceIfNeeded(matches.select(offset));
+        while (iterator.hasNext() && ids.size() < limit) {
+            ids.add((long) iterator.next());
+        }
+        return ids;
+    }
+
+    /**
+     * The bitmaps of one generation of the index. Not thread safe.
+     */
+    private static final class Bitmaps {
+
+        private final RoaringBitmap all = new RoaringBitmap();
+        private final RoaringBitmap deleted = new RoaringBitmap();
+        private final Map<PropertyType, RoaringBitmap> byType = new EnumMap<>(PropertyType.class);
+        private final NavigableMap<Integer, RoaringBitmap> byYear = new TreeMap<>();
+        private final Map<Long, RoaringBitmap> byOwner = new HashMap<>();
+        // The indexed state of each property, to clear its bits when it changes.
+        private final Map<Integer, PropertySnapshot> properties = new HashMap<>();
+
+        private Bitmaps() {
+            for (PropertyType type : PropertyType.values()) {
+                byType.put(type, new RoaringBitmap());
+            }
+        }
+
+        private void apply(PropertyChangedEvent event) {
+            if (event.getAfter() == null) {
+                remove(event.getPropertyId());
+            } else {
+                put(event.getAfter());
+            }
+        }
+
+        private void put(PropertySnapshot property) {
+            if (property.getId() > Integer.MAX_VALUE) {
+                log.warn("Property {} has an ID too large for the facet index", property.getId());
+                return;
+            }
+            int id = property.getId().intValue();
+            remove(property.getId());
+            properties.put(id, property);
+            all.add(id);
+            if (property.isDeleted()) {
+                deleted.add(id);
+            }
+            if (property.getPropertyType() != null) {
+                byType.get(property.getPropertyType()).add(id);
+            }
+            byYear.computeIfAbsent(property.getConstructionYear(), year -> new RoaringBitmap()).add(id);
+            if (property.getOwnerId() != null) {
+                byOwner.computeIfAbsent(property.getOwnerId(), owner -> new RoaringBitmap()).add(id);
+            }
+        }
+
+        private void remove(Long propertyId) {
+            if (propertyId > Integer.MAX_VALUE) {
+                return;
+            }
+            int id = propertyId.intValue();
+            PropertySnapshot indexed = properties.remove(id);
+            if (indexed == null) {
+                return;
+            }
+            all.remove(id);
+            deleted.remove(id);
+            if (indexed.getPropertyType() != null) {
+                byType.get(indexed.getPropertyType()).remove(id);
+            }
+            removeFrom(byYear, indexed.getConstructionYear(), id);
+            if (indexed.getOwnerId() != null) {
+                removeFrom(byOwner, indexed.getOwnerId(), id);
+            }
+        }
+
+        private void runOptimize() {
+            all.runOptimize();
+            deleted.runOptimize();
+            byType.values().forEach(RoaringBitmap::runOptimize);
+            byYear.values().forEach(RoaringBitmap::runOptimize);
+            byOwner.values().forEach(RoaringBitmap::runOptimize);
+        }
+
+        private static <K> void removeFrom(Map<K, RoaringBitmap> bitmaps, K key, int id) {
+            RoaringBitmap bitmap = bitmaps.get(key);
+            if (bitmap != null) {
+                bitmap.remove(id);
+                if (bitmap.isEmpty()) {
+                    bitmaps.remove(key);
+                }
+            }
+        }
+    }
+}
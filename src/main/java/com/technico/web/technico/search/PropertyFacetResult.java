@@ -0,0 +1,25 @@
+package com.technico.web.technico.search;
+
+import java.util.List;
+import java.util.Map;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * The answer of the property facet index: how many properties match, the IDs
+ * of the requested page and the facet counts.
+ */
+@Getter
+@AllArgsConstructor
+public class PropertyFacetResult {
+
+    private final long total;
+    private final List<Long> pageIds;
+
+    /**
+     * The counts of each facet, by facet and value. The counts of a facet
+     * apply every filter except the one on that facet, so they tell how many
+     * properties another value of the facet would match.
+     */
+    private final Map<String, Map<String, Long>> facets;
+}
@@ -0,0 +1,364 @@
+package com.technico.web.technico.search;
+
+import com.technico.web.technico.dtos.RepairDuplicateDto;
+import com.technico.web.technico.events.ReloadableState;
+import com.technico.web.technico.events.RepairChangedEvent;
+import com.technico.web.technico.events.RepairSnapshot;
+import com.technico.web.technico.models.RepairStatus;
+import com.technico.web.technico.models.RepairType;
+import com.technico.web.technico.repositories.RepairRepository;
+import jakarta.annotation.Resource;
+import jakarta.enterprise.concurrent.ManagedExecutorService;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.context.Initialized;
+import jakarta.enterprise.event.Observes;
+import jakarta.enterprise.event.TransactionPhase;
+import jakarta.inject.Inject;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Finds open repairs that are likely submitted twice: the same property and
+ * repair type, overlapping scheduled windows and near-identical descriptions.
+ * The open repairs are grouped by E9 and repair type, and each group keeps its
+ * scheduled windows ordered by start, so that the windows overlapping a new
+ * one are a range lookup rather than a query. Descriptions are compared by a
+ * 64-bit SimHash of their three-word shingles; two descriptions are alike when
+ * their hashes differ in at most {@code technico.repairs.duplicateMaxDistance}
+ * bits, 10 by default. A repair without a full scheduled window overlaps every
+ * repair of its group.
+ *
+ * The index holds the non-deleted pending and in-progress repairs. It is
+ * loaded in the background when the application starts and then kept current
+ * from the repair change events of committed transactions, as a
+ * {@link ReloadableState}. Two submissions committing at the same moment do
+ * not see each other, which the duplicates report then shows.
+ */
+@Slf4j
+@ApplicationScoped
+public class RepairDuplicateIndex {
+
+    private static final int MAX_DISTANCE = Integer.getInteger("technico.repairs.duplicateMaxDistance", 10);
+    private static final int SHINGLE_WORDS = 3;
+
+    @Inject
+    private RepairRepository repairRepository;
+
+    @Resource
+    private ManagedExecutorService executor;
+
+    private final ReloadableState<Windows, RepairChangedEvent> state = new ReloadableState<>(new Windows(),
+            Windows::apply);
+
+    void onStartup(@Observes @Initialized(ApplicationScoped.class) Object event) {
+        executor.submit(() -> {
+            try {
+                reload();
+            } catch (RuntimeException e) {
+                log.warn("Could not load the repair duplicate index", e);
+            }
+        });
+    }
+
+    void onRepairChanged(@Observes(during = TransactionPhase.AFTER_SUCCESS) RepairChangedEvent event) {
+        state.apply(event);
+    }
+
+    /**
+     * Reads every open repair from the database into a new index and swaps it
+     * in. Does nothing if a reload is already running.
+     *
+     * @return the number of repairs indexed, or -1 if a reload was already
+     * running.
+     */
+    public int reload() {
+        Windows fresh = state.reload(() -> {
+            Windows windows = new Windows();
+            repairRepository.scrollOpenRepairWindows(row -> windows.put(new Window((Long) row[0], (String) row[1],
+                    (RepairType) row[2], (LocalDateTime) row[3], (LocalDateTime) row[4], simHash((String) row[5]))));
+            return windows;
+        });
+        if (fresh == null) {
+            return -1;
+        }
+        log.info("Indexed {} open repairs for duplicate detection", fresh.byId.size());
+        return fresh.byId.size();
+    }
+
+    public boolean isLoaded() {
+        return state.isLoaded();
+    }
+
+    /**
+     * Finds the open repair that a new submission most likely duplicates.
+     *
+     * @param e9 the E9 of the property.
+     * @param repairType the repair type.
+     * @param scheduledStartDate the scheduled start, or null.
+     * @param scheduledEndDate the scheduled end, or null.
+     * @param description the description.
+     * @return the ID of the most similar overlapping open repair, or empty if
+     * there is none or the index is still loading.
+     */
+    public Optional<Long> findDuplicate(String e9, RepairType repairType, LocalDateTime scheduledStartDate,
+            LocalDateTime scheduledEndDate, String description) {
+        if (!state.isLoaded() || e9 == null || repairType == null) {
+            return Optional.empty();
+        }
+        Window candidate = new Window(null, e9, repairType, scheduledStartDate, scheduledEndDate,
+                simHash(description));
+        state.readLock().lock();
+        try {
+            Window best = state.get().mostSimilar(candidate, Long.MAX_VALUE);
+            return best == null ? Optional.empty() : Optional.of(best.id);
+        } finally {
+            state.readLock().unlock();
+        }
+    }
+
+    /**
+     * Lists every open repair that likely duplicates an earlier open repair,
+     * each with the earlier repair it is most similar to.
+     *
+     * @return the likely duplicates, by E9, repair type and ID.
+     */
+    public List<RepairDuplicateDto> findDuplicates() {
+        List<RepairDuplicateDto> duplicates = new ArrayList<>();
+        state.readLock().lock();
+        try {
+            Windows windows = state.get();
+            for (Window window : windows.byId.values()) {
+                Window original = windows.mostSimilar(window, window.id);
+                if (original != null) {
+                    duplicates.add(new RepairDuplicateDto(window.id, original.id, window.e9, window.repairType,
+                            window.start, window.end, similarity(window, original)));
+                }
+            }
+        } finally {
+            state.readLock().unlock();
+        }
+        duplicates.sort(Comparator.comparing(RepairDuplicateDto::getE9)
+                .thenComparing(RepairDuplicateDto::getRepairType)
+                .thenComparing(RepairDuplicateDto::getRepairId));
+        return duplicates;
+    }
+
+    private static boolean isOpen(RepairSnapshot repair) {
+        return !repair.isDeleted()
+                && (repair.getRepairStatus() == RepairStatus.PENDING || repair.getRepairStatus() == RepairStatus.INPROGRESS);
+    }
+
+    private static double similarity(Window a, Window b) {
+        return 1.0 - Long.bitCount(a.simHash ^ b.simHash) / 64.0;
+    }
+
+    /**
+     * Hashes the three-word shingles of the text, or its words if it has
+     * fewer, into a 64-bit SimHash: each bit is set when most shingle hashes
+     * have it set, so similar texts differ in few bits.
+     */
+    static long simHash(String text) {
+        List<String> words = Words.split(text);
+        int shingleWords = Math.min(SHINGLE_WORDS, words.size());
+        if (shingleWords == 0) {
+            return 0;
+        }
+        int[] votes = new int[Long.SIZE];
+        for (int i = 0; i + shingleWords <= words.size(); i++) {
+            long hash = hash(String.join(" ", words.subList(i, i + shingleWords)));
+            for (int bit = 0; bit < Long.SIZE; bit++) {
+                votes[bit] += (hash >>> bit & 1L) == 1L ? 1 : -1;
+            }
+        }
+        long simHash = 0;
+        for (int bit = 0; bit < Long.SIZE; bit++) {
+            if (votes[bit] > 0) {
+                simHash |= 1L << bit;
+            }
+        }
+        return simHash;
+    }
+
+    // 64-bit FNV-1a, finished with the MurmurHash3 mix so every bit depends
+    // on every character.
+    private static long hash(String text) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < text.length(); i++) {
+            hash ^= text.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+    /**
+     * The scheduled window and description hash of one open repair.
+     */
+    private static final class Window {
+
+        private final Long id;
+        private final String e9;
+        private final RepairType repairType;
+        private final LocalDateTime start;
+        private final LocalDateTime end;
+        private final long simHash;
+
+        private Window(Long id, String e9, RepairType repairType, LocalDateTime start, LocalDateTime end,
+                long simHash) {
+            this.id = id;
+            this.e9 = e9;
+            this.repairType = repairType;
+            this.start = start;
+            this.end = end;
+            this.simHash = simHash;
+        }
+
+        private boolean isScheduled() {
+            return start != null && end != null;
+        }
+
+        private List<Object> key() {
+            return List.of(e9, repairType);
+        }
+    }
+
+    /**
+     * The open repairs of one E9 and repair type.
+     */
+    private static final class Group {
+
+        private final TreeMap<LocalDateTime, List<Window>> byStart = new TreeMap<>();
+        private final List<Window> unscheduled = new ArrayList<>();
+
+        // The longest window ever added, so that every window overlapping
+        // [start, end] starts in [start - longest, end]. It only grows until
+        // the next reload, which merely widens the range scanned.
+        private Duration longest = Duration.ZERO;
+
+        private void add(Window window) {
+            if (!window.isScheduled()) {
+                unscheduled.add(window);
+                return;
+            }
+            byStart.computeIfAbsent(window.start, start -> new ArrayList<>()).add(window);
+            Duration length = Duration.between(window.start, window.end);
+            if (length.compareTo(longest) > 0) {
+                longest = length;
+            }
+        }
+
+        private void remove(Window window) {
+            if (!window.isScheduled()) {
+                unscheduled.remove(window);
+                return;
+            }
+            List<Window> starting = byStart.get(window.start);
+            if (starting != null) {
+                starting.remove(window);
+                if (starting.isEmpty()) {
+                    byStart.remove(window.start);
+                }
+            }
+        }
+
+        private boolean isEmpty() {
+            return byStart.isEmpty() && unscheduled.isEmpty();
+        }
+
+        private void forEachOverlapping(Window window, Consumer<Window> consumer) {
+            unscheduled.forEach(consumer);
+            if (!window.isScheduled()) {
+                byStart.values().forEach(starting -> starting.forEach(consumer));
+                return;
+            }
+            if (window.end.isBefore(window.start)) {
+                return;
+            }
+            for (List<Window> starting : byStart.subMap(window.start.minus(longest), true, window.end, true).values()) {
+                for (Window other : starting) {
+                    if (!other.end.isBefore(window.start)) {
+                        consumer.accept(other);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * The groups of one generation of the index. Not thread safe.
+     */
+    private static final class Windows {
+
+        private final Map<List<Object>, Group> groups = new HashMap<>();
+        private final Map<Long, Window> byId = new HashMap<>();
+
+        private void apply(RepairChangedEvent event) {
+            remove(event.getRepairId());
+            RepairSnapshot after = event.getAfter();
+            if (after != null && isOpen(after)) {
+                put(new Window(after.getId(), after.getE9(), after.getRepairType(), after.getScheduledStartDate(),
+                        after.getScheduledEndDate(), simHash(after.getDescription())));
+            }
+        }
+
+        private void put(Window window) {
+            remove(window.id);
+            if (window.e9 == null || window.repairType == null) {
+                return;
+            }
+            byId.put(window.id, window);
+            groups.computeIfAbsent(window.key(), key -> new Group()).add(window);
+        }
+
+        private void remove(Long id) {
+            Window window = byId.remove(id);
+            if (window == null) {
+                return;
+            }
+            Group group = groups.get(window.key());
+            if (group != null) {
+                group.remove(window);
+                if (group.isEmpty()) {
+                    groups.remove(window.key());
+                }
+            }
+        }
+
+        /**
+         * Finds the overlapping repair of the same group, with an ID below the
+         * given one, whose description is most like that of the window.
+         */
+        private Window mostSimilar(Window window, long belowId) {
+            Group group = groups.get(window.key());
+            if (group == null) {
+                return null;
+            }
+            Window[] best = new Window[1];
+            int[] bestDistance = {MAX_DISTANCE + 1};
+            group.forEachOverlapping(window, other -> {
+                if (other.id >= belowId) {
+                    return;
+                }
+                int distance = Long.bitCount(window.simHash ^ other.simHash);
+                if (distance < bestDistance[0] || best[0] != null && distance == bestDistance[0] && other.id < best[0].id) {
+                    best[0] = other;
+                    bestDistance[0] = distance;
+                }
+            });
+            return best[0];
+        }
+    }
+}
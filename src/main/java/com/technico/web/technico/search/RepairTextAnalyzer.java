@@ -0,0 +1,47 @@
+package com.technico.web.technico.search;
+
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.CharArraySet;
+import org.apache.lucene.analysis.StopFilter;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.el.GreekAnalyzer;
+import org.apache.lucene.analysis.el.GreekLowerCaseFilter;
+import org.apache.lucene.analysis.el.GreekStemFilter;
+import org.apache.lucene.analysis.en.EnglishAnalyzer;
+import org.apache.lucene.analysis.en.EnglishPossessiveFilter;
+import org.apache.lucene.analysis.en.PorterStemFilter;
+import org.apache.lucene.analysis.standard.StandardTokenizer;
+
+/**
+ * Normalizes repair descriptions written in Greek, English or a mix of both.
+ * Words are lowercased with the Greek rules, which also drop accents and fold
+ * the final sigma, Greek and English stop words are removed, and each word is
+ * stemmed by the Greek stemmer and then the English one; each stemmer only
+ * changes words in its own alphabet.
+ */
+final class RepairTextAnalyzer extends Analyzer {
+
+    private static final CharArraySet STOP_WORDS = stopWords();
+
+    @Override
+    protected TokenStreamComponents createComponents(String fieldName) {
+        StandardTokenizer tokenizer = new StandardTokenizer();
+        TokenStream stream = new GreekLowerCaseFilter(tokenizer);
+        stream = new EnglishPossessiveFilter(stream);
+        stream = new StopFilter(stream, STOP_WORDS);
+        stream = new GreekStemFilter(stream);
+        stream = new PorterStemFilter(stream);
+        return new TokenStreamComponents(tokenizer, stream);
+    }
+
+    @Override
+    protected TokenStream normalize(String fieldName, TokenStream in) {
+        return new GreekLowerCaseFilter(in);
+    }
+
+    private static CharArraySet stopWords() {
+        CharArraySet stopWords = new CharArraySet(GreekAnalyzer.getDefaultStopSet(), false);
+        stopWords.addAll(EnglishAnalyzer.ENGLISH_STOP_WORDS_SET);
+        return CharArraySet.unmodifiableSet(stopWords);
+    }
+}
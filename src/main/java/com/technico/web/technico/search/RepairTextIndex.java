@@ -0,0 +1,356 @@
+package com.technico.web.technico.search;
+
+import com.technico.web.technico.events.ChangeReplay;
+import com.technico.web.technico.events.RepairChangedEvent;
+import com.technico.web.technico.events.RepairSnapshot;
+import com.technico.web.technico.repositories.RepairRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import jakarta.enterprise.concurrent.ManagedExecutorService;
+import jakarta.enterprise.concurrent.ManagedScheduledExecutorService;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.context.Initialized;
+import jakarta.enterprise.event.Observes;
+import jakarta.enterprise.event.TransactionPhase;
+import jakarta.inject.Inject;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.StoredFields;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.queryparser.simple.SimpleQueryParser;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.SearcherManager;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.FSDirectory;
+
+/**
+ * An embedded Lucene index over the short description and description of the
+ * non-deleted repairs. Text is analyzed by {@link RepairTextAnalyzer}, indexed
+ * with positions so quoted phrases match, and ranked with BM25, with the short
+ * description weighted double.
+ *
+ * The index lives in segments on local disk, so a restart reopens it instead
+ * of rebuilding it; it is only rebuilt from the database when no index exists
+ * or on request, replaying the changes that commit meanwhile with a
+ * {@link ChangeReplay}. Repair changes of committed transactions are applied
+ * as they happen and become searchable at once, and are committed to disk
+ * every few seconds, so a crash loses at most that much; a rebuild recovers
+ * it.
+ */
+@Slf4j
+@ApplicationScoped
+public class RepairTextIndex {
+
+    public static final String INDEX_DIRECTORY = "technico.search.repairTextDirectory";
+    public static final String COMMIT_INTERVAL_SECONDS = "technico.search.commitIntervalSeconds";
+
+    private static final String FIELD_ID = "id";
+    private static final String FIELD_SHORT_DESCRIPTION = "shortDescription";
+    private static final String FIELD_DESCRIPTION = "description";
+    private static final Map<String, Float> FIELD_WEIGHTS = Map.of(FIELD_SHORT_DESCRIPTION, 2f, FIELD_DESCRIPTION, 1f);
+
+    @Inject
+    private RepairRepository repairRepository;
+
+    @Resource
+    private ManagedExecutorService executor;
+
+    @Resource
+    private ManagedScheduledExecutorService scheduler;
+
+    private final Analyzer analyzer = new RepairTextAnalyzer();
+    private final AtomicBoolean uncommitted = new AtomicBoolean();
+    private Directory directory;
+    private volatile IndexWriter writer;
+    private volatile SearcherManager searcherManager;
+    private ScheduledFuture<?> commits;
+    private boolean existing;
+    // Guarded by this.
+    private final ChangeReplay<RepairChangedEvent> replay = new ChangeReplay<>();
+    private volatile boolean ready;
+
+    @PostConstruct
+    void open() {
+        Path path = Paths.get(System.getProperty(INDEX_DIRECTORY,
+                Paths.get(System.getProperty("jboss.server.data.dir", System.getProperty("java.io.tmpdir")),
+                        "technico", "repair-text").toString()));
+        try {
+            Files.createDirectories(path);
+            directory = FSDirectory.open(path);
+            existing = DirectoryReader.indexExists(directory);
+            openWriter();
+        } catch (IOException e) {
+            log.error("Could not open the repair text index in {}, text search is disabled", path, e);
+            writer = null;
+        }
+    }
+
+    @PreDestroy
+    void close() {
+        if (commits != null) {
+            commits.cancel(false);
+        }
+        if (writer == null) {
+            return;
+        }
+        try {
+            synchronized (this) {
+                // A rebuild in progress is dropped; the last commit stays.
+                if (ready && !replay.isRunning()) {
+                    commit();
+                }
+            }
+            searcherManager.close();
+            writer.close();
+            directory.close();
+        } catch (IOException e) {
+            log.warn("Could not close the repair text index", e);
+        }
+    }
+
+    void onStartup(@Observes @Initialized(ApplicationScoped.class) Object event) {
+        if (writer == null) {
+            return;
+        }
+        long interval = Long.getLong(COMMIT_INTERVAL_SECONDS, 5);
+        commits = scheduler.scheduleWithFixedDelay(this::commitIfChanged, interval, interval, TimeUnit.SECONDS);
+        if (existing) {
+            ready = true;
+            log.info("Opened the repair text index with {} repairs", writer.getDocStats().numDocs);
+            return;
+        }
+        executor.submit(() -> {
+            try {
+                rebuild();
+            } catch (IOException | RuntimeException e) {
+                log.warn("Could not build the repair text index", e);
+            }
+        });
+    }
+
+    void onRepairChanged(@Observes(during = TransactionPhase.AFTER_SUCCESS) RepairChangedEvent event) {
+        if (writer == null || !textChanged(event)) {
+            return;
+        }
+        synchronized (this) {
+            try {
+                apply(event);
+                if (replay.isRunning()) {
+                    replay.record(event);
+                } else {
+                    searcherManager.maybeRefresh();
+                }
+            } catch (IOException e) {
+                log.warn("Could not index the text of repair {}", event.getRepairId(), e);
+            }
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Replaces the index with the text of every non-deleted repair in the
+     * database. Searches keep seeing the old index until the new one is
+     * complete. Does nothing if a rebuild is already running.
+     *
+     * @return the number of repairs indexed, or -1 if a rebuild was already
+     * running.
+     * @throws IOException if the index cannot be written.
+     */
+    public int rebuild() throws IOException {
+        if (writer == null) {
+            throw new IOException("The repair text index is not open");
+        }
+        synchronized (this) {
+            if (!replay.start()) {
+                return -1;
+            }
+            // A failed rebuild rolls back to the last commit, which must
+            // therefore hold every change applied so far.
+            if (ready && uncommitted.get()) {
+                commit();
+            }
+        }
+
+        int[] indexed = {0};
+        boolean complete = false;
+        try {
+            writer.deleteAll();
+            repairRepository.scrollRepairTexts(row -> {
+                try {
+                    writer.addDocument(document((Long) row[0], (String) row[1], (String) row[2]));
+                    indexed[0]++;
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            complete = true;
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } finally {
+            synchronized (this) {
+                List<RepairChangedEvent> changes = replay.finish();
+                if (complete) {
+                    for (RepairChangedEvent change : changes) {
+                        apply(change);
+                    }
+                    commit();
+                    searcherManager.maybeRefresh();
+                    ready = true;
+                } else {
+                    rollBack(changes);
+                }
+            }
+        }
+        log.info("Indexed the text of {} repairs", indexed[0]);
+        return indexed[0];
+    }
+
+    /**
+     * Finds the repairs whose text matches a query. Words must all match
+     * unless separated by {@code |}; quoted words must match as a phrase, a
+     * trailing {@code *} matches a prefix and a leading {@code -} excludes a
+     * word.
+     *
+     * @param queryText the query.
+     * @param offset the number of best matches to skip.
+     * @param limit the maximum number of matches to return.
+     * @return the number of matches and the scores of the page.
+     * @throws IOException if the index cannot be read.
+     */
+    public RepairTextResult search(String queryText, int offset, int limit) throws IOException {
+        SimpleQueryParser parser = new SimpleQueryParser(analyzer, FIELD_WEIGHTS);
+        parser.setDefaultOperator(BooleanClause.Occur.MUST);
+        Query query = parser.parse(queryText);
+        SearcherManager manager = searcherManager;
+        IndexSearcher searcher = manager.acquire();
+        try {
+            long total = searcher.count(query);
+            Map<Long, Float> pageScores = new LinkedHashMap<>();
+            if (offset < total) {
+                TopDocs top = searcher.search(query, offset + limit);
+                StoredFields storedFields = searcher.storedFields();
+                ScoreDoc[] scoreDocs = top.scoreDocs;
+                for (int i = offset; i < scoreDocs.length; i++) {
+                    String id = storedFields.document(scoreDocs[i].doc).get(FIELD_ID);
+                    pageScores.put(Long.valueOf(id), scoreDocs[i].score);
+                }
+            }
+            return new RepairTextResult(total, pageScores);
+        } finally {
+            manager.release(searcher);
+        }
+    }
+
+    private void apply(RepairChangedEvent event) throws IOException {
+        RepairSnapshot after = event.getAfter();
+        Term id = new Term(FIELD_ID, String.valueOf(event.getRepairId()));
+        if (after == null || after.isDeleted()) {
+            writer.deleteDocuments(id);
+        } else {
+            writer.updateDocument(id, document(after.getId(), after.getShortDescription(), after.getDescription()));
+        }
+        uncommitted.set(true);
+    }
+
+    /**
+     * Discards a half-built index: the writer goes back to the last commit and
+     * is reopened, and the changes that committed during the rebuild are
+     * applied again. Searches keep the index they had.
+     */
+    private void rollBack(List<RepairChangedEvent> changes) {
+        SearcherManager stale = searcherManager;
+        try {
+            writer.rollback();
+            openWriter();
+            for (RepairChangedEvent change : changes) {
+                apply(change);
+            }
+            searcherManager.maybeRefresh();
+        } catch (IOException e) {
+            log.error("Could not reopen the repair text index after a failed rebuild, text search is disabled", e);
+            writer = null;
+            ready = false;
+        } finally {
+            try {
+                stale.close();
+            } catch (IOException e) {
+                log.debug("Could not close the searchers of the discarded index", e);
+            }
+        }
+    }
+
+    private void openWriter() throws IOException {
+        // Nothing reaches the disk but explicit commits, so neither a
+        // shutdown nor a failure can save a half-built index.
+        writer = new IndexWriter(directory, new IndexWriterConfig(analyzer)
+                .setOpenMode(IndexWriterConfig.OpenMode.CREATE_OR_APPEND)
+                .setCommitOnClose(false));
+        searcherManager = new SearcherManager(writer, null);
+    }
+
+    private void commitIfChanged() {
+        try {
+            synchronized (this) {
+                if (ready && !replay.isRunning() && uncommitted.get()) {
+                    commit();
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            log.warn("Could not commit the repair text index", e);
+        }
+    }
+
+    private void commit() throws IOException {
+        uncommitted.set(false);
+        writer.commit();
+    }
+
+    private static boolean textChanged(RepairChangedEvent event) {
+        RepairSnapshot before = event.getBefore();
+        RepairSnapshot after = event.getAfter();
+        if (before == null || after == null || before.isDeleted() != after.isDeleted()) {
+            return true;
+        }
+        return !Objects.equals(before.getShortDescription(), after.getShortDescription())
+                || !Objects.equals(before.getDescription(), after.getDescription());
+    }
+
+    private static Document document(Long id, String shortDescription, String description) {
+        Document document = new Document();
+        document.add(new StringField(FIELD_ID, String.valueOf(id), Field.Store.YES));
+        if (shortDescription != null) {
+            document.add(new TextField(FIELD_SHORT_DESCRIPTION, shortDescription, Field.Store.NO));
+        }
+        if (description != null) {
+            document.add(new TextField(FIELD_DESCRIPTION, description, Field.Store.NO));
+        }
+        return document;
+    }
+}
@@ -0,0 +1,17 @@
+package com.technico.web.technico.search;
+
+import java.util.Map;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * The answer of the repair text index: how many repairs match and the scores
+ * of the repairs of the requested page, best first.
+ */
+@Getter
+@AllArgsConstructor
+public class RepairTextResult {
+
+    private final long total;
+    private final Map<Long, Float> pageScores;
+}
@@ -0,0 +1,51 @@
+package com.technico.web.technico.search;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Splits free text into comparable words for the in-memory indexes: lower
+ * case, without accents and with the Greek final sigma folded, so that what
+ * is typed matches however the stored text was written.
+ */
+final class Words {
+
+    private static final Pattern NON_WORD = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+
+    private Words() {
+    }
+
+    /**
+     * Lower cases the text, strips its accents and folds the final sigma.
+     *
+     * @param text the text.
+     * @return the normalized text.
+     */
+    static String normalize(String text) {
+        String folded = MARKS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("");
+        return folded.toLowerCase(Locale.ROOT).replace('ς', 'σ');
+    }
+
+    /**
+     * Splits the normalized text on everything that is not a letter or digit.
+     *
+     * @param text the text, or null.
+     * @return the words, in order; empty if the text is null or blank.
+     */
+    static List<String> split(String text) {
+        List<String> words = new ArrayList<>();
+        if (text == null) {
+            return words;
+        }
+        for (String word : NON_WORD.split(normalize(text))) {
+            if (!word.isEmpty()) {
+                words.add(word);
+            }
+        }
+        return words;
+    }
+}
@@ -0,0 +1,18 @@
+package com.technico.web.technico.services;
+
+import com.technico.web.technico.dtos.OwnerCompletionDto;
+import com.technico.web.technico.dtos.RepairOverrunDto;
+import com.technico.web.technico.dtos.RepairTypeCostDto;
+import com.technico.web.technico.exceptions.CustomException;
+import java.util.List;
+
+public interface AnalyticsService {
+
+    List<RepairTypeCostDto> findCostsByType(String repairStatus) throws CustomException;
+
+    List<RepairOverrunDto> findOverrunsByType() throws CustomException;
+
+    List<OwnerCompletionDto> findCompletionByOwner(Integer minRepairs, Integer limit) throws CustomException;
+
+    int reloadAnalytics() throws CustomException;
+}
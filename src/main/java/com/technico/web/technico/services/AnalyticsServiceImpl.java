@@ -0,0 +1,116 @@
+package com.technico.web.technico.services;
+
+import com.technico.web.technico.analytics.RepairColumnStore;
+import com.technico.web.technico.dtos.OwnerCompletionDto;
+import com.technico.web.technico.dtos.RepairOverrunDto;
+import com.technico.web.technico.dtos.RepairTypeCostDto;
+import com.technico.web.technico.exceptions.CustomException;
+import com.technico.web.technico.models.RepairStatus;
+import jakarta.enterprise.context.RequestScoped;
+import jakarta.inject.Inject;
+import java.util.List;
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
+@RequestScoped
+public class AnalyticsServiceImpl implements AnalyticsService {
+
+    private static final int DEFAULT_OWNER_LIMIT = 100;
+    private static final int MAX_OWNER_LIMIT = 10_000;
+
+    private RepairColumnStore columnStore;
+
+    @Inject
+    public AnalyticsServiceImpl(RepairColumnStore columnStore) {
+        this.columnStore = columnStore;
+    }
+
+    public AnalyticsServiceImpl() {
+    }
+
+    /**
+     * Counts the non-deleted repairs of each type and sums and averages their
+     * proposed costs. Repairs without a proposed cost are counted but left
+     * out of the average.
+     *
+     * @param repairStatus only repairs with this status, if given.
+     * @return one Repair type cost dto per repair type.
+     * @throws CustomException if the status is not valid or the analytics are
+     * still loading.
+     */
+    @Override
+    public List<RepairTypeCostDto> findCostsByType(String repairStatus) throws CustomException {
+        RepairStatus status = null;
+        if (repairStatus != null && !repairStatus.isBlank()) {
+            try {
+                status = RepairStatus.valueOf(repairStatus.trim().toUpperCase());
+            } catch (IllegalArgumentException e) {
+                throw new CustomException("Invalid repair status: " + repairStatus);
+            }
+        }
+        requireLoaded();
+        return columnStore.costsByType(status);
+    }
+
+    /**
+     * Measures, for each repair type, how late repairs start and finish
+     * compared to their schedule. Early starts and finishes count as negative
+     * delays.
+     *
+     * @return one Repair overrun dto per repair type.
+     * @throws CustomException if the analytics are still loading.
+     */
+    @Override
+    public List<RepairOverrunDto> findOverrunsByType() throws CustomException {
+        requireLoaded();
+        return columnStore.overrunsByType();
+    }
+
+    /**
+     * Computes the share of each owner's non-deleted repairs that are
+     * complete.
+     *
+     * @param minRepairs only owners with at least this many repairs, 1 if not
+     * given.
+     * @param limit the maximum number of owners, those with the most repairs
+     * first, 100 if not given.
+     * @return one Owner completion dto per owner.
+     * @throws CustomException if the arguments are not valid or the analytics
+     * are still loading.
+     */
+    @Override
+    public List<OwnerCompletionDto> findCompletionByOwner(Integer minRepairs, Integer limit) throws CustomException {
+        int min = minRepairs == null ? 1 : minRepairs;
+        int max = limit == null ? DEFAULT_OWNER_LIMIT : limit;
+        if (min < 1) {
+            throw new CustomException("The minimum number of repairs must be at least 1");
+        }
+        if (max < 1 || max > MAX_OWNER_LIMIT) {
+            throw new CustomException("The limit must be between 1 and " + MAX_OWNER_LIMIT);
+        }
+        requireLoaded();
+        return columnStore.completionByOwner(min, max);
+    }
+
+    /**
+     * Reloads the analytics from the database, for example after repairs were
+     * changed outside the application.
+     *
+     * @return the number of repairs loaded.
+     * @throws CustomException if a reload is already running.
+     */
+    @Override
+    public int reloadAnalytics() throws CustomException {
+        int repairs = columnStore.reload();
+        if (repairs < 0) {
+            throw new CustomException("The analytics are already being reloaded");
+        }
+        return repairs;
+    }
+
+    private void requireLoaded() throws CustomException {
+        if (!columnStore.isLoaded()) {
+            throw new CustomException("The analytics are still loading, try again shortly");
+        }
+    }
+}
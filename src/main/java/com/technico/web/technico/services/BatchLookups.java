@@ -0,0 +1,74 @@
+package com.technico.web.technico.services;
+
+import com.technico.web.technico.dtos.LookupResultDto;
+import com.technico.web.technico.exceptions.CustomException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+/**
+ * Shared steps of the multi-get lookups: bounding the number of keys of a
+ * request and answering in request order with explicit not-found markers.
+ * Every multi-get reports soft-deleted rows as not found, like the single
+ * lookups, and matches text keys regardless of case, as MySQL compared them
+ * when it found the rows.
+ */
+final class BatchLookups {
+
+    static final int MAX_KEYS = 1000;
+
+    private BatchLookups() {
+    }
+
+    /**
+     * Checks that a multi-get request has at least one and at most
+     * {@link #MAX_KEYS} keys.
+     *
+     * @param keys the requested keys.
+     * @throws CustomException if there are no keys or too many.
+     */
+    static void validateKeys(List<?> keys) throws CustomException {
+        if (keys == null || keys.isEmpty()) {
+            throw new CustomException("At least one key is required");
+        }
+        if (keys.size() > MAX_KEYS) {
+            throw new CustomException("At most " + MAX_KEYS + " keys can be requested at once");
+        }
+    }
+
+    /**
+     * Matches the found items to the requested keys.
+     *
+     * @param keys the requested keys, in request order.
+     * @param items the found items, in any order.
+     * @param keyOf extracts the key of an item.
+     * @param deleted tells whether an item is soft-deleted.
+     * @return one result per requested key, in request order, marked as not
+     * found when there is no item with that key or it is deleted.
+     */
+    static <K, T> List<LookupResultDto<T>> inRequestOrder(List<K> keys, List<T> items, Function<T, K> keyOf,
+            Predicate<T> deleted) {
+        Map<Object, T> byKey = new HashMap<>(items.size() * 2);
+        for (T item : items) {
+            if (!deleted.test(item)) {
+                byKey.put(matchKey(keyOf.apply(item)), item);
+            }
+        }
+        return keys.stream()
+                .map(key -> {
+                    T item = byKey.get(matchKey(key));
+                    return new LookupResultDto<>(String.valueOf(key), item != null, item);
+                })
+                .collect(Collectors.toList());
+    }
+
+    // The IN queries compare text case-insensitively, so an E9 or VAT asked
+    // for in another case than it was saved in is still found.
+    private static Object matchKey(Object key) {
+        return key instanceof String text ? text.toLowerCase(Locale.ROOT) : key;
+    }
+}
@@ -0,0 +1,15 @@
+package com.technico.web.technico.services;
+
+import com.technico.web.technico.dtos.ImportJobDto;
+import com.technico.web.technico.exceptions.CustomException;
+import com.technico.web.technico.imports.ImportJob;
+import jakarta.ws.rs.core.MediaType;
+import java.io.InputStream;
+import java.util.Optional;
+
+public interface ImportService {
+
+    ImportJobDto startImport(String entity, MediaType contentType, InputStream upload) throws CustomException;
+
+    Optional<ImportJob> findJob(String id);
+}
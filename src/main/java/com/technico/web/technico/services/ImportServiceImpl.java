@@ -0,0 +1,378 @@
+package com.technico.web.technico.services;
+
+import com.technico.web.technico.cache.CacheTags;
+import com.technico.web.technico.cache.ResponseCache;
+import com.technico.web.technico.dtos.ImportJobDto;
+import com.technico.web.technico.exceptions.CustomException;
+import com.technico.web.technico.imports.ImportBatchWriter;
+import com.technico.web.technico.imports.ImportEntity;
+import com.technico.web.technico.imports.ImportFormat;
+import com.technico.web.technico.imports.ImportJob;
+import com.technico.web.technico.imports.ImportJobRegistry;
+import com.technico.web.technico.imports.ImportReader;
+import com.technico.web.technico.imports.ImportRow;
+import com.technico.web.technico.imports.ImportRowValidator;
+import com.technico.web.technico.imports.ValidatedRow;
+import com.technico.web.technico.models.Owner;
+import com.technico.web.technico.models.Property;
+import com.technico.web.technico.repositories.OwnerRepository;
+import com.technico.web.technico.repositories.PropertyRepository;
+import jakarta.annotation.Resource;
+import jakarta.enterprise.concurrent.ManagedThreadFactory;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.core.MediaType;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.ToIntFunction;
+import java.util.stream.Collectors;
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Imports owners and properties from large CSV or NDJSON uploads as a staged
+ * pipeline: one reader parses the upload, several workers run the existing
+ * validations in parallel, and one writer checks each batch of valid rows
+ * against the database in bulk and inserts it with a single statement. The
+ * stages are connected by bounded queues, so a slow stage holds back the ones
+ * before it instead of letting rows pile up in memory.
+ *
+ * The service outlives the request that starts an import, so unlike the other
+ * services it is application scoped.
+ */
+@Slf4j
+@ApplicationScoped
+public class ImportServiceImpl implements ImportService {
+
+    private static final int QUEUE_CAPACITY = 2_000;
+    private static final int BATCH_SIZE = 500;
+    private static final long BATCH_WAIT_MILLIS = 200;
+    private static final int VALIDATORS = Integer.getInteger("technico.import.validators", 4);
+    private static final int MAX_RUNNING_IMPORTS = Integer.getInteger("technico.import.maxRunning", 2);
+
+    private final Semaphore runningImports = new Semaphore(MAX_RUNNING_IMPORTS);
+
+    // Each import runs on threads of its own rather than on the managed
+    // executor: its stages block on each other, so on a shared pool they
+    // could wait forever for stages that never get a thread.
+    @Resource
+    private ManagedThreadFactory threadFactory;
+
+    @Inject
+    private ImportJobRegistry jobRegistry;
+
+    @Inject
+    private ImportRowValidator rowValidator;
+
+    @Inject
+    private OwnerRepository ownerRepository;
+
+    @Inject
+    private PropertyRepository propertyRepository;
+
+    @Inject
+    private ImportBatchWriter batchWriter;
+
+    @Inject
+    private ResponseCache responseCache;
+
+    /**
+     * Stores the upload and starts importing it in the background.
+     *
+     * @param entity the entity to import: owners or properties.
+     * @param contentType the content type of the upload, CSV or NDJSON.
+     * @param upload the uploaded rows.
+     * @return the new import, to poll for progress.
+     * @throws CustomException if the entity or format is not supported, too
+     * many imports are running, or the upload cannot be stored.
+     */
+    @Override
+    public ImportJobDto startImport(String entity, MediaType contentType, InputStream upload) throws CustomException {
+        ImportEntity importEntity = ImportEntity.fromPath(entity);
+        ImportFormat format = ImportFormat.fromContentType(contentType);
+        if (!runningImports.tryAcquire()) {
+            throw new CustomException("Too many imports are running, try again later");
+        }
+        Path file = null;
+        try {
+            // The request body is gone once the request returns, so the
+            // pipeline reads from a copy.
+            file = Files.createTempFile("technico-import-", "." + format.name().toLowerCase(Locale.ROOT));
+            Files.copy(upload, file, StandardCopyOption.REPLACE_EXISTING);
+            ImportJob job = jobRegistry.create(importEntity, format);
+            Path uploaded = file;
+            threadFactory.newThread(() -> run(job, uploaded)).start();
+            return job.toDto();
+        } catch (IOException | RuntimeException e) {
+            runningImports.release();
+            deleteUpload(file);
+            throw new CustomException("Failed to start the import: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Finds an import by its ID.
+     *
+     * @param id the ID of the import.
+     * @return an Optional containing the import, or an empty Optional if it is
+     * unknown or expired.
+     */
+    @Override
+    public Optional<ImportJob> findJob(String id) {
+        return jobRegistry.find(id);
+    }
+
+    private void run(ImportJob job, Path file) {
+        BlockingQueue<ImportRow> parsed = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+        BlockingQueue<ValidatedRow<?>> validated = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+        AtomicInteger runningValidators = new AtomicInteger(VALIDATORS);
+        Stage reader = null;
+        List<Stage> validators = new ArrayList<>(VALIDATORS);
+        try {
+            reader = startStage(() -> read(job, file, parsed));
+            for (int i = 0; i < VALIDATORS; i++) {
+                validators.add(startStage(() -> {
+                    try {
+                        rowValidator.validate(job, parsed, validated);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw e;
+                    } finally {
+                        if (runningValidators.decrementAndGet() == 0) {
+                            offerEnd(validated, ValidatedRow.END);
+                        }
+                    }
+                }));
+            }
+            write(job, validated);
+            for (Stage validator : validators) {
+                validator.done.get();
+            }
+            reader.done.get();
+            job.complete();
+            log.info("Import {} finished: {} rows inserted, {} rejected", job.getId(),
+                    job.getRowsInserted().get(), job.getRowsFailed().get());
+        } catch (ExecutionException e) {
+            log.warn("Import {} failed", job.getId(), e.getCause());
+            job.fail("Import failed: " + e.getCause().getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            job.fail("Import was interrupted");
+        } catch (RuntimeException e) {
+            log.warn("Import {} failed", job.getId(), e);
+            job.fail("Import failed: " + e.getMessage());
+        } finally {
+            // Stops the stages still blocked on a queue when the import fails.
+            if (reader != null) {
+                reader.thread.interrupt();
+            }
+            validators.forEach(validator -> validator.thread.interrupt());
+            runningImports.release();
+            deleteUpload(file);
+        }
+    }
+
+    private void read(ImportJob job, Path file, BlockingQueue<ImportRow> parsed) throws IOException, InterruptedException {
+        try (ImportReader reader = ImportReader.open(job.getFormat(), file)) {
+            ImportRow row;
+            while ((row = reader.next()) != null) {
+                job.getRowsRead().incrementAndGet();
+                parsed.put(row);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw e;
+        } finally {
+            offerEnd(parsed, ImportRow.END);
+        }
+    }
+
+    private Stage startStage(StageBody body) {
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        Thread thread = threadFactory.newThread(() -> {
+            try {
+                body.run();
+                done.complete(null);
+            } catch (Throwable e) {
+                done.completeExceptionally(e);
+            }
+        });
+        thread.start();
+        return new Stage(thread, done);
+    }
+
+    /**
+     * Passes the end marker on, unless the stage was interrupted because the
+     * import failed: then nobody drains the queue any more, and waiting for
+     * room in it would block the stage's thread forever. The stages re-set
+     * their interrupt flag before getting here for that reason.
+     */
+    private static <T> void offerEnd(BlockingQueue<T> queue, T end) {
+        if (Thread.currentThread().isInterrupted()) {
+            return;
+        }
+        try {
+            queue.put(end);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private interface StageBody {
+
+        void run() throws Exception;
+    }
+
+    @AllArgsConstructor
+    private static class Stage {
+
+        private final Thread thread;
+        private final CompletableFuture<Void> done;
+    }
+
+    private void write(ImportJob job, BlockingQueue<ValidatedRow<?>> validated) throws InterruptedException {
+        Set<String> seenKeys = new HashSet<>();
+        Set<String> seenEmails = new HashSet<>();
+        List<ValidatedRow<?>> batch = new ArrayList<>(BATCH_SIZE);
+        while (true) {
+            // Wait for the first row of a batch, then write what has arrived
+            // once the batch is full or the validators fall quiet.
+            ValidatedRow<?> row = batch.isEmpty()
+                    ? validated.take()
+                    : validated.poll(BATCH_WAIT_MILLIS, TimeUnit.MILLISECONDS);
+            if (row != null && row != ValidatedRow.END) {
+                batch.add(row);
+                if (batch.size() < BATCH_SIZE) {
+                    continue;
+                }
+            }
+            if (!batch.isEmpty()) {
+                if (job.getEntity() == ImportEntity.OWNERS) {
+                    writeOwners(job, cast(batch), seenKeys, seenEmails);
+                } else {
+                    writeProperties(job, cast(batch), seenKeys);
+                }
+                batch.clear();
+            }
+            if (row == ValidatedRow.END) {
+                return;
+            }
+        }
+    }
+
+    private void writeOwners(ImportJob job, List<ValidatedRow<Owner>> rows, Set<String> seenVats, Set<String> seenEmails) {
+        Set<String> takenVats = ownerRepository.findExistingVats(rows.stream()
+                .map(ValidatedRow::getKey)
+                .collect(Collectors.toList()));
+        Set<String> takenEmails = ownerRepository.findExistingEmails(rows.stream()
+                .map(row -> row.getEntity().getEmail())
+                .collect(Collectors.toList()));
+
+        List<ValidatedRow<Owner>> accepted = new ArrayList<>(rows.size());
+        for (ValidatedRow<Owner> row : rows) {
+            Owner owner = row.getEntity();
+            if (takenVats.contains(owner.getVat()) || seenVats.contains(owner.getVat())) {
+                job.rejectRow(row.getLine(), row.getKey(), "VAT already exists.");
+            } else if (takenEmails.contains(owner.getEmail()) || seenEmails.contains(owner.getEmail())) {
+                job.rejectRow(row.getLine(), row.getKey(), "Email already exists.");
+            } else {
+                seenVats.add(owner.getVat());
+                seenEmails.add(owner.getEmail());
+                accepted.add(row);
+            }
+        }
+        // New owners have no cached responses yet, so nothing to invalidate.
+        insert(job, accepted, batchWriter::insertOwners);
+    }
+
+    private void writeProperties(ImportJob job, List<ValidatedRow<Property>> rows, Set<String> seenE9s) {
+        Set<String> takenE9s = propertyRepository.findExistingE9s(rows.stream()
+                .map(ValidatedRow::getKey)
+                .collect(Collectors.toList()));
+        Set<String> ownerVats = ownerRepository.findExistingVats(rows.stream()
+                .map(row -> row.getEntity().getOwner().getVat())
+                .collect(Collectors.toList()));
+
+        List<ValidatedRow<Property>> accepted = new ArrayList<>(rows.size());
+        List<String> tags = new ArrayList<>();
+        for (ValidatedRow<Property> row : rows) {
+            Property property = row.getEntity();
+            if (takenE9s.contains(property.getE9()) || seenE9s.contains(property.getE9())) {
+                job.rejectRow(row.getLine(), row.getKey(), "Property with E9 " + property.getE9() + " already exists.");
+            } else if (!ownerVats.contains(property.getOwner().getVat())) {
+                job.rejectRow(row.getLine(), row.getKey(), "Not valid Vat");
+            } else {
+                seenE9s.add(property.getE9());
+                accepted.add(row);
+                tags.addAll(CacheTags.ofInserted(property));
+            }
+        }
+        insert(job, accepted, batchWriter::insertProperties);
+        responseCache.invalidate(tags);
+    }
+
+    /**
+     * Inserts a batch with one statement in one transaction. If it fails, for
+     * example because another request took a key since the batch was checked,
+     * the transaction rolls back and the rows are retried one by one so that
+     * only the offending rows are rejected.
+     */
+    private <T> void insert(ImportJob job, List<ValidatedRow<T>> rows, ToIntFunction<List<T>> insertAll) {
+        if (rows.isEmpty()) {
+            return;
+        }
+        try {
+            job.getRowsInserted().addAndGet(insertAll.applyAsInt(rows.stream()
+                    .map(ValidatedRow::getEntity)
+                    .collect(Collectors.toList())));
+        } catch (RuntimeException batchFailure) {
+            log.debug("Batch insert of import {} failed, inserting rows one by one", job.getId(), batchFailure);
+            for (ValidatedRow<T> row : rows) {
+                try {
+                    job.getRowsInserted().addAndGet(insertAll.applyAsInt(List.of(row.getEntity())));
+                } catch (RuntimeException e) {
+                    job.rejectRow(row.getLine(), row.getKey(), "Failed to insert: " + rootMessage(e));
+                }
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> List<ValidatedRow<T>> cast(List<ValidatedRow<?>> rows) {
+        return (List<ValidatedRow<T>>) (List<?>) rows;
+    }
+
+    private static String rootMessage(Throwable e) {
+        while (e.getCause() != null) {
+            e = e.getCause();
+        }
+        return e.getMessage();
+    }
+
+    private static void deleteUpload(Path file) {
+        if (file == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Could not delete import upload {}", file, e);
+        }
+    }
+}
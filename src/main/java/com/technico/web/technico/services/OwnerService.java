@@ -1,6 +1,8 @@
 package com.technico.web.technico.services;
 
+import com.technico.web.technico.dtos.LookupResultDto;
 import com.technico.web.technico.dtos.OwnerDto;
+import com.technico.web.technico.dtos.OwnerSuggestionDto;
 import com.technico.web.technico.exceptions.CustomException;
 import com.technico.web.technico.models.Owner;
 import java.util.List;
@@ -13,7 +15,7 @@ public interface OwnerService {
             throws CustomException;
 
     // Search Owner
-    Optional<Owner> searchOwnerByVat(String vat);
+    Optional<OwnerDto> searchOwnerByVat(String vat);
 
     Optional<Owner> searchOwnerByEmail(String email);
     
@@ -21,6 +23,12 @@ public interface OwnerService {
     
     List<Owner> findAllOwners();
 
+    List<LookupResultDto<OwnerDto>> findOwnersByIDs(List<Long> ids) throws CustomException;
+
+    List<LookupResultDto<OwnerDto>> findOwnersByVats(List<String> vats) throws CustomException;
+
+    List<OwnerSuggestionDto> autocompleteOwners(String query, Integer limit) throws CustomException;
+
     // Update Owner
     OwnerDto updateOwner(Long id, String address, String phoneNumber, String email, String password) throws CustomException;
 //    void updateOwnerAddress(String vat, String address) throws CustomException;
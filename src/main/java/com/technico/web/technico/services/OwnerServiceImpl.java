@@ -1,9 +1,22 @@
 package com.technico.web.technico.services;
 
+import com.technico.web.technico.cache.CacheTags;
+import com.technico.web.technico.cache.ResponseCache;
+import com.technico.web.technico.cache.SingleFlight;
+import com.technico.web.technico.dtos.LookupResultDto;
 import com.technico.web.technico.dtos.OwnerDto;
+import com.technico.web.technico.dtos.OwnerSuggestionDto;
+import com.technico.web.technico.events.OwnerChangedEvent;
+import com.technico.web.technico.events.OwnerSnapshot;
+import com.technico.web.technico.events.PropertyChangedEvent;
+import com.technico.web.technico.events.PropertySnapshot;
+import com.technico.web.technico.events.RepairChangedEvent;
+import com.technico.web.technico.events.RepairSnapshot;
 import com.technico.web.technico.exceptions.CustomException;
 import com.technico.web.technico.models.Owner;
 import com.technico.web.technico.repositories.OwnerRepository;
+import com.technico.web.technico.search.OwnerAutocompleteIndex;
+import jakarta.enterprise.event.Event;
 import java.util.Optional;
 import java.util.regex.Pattern;
 import lombok.extern.slf4j.Slf4j;
@@ -16,9 +29,30 @@ import java.util.List;
 @RequestScoped
 public class OwnerServiceImpl implements OwnerService {
 
+    private static final int DEFAULT_AUTOCOMPLETE_LIMIT = 10;
+    private static final int MAX_AUTOCOMPLETE_LIMIT = 50;
+
     @Inject
     private OwnerRepository ownerRepository;
 
+    @Inject
+    private ResponseCache responseCache;
+
+    @Inject
+    private SingleFlight singleFlight;
+
+    @Inject
+    private Event<RepairChangedEvent> repairEvents;
+
+    @Inject
+    private Event<PropertyChangedEvent> propertyEvents;
+
+    @Inject
+    private Event<OwnerChangedEvent> ownerEvents;
+
+    @Inject
+    private OwnerAutocompleteIndex autocompleteIndex;
+
     /**
      * Creates a new owner with the given details
      *
@@ -33,6 +67,7 @@ public class OwnerServiceImpl implements OwnerService {
      * @throws CustomException if any validation fails
      */
     @Override
+    @Transactional(rollbackOn = CustomException.class)
     public OwnerDto createOwner(String vat, String name, String surname, String address, String phoneNumber, String email, String password)
             throws CustomException {
         validateVat(vat);
@@ -55,6 +90,8 @@ public class OwnerServiceImpl implements OwnerService {
         owner.setEmail(email);
 
         Owner savedOwner = save(owner);
+        responseCache.invalidate(CacheTags.of(savedOwner));
+        ownerEvents.fire(new OwnerChangedEvent(null, OwnerSnapshot.of(savedOwner)));
         return new OwnerDto(
                 savedOwner.getId(),
                 savedOwner.getVat(),
@@ -69,15 +106,20 @@ public class OwnerServiceImpl implements OwnerService {
     }
 
     /**
-     * Searches Owner by its VAT
+     * Searches Owner by its VAT. Concurrent searches for the same VAT share
+     * one query.
      *
      * @param vat
      * @return an Optional containing the found Owner, or an empty Optional if
      * no Owner was found
      */
     @Override
-    public Optional<Owner> searchOwnerByVat(String vat) {
-        return ownerRepository.findByVat(vat);
+    public Optional<OwnerDto> searchOwnerByVat(String vat) {
+        if (vat == null) {
+            return Optional.empty();
+        }
+        return singleFlight.execute("ownerByVat", vat,
+                () -> ownerRepository.findByVats(List.of(vat)).stream().findFirst());
     }
 
     /**
@@ -114,6 +156,61 @@ public class OwnerServiceImpl implements OwnerService {
         return ownerRepository.findAll();
     }
 
+    /**
+     * Finds many owners by ID with batched queries. Deleted owners count as
+     * not found.
+     *
+     * @param ids the IDs of the owners, in the order the results are wanted.
+     * @return one result per requested ID, in request order, marking the IDs
+     * that were not found.
+     * @throws CustomException if no IDs or too many IDs are given.
+     */
+    @Override
+    public List<LookupResultDto<OwnerDto>> findOwnersByIDs(List<Long> ids) throws CustomException {
+        BatchLookups.validateKeys(ids);
+        return BatchLookups.inRequestOrder(ids, ownerRepository.findByIds(ids), OwnerDto::getId,
+                OwnerDto::isDeleted);
+    }
+
+    /**
+     * Finds many owners by VAT with batched queries. Deleted owners count as
+     * not found.
+     *
+     * @param vats the VAT numbers of the owners, in the order the results are
+     * wanted.
+     * @return one result per requested VAT, in request order, marking the VAT
+     * numbers that were not found.
+     * @throws CustomException if no VAT numbers or too many are given.
+     */
+    @Override
+    public List<LookupResultDto<OwnerDto>> findOwnersByVats(List<String> vats) throws CustomException {
+        BatchLookups.validateKeys(vats);
+        return BatchLookups.inRequestOrder(vats, ownerRepository.findByVats(vats), OwnerDto::getVat,
+                OwnerDto::isDeleted);
+    }
+
+    /**
+     * Suggests owners by what has been typed of their name, surname, email or
+     * VAT so far, tolerating a typing mistake or two.
+     *
+     * @param query the typed text; every word of it must match.
+     * @param limit the maximum number of suggestions, 10 if not given.
+     * @return the best matching non-deleted owners, best first.
+     * @throws CustomException if the limit is not valid or the index is still
+     * loading.
+     */
+    @Override
+    public List<OwnerSuggestionDto> autocompleteOwners(String query, Integer limit) throws CustomException {
+        int suggestions = limit == null ? DEFAULT_AUTOCOMPLETE_LIMIT : limit;
+        if (suggestions < 1 || suggestions > MAX_AUTOCOMPLETE_LIMIT) {
+            throw new CustomException("The limit must be between 1 and " + MAX_AUTOCOMPLETE_LIMIT + ".");
+        }
+        if (!autocompleteIndex.isLoaded()) {
+            throw new CustomException("The owner autocomplete index is still loading, try again shortly.");
+        }
+        return autocompleteIndex.suggest(query, suggestions);
+    }
+
     /**
      * Updates the details of an existing Owner.
      *
@@ -135,6 +232,7 @@ public class OwnerServiceImpl implements OwnerService {
             throw new CustomException("Cannot update a deleted owner.");
         }
 
+        OwnerSnapshot before = OwnerSnapshot.of(owner);
         owner.setAddress(address);
         validatePhone(phoneNumber);
         owner.setPhoneNumber(phoneNumber);
@@ -147,6 +245,8 @@ public class OwnerServiceImpl implements OwnerService {
         owner.setPassword(password);
 
         Owner savedOwner = save(owner);
+        responseCache.invalidate(CacheTags.of(savedOwner));
+        ownerEvents.fire(new OwnerChangedEvent(before, OwnerSnapshot.of(savedOwner)));
         return new OwnerDto(
                 savedOwner.getId(),
                 savedOwner.getVat(),
@@ -215,11 +315,25 @@ public class OwnerServiceImpl implements OwnerService {
      * @throws CustomException if the property could not be deleted
      */
     @Override
+    @Transactional
     public boolean deleteOwnerPermanently(Long id) throws CustomException {
+        Optional<Owner> owner = searchOwnerByID(id);
+        List<String> tags = owner.map(CacheTags::ofGraph).orElse(List.of());
+        Optional<OwnerSnapshot> before = owner.map(OwnerSnapshot::of);
+        List<PropertySnapshot> properties = owner.map(PropertySnapshot::ofProperties).orElse(List.of());
+        List<RepairSnapshot> repairs = owner.map(RepairSnapshot::ofRepairs).orElse(List.of());
         boolean success = ownerRepository.deleteById(id);
         if (!success) {
             throw new CustomException("Failed to permanently delete property with ID: " + id);
         }
+        responseCache.invalidate(tags);
+        before.ifPresent(snapshot -> ownerEvents.fire(new OwnerChangedEvent(snapshot, null)));
+        for (PropertySnapshot property : properties) {
+            propertyEvents.fire(new PropertyChangedEvent(property, null));
+        }
+        for (RepairSnapshot repair : repairs) {
+            repairEvents.fire(new RepairChangedEvent(repair, null));
+        }
         return true;
     }
 
@@ -234,8 +348,11 @@ public class OwnerServiceImpl implements OwnerService {
     public boolean deleteOwnerSafely(Long id) {
         try {
             Owner owner = searchOwnerByID(id).get();
+            OwnerSnapshot before = OwnerSnapshot.of(owner);
             owner.setDeleted(true);
             save(owner);
+            responseCache.invalidate(CacheTags.of(owner));
+            ownerEvents.fire(new OwnerChangedEvent(before, OwnerSnapshot.of(owner)));
 
             return true;
         } catch (CustomException e) {
@@ -0,0 +1,9 @@
+package com.technico.web.technico.services;
+
+import com.technico.web.technico.dtos.OwnerPortfolioDto;
+import com.technico.web.technico.exceptions.CustomException;
+
+public interface PortfolioService {
+
+    OwnerPortfolioDto findOwnerPortfolio(Long ownerId) throws CustomException;
+}
@@ -0,0 +1,167 @@
+package com.technico.web.technico.services;
+
+import com.technico.web.technico.dtos.OwnerDto;
+import com.technico.web.technico.dtos.OwnerPortfolioDto;
+import com.technico.web.technico.dtos.PropertyDto;
+import com.technico.web.technico.dtos.RepairDto;
+import com.technico.web.technico.exceptions.CustomException;
+import com.technico.web.technico.models.Owner;
+import com.technico.web.technico.models.Property;
+import com.technico.web.technico.models.Repair;
+import com.technico.web.technico.models.RepairStatus;
+import com.technico.web.technico.repositories.OwnerRepository;
+import com.technico.web.technico.repositories.PropertyRepository;
+import com.technico.web.technico.repositories.RepairRepository;
+import jakarta.annotation.Resource;
+import jakarta.enterprise.concurrent.ManagedExecutorService;
+import jakarta.enterprise.context.RequestScoped;
+import jakarta.inject.Inject;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Collectors;
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
+@RequestScoped
+public class PortfolioServiceImpl implements PortfolioService {
+
+    private static final int RECENT_REPAIRS_LIMIT = 10;
+    private static final long PORTFOLIO_TIMEOUT_MILLIS = 10_000;
+
+    private OwnerRepository ownerRepository;
+    private PropertyRepository propertyRepository;
+    private RepairRepository repairRepository;
+
+    @Resource
+    private ManagedExecutorService executor;
+
+    @Inject
+    public PortfolioServiceImpl(OwnerRepository ownerRepository, PropertyRepository propertyRepository,
+            RepairRepository repairRepository) {
+        this.ownerRepository = ownerRepository;
+        this.propertyRepository = propertyRepository;
+        this.repairRepository = repairRepository;
+    }
+
+    public PortfolioServiceImpl() {
+    }
+
+    /**
+     * Loads the owner, their non-deleted properties, their repair counts by
+     * status and their most recent repairs. The four queries are independent,
+     * so each one runs as a task of the container's managed executor and the
+     * portfolio is ready once the slowest of them returns. If any query fails,
+     * the remaining ones are cancelled.
+     *
+     * @param ownerId the ID of the owner.
+     * @return the Owner portfolio dto.
+     * @throws CustomException if the owner is not found or any query fails.
+     */
+    @Override
+    public OwnerPortfolioDto findOwnerPortfolio(Long ownerId) throws CustomException {
+        long deadline = System.currentTimeMillis() + PORTFOLIO_TIMEOUT_MILLIS;
+        Future<Optional<Owner>> ownerTask = executor.submit(() -> ownerRepository.findById(ownerId));
+        Future<List<Property>> propertiesTask = executor.submit(() -> propertyRepository.findLivePropertiesByOwnerID(ownerId));
+        Future<Map<RepairStatus, Long>> countsTask = executor.submit(() -> repairRepository.countRepairsByStatusForOwner(ownerId));
+        Future<List<Repair>> recentTask = executor.submit(() -> repairRepository.findRecentRepairsByOwnerID(ownerId, RECENT_REPAIRS_LIMIT));
+        try {
+            Optional<Owner> owner = join(ownerTask, deadline);
+            if (owner.isEmpty()) {
+                throw new CustomException("Owner with ID: " + ownerId + " not found");
+            }
+            List<Property> properties = join(propertiesTask, deadline);
+            Map<RepairStatus, Long> counts = join(countsTask, deadline);
+            List<Repair> recentRepairs = join(recentTask, deadline);
+
+            return new OwnerPortfolioDto(
+                    toOwnerDto(owner.get()),
+                    properties.stream().map(this::toPropertyDto).collect(Collectors.toList()),
+                    counts,
+                    recentRepairs.stream().map(this::toRepairDto).collect(Collectors.toList())
+            );
+        } finally {
+            // Stops the sub-queries still running after a failure; finished
+            // ones are not affected.
+            for (Future<?> task : List.of(ownerTask, propertiesTask, countsTask, recentTask)) {
+                task.cancel(true);
+            }
+        }
+    }
+
+    /**
+     * Waits for a sub-query until the portfolio deadline.
+     *
+     * @param task the sub-query to wait for.
+     * @param deadline the time in milliseconds by which all sub-queries must
+     * finish.
+     * @return the result of the sub-query.
+     * @throws CustomException if the sub-query fails, times out or is
+     * interrupted.
+     */
+    private <T> T join(Future<T> task, long deadline) throws CustomException {
+        try {
+            long remaining = Math.max(0, deadline - System.currentTimeMillis());
+            return task.get(remaining, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            log.debug("Portfolio query failed " + e.getCause());
+            throw new CustomException("Failed to load owner portfolio: " + e.getCause().getMessage());
+        } catch (TimeoutException e) {
+            throw new CustomException("Timed out while loading owner portfolio");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CustomException("Interrupted while loading owner portfolio");
+        }
+    }
+
+    private OwnerDto toOwnerDto(Owner owner) {
+        return new OwnerDto(
+                owner.getId(),
+                owner.getVat(),
+                owner.getName(),
+                owner.getSurname(),
+                owner.getAddress(),
+                owner.getPhoneNumber(),
+                owner.getEmail(),
+                owner.getPassword(),
+                owner.isDeleted()
+        );
+    }
+
+    private PropertyDto toPropertyDto(Property property) {
+        return new PropertyDto(
+                property.getId(),
+                property.getE9(),
+                property.getPropertyAddress(),
+                property.getConstructionYear(),
+                property.getPropertyType(),
+                property.getOwner().getVat(),
+                property.isDeleted()
+        );
+    }
+
+    private RepairDto toRepairDto(Repair repair) {
+        return new RepairDto(
+                repair.getId(),
+                repair.getProperty().getOwner().getVat(),
+                repair.getProperty().getE9(),
+                repair.getRepairType(),
+                repair.getShortDescription(),
+                repair.getSubmissionDate(),
+                repair.getDescription(),
+                repair.getScheduledStartDate(),
+                repair.getScheduledEndDate(),
+                repair.getProposedCost(),
+                repair.getAcceptanceStatus(),
+                repair.getRepairStatus(),
+                repair.getRepairAddress(),
+                repair.getActualStartDate(),
+                repair.getActualEndDate(),
+                repair.isDeleted()
+        );
+    }
+}
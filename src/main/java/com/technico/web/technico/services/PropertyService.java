@@ -1,6 +1,8 @@
 package com.technico.web.technico.services;
 
+import com.technico.web.technico.dtos.LookupResultDto;
 import com.technico.web.technico.dtos.PropertyDto;
+import com.technico.web.technico.dtos.PropertySearchDto;
 import com.technico.web.technico.exceptions.CustomException;
 import com.technico.web.technico.models.Property;
 import com.technico.web.technico.models.PropertyType;
@@ -13,13 +15,17 @@ public interface PropertyService {
 //    Property updatePropertyAddress(Property property, String address) throws CustomException;
 //    Property updatePropertyConstructionYear(Property property, int year) throws CustomException;
 //    Property updatePropertyType(Property property, PropertyType propertyType) throws CustomException;
-    Property findByE9(String e9) throws CustomException;
+    PropertyDto findByE9(String e9) throws CustomException;
 //    Property findByE9ForCreate(String e9) throws CustomException;
     List<Property> findByVAT(String vat) throws CustomException;
     List<Property> findByVATExcludeDeleted(String vat) throws CustomException;
     List<Property> findAllProperties();
     List<Property> findPropertyByOwnerID(Long id) throws CustomException;
     Property findByID(Long id) throws CustomException;
+    List<LookupResultDto<PropertyDto>> findPropertiesByIDs(List<Long> ids) throws CustomException;
+    List<LookupResultDto<PropertyDto>> findPropertiesByE9s(List<String> e9s) throws CustomException;
+    PropertySearchDto searchProperties(List<String> propertyTypes, Integer yearFrom, Integer yearTo,
+            List<Long> ownerIds, String deleted, Integer page, Integer size) throws CustomException;
     boolean safelyDeleteByID(Long id) throws CustomException;
     boolean permenantlyDeleteByID(Long id) throws CustomException;
     void validateE9(String e9) throws CustomException;    
@@ -1,15 +1,31 @@
 package com.technico.web.technico.services;
 
+import com.technico.web.technico.cache.CacheTags;
+import com.technico.web.technico.cache.ResponseCache;
+import com.technico.web.technico.cache.SingleFlight;
+import com.technico.web.technico.dtos.LookupResultDto;
 import com.technico.web.technico.dtos.PropertyDto;
+import com.technico.web.technico.dtos.PropertySearchDto;
+import com.technico.web.technico.events.PropertyChangedEvent;
+import com.technico.web.technico.events.PropertySnapshot;
+import com.technico.web.technico.events.RepairChangedEvent;
+import com.technico.web.technico.events.RepairSnapshot;
 import com.technico.web.technico.exceptions.CustomException;
 import com.technico.web.technico.models.Owner;
 import com.technico.web.technico.models.Property;
 import com.technico.web.technico.models.PropertyType;
+import com.technico.web.technico.repositories.OwnerRepository;
 import com.technico.web.technico.repositories.PropertyRepository;
+import com.technico.web.technico.search.PropertyFacetIndex;
+import com.technico.web.technico.search.PropertyFacetResult;
 import jakarta.enterprise.context.RequestScoped;
+import jakarta.enterprise.event.Event;
 import jakarta.inject.Inject;
 import jakarta.transaction.Transactional;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.stream.Collectors;
 import lombok.extern.slf4j.Slf4j;
@@ -18,13 +34,28 @@ import lombok.extern.slf4j.Slf4j;
 @RequestScoped
 public class PropertyServiceImpl implements PropertyService {
 
-    private OwnerService ownerServiceInterface;
+    private static final int DEFAULT_SEARCH_PAGE_SIZE = 20;
+    private static final int MAX_SEARCH_PAGE_SIZE = 200;
+
     private PropertyRepository propertyRepository;
+    private ResponseCache responseCache;
+    private SingleFlight singleFlight;
+    private OwnerRepository ownerRepository;
+    private Event<RepairChangedEvent> repairEvents;
+    private Event<PropertyChangedEvent> propertyEvents;
+    private PropertyFacetIndex facetIndex;
 
     @Inject
-    public PropertyServiceImpl(PropertyRepository propertyRepository, OwnerServiceImpl ownerService) {
+    public PropertyServiceImpl(PropertyRepository propertyRepository, ResponseCache responseCache,
+            SingleFlight singleFlight, OwnerRepository ownerRepository, Event<RepairChangedEvent> repairEvents,
+            Event<PropertyChangedEvent> propertyEvents, PropertyFacetIndex facetIndex) {
         this.propertyRepository = propertyRepository;
-        this.ownerServiceInterface = ownerService;
+        this.responseCache = responseCache;
+        this.singleFlight = singleFlight;
+        this.ownerRepository = ownerRepository;
+        this.repairEvents = repairEvents;
+        this.propertyEvents = propertyEvents;
+        this.facetIndex = facetIndex;
     }
 
     public PropertyServiceImpl() {
@@ -43,8 +74,9 @@ public class PropertyServiceImpl implements PropertyService {
      * saved.
      */
     @Override
+    @Transactional(rollbackOn = CustomException.class)
     public PropertyDto createProperty(String e9, String address, int year, PropertyType propertyType, String vat) throws CustomException {
-        Optional<Owner> searchOwner = ownerServiceInterface.searchOwnerByVat(vat);
+        Optional<Owner> searchOwner = ownerRepository.findByVat(vat);
         if (searchOwner.isEmpty()) {
             throw new CustomException("Not valid Vat");
         }
@@ -68,6 +100,8 @@ public class PropertyServiceImpl implements PropertyService {
 
         try {
             Optional<Property> savedProperty = propertyRepository.save(property);
+            responseCache.invalidate(CacheTags.of(savedProperty.get()));
+            propertyEvents.fire(new PropertyChangedEvent(null, PropertySnapshot.of(savedProperty.get())));
             return new PropertyDto(
                     savedProperty.get().getId(),
                     savedProperty.get().getE9(),
@@ -101,6 +135,8 @@ public class PropertyServiceImpl implements PropertyService {
             throw new CustomException("Cannot update a deleted property.");
         }
 
+        PropertySnapshot before = PropertySnapshot.of(property);
+        PropertyType previousType = property.getPropertyType();
         property.setPropertyAddress(propertyAddress);
         validateConstructionYear(String.valueOf(constructionYear));
         property.setConstructionYear(constructionYear);
@@ -109,6 +145,13 @@ public class PropertyServiceImpl implements PropertyService {
 
         try {
             Optional<Property> savedProperty = propertyRepository.save(property);
+            responseCache.invalidate(CacheTags.of(savedProperty.get()));
+            propertyEvents.fire(new PropertyChangedEvent(before, PropertySnapshot.of(savedProperty.get())));
+            if (previousType != propertyType) {
+                for (RepairSnapshot repair : RepairSnapshot.ofRepairs(savedProperty.get())) {
+                    repairEvents.fire(new RepairChangedEvent(repair.withPropertyType(previousType), repair));
+                }
+            }
             return new PropertyDto(
                     savedProperty.get().getId(),
                     savedProperty.get().getE9(),
@@ -217,15 +260,19 @@ public class PropertyServiceImpl implements PropertyService {
 //        }
 //    }
     /**
-     * Finds a property by its E9 identifier.
+     * Finds a property by its E9 identifier. Concurrent lookups of the same E9
+     * share one query.
      *
      * @param e9 the E9 identifier of the property to be found
      * @return the property with the given E9
-     * @throws CustomException if the property with the given E9 is not found
+     * @throws CustomException if the E9 is invalid or the property with the
+     * given E9 is not found
      */
     @Override
-    public Property findByE9(String e9) throws CustomException {
-        Optional<Property> property = propertyRepository.findPropertyByE9(e9);
+    public PropertyDto findByE9(String e9) throws CustomException {
+        validateE9(e9);
+        Optional<PropertyDto> property = singleFlight.execute("propertyByE9", e9,
+                () -> propertyRepository.findPropertiesByE9s(List.of(e9)).stream().findFirst());
 
         if (property.isEmpty()) {
             throw new CustomException("Property with E9 " + e9 + " not found");
@@ -311,6 +358,106 @@ public class PropertyServiceImpl implements PropertyService {
         return property.get();
     }
 
+    /**
+     * Finds many properties by ID with batched queries. Like
+     * {@link #findByID(Long)}, deleted properties count as not found.
+     *
+     * @param ids the IDs of the properties, in the order the results are
+     * wanted.
+     * @return one result per requested ID, in request order, marking the IDs
+     * that were not found.
+     * @throws CustomException if no IDs or too many IDs are given.
+     */
+    @Override
+    public List<LookupResultDto<PropertyDto>> findPropertiesByIDs(List<Long> ids) throws CustomException {
+        BatchLookups.validateKeys(ids);
+        return BatchLookups.inRequestOrder(ids, propertyRepository.findPropertiesByIDs(ids), PropertyDto::getId,
+                PropertyDto::isDeleted);
+    }
+
+    /**
+     * Finds many properties by E9 with batched queries. Deleted properties
+     * count as not found.
+     *
+     * @param e9s the E9 identifiers of the properties, in the order the
+     * results are wanted.
+     * @return one result per requested E9, in request order, marking the E9
+     * identifiers that were not found.
+     * @throws CustomException if no E9 identifiers or too many are given.
+     */
+    @Override
+    public List<LookupResultDto<PropertyDto>> findPropertiesByE9s(List<String> e9s) throws CustomException {
+        BatchLookups.validateKeys(e9s);
+        return BatchLookups.inRequestOrder(e9s, propertyRepository.findPropertiesByE9s(e9s), PropertyDto::getE9,
+                PropertyDto::isDeleted);
+    }
+
+    /**
+     * Searches the properties by type, construction year range, owner and
+     * deleted flag with the facet index, and loads only the requested page.
+     * Several types or owners match any of them.
+     *
+     * @param propertyTypes the property types, or empty for any type.
+     * @param yearFrom the earliest construction year, if given.
+     * @param yearTo the latest construction year, if given.
+     * @param ownerIds the IDs of the owners, or empty for any owner.
+     * @param deleted "false" for non-deleted properties, the default, "true"
+     * for deleted ones or "any" for both.
+     * @param page the zero-based page, 0 if not given.
+     * @param size the page size, 20 if not given.
+     * @return the number of matches, the page of Property dtos in ID order and
+     * the facet counts.
+     * @throws CustomException if a filter is not valid or the index is still
+     * loading.
+     */
+    @Override
+    public PropertySearchDto searchProperties(List<String> propertyTypes, Integer yearFrom, Integer yearTo,
+            List<Long> ownerIds, String deleted, Integer page, Integer size) throws CustomException {
+        List<PropertyType> types = new ArrayList<>();
+        for (String type : propertyTypes == null ? List.<String>of() : propertyTypes) {
+            try {
+                types.add(PropertyType.valueOf(type.trim().toUpperCase()));
+            } catch (IllegalArgumentException e) {
+                throw new CustomException("Invalid property type provided.");
+            }
+        }
+        if (yearFrom != null && yearTo != null && yearFrom > yearTo) {
+            throw new CustomException("The first construction year must not be after the last.");
+        }
+        Boolean deletedFilter;
+        if (deleted == null || deleted.isBlank() || deleted.equalsIgnoreCase("false")) {
+            deletedFilter = false;
+        } else if (deleted.equalsIgnoreCase("true")) {
+            deletedFilter = true;
+        } else if (deleted.equalsIgnoreCase("any")) {
+            deletedFilter = null;
+        } else {
+            throw new CustomException("Deleted must be true, false or any.");
+        }
+        int pageNumber = page == null ? 0 : page;
+        int pageSize = size == null ? DEFAULT_SEARCH_PAGE_SIZE : size;
+        if (pageNumber < 0 || pageSize < 1 || pageSize > MAX_SEARCH_PAGE_SIZE) {
+            throw new CustomException("The page must not be negative and the size must be between 1 and "
+                    + MAX_SEARCH_PAGE_SIZE + ".");
+        }
+        if (!facetIndex.isLoaded()) {
+            throw new CustomException("The property search index is still loading, try again shortly.");
+        }
+
+        long offset = (long) pageNumber * pageSize;
+        PropertyFacetResult result = facetIndex.search(types, yearFrom, yearTo,
+                ownerIds == null ? List.of() : ownerIds, deletedFilter,
+                (int) Math.min(offset, Integer.MAX_VALUE), pageSize);
+        Map<Long, PropertyDto> loaded = result.getPageIds().isEmpty() ? Map.of()
+                : propertyRepository.findPropertiesByIDs(result.getPageIds()).stream()
+                        .collect(Collectors.toMap(PropertyDto::getId, property -> property));
+        List<PropertyDto> items = result.getPageIds().stream()
+                .map(loaded::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+        return new PropertySearchDto(result.getTotal(), pageNumber, pageSize, items, result.getFacets());
+    }
+
     /**
      * Retrieves all properties from the repository.
      *
@@ -345,9 +492,12 @@ public class PropertyServiceImpl implements PropertyService {
     @Transactional
     public boolean safelyDeleteByID(Long id) throws CustomException {
         Property property = findByID(id);
+        PropertySnapshot before = PropertySnapshot.of(property);
         property.setDeleted(true);
         try {
             propertyRepository.save(property);
+            responseCache.invalidate(CacheTags.ofGraph(property));
+            propertyEvents.fire(new PropertyChangedEvent(before, PropertySnapshot.of(property)));
             return true;
         } catch (Exception e) {
             throw new CustomException("Failed to safely delete property with ID : " + id);
@@ -362,11 +512,21 @@ public class PropertyServiceImpl implements PropertyService {
      * @throws CustomException if the property could not be deleted
      */
     @Override
+    @Transactional
     public boolean permenantlyDeleteByID(Long id) throws CustomException {
+        Optional<Property> property = propertyRepository.findById(id);
+        List<String> tags = property.map(CacheTags::ofGraph).orElse(List.of());
+        Optional<PropertySnapshot> before = property.map(PropertySnapshot::of);
+        List<RepairSnapshot> repairs = property.map(RepairSnapshot::ofRepairs).orElse(List.of());
         boolean success = propertyRepository.deleteById(id);
         if (!success) {
             throw new CustomException("Failed to permanently delete property with ID: " + id);
         }
+        responseCache.invalidate(tags);
+        before.ifPresent(snapshot -> propertyEvents.fire(new PropertyChangedEvent(snapshot, null)));
+        for (RepairSnapshot repair : repairs) {
+            repairEvents.fire(new RepairChangedEvent(repair, null));
+        }
         return true;
     }
 
@@ -0,0 +1,128 @@
+package com.technico.web.technico.services;
+
+import com.technico.web.technico.events.RepairChangedEvent;
+import com.technico.web.technico.events.RepairSnapshot;
+import com.technico.web.technico.models.RepairCostRollupKey;
+import com.technico.web.technico.models.RepairDayCount;
+import com.technico.web.technico.models.RepairDayCountKey;
+import com.technico.web.technico.repositories.RepairRollupRepository;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.context.Initialized;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.Objects;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Keeps the repair cost rollups and day counts in step with the repairs.
+ * Every change is applied as a delta inside the transaction of the write, so
+ * the rollups commit or roll back together with the repair: the old cell of
+ * the repair loses it and the new cell gains it. Deleted repairs are not
+ * counted, and unscheduled repairs have no day to be counted on.
+ */
+@Slf4j
+@ApplicationScoped
+public class RepairRollupObserver {
+
+    @Inject
+    private RepairRollupRepository rollupRepository;
+
+    /**
+     * Builds the rollups and day counts when the application starts for the
+     * first time without them, so that existing repairs are reported.
+     *
+     * @param event the application start.
+     */
+    void onStartup(@Observes @Initialized(ApplicationScoped.class) Object event) {
+        try {
+            if (rollupRepository.isEmpty()) {
+                int rows = rollupRepository.rebuildRollups();
+                log.info("Built {} repair cost rollup rows", rows);
+            }
+            if (rollupRepository.isDayCountEmpty()) {
+                int rows = rollupRepository.rebuildDayCounts();
+                log.info("Built {} repair day count rows", rows);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Could not build the repair rollups at startup", e);
+        }
+    }
+
+    /**
+     * Moves a changed repair between rollup cells.
+     *
+     * @param event the change.
+     */
+    void onRepairChanged(@Observes RepairChangedEvent event) {
+        RepairSnapshot before = counted(event.getBefore());
+        RepairSnapshot after = counted(event.getAfter());
+        updateDayCounts(before, after);
+        if (before != null && after != null && keyOf(before).equals(keyOf(after))) {
+            BigDecimal costDelta = costOf(after).subtract(costOf(before));
+            if (costDelta.signum() != 0) {
+                apply(keyOf(after), 0, costDelta);
+            }
+            return;
+        }
+        if (before != null) {
+            apply(keyOf(before), -1, costOf(before).negate());
+        }
+        if (after != null) {
+            apply(keyOf(after), 1, costOf(after));
+        }
+    }
+
+    private static String monthOf(LocalDateTime scheduledStartDate) {
+        return scheduledStartDate == null ? "" : YearMonth.from(scheduledStartDate).toString();
+    }
+
+    private void updateDayCounts(RepairSnapshot before, RepairSnapshot after) {
+        RepairDayCountKey removed = before == null ? null : dayKeyOf(before);
+        RepairDayCountKey added = after == null ? null : dayKeyOf(after);
+        if (Objects.equals(removed, added)) {
+            return;
+        }
+        if (removed != null) {
+            applyDayCount(removed, -1);
+        }
+        if (added != null) {
+            applyDayCount(added, 1);
+        }
+    }
+
+    private void applyDayCount(RepairDayCountKey key, long count) {
+        rollupRepository.addToDayCount(key.getOwnerId(), key.getDay(), key.getRepairStatus(), key.getRepairType(),
+                count);
+        rollupRepository.addToDayCount(RepairDayCount.ALL_OWNERS, key.getDay(), key.getRepairStatus(),
+                key.getRepairType(), count);
+    }
+
+    private static RepairDayCountKey dayKeyOf(RepairSnapshot snapshot) {
+        if (snapshot.getScheduledStartDate() == null || snapshot.getOwnerId() == null) {
+            return null;
+        }
+        return new RepairDayCountKey(snapshot.getOwnerId(), snapshot.getScheduledStartDate().toLocalDate(),
+                snapshot.getRepairStatus(), snapshot.getRepairType());
+    }
+
+    private void apply(RepairCostRollupKey key, long count, BigDecimal cost) {
+        rollupRepository.addToRollup(key.getRepairType(), key.getRepairStatus(), key.getPropertyType(),
+                key.getMonth(), count, cost);
+    }
+
+    private static RepairSnapshot counted(RepairSnapshot snapshot) {
+        return snapshot == null || snapshot.isDeleted() ? null : snapshot;
+    }
+
+    private static RepairCostRollupKey keyOf(RepairSnapshot snapshot) {
+        return new RepairCostRollupKey(snapshot.getRepairType(), snapshot.getRepairStatus(),
+                snapshot.getPropertyType(), monthOf(snapshot.getScheduledStartDate()));
+    }
+
+    private static BigDecimal costOf(RepairSnapshot snapshot) {
+        return snapshot.getProposedCost() == null ? BigDecimal.ZERO : snapshot.getProposedCost();
+    }
+}
@@ -1,23 +1,31 @@
 package com.technico.web.technico.services;
 
+import com.technico.web.technico.dtos.LookupResultDto;
+import com.technico.web.technico.dtos.RepairClaimDto;
 import com.technico.web.technico.dtos.RepairDto;
+import com.technico.web.technico.dtos.RepairDuplicateDto;
+import com.technico.web.technico.dtos.RepairSlotDto;
+import com.technico.web.technico.dtos.RepairTextSearchDto;
+import com.technico.web.technico.dtos.RepairTransitionResultDto;
 import com.technico.web.technico.exceptions.CustomException;
 import com.technico.web.technico.models.Owner;
 import com.technico.web.technico.models.Property;
 import com.technico.web.technico.models.Repair;
 import com.technico.web.technico.models.RepairStatus;
 import com.technico.web.technico.models.RepairType;
+import jakarta.ws.rs.sse.Sse;
+import jakarta.ws.rs.sse.SseEventSink;
 import java.math.BigDecimal;
-import java.util.Date;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
 public interface RepairService {
 
     RepairDto createRepair(String e9, RepairType repairType, String description,
-            Date scheduledStartDate, Date scheduledEndDate, BigDecimal proposedCost)throws CustomException;
+            LocalDateTime scheduledStartDate, LocalDateTime scheduledEndDate, BigDecimal proposedCost)throws CustomException;
 
-    RepairDto updateRepairAdmin(Long id, RepairType repairType, Date scheduledEndDate, Date scheduledStartDate,
+    RepairDto updateRepairAdmin(Long id, RepairType repairType, LocalDateTime scheduledEndDate, LocalDateTime scheduledStartDate,
             String description, String repairAddress, RepairStatus repairStatus, BigDecimal proposedCost)throws CustomException;
         
 
@@ -57,7 +65,7 @@ public interface RepairService {
 //
 //    List<Repair> findRepairsByRangeOfDates(String startDate, String endDate, Owner owner);
     
-    List<Repair> findRepairsByDate(Date repairDate);
+    List<Repair> findRepairsByDate(LocalDateTime repairDate);
     
     public List<Repair> findRepairsByOwner(Long id) throws CustomException;
 
@@ -67,6 +75,26 @@ public interface RepairService {
     
     Optional<Repair> findRepairById(Long id);
 
+    List<LookupResultDto<RepairDto>> findRepairsByIDs(List<Long> ids) throws CustomException;
+
+    List<RepairTransitionResultDto> transitionRepairs(List<Long> ids, RepairStatus repairStatus) throws CustomException;
+
+    List<RepairClaimDto> claimRepairs(RepairType repairType, int count, String worker, long leaseSeconds) throws CustomException;
+
+    boolean releaseClaim(Long id, String worker) throws CustomException;
+
+    RepairTextSearchDto searchRepairText(String query, Integer page, Integer size) throws CustomException;
+
+    int rebuildTextIndex() throws CustomException;
+
+    List<RepairDuplicateDto> findDuplicateRepairs() throws CustomException;
+
+    int reloadDuplicateIndex() throws CustomException;
+
+    List<RepairSlotDto> findAvailability(String e9, RepairType repairType, String from, String to) throws CustomException;
+
+    void subscribeRepairEvents(Long ownerId, String lastEventId, SseEventSink sink, Sse sse) throws CustomException;
+
     void validateType(int repairType) throws CustomException;
 
     public void validateDesc(String description) throws CustomException;
@@ -1,16 +1,39 @@
 package com.technico.web.technico.services;
 
+import com.technico.web.technico.cache.CacheTags;
+import com.technico.web.technico.cache.ResponseCache;
+import com.technico.web.technico.dtos.LookupResultDto;
+import com.technico.web.technico.dtos.RepairClaimDto;
 import com.technico.web.technico.dtos.RepairDto;
+import com.technico.web.technico.dtos.RepairDuplicateDto;
+import com.technico.web.technico.dtos.RepairSlotDto;
+import com.technico.web.technico.dtos.RepairStateDto;
+import com.technico.web.technico.dtos.RepairTextHitDto;
+import com.technico.web.technico.dtos.RepairTextSearchDto;
+import com.technico.web.technico.dtos.RepairTransitionResultDto;
+import com.technico.web.technico.events.RepairChangedEvent;
+import com.technico.web.technico.events.RepairEventBus;
+import com.technico.web.technico.events.RepairSnapshot;
 import com.technico.web.technico.exceptions.CustomException;
 import com.technico.web.technico.models.Owner;
 import com.technico.web.technico.models.Property;
 import com.technico.web.technico.models.Repair;
 import com.technico.web.technico.models.RepairStatus;
 import com.technico.web.technico.models.RepairType;
+import com.technico.web.technico.providers.ObjectMapperProvider;
+import com.technico.web.technico.repositories.PropertyRepository;
 import com.technico.web.technico.repositories.RepairRepository;
+import com.technico.web.technico.scheduling.RepairSchedule;
+import com.technico.web.technico.search.RepairDuplicateIndex;
+import com.technico.web.technico.search.RepairTextIndex;
+import com.technico.web.technico.search.RepairTextResult;
 import jakarta.enterprise.context.RequestScoped;
+import jakarta.enterprise.event.Event;
 import jakarta.inject.Inject;
 import jakarta.transaction.Transactional;
+import jakarta.ws.rs.sse.Sse;
+import jakarta.ws.rs.sse.SseEventSink;
+import java.io.IOException;
 import java.math.BigDecimal;
 import java.time.Instant;
 import java.time.LocalDate;
@@ -18,10 +41,16 @@ import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
 import java.util.Collections;
-import java.util.Date;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.stream.Collectors;
 import lombok.extern.slf4j.Slf4j;
 
@@ -29,13 +58,40 @@ import lombok.extern.slf4j.Slf4j;
 @RequestScoped
 public class RepairServiceImpl implements RepairService {
 
+    private static final int MAX_CLAIM_COUNT = 50;
+    private static final long MAX_LEASE_SECONDS = 8 * 60 * 60;
+    private static final int DEFAULT_TEXT_PAGE_SIZE = 20;
+    private static final int MAX_TEXT_PAGE_SIZE = 100;
+    private static final int MAX_TEXT_RESULTS = 10_000;
+    private static final int MAX_QUERY_LENGTH = 200;
+    private static final long MAX_AVAILABILITY_DAYS = 366;
+    private static final boolean REJECT_DUPLICATES
+            = "reject".equalsIgnoreCase(System.getProperty("technico.repairs.duplicates", "flag"));
+
     private RepairRepository repairRepository;
     private PropertyService propertyServiceInterface;
+    private ResponseCache responseCache;
+    private PropertyRepository propertyRepository;
+    private Event<RepairChangedEvent> repairEvents;
+    private RepairTextIndex textIndex;
+    private RepairDuplicateIndex duplicateIndex;
+    private RepairSchedule schedule;
+    private RepairEventBus eventBus;
 
     @Inject
-    public RepairServiceImpl(RepairRepository repairRepository, PropertyServiceImpl propertyService) {
+    public RepairServiceImpl(RepairRepository repairRepository, PropertyServiceImpl propertyService,
+            ResponseCache responseCache, PropertyRepository propertyRepository, Event<RepairChangedEvent> repairEvents,
+            RepairTextIndex textIndex, RepairDuplicateIndex duplicateIndex, RepairSchedule schedule,
+            RepairEventBus eventBus) {
         this.repairRepository = repairRepository;
         this.propertyServiceInterface = propertyService;
+        this.responseCache = responseCache;
+        this.propertyRepository = propertyRepository;
+        this.repairEvents = repairEvents;
+        this.textIndex = textIndex;
+        this.duplicateIndex = duplicateIndex;
+        this.schedule = schedule;
+        this.eventBus = eventBus;
     }
 
     public RepairServiceImpl() {
@@ -50,20 +106,28 @@ public class RepairServiceImpl implements RepairService {
      * @param scheduledEndDate
      * @param proposedCost
      * @param e9
-     * @return The created Repair dto object with the specified details.
-     * @throws CustomException If the provided property is deleted, or if any of
-     * the validation fails for the repair type or description.
+     * @return The created Repair dto object with the specified details, with
+     * the ID of the open repair it likely duplicates, if any.
+     * @throws CustomException If the provided property is deleted, if any of
+     * the validation fails for the repair type or description, if the
+     * scheduled window is taken, or if the repair likely duplicates an open
+     * one and duplicates are rejected.
      */
     @Override
+    @Transactional
     public RepairDto createRepair(String e9, RepairType repairType, String description,
-            Date scheduledStartDate, Date scheduledEndDate, BigDecimal proposedCost) throws CustomException {
-        Property property = propertyServiceInterface.findByE9(e9);
-
-        if (property == null) {
-            throw new CustomException("Property id not inserted.");
-        }
+            LocalDateTime scheduledStartDate, LocalDateTime scheduledEndDate, BigDecimal proposedCost) throws CustomException {
+        Property property = propertyRepository.findPropertyByE9(e9)
+                .orElseThrow(() -> new CustomException("Property with E9 " + e9 + " not found"));
         validateRepairType(repairType);
         validateDesc(description);
+        Optional<Long> duplicateOf = duplicateIndex.findDuplicate(property.getE9(), repairType,
+                scheduledStartDate, scheduledEndDate, description);
+        if (duplicateOf.isPresent() && REJECT_DUPLICATES) {
+            throw new CustomException("The repair looks like a duplicate of repair " + duplicateOf.get() + ".");
+        }
+        RepairSchedule.Reservation reservation = schedule.reserve(null, property.getE9(), repairType,
+                scheduledStartDate, scheduledEndDate);
         Repair repair = new Repair();
         repair.setScheduledStartDate(scheduledStartDate);
         repair.setScheduledEndDate(scheduledEndDate);
@@ -74,7 +138,12 @@ public class RepairServiceImpl implements RepairService {
         repair.setProperty(property);
         repair.setProposedCost(proposedCost);
         Optional<Repair> savedRepair = repairRepository.save(repair);
-        return new RepairDto(
+        responseCache.invalidate(CacheTags.of(savedRepair.get()));
+        schedule.bind(reservation, savedRepair.get().getId());
+        repairEvents.fire(new RepairChangedEvent(null, RepairSnapshot.of(savedRepair.get())));
+        duplicateOf.ifPresent(id -> log.info("Repair {} looks like a duplicate of repair {}",
+                savedRepair.get().getId(), id));
+        RepairDto created = new RepairDto(
                 savedRepair.get().getId(),
                 savedRepair.get().getProperty().getOwner().getVat(),
                 savedRepair.get().getProperty().getE9(),
@@ -92,6 +161,8 @@ public class RepairServiceImpl implements RepairService {
                 savedRepair.get().getActualEndDate(),
                 savedRepair.get().isDeleted()
         );
+        created.setDuplicateOfId(duplicateOf.orElse(null));
+        return created;
     }
 
     /**
@@ -111,12 +182,16 @@ public class RepairServiceImpl implements RepairService {
      */
     @Override
     @Transactional
-    public RepairDto updateRepairAdmin(Long id, RepairType repairType, Date scheduledStartDate, Date scheduledEndDate,
+    public RepairDto updateRepairAdmin(Long id, RepairType repairType, LocalDateTime scheduledStartDate, LocalDateTime scheduledEndDate,
             String description, String repairAddress, RepairStatus repairStatus, BigDecimal proposedCost) throws CustomException {
         Repair repair = repairRepository.findById(id).get();
         if (repair.isDeleted()) {
             throw new CustomException("Cannot update a deleted property.");
         }
+        RepairSnapshot before = RepairSnapshot.of(repair);
+        if (repairStatus == RepairStatus.PENDING || repairStatus == RepairStatus.INPROGRESS) {
+            schedule.reserve(id, repair.getProperty().getE9(), repairType, scheduledStartDate, scheduledEndDate);
+        }
 
         repair.setScheduledStartDate(scheduledStartDate);
         repair.setScheduledEndDate(scheduledEndDate);
@@ -129,6 +204,8 @@ public class RepairServiceImpl implements RepairService {
         repair.setProposedCost(proposedCost);
 
         Optional<Repair> savedRepair = repairRepository.save(repair);
+        responseCache.invalidate(CacheTags.of(savedRepair.get()));
+        repairEvents.fire(new RepairChangedEvent(before, RepairSnapshot.of(savedRepair.get())));
         return new RepairDto(
                 savedRepair.get().getId(),
                 savedRepair.get().getProperty().getOwner().getVat(),
@@ -159,8 +236,9 @@ public class RepairServiceImpl implements RepairService {
      * @param description
      * @param repairAddress
      * @return The updated Repair dto object with the specified details.
-     * @throws CustomException If the provided repair is deleted, or if any of
-     * the validation fails for the repair type or description.
+     * @throws CustomException If the provided repair is deleted, if any of
+     * the validation fails for the repair type or description, or if no crew
+     * of the new repair type is free for the scheduled window.
      */
     @Override
     @Transactional
@@ -169,14 +247,23 @@ public class RepairServiceImpl implements RepairService {
         if (repair.isDeleted()) {
             throw new CustomException("Cannot update a deleted repair.");
         }
+        RepairSnapshot before = RepairSnapshot.of(repair);
 
         validateRepairType(repairType);
+        if (repairType != repair.getRepairType() && (repair.getRepairStatus() == RepairStatus.PENDING
+                || repair.getRepairStatus() == RepairStatus.INPROGRESS)) {
+            // The scheduled window moves to the crews of the new type.
+            schedule.reserve(id, repair.getProperty().getE9(), repairType, repair.getScheduledStartDate(),
+                    repair.getScheduledEndDate());
+        }
         repair.setRepairType(repairType);
         validateDesc(description);
         repair.setDescription(description);
         repair.setRepairAddress(repairAddress);
 
         Optional<Repair> savedRepair = repairRepository.save(repair);
+        responseCache.invalidate(CacheTags.of(savedRepair.get()));
+        repairEvents.fire(new RepairChangedEvent(before, RepairSnapshot.of(savedRepair.get())));
         return new RepairDto(
                 savedRepair.get().getId(),
                 savedRepair.get().getProperty().getOwner().getVat(),
@@ -486,7 +573,7 @@ public class RepairServiceImpl implements RepairService {
      * @return a list of repairs performed on the specified date
      */
     @Override
-    public List<Repair> findRepairsByDate(Date repairDate) {
+    public List<Repair> findRepairsByDate(LocalDateTime repairDate) {
         return repairRepository.findRepairsByDate(repairDate);
     }
 
@@ -503,6 +590,308 @@ public class RepairServiceImpl implements RepairService {
         return repairRepository.findById(id);
     }
 
+    /**
+     * Retrieves many repairs by ID with batched queries. Deleted repairs count
+     * as not found.
+     *
+     * @param ids the IDs of the repairs, in the order the results are wanted.
+     * @return one result per requested ID, in request order, marking the IDs
+     * that were not found.
+     * @throws CustomException if no IDs or too many IDs are given.
+     */
+    @Override
+    public List<LookupResultDto<RepairDto>> findRepairsByIDs(List<Long> ids) throws CustomException {
+        BatchLookups.validateKeys(ids);
+        return BatchLookups.inRequestOrder(ids, repairRepository.findRepairsByIDs(ids), RepairDto::getId,
+                repair -> Boolean.TRUE.equals(repair.getIsDeleted()));
+    }
+
+    /**
+     * Moves many repairs to a new status at once. The repairs are locked, each
+     * one is checked against the legal transitions of its current status, and
+     * the legal ones are updated together with set-based UPDATEs that also
+     * stamp the actual start and end dates.
+     *
+     * @param ids the IDs of the repairs.
+     * @param repairStatus the status to move the repairs to.
+     * @return one outcome per requested ID, in request order.
+     * @throws CustomException if no IDs, too many IDs or no status are given.
+     */
+    @Override
+    @Transactional
+    public List<RepairTransitionResultDto> transitionRepairs(List<Long> ids, RepairStatus repairStatus) throws CustomException {
+        BatchLookups.validateKeys(ids);
+        if (repairStatus == null) {
+            throw new CustomException("Repair status cannot be null.");
+        }
+        Map<Long, RepairStateDto> states = new HashMap<>();
+        for (RepairStateDto state : repairRepository.lockRepairStates(ids)) {
+            states.put(state.getId(), state);
+        }
+
+        List<RepairTransitionResultDto> results = new ArrayList<>(ids.size());
+        Set<Long> transitioned = new LinkedHashSet<>();
+        List<String> tags = new ArrayList<>();
+        for (Long id : ids) {
+            RepairStateDto state = states.get(id);
+            if (state == null) {
+                results.add(new RepairTransitionResultDto(id, RepairTransitionResultDto.Outcome.NOT_FOUND, null, null));
+                continue;
+            }
+            RepairStatus previous = state.getRepairStatus();
+            RepairTransitionResultDto.Outcome outcome;
+            if (state.isDeleted()) {
+                outcome = RepairTransitionResultDto.Outcome.DELETED;
+            } else if (previous == repairStatus) {
+                outcome = RepairTransitionResultDto.Outcome.UNCHANGED;
+            } else if (!previous.canTransitionTo(repairStatus)) {
+                outcome = RepairTransitionResultDto.Outcome.ILLEGAL_TRANSITION;
+            } else {
+                outcome = RepairTransitionResultDto.Outcome.TRANSITIONED;
+                if (transitioned.add(id)) {
+                    tags.addAll(CacheTags.ofRepair(id, state.getOwnerId()));
+                }
+            }
+            results.add(new RepairTransitionResultDto(id, outcome, previous,
+                    outcome == RepairTransitionResultDto.Outcome.TRANSITIONED ? repairStatus : previous));
+        }
+
+        if (!transitioned.isEmpty()) {
+            List<RepairSnapshot> before = repairRepository.findRepairSnapshots(transitioned);
+            repairRepository.updateRepairStatuses(transitioned, repairStatus, LocalDateTime.now());
+            responseCache.invalidate(tags);
+            Map<Long, RepairSnapshot> after = repairRepository.findRepairSnapshots(transitioned).stream()
+                    .collect(Collectors.toMap(RepairSnapshot::getId, snapshot -> snapshot));
+            for (RepairSnapshot snapshot : before) {
+                repairEvents.fire(new RepairChangedEvent(snapshot, after.get(snapshot.getId())));
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Claims the next pending repairs for a technician. Concurrent claims skip
+     * the repairs other claims have locked instead of waiting for them, so no
+     * repair is handed to two technicians. The claim is a lease: unless the
+     * repair is started before the lease expires, it becomes claimable again.
+     *
+     * @param repairType the type of repairs to claim, or null for any type.
+     * @param count how many repairs to claim, at most 50.
+     * @param worker the technician claiming the repairs.
+     * @param leaseSeconds how long the claim lasts, at most eight hours.
+     * @return the claimed repairs, oldest first; fewer than count, or none,
+     * if there is not enough pending work.
+     * @throws CustomException if the count, worker or lease is not valid.
+     */
+    @Override
+    @Transactional
+    public List<RepairClaimDto> claimRepairs(RepairType repairType, int count, String worker, long leaseSeconds)
+            throws CustomException {
+        if (count < 1 || count > MAX_CLAIM_COUNT) {
+            throw new CustomException("Count must be between 1 and " + MAX_CLAIM_COUNT + ".");
+        }
+        validateWorker(worker);
+        if (leaseSeconds < 1 || leaseSeconds > MAX_LEASE_SECONDS) {
+            throw new CustomException("Lease must be between 1 and " + MAX_LEASE_SECONDS + " seconds.");
+        }
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime leaseExpiresAt = now.plusSeconds(leaseSeconds);
+        List<Long> ids = repairRepository.claimPendingRepairs(repairType, count, worker, now, leaseExpiresAt);
+        if (ids.isEmpty()) {
+            return Collections.emptyList();
+        }
+        return repairRepository.findRepairsByIDs(ids).stream()
+                .sorted(Comparator.comparing(RepairDto::getId))
+                .map(repair -> new RepairClaimDto(repair, worker, leaseExpiresAt))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Hands a claimed repair back before its lease expires.
+     *
+     * @param id the ID of the repair.
+     * @param worker the technician holding the claim.
+     * @return true if the technician held the claim and it was released,
+     * false otherwise.
+     * @throws CustomException if the worker is not valid.
+     */
+    @Override
+    public boolean releaseClaim(Long id, String worker) throws CustomException {
+        validateWorker(worker);
+        return repairRepository.releaseClaim(id, worker);
+    }
+
+    /**
+     * Searches the short descriptions and descriptions of the non-deleted
+     * repairs, best matches first, and loads only the requested page.
+     *
+     * @param query the words to search for.
+     * @param page the zero-based page, 0 if not given.
+     * @param size the page size, 20 if not given.
+     * @return the number of matches and the page of repairs with their
+     * scores.
+     * @throws CustomException if the query or paging is not valid, or the
+     * index is not available.
+     */
+    @Override
+    public RepairTextSearchDto searchRepairText(String query, Integer page, Integer size) throws CustomException {
+        if (query == null || query.isBlank() || query.length() > MAX_QUERY_LENGTH) {
+            throw new CustomException("The query must be between 1 and " + MAX_QUERY_LENGTH + " characters.");
+        }
+        int pageNumber = page == null ? 0 : page;
+        int pageSize = size == null ? DEFAULT_TEXT_PAGE_SIZE : size;
+        if (pageNumber < 0 || pageSize < 1 || pageSize > MAX_TEXT_PAGE_SIZE
+                || (long) (pageNumber + 1) * pageSize > MAX_TEXT_RESULTS) {
+            throw new CustomException("Only the first " + MAX_TEXT_RESULTS + " matches can be paged through, "
+                    + "at most " + MAX_TEXT_PAGE_SIZE + " at a time.");
+        }
+        if (!textIndex.isReady()) {
+            throw new CustomException("The repair text index is not available, try again shortly.");
+        }
+
+        RepairTextResult result;
+        try {
+            result = textIndex.search(query, pageNumber * pageSize, pageSize);
+        } catch (IOException e) {
+            log.warn("Repair text search for {} failed", query, e);
+            throw new CustomException("Failed to search the repairs.");
+        }
+        Map<Long, RepairDto> repairs = result.getPageScores().isEmpty() ? Map.of()
+                : repairRepository.findRepairsByIDs(result.getPageScores().keySet()).stream()
+                        .collect(Collectors.toMap(RepairDto::getId, repair -> repair));
+        List<RepairTextHitDto> items = new ArrayList<>();
+        result.getPageScores().forEach((id, score) -> {
+            RepairDto repair = repairs.get(id);
+            if (repair != null) {
+                items.add(new RepairTextHitDto(score, repair));
+            }
+        });
+        return new RepairTextSearchDto(query, result.getTotal(), pageNumber, pageSize, items);
+    }
+
+    /**
+     * Rebuilds the repair text index from the database.
+     *
+     * @return the number of repairs indexed.
+     * @throws CustomException if a rebuild is already running or the index
+     * cannot be written.
+     */
+    @Override
+    public int rebuildTextIndex() throws CustomException {
+        int indexed;
+        try {
+            indexed = textIndex.rebuild();
+        } catch (IOException e) {
+            log.warn("Rebuilding the repair text index failed", e);
+            throw new CustomException("Failed to rebuild the repair text index.");
+        }
+        if (indexed < 0) {
+            throw new CustomException("The repair text index is already being rebuilt.");
+        }
+        return indexed;
+    }
+
+    /**
+     * Lists the open repairs that likely duplicate an earlier open repair of
+     * the same property and type, for the dispatch backlog.
+     *
+     * @return the likely duplicates, by E9, repair type and ID.
+     * @throws CustomException if the duplicate index is still loading.
+     */
+    @Override
+    public List<RepairDuplicateDto> findDuplicateRepairs() throws CustomException {
+        if (!duplicateIndex.isLoaded()) {
+            throw new CustomException("The repair duplicate index is still loading, try again shortly.");
+        }
+        return duplicateIndex.findDuplicates();
+    }
+
+    /**
+     * Reloads the repair duplicate index from the database.
+     *
+     * @return the number of open repairs indexed.
+     * @throws CustomException if a reload is already running.
+     */
+    @Override
+    public int reloadDuplicateIndex() throws CustomException {
+        int indexed = duplicateIndex.reload();
+        if (indexed < 0) {
+            throw new CustomException("The repair duplicate index is already being reloaded.");
+        }
+        return indexed;
+    }
+
+    /**
+     * Lists the free time of a property in a period: the time no open repair
+     * of the property is scheduled in and, with a repair type that has a
+     * number of crews, one of its crews is free.
+     *
+     * @param e9 the E9 of the property.
+     * @param repairType the repair type, or null for any crew.
+     * @param from the start of the period, as yyyy-MM-dd'T'HH:mm:ss in UTC.
+     * @param to the end of the period, as yyyy-MM-dd'T'HH:mm:ss in UTC.
+     * @return the free slots, in order.
+     * @throws CustomException if the property is not found, the period is not
+     * valid or the schedule is still loading.
+     */
+    @Override
+    public List<RepairSlotDto> findAvailability(String e9, RepairType repairType, String from, String to)
+            throws CustomException {
+        Property property = propertyRepository.findPropertyByE9(e9)
+                .orElseThrow(() -> new CustomException("Property with E9 " + e9 + " not found"));
+        LocalDateTime fromTime = parseDateTime(from, "from");
+        LocalDateTime toTime = parseDateTime(to, "to");
+        if (!toTime.isAfter(fromTime)) {
+            throw new CustomException("The period must end after it starts.");
+        }
+        if (ChronoUnit.DAYS.between(fromTime, toTime) >= MAX_AVAILABILITY_DAYS) {
+            throw new CustomException("The period must not be longer than " + MAX_AVAILABILITY_DAYS + " days.");
+        }
+        if (!schedule.isLoaded()) {
+            throw new CustomException("The repair schedule is still loading, try again shortly.");
+        }
+        return schedule.findFreeSlots(property.getE9(), repairType, fromTime, toTime);
+    }
+
+    /**
+     * Streams the committed changes of the repairs of an owner, or of every
+     * owner, to a server-sent event client: creations, updates, status changes
+     * and deletions.
+     *
+     * @param ownerId the ID of the owner, or null for every owner.
+     * @param lastEventId the ID of the last event the client received, to
+     * resume after, or null.
+     * @param sink the event stream of the client.
+     * @param sse builds the events.
+     * @throws CustomException if the owner ID is not valid.
+     */
+    @Override
+    public void subscribeRepairEvents(Long ownerId, String lastEventId, SseEventSink sink, Sse sse)
+            throws CustomException {
+        if (ownerId != null && ownerId <= 0) {
+            throw new CustomException("Invalid owner ID: " + ownerId);
+        }
+        eventBus.subscribe(ownerId, lastEventId, sink, sse);
+    }
+
+    private static LocalDateTime parseDateTime(String value, String name) throws CustomException {
+        if (value == null || value.isBlank()) {
+            throw new CustomException("The " + name + " time is required, as " + ObjectMapperProvider.DATE_TIME_PATTERN);
+        }
+        try {
+            return ObjectMapperProvider.parseUtc(value.trim());
+        } catch (DateTimeParseException e) {
+            throw new CustomException("Invalid " + name + " time, expected " + ObjectMapperProvider.DATE_TIME_PATTERN
+                    + ": " + value);
+        }
+    }
+
+    private void validateWorker(String worker) throws CustomException {
+        if (worker == null || worker.isBlank() || worker.length() > 50) {
+            throw new CustomException("Worker must be between 1 and 50 characters.");
+        }
+    }
+
     /**
      * Permanently deletes a repair by its ID.
      *
@@ -510,8 +899,17 @@ public class RepairServiceImpl implements RepairService {
      * @return true if the repair was successfully deleted, false otherwise.
      */
     @Override
+    @Transactional
     public boolean deletePermantlyById(Long id) {
-        return repairRepository.deleteById(id);
+        Optional<Repair> repair = repairRepository.findById(id);
+        List<String> tags = repair.map(CacheTags::of).orElse(List.of());
+        Optional<RepairSnapshot> before = repair.map(RepairSnapshot::of);
+        boolean deleted = repairRepository.deleteById(id);
+        if (deleted) {
+            responseCache.invalidate(tags);
+            repairEvents.fire(new RepairChangedEvent(before.get(), null));
+        }
+        return deleted;
     }
 
     /**
@@ -530,7 +928,13 @@ public class RepairServiceImpl implements RepairService {
             return false;
         }
         Repair repairFound = repair.get();
-        return repairRepository.safeDelete(repairFound);
+        RepairSnapshot before = RepairSnapshot.of(repairFound);
+        responseCache.invalidate(CacheTags.of(repairFound));
+        boolean deleted = repairRepository.safeDelete(repairFound);
+        if (deleted) {
+            repairEvents.fire(new RepairChangedEvent(before, RepairSnapshot.of(repairFound)));
+        }
+        return deleted;
     }
 
     /**
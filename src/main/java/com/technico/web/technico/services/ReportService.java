@@ -0,0 +1,23 @@
+package com.technico.web.technico.services;
+
+import com.technico.web.technico.dtos.CostRollupDto;
+import com.technico.web.technico.dtos.RepairCapacityDto;
+import com.technico.web.technico.dtos.RepairFacetsDto;
+import com.technico.web.technico.exceptions.CustomException;
+import java.util.List;
+
+public interface ReportService {
+
+    List<CostRollupDto> findCostRollups(String groupBy, String fromMonth, String toMonth,
+            String repairType, String repairStatus, String propertyType) throws CustomException;
+
+    int rebuildCostRollups();
+
+    RepairFacetsDto findRepairFacets(String from, String to, Long ownerId) throws CustomException;
+
+    int rebuildRepairDayCounts();
+
+    RepairCapacityDto findRepairCapacity(String from, String to) throws CustomException;
+
+    int reloadRepairCapacity() throws CustomException;
+}
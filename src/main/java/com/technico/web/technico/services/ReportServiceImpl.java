@@ -0,0 +1,277 @@
+package com.technico.web.technico.services;
+
+import com.technico.web.technico.dtos.CostRollupDto;
+import com.technico.web.technico.dtos.RepairCapacityDto;
+import com.technico.web.technico.dtos.RepairFacetsDto;
+import com.technico.web.technico.exceptions.CustomException;
+import com.technico.web.technico.models.PropertyType;
+import com.technico.web.technico.models.RepairDayCount;
+import com.technico.web.technico.models.RepairStatus;
+import com.technico.web.technico.models.RepairType;
+import com.technico.web.technico.repositories.RepairRollupRepository;
+import com.technico.web.technico.scheduling.CapacityHistogram;
+import jakarta.enterprise.context.RequestScoped;
+import jakarta.inject.Inject;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
+@RequestScoped
+public class ReportServiceImpl implements ReportService {
+
+    private static final long MAX_FACET_DAYS = 3_660;
+    private static final long MAX_CAPACITY_DAYS = 366;
+
+    private RepairRollupRepository rollupRepository;
+    private CapacityHistogram capacityHistogram;
+
+    @Inject
+    public ReportServiceImpl(RepairRollupRepository rollupRepository, CapacityHistogram capacityHistogram) {
+        this.rollupRepository = rollupRepository;
+        this.capacityHistogram = capacityHistogram;
+    }
+
+    public ReportServiceImpl() {
+    }
+
+    /**
+     * Sums the repair counts and proposed costs of the non-deleted repairs by
+     * any combination of repair type, repair status, property type and month
+     * of the scheduled start. The answer is read from the rollups, so its cost
+     * does not depend on the number of repairs.
+     *
+     * @param groupBy the comma separated dimensions to group by, or empty for
+     * a single total.
+     * @param fromMonth only repairs scheduled from this yyyy-MM month on, if
+     * given.
+     * @param toMonth only repairs scheduled up to this yyyy-MM month, if given.
+     * @param repairType only repairs of this type, if given.
+     * @param repairStatus only repairs with this status, if given.
+     * @param propertyType only repairs of properties of this type, if given.
+     * @return one Cost rollup dto per group, with the dimensions that are not
+     * grouped left empty.
+     * @throws CustomException if a dimension, month or filter is not valid.
+     */
+    @Override
+    public List<CostRollupDto> findCostRollups(String groupBy, String fromMonth, String toMonth,
+            String repairType, String repairStatus, String propertyType) throws CustomException {
+        List<String> dimensions = parseDimensions(groupBy);
+        List<Object[]> rows = rollupRepository.sumRollups(
+                dimensions,
+                parseEnum(RepairType.class, repairType, "repair type"),
+                parseEnum(RepairStatus.class, repairStatus, "repair status"),
+                parseEnum(PropertyType.class, propertyType, "property type"),
+                parseMonth(fromMonth),
+                parseMonth(toMonth));
+
+        List<CostRollupDto> rollups = new ArrayList<>();
+        for (Object[] row : rows) {
+            CostRollupDto rollup = new CostRollupDto();
+            for (int i = 0; i < dimensions.size(); i++) {
+                switch (dimensions.get(i)) {
+                    case "repairType" -> rollup.setRepairType((RepairType) row[i]);
+                    case "repairStatus" -> rollup.setRepairStatus((RepairStatus) row[i]);
+                    case "propertyType" -> rollup.setPropertyType((PropertyType) row[i]);
+                    default -> rollup.setMonth((String) row[i]);
+                }
+            }
+            Number count = (Number) row[dimensions.size()];
+            BigDecimal cost = (BigDecimal) row[dimensions.size() + 1];
+            rollup.setRepairCount(count == null ? 0 : count.longValue());
+            rollup.setTotalCost(cost == null ? BigDecimal.ZERO : cost);
+            rollups.add(rollup);
+        }
+        return rollups;
+    }
+
+    /**
+     * Recomputes the rollups from the repairs, for example after repairs were
+     * changed outside the application.
+     *
+     * @return the number of rollup rows written.
+     */
+    @Override
+    public int rebuildCostRollups() {
+        int rows = rollupRepository.rebuildRollups();
+        log.info("Rebuilt {} repair cost rollup rows", rows);
+        return rows;
+    }
+
+    /**
+     * Counts the non-deleted repairs scheduled to start in a window of days by
+     * status and type, for the whole window and for each month in it. The
+     * counts are summed from the day counts, so the cost depends on the length
+     * of the window and not on the number of repairs. Unscheduled repairs are
+     * not counted.
+     *
+     * @param from the first day of the window, as yyyy-MM-dd.
+     * @param to the last day of the window, as yyyy-MM-dd.
+     * @param ownerId only the repairs of this owner, if given.
+     * @return the Repair facets dto, with every status and type present.
+     * @throws CustomException if a day is missing or not valid, or the window
+     * is too long.
+     */
+    @Override
+    public RepairFacetsDto findRepairFacets(String from, String to, Long ownerId) throws CustomException {
+        LocalDate fromDay = parseDay(from, "from");
+        LocalDate toDay = parseDay(to, "to");
+        if (fromDay.isAfter(toDay)) {
+            throw new CustomException("The window must not end before it starts");
+        }
+        if (ChronoUnit.DAYS.between(fromDay, toDay) >= MAX_FACET_DAYS) {
+            throw new CustomException("The window must not be longer than " + MAX_FACET_DAYS + " days");
+        }
+        if (ownerId != null && ownerId <= 0) {
+            throw new CustomException("Invalid owner ID: " + ownerId);
+        }
+
+        Map<RepairStatus, Map<RepairType, Long>> counts = emptyGrid();
+        Map<String, Map<RepairStatus, Map<RepairType, Long>>> months = new TreeMap<>();
+        long total = 0;
+        List<Object[]> rows = rollupRepository.sumDayCounts(
+                ownerId == null ? RepairDayCount.ALL_OWNERS : ownerId, fromDay, toDay);
+        for (Object[] row : rows) {
+            String month = YearMonth.of(((Number) row[0]).intValue(), ((Number) row[1]).intValue()).toString();
+            RepairStatus repairStatus = (RepairStatus) row[2];
+            RepairType repairType = (RepairType) row[3];
+            long count = ((Number) row[4]).longValue();
+            counts.get(repairStatus).merge(repairType, count, Long::sum);
+            months.computeIfAbsent(month, key -> emptyGrid()).get(repairStatus).merge(repairType, count, Long::sum);
+            total += count;
+        }
+        return new RepairFacetsDto(fromDay, toDay, ownerId, total, counts, months);
+    }
+
+    /**
+     * Recomputes the repair day counts from the repairs.
+     *
+     * @return the number of day count rows written.
+     */
+    @Override
+    public int rebuildRepairDayCounts() {
+        int rows = rollupRepository.rebuildDayCounts();
+        log.info("Rebuilt {} repair day count rows", rows);
+        return rows;
+    }
+
+    /**
+     * Counts how many open repairs of each type are scheduled at the same
+     * time, for every hour and day of a window and for the whole window. The
+     * counts come from the capacity histogram, so the cost depends on the
+     * length of the window and the repairs scheduled in it.
+     *
+     * @param from the first day of the window, as yyyy-MM-dd, today if not
+     * given.
+     * @param to the last day of the window, as yyyy-MM-dd, the day before the
+     * same day three months later if not given.
+     * @return the Repair capacity dto.
+     * @throws CustomException if a day is not valid, the window is too long or
+     * out of range, or the histogram is still loading.
+     */
+    @Override
+    public RepairCapacityDto findRepairCapacity(String from, String to) throws CustomException {
+        LocalDate fromDay = from == null || from.isBlank() ? LocalDate.now() : parseDay(from, "from");
+        LocalDate toDay = to == null || to.isBlank() ? fromDay.plusMonths(3).minusDays(1) : parseDay(to, "to");
+        if (fromDay.isAfter(toDay)) {
+            throw new CustomException("The window must not end before it starts");
+        }
+        if (ChronoUnit.DAYS.between(fromDay, toDay) >= MAX_CAPACITY_DAYS) {
+            throw new CustomException("The window must not be longer than " + MAX_CAPACITY_DAYS + " days");
+        }
+        if (fromDay.isBefore(CapacityHistogram.EARLIEST_DAY) || toDay.isAfter(CapacityHistogram.LATEST_DAY)) {
+            throw new CustomException("The window must lie between " + CapacityHistogram.EARLIEST_DAY + " and "
+                    + CapacityHistogram.LATEST_DAY);
+        }
+        if (!capacityHistogram.isLoaded()) {
+            throw new CustomException("The repair capacity histogram is still loading, try again shortly");
+        }
+        return capacityHistogram.capacity(fromDay, toDay);
+    }
+
+    /**
+     * Reloads the repair capacity histogram from the repairs.
+     *
+     * @return the number of scheduled repairs loaded.
+     * @throws CustomException if a reload is already running.
+     */
+    @Override
+    public int reloadRepairCapacity() throws CustomException {
+        int repairs = capacityHistogram.reload();
+        if (repairs < 0) {
+            throw new CustomException("The repair capacity histogram is already being reloaded");
+        }
+        return repairs;
+    }
+
+    private static Map<RepairStatus, Map<RepairType, Long>> emptyGrid() {
+        Map<RepairStatus, Map<RepairType, Long>> grid = new EnumMap<>(RepairStatus.class);
+        for (RepairStatus repairStatus : RepairStatus.values()) {
+            Map<RepairType, Long> row = new EnumMap<>(RepairType.class);
+            for (RepairType repairType : RepairType.values()) {
+                row.put(repairType, 0L);
+            }
+            grid.put(repairStatus, row);
+        }
+        return grid;
+    }
+
+    private static LocalDate parseDay(String day, String name) throws CustomException {
+        if (day == null || day.isBlank()) {
+            throw new CustomException("The " + name + " day is required, as yyyy-MM-dd");
+        }
+        try {
+            return LocalDate.parse(day.trim());
+        } catch (DateTimeParseException e) {
+            throw new CustomException("Invalid " + name + " day, expected yyyy-MM-dd: " + day);
+        }
+    }
+
+    private static List<String> parseDimensions(String groupBy) throws CustomException {
+        List<String> dimensions = new ArrayList<>();
+        if (groupBy == null || groupBy.isBlank()) {
+            return dimensions;
+        }
+        for (String dimension : groupBy.split(",")) {
+            String trimmed = dimension.trim();
+            if (!RepairRollupRepository.DIMENSIONS.contains(trimmed)) {
+                throw new CustomException("Cannot group by " + trimmed + ", expected one of "
+                        + RepairRollupRepository.DIMENSIONS);
+            }
+            if (!dimensions.contains(trimmed)) {
+                dimensions.add(trimmed);
+            }
+        }
+        return dimensions;
+    }
+
+    private static <E extends Enum<E>> E parseEnum(Class<E> type, String value, String name) throws CustomException {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        try {
+            return Enum.valueOf(type, value.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new CustomException("Invalid " + name + ": " + value);
+        }
+    }
+
+    private static String parseMonth(String month) throws CustomException {
+        if (month == null || month.isBlank()) {
+            return null;
+        }
+        try {
+            return YearMonth.parse(month.trim()).toString();
+        } catch (DateTimeParseException e) {
+            throw new CustomException("Invalid month, expected yyyy-MM: " + month);
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package com.technico.web.technico.services;
+
+import com.technico.web.technico.dtos.SyncDto;
+import com.technico.web.technico.exceptions.CustomException;
+
+public interface SyncService {
+
+    SyncDto sync(Long ownerId, String since) throws CustomException;
+}
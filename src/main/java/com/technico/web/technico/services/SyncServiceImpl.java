@@ -0,0 +1,116 @@
+package com.technico.web.technico.services;
+
+import com.technico.web.technico.dtos.OwnerDto;
+import com.technico.web.technico.dtos.PropertyDto;
+import com.technico.web.technico.dtos.RepairDto;
+import com.technico.web.technico.dtos.SyncDto;
+import com.technico.web.technico.exceptions.CustomException;
+import com.technico.web.technico.models.SyncEntityType;
+import com.technico.web.technico.models.SyncTombstone;
+import com.technico.web.technico.repositories.OwnerRepository;
+import com.technico.web.technico.repositories.SyncRepository;
+import com.technico.web.technico.sync.ChangeSequence;
+import jakarta.enterprise.context.RequestScoped;
+import jakarta.inject.Inject;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
+@RequestScoped
+public class SyncServiceImpl implements SyncService {
+
+    private OwnerRepository ownerRepository;
+    private SyncRepository syncRepository;
+    private ChangeSequence changeSequence;
+
+    @Inject
+    public SyncServiceImpl(OwnerRepository ownerRepository, SyncRepository syncRepository,
+            ChangeSequence changeSequence) {
+        this.ownerRepository = ownerRepository;
+        this.syncRepository = syncRepository;
+        this.changeSequence = changeSequence;
+    }
+
+    public SyncServiceImpl() {
+    }
+
+    /**
+     * Retrieves what changed in an owner's data since the client last
+     * synchronized: the owner if it changed, the properties and repairs
+     * written since, including soft deleted ones, and the IDs of those
+     * permanently deleted since. Without a token, or with a token this server
+     * did not hand out, everything that is not deleted is returned and the
+     * client should replace its copy.
+     *
+     * The new token is taken before anything is read, so a write that
+     * commits while the changes are read is returned again next time rather
+     * than missed.
+     *
+     * @param ownerId the ID of the owner.
+     * @param since the token of the previous synchronization, or null.
+     * @return the Sync dto with the changes and the token to pass next time.
+     * @throws CustomException if the owner is not found or the token is not
+     * valid.
+     */
+    @Override
+    public SyncDto sync(Long ownerId, String since) throws CustomException {
+        if (ownerId == null) {
+            throw new CustomException("Owner id is required");
+        }
+        Long sinceSeq = parseToken(since);
+        long watermark = changeSequence.watermark();
+        if (sinceSeq != null && sinceSeq > watermark) {
+            log.debug("Sync token {} is ahead of {}, sending everything", sinceSeq, watermark);
+            sinceSeq = null;
+        }
+        List<OwnerDto> owners = ownerRepository.findByIds(List.of(ownerId));
+        if (owners.isEmpty()) {
+            throw new CustomException("Owner not found");
+        }
+        OwnerDto owner = owners.get(0);
+        Optional<Long> ownerSeq = syncRepository.findOwnerChangeSeq(ownerId);
+        boolean full = sinceSeq == null;
+
+        SyncDto result = new SyncDto();
+        result.setToken(Long.toString(watermark));
+        result.setFull(full);
+        if (full || (ownerSeq.isPresent() && ownerSeq.get() > sinceSeq)) {
+            result.setOwner(owner);
+        }
+        List<PropertyDto> properties = syncRepository.findPropertiesChangedSince(owner.getVat(), sinceSeq);
+        List<RepairDto> repairs = syncRepository.findRepairsChangedSince(owner.getVat(), sinceSeq);
+        result.setProperties(properties);
+        result.setRepairs(repairs);
+        List<Long> deletedPropertyIds = new ArrayList<>();
+        List<Long> deletedRepairIds = new ArrayList<>();
+        if (!full) {
+            for (SyncTombstone tombstone : syncRepository.findTombstonesSince(owner.getVat(), sinceSeq)) {
+                if (tombstone.getEntityType() == SyncEntityType.PROPERTY) {
+                    deletedPropertyIds.add(tombstone.getEntityId());
+                } else {
+                    deletedRepairIds.add(tombstone.getEntityId());
+                }
+            }
+        }
+        result.setDeletedPropertyIds(deletedPropertyIds);
+        result.setDeletedRepairIds(deletedRepairIds);
+        return result;
+    }
+
+    private static Long parseToken(String since) throws CustomException {
+        if (since == null || since.isBlank()) {
+            return null;
+        }
+        try {
+            long sequence = Long.parseLong(since.trim());
+            if (sequence < 0) {
+                throw new CustomException("Invalid sync token " + since);
+            }
+            return sequence;
+        } catch (NumberFormatException e) {
+            throw new CustomException("Invalid sync token " + since);
+        }
+    }
+}
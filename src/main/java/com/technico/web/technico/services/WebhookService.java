@@ -0,0 +1,19 @@
+package com.technico.web.technico.services;
+
+import com.technico.web.technico.dtos.WebhookDeliveryDto;
+import com.technico.web.technico.dtos.WebhookSubscriptionDto;
+import com.technico.web.technico.exceptions.CustomException;
+import java.util.List;
+
+public interface WebhookService {
+
+    WebhookSubscriptionDto createSubscription(WebhookSubscriptionDto subscription) throws CustomException;
+
+    List<WebhookSubscriptionDto> findSubscriptions();
+
+    boolean deactivateSubscription(Long id) throws CustomException;
+
+    List<WebhookDeliveryDto> findDeadLetters(Long subscriptionId, Integer limit) throws CustomException;
+
+    int redeliver(Long subscriptionId, Long deliveryId);
+}
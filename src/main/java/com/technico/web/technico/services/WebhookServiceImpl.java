@@ -0,0 +1,166 @@
+package com.technico.web.technico.services;
+
+import com.technico.web.technico.dtos.WebhookDeliveryDto;
+import com.technico.web.technico.dtos.WebhookSubscriptionDto;
+import com.technico.web.technico.exceptions.CustomException;
+import com.technico.web.technico.models.WebhookDeliveryStatus;
+import com.technico.web.technico.models.WebhookSubscription;
+import com.technico.web.technico.repositories.WebhookRepository;
+import com.technico.web.technico.webhooks.OutboxObserver;
+import com.technico.web.technico.webhooks.WebhookDispatcher;
+import jakarta.enterprise.context.RequestScoped;
+import jakarta.inject.Inject;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.TreeSet;
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
+@RequestScoped
+public class WebhookServiceImpl implements WebhookService {
+
+    private static final Set<String> EVENT_TYPES = Set.of(OutboxObserver.REPAIR, OutboxObserver.PROPERTY);
+    private static final int DEFAULT_LIMIT = 100;
+    private static final int MAX_LIMIT = 1_000;
+
+    private WebhookRepository webhookRepository;
+    private WebhookDispatcher webhookDispatcher;
+
+    @Inject
+    public WebhookServiceImpl(WebhookRepository webhookRepository, WebhookDispatcher webhookDispatcher) {
+        this.webhookRepository = webhookRepository;
+        this.webhookDispatcher = webhookDispatcher;
+    }
+
+    public WebhookServiceImpl() {
+    }
+
+    /**
+     * Subscribes a partner endpoint to repair and property changes. Changes
+     * written from now on are sent to it.
+     *
+     * @param subscription the subscription with the http or https URL, an
+     * optional secret to sign the batches with, and the comma separated kinds
+     * of changes to send, repair and property, or none for every kind.
+     * @return the created Webhook subscription dto.
+     * @throws CustomException if the URL or the kinds of changes are not
+     * valid.
+     */
+    @Override
+    public WebhookSubscriptionDto createSubscription(WebhookSubscriptionDto subscription) throws CustomException {
+        if (subscription == null || subscription.getUrl() == null) {
+            throw new CustomException("Webhook url is required");
+        }
+        String url = subscription.getUrl().trim();
+        try {
+            URI uri = new URI(url);
+            if (!"http".equalsIgnoreCase(uri.getScheme()) && !"https".equalsIgnoreCase(uri.getScheme())
+                    || uri.getHost() == null) {
+                throw new CustomException("Webhook url must be an absolute http or https url");
+            }
+        } catch (URISyntaxException e) {
+            throw new CustomException("Invalid webhook url " + url);
+        }
+        WebhookSubscription saved = webhookRepository.saveSubscription(new WebhookSubscription(
+                null,
+                url,
+                subscription.getSecret(),
+                parseEventTypes(subscription.getEventTypes()),
+                true,
+                LocalDateTime.now()));
+        log.info("Created webhook subscription {} to {}", saved.getId(), saved.getUrl());
+        return toDto(saved);
+    }
+
+    /**
+     * Retrieves every webhook subscription, without their secrets.
+     *
+     * @return a list of Webhook subscription dtos.
+     */
+    @Override
+    public List<WebhookSubscriptionDto> findSubscriptions() {
+        return webhookRepository.findSubscriptions().stream()
+                .map(WebhookServiceImpl::toDto)
+                .toList();
+    }
+
+    /**
+     * Stops sending changes to a webhook subscription.
+     *
+     * @param id the ID of the subscription.
+     * @return true if the subscription was active.
+     * @throws CustomException if the subscription is not found.
+     */
+    @Override
+    public boolean deactivateSubscription(Long id) throws CustomException {
+        if (id == null || webhookRepository.findSubscriptionById(id).isEmpty()) {
+            throw new CustomException("Webhook subscription not found");
+        }
+        return webhookRepository.deactivateSubscription(id);
+    }
+
+    /**
+     * Retrieves the deliveries that were given up after running out of
+     * attempts.
+     *
+     * @param subscriptionId only those of this subscription, if given.
+     * @param limit the maximum number of deliveries, 100 by default.
+     * @return a list of Webhook delivery dtos, oldest first.
+     * @throws CustomException if the limit is not valid.
+     */
+    @Override
+    public List<WebhookDeliveryDto> findDeadLetters(Long subscriptionId, Integer limit) throws CustomException {
+        int max = limit == null ? DEFAULT_LIMIT : limit;
+        if (max < 1 || max > MAX_LIMIT) {
+            throw new CustomException("Limit must be between 1 and " + MAX_LIMIT);
+        }
+        return webhookRepository.findDeliveries(subscriptionId, WebhookDeliveryStatus.DEAD, max);
+    }
+
+    /**
+     * Puts dead deliveries back in the queue with a fresh set of attempts,
+     * for example once a partner has fixed its endpoint.
+     *
+     * @param subscriptionId only those of this subscription, if given.
+     * @param deliveryId only this delivery, if given.
+     * @return the number of deliveries put back.
+     */
+    @Override
+    public int redeliver(Long subscriptionId, Long deliveryId) {
+        int deliveries = webhookRepository.redeliver(subscriptionId, deliveryId, LocalDateTime.now());
+        if (deliveries > 0) {
+            webhookDispatcher.wake();
+        }
+        return deliveries;
+    }
+
+    private static String parseEventTypes(String eventTypes) throws CustomException {
+        if (eventTypes == null || eventTypes.isBlank()) {
+            return null;
+        }
+        Set<String> types = new TreeSet<>();
+        for (String type : eventTypes.split(",")) {
+            String normalized = type.trim().toLowerCase(Locale.ROOT);
+            if (!EVENT_TYPES.contains(normalized)) {
+                throw new CustomException("Invalid webhook event type " + type.trim());
+            }
+            types.add(normalized);
+        }
+        return String.join(",", types);
+    }
+
+    private static WebhookSubscriptionDto toDto(WebhookSubscription subscription) {
+        return new WebhookSubscriptionDto(
+                subscription.getId(),
+                subscription.getUrl(),
+                null,
+                subscription.getEventTypes(),
+                subscription.isActive(),
+                subscription.getCreatedAt()
+        );
+    }
+}
@@ -0,0 +1,122 @@
+package com.technico.web.technico.sync;
+
+import com.technico.web.technico.repositories.SyncRepository;
+import jakarta.annotation.Resource;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.context.Initialized;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import jakarta.transaction.Status;
+import jakarta.transaction.Synchronization;
+import jakarta.transaction.TransactionSynchronizationRegistry;
+import java.util.TreeSet;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Hands out the change sequence that owners, properties and repairs are
+ * stamped with. Every transaction that writes gets one number, taken when it
+ * first writes, so all rows of the transaction carry the same number and
+ * numbers grow in the order transactions start writing.
+ *
+ * A transaction can commit after a later one, so a client may only be told it
+ * has seen everything up to the watermark: the highest number below which no
+ * transaction is still open. Rows at or under it are all committed or rolled
+ * back, and rows written later always get a higher number. The numbers live
+ * in this node's memory, seeded from the highest stamped row at startup.
+ */
+@Slf4j
+@ApplicationScoped
+public class ChangeSequence {
+
+    private static final Object KEY = ChangeSequence.class;
+
+    private final TreeSet<Long> inFlight = new TreeSet<>();
+
+    private long last = -1;
+
+    private long committed = -1;
+
+    @Inject
+    private SyncRepository syncRepository;
+
+    @Resource
+    private TransactionSynchronizationRegistry transactionRegistry;
+
+    /**
+     * Seeds the sequence when the application starts, so that the first write
+     * does not have to.
+     *
+     * @param event the application start.
+     */
+    void onStartup(@Observes @Initialized(ApplicationScoped.class) Object event) {
+        try {
+            synchronized (this) {
+                seed();
+            }
+            log.info("Change sequence starts after {}", last);
+        } catch (RuntimeException e) {
+            log.warn("Could not seed the change sequence at startup", e);
+        }
+    }
+
+    /**
+     * Retrieves the change sequence of the current transaction, taking the
+     * next number if the transaction has none yet.
+     *
+     * @return the change sequence of the transaction.
+     * @throws IllegalStateException if there is no transaction.
+     */
+    public long current() {
+        Long current = (Long) transactionRegistry.getResource(KEY);
+        if (current != null) {
+            return current;
+        }
+        if (transactionRegistry.getTransactionKey() == null) {
+            throw new IllegalStateException("Change sequences are only handed out inside a transaction");
+        }
+        long next;
+        synchronized (this) {
+            seed();
+            next = ++last;
+            inFlight.add(next);
+        }
+        transactionRegistry.putResource(KEY, next);
+        transactionRegistry.registerInterposedSynchronization(new Synchronization() {
+            @Override
+            public void beforeCompletion() {
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                complete(next, status == Status.STATUS_COMMITTED);
+            }
+        });
+        return next;
+    }
+
+    /**
+     * Retrieves the highest change sequence under which every transaction has
+     * completed.
+     *
+     * @return the watermark.
+     */
+    public synchronized long watermark() {
+        seed();
+        long open = inFlight.isEmpty() ? last : inFlight.first() - 1;
+        return Math.min(open, committed);
+    }
+
+    private synchronized void complete(long sequence, boolean commit) {
+        inFlight.remove(sequence);
+        if (commit) {
+            committed = Math.max(committed, sequence);
+        }
+    }
+
+    private void seed() {
+        if (last < 0) {
+            last = syncRepository.findMaxChangeSeq();
+            committed = last;
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.technico.web.technico.sync;
+
+import com.technico.web.technico.models.ChangeTracked;
+import jakarta.inject.Inject;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.PreUpdate;
+
+/**
+ * Stamps owners, properties and repairs with the change sequence of the
+ * transaction that writes them.
+ */
+public class ChangeSequenceListener {
+
+    @Inject
+    private ChangeSequence changeSequence;
+
+    @PrePersist
+    @PreUpdate
+    void stamp(Object entity) {
+        if (entity instanceof ChangeTracked tracked) {
+            tracked.setChangeSeq(changeSequence.current());
+        }
+    }
+}
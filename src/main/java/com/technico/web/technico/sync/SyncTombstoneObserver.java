@@ -0,0 +1,51 @@
+package com.technico.web.technico.sync;
+
+import com.technico.web.technico.events.OwnerChangedEvent;
+import com.technico.web.technico.events.PropertyChangedEvent;
+import com.technico.web.technico.events.RepairChangedEvent;
+import com.technico.web.technico.models.SyncEntityType;
+import com.technico.web.technico.models.SyncTombstone;
+import com.technico.web.technico.repositories.SyncRepository;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+
+/**
+ * Leaves a tombstone for every property and repair that is permanently
+ * deleted, inside the transaction of the delete, so that clients synchronizing
+ * the owner's data learn to drop it.
+ *
+ * It also takes the change sequence of every transaction that writes an
+ * owner, property or repair as soon as the write happens, rather than when
+ * the entity listener stamps updates while the transaction is flushed at
+ * commit.
+ */
+@ApplicationScoped
+public class SyncTombstoneObserver {
+
+    @Inject
+    private ChangeSequence changeSequence;
+
+    @Inject
+    private SyncRepository syncRepository;
+
+    void onOwnerChanged(@Observes OwnerChangedEvent event) {
+        changeSequence.current();
+    }
+
+    void onPropertyChanged(@Observes PropertyChangedEvent event) {
+        long sequence = changeSequence.current();
+        if (event.getAfter() == null) {
+            syncRepository.addTombstone(new SyncTombstone(null, SyncEntityType.PROPERTY,
+                    event.getBefore().getId(), event.getBefore().getOwnerVat(), sequence));
+        }
+    }
+
+    void onRepairChanged(@Observes RepairChangedEvent event) {
+        long sequence = changeSequence.current();
+        if (event.getAfter() == null) {
+            syncRepository.addTombstone(new SyncTombstone(null, SyncEntityType.REPAIR,
+                    event.getBefore().getId(), event.getBefore().getOwnerVat(), sequence));
+        }
+    }
+}
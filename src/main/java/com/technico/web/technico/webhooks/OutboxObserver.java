@@ -0,0 +1,66 @@
+package com.technico.web.technico.webhooks;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.technico.web.technico.dtos.PropertyDto;
+import com.technico.web.technico.events.PropertyChangedEvent;
+import com.technico.web.technico.events.PropertySnapshot;
+import com.technico.web.technico.events.RepairChangedEvent;
+import com.technico.web.technico.events.RepairEventBus;
+import com.technico.web.technico.models.OutboxEvent;
+import com.technico.web.technico.providers.ObjectMapperProvider;
+import com.technico.web.technico.repositories.WebhookRepository;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import java.time.LocalDateTime;
+import java.util.Locale;
+
+/**
+ * Writes every repair and property change to the outbox inside the
+ * transaction of the change, so that a change is sent to the webhook
+ * subscriptions if and only if it commits, and the request that made it
+ * never waits for a partner. The change is serialized here, as it was when
+ * it happened, and sent by the {@link WebhookDispatcher}.
+ */
+@ApplicationScoped
+public class OutboxObserver {
+
+    public static final String REPAIR = "repair";
+    public static final String PROPERTY = "property";
+
+    @Inject
+    private WebhookRepository webhookRepository;
+
+    void onRepairChanged(@Observes RepairChangedEvent event) {
+        add(REPAIR, event.getRepairId(), event.getChangeType().name(), RepairEventBus.toDto(event));
+    }
+
+    void onPropertyChanged(@Observes PropertyChangedEvent event) {
+        PropertySnapshot property = event.getAfter() != null ? event.getAfter() : event.getBefore();
+        String changeType = event.getBefore() == null ? "CREATED" : event.getAfter() == null ? "DELETED" : "UPDATED";
+        PropertyDto dto = new PropertyDto(
+                property.getId(),
+                property.getE9(),
+                property.getPropertyAddress(),
+                property.getConstructionYear(),
+                property.getPropertyType(),
+                property.getOwnerVat(),
+                event.getAfter() == null || property.isDeleted()
+        );
+        add(PROPERTY, event.getPropertyId(), changeType, dto);
+    }
+
+    private void add(String aggregateType, Long aggregateId, String changeType, Object payload) {
+        String data;
+        try {
+            data = ObjectMapperProvider.sharedMapper().writeValueAsString(payload);
+        } catch (JsonProcessingException e) {
+            // Failing the write is better than silently never telling the
+            // partners about it.
+            throw new IllegalStateException("Could not serialize the change of " + aggregateType + " "
+                    + aggregateId, e);
+        }
+        webhookRepository.addOutboxEvent(new OutboxEvent(null, aggregateType, aggregateId,
+                aggregateType + "." + changeType.toLowerCase(Locale.ROOT), data, LocalDateTime.now(), false));
+    }
+}
@@ -0,0 +1,254 @@
+package com.technico.web.technico.webhooks;
+
+import com.technico.web.technico.dtos.WebhookBatchDto;
+import com.technico.web.technico.dtos.WebhookEventDto;
+import com.technico.web.technico.events.PropertyChangedEvent;
+import com.technico.web.technico.events.RepairChangedEvent;
+import com.technico.web.technico.models.WebhookSubscription;
+import com.technico.web.technico.repositories.WebhookRepository;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import jakarta.enterprise.concurrent.ManagedExecutorService;
+import jakarta.enterprise.concurrent.ManagedScheduledExecutorService;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.context.Initialized;
+import jakarta.enterprise.event.Observes;
+import jakarta.enterprise.event.TransactionPhase;
+import jakarta.inject.Inject;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Sends the outbox to the webhook subscriptions in the background. Every
+ * {@code technico.webhooks.pollMillis}, and right after a change commits, new
+ * outbox events are fanned out to one delivery per subscription, and the due
+ * deliveries of each subscription are POSTed to it as one JSON batch of up to
+ * {@code technico.webhooks.batchSize} events. At most
+ * {@code technico.webhooks.concurrency} subscriptions are sent to at once,
+ * one batch at a time each, so a slow partner holds up only its own queue.
+ *
+ * A batch that is not answered with a 2xx status is retried after an
+ * exponentially growing, jittered delay, and after
+ * {@code technico.webhooks.maxAttempts} attempts its deliveries are left in
+ * the dead letter queue until they are redelivered. Delivery is at least
+ * once and retried deliveries may overtake newer ones, so partners should
+ * ignore events whose ID they have already seen.
+ */
+@Slf4j
+@ApplicationScoped
+public class WebhookDispatcher {
+
+    private static final long POLL_MILLIS = Long.getLong("technico.webhooks.pollMillis", 1_000);
+    private static final int BATCH_SIZE = Integer.getInteger("technico.webhooks.batchSize", 100);
+    private static final int CONCURRENCY = Integer.getInteger("technico.webhooks.concurrency", 4);
+    private static final int MAX_ATTEMPTS = Integer.getInteger("technico.webhooks.maxAttempts", 10);
+    private static final long BACKOFF_MILLIS = Long.getLong("technico.webhooks.backoffMillis", 1_000);
+    private static final long MAX_BACKOFF_MILLIS = Long.getLong("technico.webhooks.maxBackoffMillis", 3_600_000);
+    private static final long TIMEOUT_SECONDS = Long.getLong("technico.webhooks.timeoutSeconds", 10);
+    private static final long RETENTION_DAYS = Long.getLong("technico.webhooks.retentionDays", 7);
+    private static final int FAN_OUT_SIZE = 1_000;
+
+    @Resource
+    private ManagedExecutorService executor;
+
+    @Resource
+    private ManagedScheduledExecutorService scheduler;
+
+    @Inject
+    private WebhookRepository webhookRepository;
+
+    private final WebhookSender sender = new WebhookSender(Duration.ofSeconds(TIMEOUT_SECONDS));
+
+    private final Semaphore permits = new Semaphore(CONCURRENCY);
+    private final Set<Long> sending = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean polling = new AtomicBoolean();
+    private final AtomicBoolean pollAgain = new AtomicBoolean();
+    private final AtomicBoolean wakePending = new AtomicBoolean();
+
+    private ScheduledFuture<?> polls;
+    private ScheduledFuture<?> purges;
+
+    void onStartup(@Observes @Initialized(ApplicationScoped.class) Object event) {
+        polls = scheduler.scheduleWithFixedDelay(this::poll, POLL_MILLIS, POLL_MILLIS, TimeUnit.MILLISECONDS);
+        purges = scheduler.scheduleWithFixedDelay(this::purge, 1, 1, TimeUnit.HOURS);
+    }
+
+    @PreDestroy
+    void close() {
+        if (polls != null) {
+            polls.cancel(false);
+        }
+        if (purges != null) {
+            purges.cancel(false);
+        }
+    }
+
+    void onRepairChanged(@Observes(during = TransactionPhase.AFTER_SUCCESS) RepairChangedEvent event) {
+        wake();
+    }
+
+    void onPropertyChanged(@Observes(during = TransactionPhase.AFTER_SUCCESS) PropertyChangedEvent event) {
+        wake();
+    }
+
+    /**
+     * Polls the outbox now rather than at the next interval.
+     */
+    public void wake() {
+        if (polling.get()) {
+            pollAgain.set(true);
+            return;
+        }
+        // A burst of changes, such as an import, wakes the dispatcher once.
+        if (!wakePending.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            executor.submit(this::poll);
+        } catch (RejectedExecutionException e) {
+            wakePending.set(false);
+            log.debug("Could not wake the webhook dispatcher, waiting for the next poll");
+        }
+    }
+
+    private void poll() {
+        if (!polling.compareAndSet(false, true)) {
+            pollAgain.set(true);
+            return;
+        }
+        wakePending.set(false);
+        try {
+            do {
+                pollAgain.set(false);
+                int fannedOut;
+                do {
+                    fannedOut = webhookRepository.fanOut(FAN_OUT_SIZE, LocalDateTime.now());
+                } while (fannedOut == FAN_OUT_SIZE);
+                for (Long subscriptionId : webhookRepository.findDueSubscriptionIds(LocalDateTime.now())) {
+                    if (!startSending(subscriptionId)) {
+                        break;
+                    }
+                }
+            } while (pollAgain.get());
+        } catch (RuntimeException e) {
+            log.warn("Could not poll the webhook outbox", e);
+        } finally {
+            polling.set(false);
+        }
+    }
+
+    /**
+     * Sends the next batch of a subscription, unless it is already being sent.
+     *
+     * @return false if every sending slot is taken.
+     */
+    private boolean startSending(Long subscriptionId) {
+        if (!sending.add(subscriptionId)) {
+            return true;
+        }
+        if (!permits.tryAcquire()) {
+            sending.remove(subscriptionId);
+            return false;
+        }
+        try {
+            executor.submit(() -> {
+                boolean more = false;
+                try {
+                    more = send(subscriptionId);
+                } catch (RuntimeException e) {
+                    log.warn("Could not send the webhooks of subscription {}", subscriptionId, e);
+                } finally {
+                    sending.remove(subscriptionId);
+                    permits.release();
+                }
+                if (more) {
+                    wake();
+                }
+            });
+            return true;
+        } catch (RejectedExecutionException e) {
+            sending.remove(subscriptionId);
+            permits.release();
+            return false;
+        }
+    }
+
+    /**
+     * Claims and POSTs one batch of the due deliveries of a subscription, and
+     * records the outcome.
+     *
+     * @return true if the batch was full, so more deliveries may be due.
+     */
+    private boolean send(Long subscriptionId) {
+        Optional<WebhookSubscription> subscription = webhookRepository.findSubscriptionById(subscriptionId);
+        if (subscription.isEmpty() || !subscription.get().isActive()) {
+            return false;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        // The lease outlasts the request, so no other dispatcher sends the
+        // batch while this one waits for the answer.
+        List<Long> ids = webhookRepository.claimDeliveries(subscriptionId, BATCH_SIZE, now,
+                now.plusSeconds(TIMEOUT_SECONDS * 3));
+        if (ids.isEmpty()) {
+            return false;
+        }
+        List<WebhookEventDto> events = webhookRepository.findEventsOfDeliveries(ids);
+        String error;
+        try {
+            error = sender.send(subscription.get().getUrl(), subscription.get().getSecret(),
+                    new WebhookBatchDto(subscriptionId, events));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            error = e.toString();
+        }
+        if (error == null) {
+            webhookRepository.markDelivered(ids, LocalDateTime.now());
+            log.debug("Delivered {} webhook events to subscription {}", ids.size(), subscriptionId);
+            return ids.size() == BATCH_SIZE;
+        }
+        int dead = webhookRepository.markFailed(ids, error, LocalDateTime.now(), MAX_ATTEMPTS,
+                WebhookDispatcher::backoff);
+        if (dead > 0) {
+            log.warn("Gave up {} webhook deliveries to subscription {}: {}", dead, subscriptionId, error);
+        } else {
+            log.debug("Could not deliver {} webhook events to subscription {}: {}", ids.size(), subscriptionId,
+                    error);
+        }
+        return false;
+    }
+
+    private void purge() {
+        try {
+            int rows = webhookRepository.purge(LocalDateTime.now().minusDays(RETENTION_DAYS));
+            if (rows > 0) {
+                log.info("Purged {} delivered webhook rows", rows);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Could not purge the webhook outbox", e);
+        }
+    }
+
+    /**
+     * The delay before the next attempt: doubling from the base delay up to
+     * the maximum, with the upper half picked at random so that the batches
+     * failed by one outage are not all retried at the same moment.
+     */
+    static Duration backoff(int attempts) {
+        long delay = BACKOFF_MILLIS << Math.min(attempts - 1, 30);
+        if (delay <= 0 || delay > MAX_BACKOFF_MILLIS) {
+            delay = MAX_BACKOFF_MILLIS;
+        }
+        return Duration.ofMillis(delay / 2 + ThreadLocalRandom.current().nextLong(delay / 2 + 1));
+    }
+}
@@ -0,0 +1,78 @@
+package com.technico.web.technico.webhooks;
+
+import com.technico.web.technico.dtos.WebhookBatchDto;
+import com.technico.web.technico.providers.ObjectMapperProvider;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.time.Duration;
+import java.util.HexFormat;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * POSTs one webhook batch to a partner endpoint as JSON, signed with
+ * HMAC-SHA256 of the body in the {@value #SIGNATURE_HEADER} header when the
+ * subscription has a secret. It knows nothing of the outbox, so it can be
+ * pointed at a stub receiver on its own.
+ */
+public class WebhookSender {
+
+    public static final String SIGNATURE_HEADER = "X-Technico-Signature";
+
+    private final HttpClient httpClient;
+    private final Duration timeout;
+
+    public WebhookSender(Duration timeout) {
+        this.timeout = timeout;
+        this.httpClient = HttpClient.newBuilder()
+                .connectTimeout(timeout)
+                .build();
+    }
+
+    /**
+     * Sends a batch and waits for the answer.
+     *
+     * @param url the endpoint of the subscription.
+     * @param secret the secret to sign the batch with, or null.
+     * @param batch the batch to send.
+     * @return null if the endpoint answered with a 2xx status, otherwise why
+     * the batch was not delivered.
+     * @throws InterruptedException if the thread is interrupted while waiting.
+     */
+    public String send(String url, String secret, WebhookBatchDto batch) throws InterruptedException {
+        try {
+            byte[] body = ObjectMapperProvider.sharedMapper().writeValueAsBytes(batch);
+            HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(url))
+                    .timeout(timeout)
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(body));
+            if (secret != null && !secret.isEmpty()) {
+                request.header(SIGNATURE_HEADER, sign(secret, body));
+            }
+            int status = httpClient.send(request.build(), HttpResponse.BodyHandlers.discarding()).statusCode();
+            return status >= 200 && status < 300 ? null : "HTTP " + status;
+        } catch (IOException | IllegalArgumentException | GeneralSecurityException e) {
+            return e.toString();
+        }
+    }
+
+    /**
+     * Computes the signature header value of a body, for receivers to check
+     * the batch came from us.
+     *
+     * @param secret the secret of the subscription.
+     * @param body the body of the batch.
+     * @return sha256= followed by the hex HMAC-SHA256 of the body.
+     * @throws GeneralSecurityException if HMAC-SHA256 is not available.
+     */
+    public static String sign(String secret, byte[] body) throws GeneralSecurityException {
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+        return "sha256=" + HexFormat.of().formatHex(mac.doFinal(body));
+    }
+}
@@ -0,0 +1,329 @@
+package com.technico.web.technico.webhooks;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.technico.web.technico.dtos.WebhookDeliveryDto;
+import com.technico.web.technico.models.OutboxEvent;
+import com.technico.web.technico.models.WebhookDeliveryStatus;
+import com.technico.web.technico.models.WebhookSubscription;
+import com.technico.web.technico.repositories.WebhookRepository;
+import jakarta.enterprise.concurrent.ManagedExecutorService;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.EntityTransaction;
+import jakarta.persistence.Persistence;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Drives the dispatcher and the outbox tables of an in-memory database
+ * against a stub receiver: fan-out, claim, send, backoff, retry, dead letter
+ * and redelivery. The dispatcher runs its tasks on the calling thread, so a
+ * {@link WebhookDispatcher#wake()} returns once the outbox has been sent.
+ */
+public class WebhookDispatcherTest {
+
+    private static final int MAX_ATTEMPTS = 3;
+
+    static {
+        // Read by the dispatcher when it is first used; milliseconds of
+        // backoff keep the retries quick.
+        System.setProperty("technico.webhooks.maxAttempts", String.valueOf(MAX_ATTEMPTS));
+        System.setProperty("technico.webhooks.backoffMillis", "1");
+        System.setProperty("technico.webhooks.maxBackoffMillis", "1000");
+        System.setProperty("technico.webhooks.timeoutSeconds", "5");
+    }
+
+    private static EntityManagerFactory entityManagerFactory;
+
+    private EntityManager entityManager;
+    private WebhookRepository webhookRepository;
+    private WebhookDispatcher dispatcher;
+    private WebhookStubReceiver receiver;
+
+    @BeforeAll
+    static void createDatabase() {
+        entityManagerFactory = Persistence.createEntityManagerFactory("Test");
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+        entityManager.getTransaction().begin();
+        entityManager.createNativeQuery("CREATE ALIAS IF NOT EXISTS FIND_IN_SET FOR '"
+                + WebhookDispatcherTest.class.getName() + ".findInSet'").executeUpdate();
+        entityManager.getTransaction().commit();
+        entityManager.close();
+    }
+
+    @AfterAll
+    static void dropDatabase() {
+        entityManagerFactory.close();
+    }
+
+    @BeforeEach
+    void setUp() throws Exception {
+        entityManager = entityManagerFactory.createEntityManager();
+        webhookRepository = new TransactionalWebhookRepository(entityManager);
+        set(webhookRepository, WebhookRepository.class, "entityManager", entityManager);
+        dispatcher = new WebhookDispatcher();
+        set(dispatcher, WebhookDispatcher.class, "executor", callerRuns());
+        set(dispatcher, WebhookDispatcher.class, "webhookRepository", webhookRepository);
+        receiver = new WebhookStubReceiver("s3cret", List.of());
+    }
+
+    @AfterEach
+    void tearDown() {
+        receiver.close();
+        EntityTransaction transaction = entityManager.getTransaction();
+        transaction.begin();
+        entityManager.createQuery("DELETE FROM WebhookDelivery").executeUpdate();
+        entityManager.createQuery("DELETE FROM OutboxEvent").executeUpdate();
+        entityManager.createQuery("DELETE FROM WebhookSubscription").executeUpdate();
+        transaction.commit();
+        entityManager.close();
+    }
+
+    @Test
+    void deliversAChangeAsASignedBatch() {
+        Long subscriptionId = subscribe(null);
+        addRepairChange(42L);
+
+        dispatcher.wake();
+
+        assertEquals(1, receiver.received().size());
+        WebhookStubReceiver.Received batch = receiver.received().get(0);
+        assertTrue(batch.signed());
+        assertEquals(subscriptionId, batch.batch().path("subscriptionId").asLong());
+        assertEquals("repair.updated", batch.batch().path("events").get(0).path("type").asText());
+        WebhookDeliveryDto delivery = delivery(subscriptionId, WebhookDeliveryStatus.DELIVERED);
+        assertEquals(0, delivery.getAttempts());
+    }
+
+    @Test
+    void retriesAFailedBatchAfterTheBackoff() throws InterruptedException {
+        Long subscriptionId = subscribe(null);
+        receiver.answer(500);
+        addRepairChange(42L);
+
+        dispatcher.wake();
+
+        WebhookDeliveryDto failed = delivery(subscriptionId, WebhookDeliveryStatus.PENDING);
+        assertEquals(1, failed.getAttempts());
+        assertEquals("HTTP 500", failed.getLastError());
+        assertTrue(failed.getNextAttemptAt().isAfter(failed.getOccurredAt()));
+
+        waitForBackoff();
+        dispatcher.wake();
+
+        assertEquals(List.of(500, 200), statuses());
+        WebhookDeliveryDto delivered = delivery(subscriptionId, WebhookDeliveryStatus.DELIVERED);
+        assertEquals(1, delivered.getAttempts());
+        assertEquals(null, delivered.getLastError());
+    }
+
+    @Test
+    void deadLettersADeliveryAfterTheLastAttemptUntilItIsRedelivered() throws InterruptedException {
+        Long subscriptionId = subscribe(null);
+        receiver.answer(503, 503, 503);
+        addRepairChange(42L);
+
+        for (int attempt = 1; attempt <= MAX_ATTEMPTS; attempt++) {
+            dispatcher.wake();
+            waitForBackoff();
+        }
+
+        WebhookDeliveryDto dead = delivery(subscriptionId, WebhookDeliveryStatus.DEAD);
+        assertEquals(MAX_ATTEMPTS, dead.getAttempts());
+        assertEquals("HTTP 503", dead.getLastError());
+
+        // A dead letter is not sent again by itself.
+        dispatcher.wake();
+        assertEquals(List.of(503, 503, 503), statuses());
+
+        assertEquals(1, webhookRepository.redeliver(subscriptionId, null, LocalDateTime.now()));
+        dispatcher.wake();
+
+        assertEquals(List.of(503, 503, 503, 200), statuses());
+        delivery(subscriptionId, WebhookDeliveryStatus.DELIVERED);
+    }
+
+    @Test
+    void fansOutOnlyTheKindsOfChangesSubscribedTo() {
+        Long repairs = subscribe("repair");
+        Long properties = subscribe("property");
+        addRepairChange(42L);
+
+        dispatcher.wake();
+
+        assertEquals(1, receiver.received().size());
+        assertEquals(repairs, receiver.received().get(0).batch().path("subscriptionId").asLong());
+        assertTrue(webhookRepository.findDeliveries(properties, WebhookDeliveryStatus.DELIVERED, 10).isEmpty());
+    }
+
+    /**
+     * FIND_IN_SET of MySQL, for the fan-out; public, with its class, for H2
+     * to call it.
+     */
+    public static int findInSet(String value, String set) {
+        return value == null || set == null ? 0 : List.of(set.split(",")).indexOf(value) + 1;
+    }
+
+    private Long subscribe(String eventTypes) {
+        return webhookRepository.saveSubscription(new WebhookSubscription(null, receiver.url(), "s3cret",
+                eventTypes, true, LocalDateTime.now())).getId();
+    }
+
+    private void addRepairChange(Long repairId) {
+        webhookRepository.addOutboxEvent(new OutboxEvent(null, OutboxObserver.REPAIR, repairId, "repair.updated",
+                "{\"repairId\":" + repairId + "}", LocalDateTime.now(), false));
+    }
+
+    private WebhookDeliveryDto delivery(Long subscriptionId, WebhookDeliveryStatus status) {
+        List<WebhookDeliveryDto> deliveries = webhookRepository.findDeliveries(subscriptionId, status, 10);
+        assertEquals(1, deliveries.size(), "deliveries " + status);
+        return deliveries.get(0);
+    }
+
+    private List<Integer> statuses() {
+        return receiver.received().stream().map(WebhookStubReceiver.Received::status).toList();
+    }
+
+    private static void waitForBackoff() throws InterruptedException {
+        // Longer than the backoff after any of the attempts.
+        Thread.sleep(20);
+    }
+
+    private static void set(Object target, Class<?> type, String name, Object value) throws ReflectiveOperationException {
+        Field field = type.getDeclaredField(name);
+        field.setAccessible(true);
+        field.set(target, value);
+    }
+
+    /**
+     * A managed executor that runs every task on the calling thread.
+     */
+    private static ManagedExecutorService callerRuns() {
+        ExecutorService callerRuns = new AbstractExecutorService() {
+            @Override
+            public void execute(Runnable command) {
+                command.run();
+            }
+
+            @Override
+            public void shutdown() {
+            }
+
+            @Override
+            public List<Runnable> shutdownNow() {
+                return List.of();
+            }
+
+            @Override
+            public boolean isShutdown() {
+                return false;
+            }
+
+            @Override
+            public boolean isTerminated() {
+                return false;
+            }
+
+            @Override
+            public boolean awaitTermination(long timeout, TimeUnit unit) {
+                return true;
+            }
+        };
+        return (ManagedExecutorService) Proxy.newProxyInstance(ManagedExecutorService.class.getClassLoader(),
+                new Class<?>[] {ManagedExecutorService.class}, (proxy, method, args) -> {
+                    try {
+                        return method.invoke(callerRuns, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                });
+    }
+
+    /**
+     * Runs the transactional methods in a transaction of their own, as the
+     * container does, with a fresh persistence context after each.
+     */
+    private static class TransactionalWebhookRepository extends WebhookRepository {
+
+        private final EntityManager entityManager;
+
+        TransactionalWebhookRepository(EntityManager entityManager) {
+            this.entityManager = entityManager;
+        }
+
+        @Override
+        public WebhookSubscription saveSubscription(WebhookSubscription subscription) {
+            return inTransaction(() -> super.saveSubscription(subscription));
+        }
+
+        @Override
+        public void addOutboxEvent(OutboxEvent event) {
+            inTransaction(() -> {
+                super.addOutboxEvent(event);
+                return null;
+            });
+        }
+
+        @Override
+        public int fanOut(int count, LocalDateTime now) {
+            return inTransaction(() -> super.fanOut(count, now));
+        }
+
+        @Override
+        public List<Long> claimDeliveries(Long subscriptionId, int count, LocalDateTime now,
+                LocalDateTime leaseExpiresAt) {
+            return inTransaction(() -> super.claimDeliveries(subscriptionId, count, now, leaseExpiresAt));
+        }
+
+        @Override
+        public void markDelivered(Collection<Long> ids, LocalDateTime now) {
+            inTransaction(() -> {
+                super.markDelivered(ids, now);
+                return null;
+            });
+        }
+
+        @Override
+        public int markFailed(Collection<Long> ids, String error, LocalDateTime now, int maxAttempts,
+                IntFunction<Duration> backoff) {
+            return inTransaction(() -> super.markFailed(ids, error, now, maxAttempts, backoff));
+        }
+
+        @Override
+        public int redeliver(Long subscriptionId, Long id, LocalDateTime now) {
+            return inTransaction(() -> super.redeliver(subscriptionId, id, now));
+        }
+
+        private <T> T inTransaction(Supplier<T> work) {
+            EntityTransaction transaction = entityManager.getTransaction();
+            transaction.begin();
+            try {
+                T result = work.get();
+                transaction.commit();
+                return result;
+            } finally {
+                if (transaction.isActive()) {
+                    transaction.rollback();
+                }
+                entityManager.clear();
+            }
+        }
+    }
+}
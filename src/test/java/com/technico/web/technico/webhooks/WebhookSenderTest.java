@@ -0,0 +1,59 @@
+package com.technico.web.technico.webhooks;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.technico.web.technico.dtos.WebhookBatchDto;
+import com.technico.web.technico.dtos.WebhookEventDto;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class WebhookSenderTest {
+
+    private final WebhookSender sender = new WebhookSender(Duration.ofSeconds(5));
+
+    private final WebhookBatchDto batch = new WebhookBatchDto(7L, List.of(
+            new WebhookEventDto(1L, "repair.created", LocalDateTime.of(2024, 7, 1, 9, 30), "{\"repairId\":42}"),
+            new WebhookEventDto(2L, "property.deleted", LocalDateTime.of(2024, 7, 1, 9, 31), "{\"id\":5}")));
+
+    @Test
+    void reportsAFailedStatusAndDeliversASignedBatch() throws Exception {
+        try (WebhookStubReceiver receiver = new WebhookStubReceiver("s3cret", List.of(503))) {
+            assertEquals("HTTP 503", sender.send(receiver.url(), "s3cret", batch));
+            assertNull(sender.send(receiver.url(), "s3cret", batch));
+
+            assertEquals(2, receiver.received().size());
+            WebhookStubReceiver.Received last = receiver.received().get(1);
+            assertTrue(last.signed());
+            assertEquals(7, last.batch().path("subscriptionId").asLong());
+            JsonNode events = last.batch().path("events");
+            assertEquals(2, events.size());
+            assertEquals(1, events.get(0).path("id").asLong());
+            assertEquals(2, events.get(1).path("id").asLong());
+            assertEquals(42, events.get(0).path("data").path("repairId").asLong());
+        }
+    }
+
+    @Test
+    void sendsABatchWithoutASecretUnsigned() throws Exception {
+        try (WebhookStubReceiver receiver = new WebhookStubReceiver("s3cret", List.of())) {
+            assertNull(sender.send(receiver.url(), null, batch));
+            assertFalse(receiver.received().get(0).signed());
+        }
+    }
+
+    @Test
+    void reportsAnUnreachableEndpoint() throws Exception {
+        String url;
+        try (WebhookStubReceiver closed = new WebhookStubReceiver(null, List.of())) {
+            url = closed.url();
+        }
+        assertNotNull(sender.send(url, null, batch));
+    }
+}
@@ -0,0 +1,79 @@
+package com.technico.web.technico.webhooks;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.sun.net.httpserver.HttpServer;
+import com.technico.web.technico.providers.ObjectMapperProvider;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.security.GeneralSecurityException;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * A local stub webhook receiver, for checking webhook delivery end to end
+ * without a partner. It records every batch it receives and whether its
+ * signature matches the secret, and answers the given statuses in turn, for
+ * example {@code 500,500,200}, before answering 200, so that the dispatcher
+ * can be watched backing off, retrying and dead-lettering.
+ */
+public class WebhookStubReceiver implements AutoCloseable {
+
+    private final HttpServer server;
+    private final Deque<Integer> statuses = new ConcurrentLinkedDeque<>();
+    private final List<Received> received = new CopyOnWriteArrayList<>();
+
+    public record Received(JsonNode batch, boolean signed, int status) {
+    }
+
+    /**
+     * Starts receiving on a free local port.
+     *
+     * @param secret the secret batches should be signed with, or null.
+     * @param statuses the statuses to answer first.
+     * @throws IOException if the server cannot be started.
+     */
+    public WebhookStubReceiver(String secret, List<Integer> statuses) throws IOException {
+        this.statuses.addAll(statuses);
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/hook", exchange -> {
+            byte[] body = exchange.getRequestBody().readAllBytes();
+            boolean signed;
+            try {
+                signed = secret != null && WebhookSender.sign(secret, body)
+                        .equals(exchange.getRequestHeaders().getFirst(WebhookSender.SIGNATURE_HEADER));
+            } catch (GeneralSecurityException e) {
+                signed = false;
+            }
+            Integer next = this.statuses.poll();
+            int status = next != null ? next : 200;
+            received.add(new Received(ObjectMapperProvider.sharedMapper().readTree(body), signed, status));
+            exchange.sendResponseHeaders(status, -1);
+            exchange.close();
+        });
+        server.start();
+    }
+
+    public String url() {
+        return "http://localhost:" + server.getAddress().getPort() + "/hook";
+    }
+
+    /**
+     * Answers the given statuses in turn before answering 200 again.
+     *
+     * @param next the statuses to answer.
+     */
+    public void answer(Integer... next) {
+        statuses.addAll(List.of(next));
+    }
+
+    public List<Received> received() {
+        return received;
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+}